@@ -0,0 +1,354 @@
+package com.team.medaibackend.analytics;
+
+import java.util.*;
+
+/**
+ * Immutable column store for one fact table of the analytics cube.
+ * <p>
+ * Every row has an epoch day (for range filters), one dictionary-encoded code per dimension and one
+ * int per measure ({@link #MISSING} when absent), all held in primitive arrays. A million rows with
+ * eight dimensions is roughly 40 MB and a full scan takes a few milliseconds, so any slice can be
+ * answered by scanning instead of maintaining pre-aggregated views.
+ */
+public final class ColumnarTable {
+
+    public static final int MISSING = Integer.MIN_VALUE;
+    public static final String UNKNOWN = "Unknown";
+
+    // Group-by cells up to this many use a dense array instead of a hash map
+    private static final long DENSE_CELL_LIMIT = 1 << 16;
+
+    private final String name;
+    private final int rowCount;
+    private final int[] days;
+    private final List<String> dimensionNames;
+    private final int[][] codes;
+    private final String[][] dictionaries;
+    private final List<String> measureNames;
+    private final int[][] measures;
+
+    private ColumnarTable(String name, int rowCount, int[] days, List<String> dimensionNames, int[][] codes,
+                          String[][] dictionaries, List<String> measureNames, int[][] measures) {
+        this.name = name;
+        this.rowCount = rowCount;
+        this.days = days;
+        this.dimensionNames = dimensionNames;
+        this.codes = codes;
+        this.dictionaries = dictionaries;
+        this.measureNames = measureNames;
+        this.measures = measures;
+    }
+
+    public static Builder builder(String name, List<String> dimensions, List<String> measures) {
+        return new Builder(name, dimensions, measures);
+    }
+
+    public String getName() {
+        return name;
+    }
+
+    public int getRowCount() {
+        return rowCount;
+    }
+
+    public List<String> getDimensionNames() {
+        return dimensionNames;
+    }
+
+    public List<String> getMeasureNames() {
+        return measureNames;
+    }
+
+    /**
+     * Approximate heap footprint of the columns and dictionaries
+     */
+    public long getMemoryBytes() {
+        long bytes = arrayBytes(days.length, 4);
+        for (int[] column : codes) {
+            bytes += arrayBytes(column.length, 4);
+        }
+        for (int[] column : measures) {
+            bytes += arrayBytes(column.length, 4);
+        }
+        for (String[] dictionary : dictionaries) {
+            bytes += arrayBytes(dictionary.length, 4);
+            for (String value : dictionary) {
+                // String object plus its (mostly Latin-1) byte array
+                bytes += 24 + arrayBytes(value.length(), 1);
+            }
+        }
+        return bytes;
+    }
+
+    /**
+     * Count, and sum/average of {@code measure} when given, for rows with a day in [fromDay, toDay]
+     * that pass every filter, grouped by {@code groupBy}. Rows come back largest count first.
+     */
+    public List<Map<String, Object>> aggregate(long fromDay, long toDay, List<String> groupBy,
+                                               Map<String, Set<String>> filters, String measure, int limit) {
+        int[] groupDims = new int[groupBy.size()];
+        int[] radix = new int[groupBy.size()];
+        long cells = 1;
+        for (int g = 0; g < groupDims.length; g++) {
+            groupDims[g] = dimensionIndex(groupBy.get(g));
+            radix[g] = Math.max(1, dictionaries[groupDims[g]].length);
+            cells = cells > Long.MAX_VALUE / radix[g] ? Long.MAX_VALUE : cells * radix[g];
+        }
+
+        int[] filterDims = new int[filters.size()];
+        boolean[][] allowed = new boolean[filters.size()][];
+        int f = 0;
+        for (Map.Entry<String, Set<String>> filter : filters.entrySet()) {
+            filterDims[f] = dimensionIndex(filter.getKey());
+            String[] dictionary = dictionaries[filterDims[f]];
+            allowed[f] = new boolean[dictionary.length];
+            for (int code = 0; code < dictionary.length; code++) {
+                allowed[f][code] = filter.getValue().contains(dictionary[code]);
+            }
+            f++;
+        }
+
+        int[] measureColumn = null;
+        if (measure != null) {
+            int index = measureNames.indexOf(measure);
+            if (index < 0) {
+                throw new IllegalArgumentException("Unknown measure '" + measure + "' for " + name + ", expected one of " + measureNames);
+            }
+            measureColumn = measures[index];
+        }
+
+        boolean dense = cells <= DENSE_CELL_LIMIT;
+        Cells acc = new Cells(dense ? (int) cells : 0);
+
+        rows:
+        for (int row = 0; row < rowCount; row++) {
+            int day = days[row];
+            if (day < fromDay || day > toDay) {
+                continue;
+            }
+            for (int i = 0; i < filterDims.length; i++) {
+                if (!allowed[i][codes[filterDims[i]][row]]) {
+                    continue rows;
+                }
+            }
+
+            long key = 0;
+            for (int g = 0; g < groupDims.length; g++) {
+                key = key * radix[g] + codes[groupDims[g]][row];
+            }
+            int cell = dense ? (int) key : acc.cellFor(key);
+
+            acc.counts[cell]++;
+            if (measureColumn != null && measureColumn[row] != MISSING) {
+                acc.measured[cell]++;
+                acc.sums[cell] += measureColumn[row];
+            }
+        }
+
+        // Keep only the largest cells before building any result objects
+        int cellCount = acc.size(dense);
+        long[] counts = acc.counts;
+        PriorityQueue<Integer> top = new PriorityQueue<>(Comparator.comparingLong(cell -> counts[cell]));
+        for (int cell = 0; cell < cellCount; cell++) {
+            if (counts[cell] == 0) {
+                continue;
+            }
+            if (top.size() < limit) {
+                top.add(cell);
+            } else if (counts[cell] > counts[top.peek()]) {
+                top.poll();
+                top.add(cell);
+            }
+        }
+
+        List<Map<String, Object>> result = new ArrayList<>(top.size());
+        while (!top.isEmpty()) {
+            int cell = top.poll();
+            Map<String, Object> item = new LinkedHashMap<>();
+            long key = dense ? cell : acc.keys[cell];
+            String[] labels = new String[groupDims.length];
+            for (int g = groupDims.length - 1; g >= 0; g--) {
+                labels[g] = dictionaries[groupDims[g]][(int) (key % radix[g])];
+                key /= radix[g];
+            }
+            for (int g = 0; g < groupDims.length; g++) {
+                item.put(groupBy.get(g), labels[g]);
+            }
+            item.put("count", counts[cell]);
+            if (measureColumn != null) {
+                item.put("sum", acc.sums[cell]);
+                item.put("average", acc.measured[cell] > 0
+                        ? Math.round((double) acc.sums[cell] / acc.measured[cell] * 10) / 10.0 : null);
+            }
+            result.add(item);
+        }
+        Collections.reverse(result);
+        return result;
+    }
+
+    private int dimensionIndex(String dimension) {
+        int index = dimensionNames.indexOf(dimension);
+        if (index < 0) {
+            throw new IllegalArgumentException("Unknown dimension '" + dimension + "' for " + name + ", expected one of " + dimensionNames);
+        }
+        return index;
+    }
+
+    private static long arrayBytes(int length, int elementBytes) {
+        return 16 + (long) length * elementBytes;
+    }
+
+    /**
+     * Per-cell accumulators. Sparse cells are numbered in order of first appearance and found
+     * through an open-addressing table of group keys, so a scan allocates nothing per row.
+     */
+    private static final class Cells {
+        long[] counts;
+        long[] measured;
+        long[] sums;
+        long[] keys;
+        private int size;
+        private long[] slotKeys;
+        private int[] slotCells;
+
+        Cells(int denseSize) {
+            counts = new long[Math.max(denseSize, 16)];
+            measured = new long[counts.length];
+            sums = new long[counts.length];
+        }
+
+        int size(boolean dense) {
+            return dense ? counts.length : size;
+        }
+
+        int cellFor(long key) {
+            if (slotKeys == null) {
+                keys = new long[counts.length];
+                slotKeys = new long[64];
+                slotCells = new int[64];
+                Arrays.fill(slotCells, -1);
+            }
+            int mask = slotKeys.length - 1;
+            int slot = (int) (mix(key) & mask);
+            while (slotCells[slot] >= 0) {
+                if (slotKeys[slot] == key) {
+                    return slotCells[slot];
+                }
+                slot = (slot + 1) & mask;
+            }
+
+            int cell = size++;
+            if (cell == counts.length) {
+                int grown = counts.length * 2;
+                counts = Arrays.copyOf(counts, grown);
+                measured = Arrays.copyOf(measured, grown);
+                sums = Arrays.copyOf(sums, grown);
+                keys = Arrays.copyOf(keys, grown);
+            }
+            keys[cell] = key;
+            slotKeys[slot] = key;
+            slotCells[slot] = cell;
+            if (size * 2 > slotKeys.length) {
+                rehash();
+            }
+            return cell;
+        }
+
+        private void rehash() {
+            long[] oldKeys = slotKeys;
+            int[] oldCells = slotCells;
+            slotKeys = new long[oldKeys.length * 2];
+            slotCells = new int[oldCells.length * 2];
+            Arrays.fill(slotCells, -1);
+            int mask = slotKeys.length - 1;
+            for (int i = 0; i < oldKeys.length; i++) {
+                if (oldCells[i] >= 0) {
+                    int slot = (int) (mix(oldKeys[i]) & mask);
+                    while (slotCells[slot] >= 0) {
+                        slot = (slot + 1) & mask;
+                    }
+                    slotKeys[slot] = oldKeys[i];
+                    slotCells[slot] = oldCells[i];
+                }
+            }
+        }
+
+        private static long mix(long key) {
+            key *= 0x9E3779B97F4A7C15L;
+            return key ^ (key >>> 32);
+        }
+    }
+
+    /**
+     * Row-at-a-time builder; dictionaries exist only while building
+     */
+    public static final class Builder {
+
+        private final String name;
+        private final List<String> dimensionNames;
+        private final List<String> measureNames;
+        private final List<Map<String, Integer>> dictionaries = new ArrayList<>();
+        private int rowCount;
+        private int[] days = new int[1024];
+        private int[][] codes;
+        private int[][] measures;
+
+        private Builder(String name, List<String> dimensions, List<String> measures) {
+            this.name = name;
+            this.dimensionNames = List.copyOf(dimensions);
+            this.measureNames = List.copyOf(measures);
+            this.codes = new int[dimensions.size()][days.length];
+            this.measures = new int[measures.size()][days.length];
+            for (int d = 0; d < dimensions.size(); d++) {
+                dictionaries.add(new HashMap<>());
+            }
+        }
+
+        /**
+         * @param dimensionValues one per dimension, null meaning {@link #UNKNOWN}
+         * @param measureValues   one per measure, {@link #MISSING} when absent
+         */
+        public Builder addRow(long epochDay, String[] dimensionValues, int[] measureValues) {
+            if (rowCount == days.length) {
+                int grown = days.length * 2;
+                days = Arrays.copyOf(days, grown);
+                for (int d = 0; d < codes.length; d++) {
+                    codes[d] = Arrays.copyOf(codes[d], grown);
+                }
+                for (int m = 0; m < measures.length; m++) {
+                    measures[m] = Arrays.copyOf(measures[m], grown);
+                }
+            }
+
+            days[rowCount] = (int) epochDay;
+            for (int d = 0; d < codes.length; d++) {
+                String value = dimensionValues[d] == null || dimensionValues[d].isBlank() ? UNKNOWN : dimensionValues[d];
+                Map<String, Integer> dictionary = dictionaries.get(d);
+                codes[d][rowCount] = dictionary.computeIfAbsent(value, v -> dictionary.size());
+            }
+            for (int m = 0; m < measures.length; m++) {
+                measures[m][rowCount] = measureValues[m];
+            }
+            rowCount++;
+            return this;
+        }
+
+        public ColumnarTable build() {
+            int[][] trimmedCodes = new int[codes.length][];
+            String[][] values = new String[codes.length][];
+            for (int d = 0; d < codes.length; d++) {
+                trimmedCodes[d] = Arrays.copyOf(codes[d], rowCount);
+                values[d] = new String[dictionaries.get(d).size()];
+                for (Map.Entry<String, Integer> entry : dictionaries.get(d).entrySet()) {
+                    values[d][entry.getValue()] = entry.getKey();
+                }
+            }
+            int[][] trimmedMeasures = new int[measures.length][];
+            for (int m = 0; m < measures.length; m++) {
+                trimmedMeasures[m] = Arrays.copyOf(measures[m], rowCount);
+            }
+            return new ColumnarTable(name, rowCount, Arrays.copyOf(days, rowCount), dimensionNames,
+                    trimmedCodes, values, measureNames, trimmedMeasures);
+        }
+    }
+}
@@ -0,0 +1,144 @@
+package com.team.medaibackend.analytics;
+
+import java.io.ByteArrayOutputStream;
+import java.util.Arrays;
+
+/**
+ * Mergeable quantile sketch for non-negative durations, with logarithmic buckets in the style of DDSketch.
+ * <p>
+ * A value v >= 1 lands in bucket ceil(log_gamma(v)), so any reported quantile is within
+ * {@link #RELATIVE_ACCURACY} of a true sample value. Values below 1 are counted separately.
+ * Merging adds bucket counts, which makes per-day sketches combinable over any date range
+ * with exactly the accuracy of a sketch built from all the raw values.
+ * A year in minutes needs about 660 buckets, and encoded sketches are usually a few hundred bytes.
+ */
+public final class QuantileSketch {
+
+    public static final double RELATIVE_ACCURACY = 0.01;
+
+    private static final double GAMMA = (1 + RELATIVE_ACCURACY) / (1 - RELATIVE_ACCURACY);
+    private static final double LOG_GAMMA = Math.log(GAMMA);
+    private static final byte FORMAT_VERSION = 1;
+
+    private long[] counts = new long[0];
+    private long zeroCount;
+    private long totalCount;
+
+    public void add(double value) {
+        if (value < 1) {
+            zeroCount++;
+        } else {
+            int index = (int) Math.ceil(Math.log(value) / LOG_GAMMA);
+            ensureCapacity(index);
+            counts[index]++;
+        }
+        totalCount++;
+    }
+
+    public void merge(QuantileSketch other) {
+        ensureCapacity(other.counts.length - 1);
+        for (int i = 0; i < other.counts.length; i++) {
+            counts[i] += other.counts[i];
+        }
+        zeroCount += other.zeroCount;
+        totalCount += other.totalCount;
+    }
+
+    public long getCount() {
+        return totalCount;
+    }
+
+    public boolean isEmpty() {
+        return totalCount == 0;
+    }
+
+    /**
+     * Value at quantile {@code q} in [0, 1]; 0 for an empty sketch
+     */
+    public double quantile(double q) {
+        if (totalCount == 0) {
+            return 0;
+        }
+
+        long rank = (long) Math.floor(Math.min(Math.max(q, 0), 1) * (totalCount - 1));
+        if (rank < zeroCount) {
+            return 0;
+        }
+
+        long seen = zeroCount;
+        for (int i = 0; i < counts.length; i++) {
+            seen += counts[i];
+            if (seen > rank) {
+                // Midpoint of (gamma^(i-1), gamma^i], within the relative accuracy of every value in it
+                return 2 * Math.pow(GAMMA, i) / (GAMMA + 1);
+            }
+        }
+        return 2 * Math.pow(GAMMA, counts.length - 1) / (GAMMA + 1);
+    }
+
+    /**
+     * Compact form for storage: version, zero count, then (bucket gap, count) varint pairs for non-empty buckets
+     */
+    public byte[] encode() {
+        ByteArrayOutputStream out = new ByteArrayOutputStream(64);
+        out.write(FORMAT_VERSION);
+        writeVarLong(out, zeroCount);
+
+        int previous = -1;
+        for (int i = 0; i < counts.length; i++) {
+            if (counts[i] > 0) {
+                writeVarLong(out, i - previous);
+                writeVarLong(out, counts[i]);
+                previous = i;
+            }
+        }
+        return out.toByteArray();
+    }
+
+    public static QuantileSketch decode(byte[] bytes) {
+        if (bytes.length == 0 || bytes[0] != FORMAT_VERSION) {
+            throw new IllegalArgumentException("Unsupported sketch format");
+        }
+
+        QuantileSketch sketch = new QuantileSketch();
+        int[] position = {1};
+        sketch.zeroCount = readVarLong(bytes, position);
+        sketch.totalCount = sketch.zeroCount;
+
+        int index = -1;
+        while (position[0] < bytes.length) {
+            index += (int) readVarLong(bytes, position);
+            long count = readVarLong(bytes, position);
+            sketch.ensureCapacity(index);
+            sketch.counts[index] = count;
+            sketch.totalCount += count;
+        }
+        return sketch;
+    }
+
+    private void ensureCapacity(int index) {
+        if (index >= counts.length) {
+            counts = Arrays.copyOf(counts, Math.max(index + 1, counts.length * 2));
+        }
+    }
+
+    private static void writeVarLong(ByteArrayOutputStream out, long value) {
+        while ((value & ~0x7FL) != 0) {
+            out.write((int) ((value & 0x7F) | 0x80));
+            value >>>= 7;
+        }
+        out.write((int) value);
+    }
+
+    private static long readVarLong(byte[] bytes, int[] position) {
+        long value = 0;
+        int shift = 0;
+        byte b;
+        do {
+            b = bytes[position[0]++];
+            value |= (long) (b & 0x7F) << shift;
+            shift += 7;
+        } while ((b & 0x80) != 0);
+        return value;
+    }
+}
@@ -0,0 +1,33 @@
+package com.team.medaibackend.audit;
+
+import java.time.LocalDateTime;
+import java.util.Map;
+
+/**
+ * One audit_log row waiting to be written. The timestamp is taken when the action happens,
+ * not when the row reaches the database.
+ */
+public record AuditEvent(String action, String resourceType, String resourceId,
+                         Long userId, String username, String ipAddress, String userAgent,
+                         Map<String, Object> details, LocalDateTime createdAt) {
+
+    /**
+     * Builds an event with text cut to the audit_log column lengths, so one oversized value
+     * cannot fail a whole batch
+     */
+    public static AuditEvent of(String action, String resourceType, String resourceId,
+                                Long userId, String username, String ipAddress, String userAgent,
+                                Map<String, Object> details) {
+        return new AuditEvent(truncate(action, 100), truncate(resourceType, 100), truncate(resourceId, 100),
+                userId, truncate(username, 100), truncate(ipAddress, 50), truncate(userAgent, 500),
+                details, LocalDateTime.now());
+    }
+
+    public AuditEvent withoutUserId() {
+        return new AuditEvent(action, resourceType, resourceId, null, username, ipAddress, userAgent, details, createdAt);
+    }
+
+    private static String truncate(String value, int length) {
+        return value != null && value.length() > length ? value.substring(0, length) : value;
+    }
+}
@@ -0,0 +1,120 @@
+package com.team.medaibackend.audit;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Local append-only file (one JSON event per line) for audit events the database could not take.
+ * <p>
+ * Appends are forced to disk before returning, so a spilled event survives a crash. Replay first
+ * moves the file aside, so new spills keep appending while the old ones are written back, and
+ * streams it in batches so memory does not grow with the backlog. A crash in the middle of a
+ * replay writes that file's remaining batches again on restart (at-least-once).
+ */
+public class AuditSpillFile {
+
+    private final Path file;
+    private final Path replaying;
+    private final ObjectMapper objectMapper;
+    private long replayedLines;
+
+    public AuditSpillFile(Path file, ObjectMapper objectMapper) {
+        this.file = file;
+        this.replaying = file.resolveSibling(file.getFileName() + ".replaying");
+        this.objectMapper = objectMapper;
+    }
+
+    public synchronized void append(List<AuditEvent> events) throws IOException {
+        if (events.isEmpty()) {
+            return;
+        }
+        Files.createDirectories(file.toAbsolutePath().getParent());
+
+        StringBuilder lines = new StringBuilder();
+        for (AuditEvent event : events) {
+            lines.append(objectMapper.writeValueAsString(event)).append('\n');
+        }
+        try (FileChannel channel = FileChannel.open(file,
+                StandardOpenOption.CREATE, StandardOpenOption.WRITE, StandardOpenOption.APPEND)) {
+            ByteBuffer buffer = ByteBuffer.wrap(lines.toString().getBytes(StandardCharsets.UTF_8));
+            while (buffer.hasRemaining()) {
+                channel.write(buffer);
+            }
+            channel.force(false);
+        }
+    }
+
+    /**
+     * True when there are spilled events to write back
+     */
+    public synchronized boolean hasPending() {
+        return Files.exists(replaying) || (Files.exists(file) && sizeOf(file) > 0);
+    }
+
+    @FunctionalInterface
+    public interface BatchWriter {
+        void write(List<AuditEvent> batch) throws Exception;
+    }
+
+    /**
+     * Writes spilled events back in batches. Lines already written by an earlier, interrupted call
+     * are skipped; the file is deleted once everything has been written. Called by one thread only.
+     */
+    public void replay(int batchSize, BatchWriter writer) throws Exception {
+        synchronized (this) {
+            if (!Files.exists(replaying)) {
+                if (!Files.exists(file)) {
+                    return;
+                }
+                Files.move(file, replaying, StandardCopyOption.ATOMIC_MOVE);
+                replayedLines = 0;
+            }
+        }
+
+        List<AuditEvent> batch = new ArrayList<>();
+        long lineNumber = 0;
+        try (BufferedReader reader = Files.newBufferedReader(replaying, StandardCharsets.UTF_8)) {
+            String line;
+            while ((line = reader.readLine()) != null) {
+                lineNumber++;
+                if (lineNumber <= replayedLines || line.isBlank()) {
+                    continue;
+                }
+                // A torn last line from a crash mid-append is skipped rather than blocking replay
+                try {
+                    batch.add(objectMapper.readValue(line, AuditEvent.class));
+                } catch (IOException ignored) {
+                }
+                if (batch.size() >= batchSize) {
+                    writer.write(batch);
+                    replayedLines = lineNumber;
+                    batch.clear();
+                }
+            }
+        }
+        if (!batch.isEmpty()) {
+            writer.write(batch);
+        }
+        Files.deleteIfExists(replaying);
+        replayedLines = 0;
+    }
+
+    private static long sizeOf(Path path) {
+        try {
+            return Files.size(path);
+        } catch (IOException e) {
+            return 0;
+        }
+    }
+}
@@ -0,0 +1,281 @@
+package com.team.medaibackend.audit;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.dao.DataAccessException;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Component;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * Writes audit events to audit_log off the request path.
+ * <p>
+ * Callers put events into a bounded lock-free buffer; one writer thread takes them out and inserts
+ * them with a single multi-row INSERT once {@code batch-size} events are waiting or the oldest has
+ * waited {@code flush-interval-ms}. When the database fails (or the buffer is full) events go to a
+ * local spill file, which is written back once the database accepts writes again, so nothing is
+ * lost. Spilled events are delivered at least once: a crash during write-back can repeat a batch.
+ */
+@Component
+public class AuditWriter {
+
+    private static final Logger logger = LoggerFactory.getLogger(AuditWriter.class);
+
+    private static final String INSERT =
+            "INSERT INTO audit_log (user_id, username, action, resource_type, resource_id, " +
+                    "ip_address, user_agent, details, created_at) VALUES ";
+    private static final String ROW = "(?, ?, ?, ?, ?, ?, ?, CAST(? AS jsonb), ?)";
+
+    private final JdbcTemplate jdbcTemplate;
+    private final ObjectMapper objectMapper;
+    private final BoundedRingBuffer<AuditEvent> buffer;
+    private final AuditSpillFile spillFile;
+    private final int batchSize;
+    private final long flushIntervalNanos;
+    private final long retryBackoffNanos;
+
+    private final LongAdder written = new LongAdder();
+    private final LongAdder spilled = new LongAdder();
+    private final LongAdder dropped = new LongAdder();
+
+    private volatile Thread thread;
+    private volatile boolean running;
+    private volatile boolean idle;
+    private volatile boolean spillPending;
+    private volatile long retryAt;
+
+    public AuditWriter(JdbcTemplate jdbcTemplate,
+                       ObjectMapper objectMapper,
+                       @Value("${audit.writer.capacity:8192}") int capacity,
+                       @Value("${audit.writer.batch-size:500}") int batchSize,
+                       @Value("${audit.writer.flush-interval-ms:200}") long flushIntervalMs,
+                       @Value("${audit.writer.retry-backoff-ms:5000}") long retryBackoffMs,
+                       @Value("${audit.writer.spill-path:${storage.local.root-path}/audit/audit-spill.ndjson}") String spillPath) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.objectMapper = objectMapper;
+        this.buffer = new BoundedRingBuffer<>(capacity);
+        this.spillFile = new AuditSpillFile(Path.of(spillPath), objectMapper);
+        this.batchSize = Math.max(1, batchSize);
+        this.flushIntervalNanos = TimeUnit.MILLISECONDS.toNanos(flushIntervalMs);
+        this.retryBackoffNanos = TimeUnit.MILLISECONDS.toNanos(retryBackoffMs);
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void start() {
+        spillPending = spillFile.hasPending();
+        running = true;
+        Thread writer = new Thread(this::run, "audit-writer");
+        writer.setDaemon(true);
+        thread = writer;
+        writer.start();
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        running = false;
+        Thread writer = thread;
+        if (writer != null) {
+            LockSupport.unpark(writer);
+            try {
+                writer.join(TimeUnit.SECONDS.toMillis(10));
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        }
+        // Whatever the writer could not finish goes to disk for the next start
+        List<AuditEvent> remaining = new ArrayList<>();
+        while (buffer.drainTo(remaining, batchSize) > 0) {
+            spill(remaining);
+            remaining.clear();
+        }
+    }
+
+    /**
+     * Never blocks on the database. Spills straight to disk if the buffer is full.
+     */
+    public void enqueue(AuditEvent event) {
+        if (!buffer.offer(event)) {
+            spill(List.of(event));
+            return;
+        }
+        if (idle) {
+            LockSupport.unpark(thread);
+        }
+    }
+
+    public Map<String, Object> getStatistics() {
+        Map<String, Object> stats = new LinkedHashMap<>();
+        stats.put("queued", buffer.size());
+        stats.put("capacity", buffer.capacity());
+        stats.put("written", written.sum());
+        stats.put("spilled", spilled.sum());
+        stats.put("dropped", dropped.sum());
+        stats.put("spillPending", spillPending);
+        stats.put("databaseBackoff", System.nanoTime() - retryAt < 0);
+        return stats;
+    }
+
+    private void run() {
+        List<AuditEvent> batch = new ArrayList<>(batchSize);
+        long lingerUntil = 0;
+        while (running || buffer.size() > 0 || !batch.isEmpty()) {
+            try {
+                if (batch.isEmpty()) {
+                    if (buffer.drainTo(batch, batchSize) == 0) {
+                        replaySpillIfDue();
+                        waitForEvents();
+                        continue;
+                    }
+                    lingerUntil = System.nanoTime() + flushIntervalNanos;
+                }
+                // Let a partial batch fill up for a while, unless we are shutting down
+                if (running && batch.size() < batchSize && System.nanoTime() - lingerUntil < 0) {
+                    if (buffer.drainTo(batch, batchSize - batch.size()) == 0) {
+                        LockSupport.parkNanos(TimeUnit.MILLISECONDS.toNanos(2));
+                    }
+                    continue;
+                }
+                flush(batch);
+                batch.clear();
+            } catch (RuntimeException e) {
+                logger.error("Audit writer error: {}", e.getMessage(), e);
+                spill(batch);
+                batch.clear();
+            }
+        }
+    }
+
+    private void waitForEvents() {
+        if (!running) {
+            return;
+        }
+        idle = true;
+        // Re-check after publishing the idle flag so an event offered in between is not missed
+        if (buffer.size() == 0) {
+            LockSupport.parkNanos(Math.max(flushIntervalNanos, TimeUnit.MILLISECONDS.toNanos(100)));
+        }
+        idle = false;
+    }
+
+    private void flush(List<AuditEvent> batch) {
+        if (System.nanoTime() - retryAt < 0) {
+            spill(batch);
+            return;
+        }
+        try {
+            write(batch);
+        } catch (DataAccessException e) {
+            logger.warn("Audit insert failed, spilling {} events to disk: {}", batch.size(), e.getMessage());
+            retryAt = System.nanoTime() + retryBackoffNanos;
+            spill(batch);
+        }
+    }
+
+    private void replaySpillIfDue() {
+        if (!spillPending || !running || System.nanoTime() - retryAt < 0) {
+            return;
+        }
+        try {
+            spillFile.replay(batchSize, this::write);
+            spillPending = spillFile.hasPending();
+            logger.info("Replayed spilled audit events");
+        } catch (Exception e) {
+            logger.warn("Audit spill replay failed, will retry: {}", e.getMessage());
+            retryAt = System.nanoTime() + retryBackoffNanos;
+        }
+    }
+
+    /**
+     * Inserts the batch in one statement. A constraint violation (e.g. a user deleted since the
+     * event was recorded) falls back to row by row, so one bad row does not hold back the rest.
+     */
+    private void write(List<AuditEvent> batch) {
+        try {
+            insert(batch);
+            written.add(batch.size());
+        } catch (DataIntegrityViolationException e) {
+            for (AuditEvent event : batch) {
+                writeOne(event);
+            }
+        }
+    }
+
+    private void writeOne(AuditEvent event) {
+        try {
+            insert(List.of(event));
+        } catch (DataIntegrityViolationException e) {
+            try {
+                insert(List.of(event.withoutUserId()));
+            } catch (DataIntegrityViolationException again) {
+                dropped.increment();
+                logger.error("Dropping audit event {} {} {}: {}",
+                        event.action(), event.resourceType(), event.resourceId(), again.getMessage());
+                return;
+            }
+        }
+        written.increment();
+    }
+
+    private void insert(List<AuditEvent> events) {
+        StringBuilder sql = new StringBuilder(INSERT);
+        Object[] args = new Object[events.size() * 9];
+        int i = 0;
+        for (AuditEvent event : events) {
+            if (i > 0) {
+                sql.append(", ");
+            }
+            sql.append(ROW);
+            args[i++] = event.userId();
+            args[i++] = event.username();
+            args[i++] = event.action();
+            args[i++] = event.resourceType();
+            args[i++] = event.resourceId();
+            args[i++] = event.ipAddress();
+            args[i++] = event.userAgent();
+            args[i++] = toJson(event.details());
+            args[i++] = event.createdAt();
+        }
+        jdbcTemplate.update(sql.toString(), args);
+    }
+
+    private String toJson(Map<String, Object> details) {
+        if (details == null) {
+            return null;
+        }
+        try {
+            return objectMapper.writeValueAsString(details);
+        } catch (JsonProcessingException e) {
+            return null;
+        }
+    }
+
+    private void spill(List<AuditEvent> events) {
+        if (events.isEmpty()) {
+            return;
+        }
+        try {
+            spillFile.append(events);
+            spilled.add(events.size());
+            spillPending = true;
+        } catch (IOException e) {
+            dropped.add(events.size());
+            logger.error("Could not spill {} audit events: {}", events.size(), e.getMessage());
+        }
+    }
+}
@@ -0,0 +1,82 @@
+package com.team.medaibackend.audit;
+
+import java.util.List;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * Bounded lock-free queue for many producers and a single consumer.
+ * <p>
+ * Each slot carries a sequence number (Vyukov's bounded queue): a producer claims a position with
+ * one CAS on the tail and publishes by advancing the slot's sequence; the consumer only reads
+ * slots whose sequence says they are published. {@link #offer} never blocks and returns false
+ * when the buffer is full.
+ */
+public final class BoundedRingBuffer<E> {
+
+    private final Object[] items;
+    private final AtomicLongArray sequences;
+    private final int mask;
+    private final AtomicLong tail = new AtomicLong();
+    private volatile long head;
+
+    public BoundedRingBuffer(int requestedCapacity) {
+        int capacity = Integer.highestOneBit(Math.max(2, requestedCapacity - 1)) << 1;
+        this.items = new Object[capacity];
+        this.sequences = new AtomicLongArray(capacity);
+        this.mask = capacity - 1;
+        for (int i = 0; i < capacity; i++) {
+            sequences.set(i, i);
+        }
+    }
+
+    public boolean offer(E item) {
+        long position = tail.get();
+        while (true) {
+            int index = (int) (position & mask);
+            long difference = sequences.get(index) - position;
+            if (difference == 0) {
+                if (tail.compareAndSet(position, position + 1)) {
+                    items[index] = item;
+                    sequences.set(index, position + 1);
+                    return true;
+                }
+                position = tail.get();
+            } else if (difference < 0) {
+                return false;
+            } else {
+                position = tail.get();
+            }
+        }
+    }
+
+    /**
+     * Consumer only: moves up to {@code max} items into {@code target}, returning how many were moved
+     */
+    @SuppressWarnings("unchecked")
+    public int drainTo(List<E> target, int max) {
+        int drained = 0;
+        long position = head;
+        while (drained < max) {
+            int index = (int) (position & mask);
+            if (sequences.get(index) != position + 1) {
+                break;
+            }
+            target.add((E) items[index]);
+            items[index] = null;
+            sequences.set(index, position + items.length);
+            position++;
+            drained++;
+        }
+        head = position;
+        return drained;
+    }
+
+    public int size() {
+        return (int) Math.max(0, tail.get() - head);
+    }
+
+    public int capacity() {
+        return items.length;
+    }
+}
@@ -0,0 +1,281 @@
+package com.team.medaibackend.cache;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.cache.support.AbstractValueAdaptingCache;
+
+import java.io.Serializable;
+import java.util.*;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executor;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Function;
+
+/**
+ * Spring {@link org.springframework.cache.Cache} with a TTL, an entry bound and hit/miss counters.
+ * <p>
+ * Entries carry their write time, so expiry and refresh-ahead work the same whether the
+ * store is in-process or shared. With a refresher registered, a hit on an entry older than
+ * the refresh-ahead threshold returns the current value and reloads it in the background,
+ * so readers of hot keys never wait on a cold miss.
+ * <p>
+ * An invalidation bumps the cache's generation. A load only stores its value if no invalidation
+ * happened since it started, so a load that may have read data from before a write cannot
+ * repopulate the cache after it. Entries of an older generation are reloaded on invalidation
+ * (or, failing that, on their next hit) and never count as fresh.
+ */
+public abstract class BoundedCache extends AbstractValueAdaptingCache {
+
+    private static final Logger logger = LoggerFactory.getLogger(BoundedCache.class);
+
+    /**
+     * Stored form of an entry
+     */
+    protected record Entry(Object value, long writtenAt, long generation) implements Serializable {
+    }
+
+    private final String name;
+    protected final long ttlMillis;
+    protected final int maxEntries;
+
+    private final LongAdder hits = new LongAdder();
+    private final LongAdder misses = new LongAdder();
+    private final LongAdder loads = new LongAdder();
+    private final LongAdder refreshes = new LongAdder();
+    protected final LongAdder evictions = new LongAdder();
+
+    private final Map<Object, Object> loadLocks = new ConcurrentHashMap<>();
+    private final Set<Object> refreshing = ConcurrentHashMap.newKeySet();
+    // Keys invalidated while their refresh was running; reloaded again once it ends
+    private final Set<Object> refreshAgain = ConcurrentHashMap.newKeySet();
+
+    private volatile Function<Object, Object> refresher;
+    private volatile long refreshAfterMillis;
+    private volatile Executor refreshExecutor;
+
+    protected BoundedCache(String name, long ttlMillis, int maxEntries) {
+        super(true);
+        this.name = name;
+        this.ttlMillis = ttlMillis;
+        this.maxEntries = maxEntries;
+    }
+
+    protected abstract Entry read(Object key);
+
+    protected abstract void write(Object key, Entry entry);
+
+    protected abstract void delete(Object key);
+
+    protected abstract void deleteAll();
+
+    protected abstract long size();
+
+    protected abstract Collection<Object> keys();
+
+    protected abstract String mode();
+
+    /**
+     * Current generation; shared stores keep it in the store so every node sees invalidations
+     */
+    protected abstract long generation();
+
+    /**
+     * Start a new generation, returning it
+     */
+    protected abstract long nextGeneration();
+
+    /**
+     * Claim the right to refresh a key within a generation; shared stores use this so only one
+     * node recomputes it. A new generation needs a new claim, so an invalidation is never gated
+     * by a claim taken before it.
+     */
+    protected boolean claimRefresh(Object key, long generation) {
+        return true;
+    }
+
+    @Override
+    public String getName() {
+        return name;
+    }
+
+    @Override
+    public Object getNativeCache() {
+        return this;
+    }
+
+    @Override
+    protected Object lookup(Object key) {
+        long now = System.currentTimeMillis();
+        Entry entry = read(key);
+        if (entry == null || isExpired(entry, now)) {
+            if (entry != null) {
+                delete(key);
+            }
+            misses.increment();
+            return null;
+        }
+
+        boolean invalidated = entry.generation() != generation();
+        if (invalidated && refresher == null) {
+            delete(key);
+            misses.increment();
+            return null;
+        }
+
+        hits.increment();
+        if (refresher != null && (invalidated || now - entry.writtenAt() >= refreshAfterMillis)) {
+            refreshAsync(key);
+        }
+        return entry.value();
+    }
+
+    /**
+     * Used by {@code @Cacheable(sync = true)}: concurrent misses on one key run the loader once
+     */
+    @Override
+    @SuppressWarnings("unchecked")
+    public <T> T get(Object key, Callable<T> valueLoader) {
+        ValueWrapper cached = get(key);
+        if (cached != null) {
+            return (T) cached.get();
+        }
+
+        Object lock = loadLocks.computeIfAbsent(key, k -> new Object());
+        try {
+            synchronized (lock) {
+                long generation = generation();
+                Entry entry = read(key);
+                if (entry != null && entry.generation() == generation
+                        && !isExpired(entry, System.currentTimeMillis())) {
+                    return (T) fromStoreValue(entry.value());
+                }
+
+                T value;
+                try {
+                    value = valueLoader.call();
+                } catch (Exception e) {
+                    throw new ValueRetrievalException(key, valueLoader, e);
+                }
+                loads.increment();
+                putIfCurrent(key, value, generation);
+                return value;
+            }
+        } finally {
+            loadLocks.remove(key, lock);
+        }
+    }
+
+    @Override
+    public void put(Object key, Object value) {
+        write(key, new Entry(toStoreValue(value), System.currentTimeMillis(), generation()));
+    }
+
+    @Override
+    public void evict(Object key) {
+        delete(key);
+    }
+
+    @Override
+    public void clear() {
+        deleteAll();
+    }
+
+    /**
+     * Enable refresh-ahead: entries older than {@code refreshAhead} x TTL are reloaded with {@code loader}
+     */
+    public void setRefresher(Function<Object, Object> loader, double refreshAhead, Executor executor) {
+        this.refreshAfterMillis = (long) (ttlMillis * refreshAhead);
+        this.refreshExecutor = executor;
+        this.refresher = loader;
+    }
+
+    /**
+     * Entity data changed: start a new generation, so loads already running cannot store what
+     * they read, then reload every entry in the background when a refresher is set (readers keep
+     * getting the previous value meanwhile), otherwise drop everything
+     */
+    public void refreshOrClear() {
+        nextGeneration();
+        if (refresher == null) {
+            clear();
+            return;
+        }
+        for (Object key : keys()) {
+            if (!refreshAsync(key)) {
+                refreshAgain.add(key);
+            }
+        }
+    }
+
+    public Map<String, Object> getStatistics() {
+        long hitCount = hits.sum();
+        long missCount = misses.sum();
+        long requests = hitCount + missCount;
+
+        Map<String, Object> stats = new LinkedHashMap<>();
+        stats.put("name", name);
+        stats.put("mode", mode());
+        stats.put("size", size());
+        stats.put("maxEntries", maxEntries);
+        stats.put("ttlSeconds", ttlMillis / 1000);
+        stats.put("refreshAhead", refresher != null);
+        stats.put("hits", hitCount);
+        stats.put("misses", missCount);
+        stats.put("hitRate", requests > 0 ? (double) hitCount / requests * 100 : 0);
+        stats.put("loads", loads.sum());
+        stats.put("refreshes", refreshes.sum());
+        stats.put("evictions", evictions.sum());
+        return stats;
+    }
+
+    protected boolean isExpired(Entry entry, long now) {
+        return now - entry.writtenAt() >= ttlMillis;
+    }
+
+    /**
+     * Store a loaded value unless the cache was invalidated after the load started. A shared store
+     * can be invalidated between the check and the write, so the entry is checked again after it.
+     */
+    private void putIfCurrent(Object key, Object value, long generation) {
+        if (generation() != generation) {
+            return;
+        }
+        write(key, new Entry(toStoreValue(value), System.currentTimeMillis(), generation));
+        if (generation() != generation) {
+            delete(key);
+        }
+    }
+
+    /**
+     * Reload a key in the background; false if a refresh of it is already running
+     */
+    private boolean refreshAsync(Object key) {
+        if (!refreshing.add(key)) {
+            return false;
+        }
+        try {
+            refreshExecutor.execute(() -> {
+                try {
+                    long generation = generation();
+                    if (claimRefresh(key, generation)) {
+                        putIfCurrent(key, refresher.apply(key), generation);
+                        refreshes.increment();
+                    }
+                } catch (RuntimeException e) {
+                    logger.warn("Refresh of {}::{} failed: {}", name, key, e.getMessage());
+                } finally {
+                    refreshing.remove(key);
+                    if (refreshAgain.remove(key)) {
+                        refreshAsync(key);
+                    }
+                }
+            });
+        } catch (RejectedExecutionException e) {
+            // The entry is left to its next hit, which sees the old generation and retries
+            refreshing.remove(key);
+        }
+        return true;
+    }
+}
@@ -0,0 +1,105 @@
+package com.team.medaibackend.cache;
+
+import org.springframework.beans.factory.DisposableBean;
+import org.springframework.cache.Cache;
+import org.springframework.cache.CacheManager;
+
+import java.util.*;
+import java.util.concurrent.*;
+import java.util.function.Function;
+
+/**
+ * Fixed set of {@link BoundedCache}s plus the background pool their refresh-ahead reloads run on.
+ * Invalidations are debounced, so a burst of writes costs one reload per key rather than one per write.
+ */
+public class BoundedCacheManager implements CacheManager, DisposableBean {
+
+    private final Map<String, BoundedCache> caches = new LinkedHashMap<>();
+    private final Map<String, PendingInvalidation> pendingInvalidations = new ConcurrentHashMap<>();
+    private final ScheduledExecutorService executor;
+    private final double refreshAhead;
+
+    public BoundedCacheManager(Collection<? extends BoundedCache> caches, double refreshAhead) {
+        for (BoundedCache cache : caches) {
+            this.caches.put(cache.getName(), cache);
+        }
+        this.refreshAhead = refreshAhead;
+        this.executor = Executors.newScheduledThreadPool(2, r -> {
+            Thread t = new Thread(r, "cache-refresh");
+            t.setDaemon(true);
+            return t;
+        });
+    }
+
+    @Override
+    public Cache getCache(String name) {
+        return caches.get(name);
+    }
+
+    @Override
+    public Collection<String> getCacheNames() {
+        return Collections.unmodifiableSet(caches.keySet());
+    }
+
+    /**
+     * Reload entries of {@code cacheName} with {@code loader} ahead of expiry instead of letting them lapse
+     */
+    public void refreshAhead(String cacheName, Function<Object, Object> loader) {
+        require(cacheName).setRefresher(loader, refreshAhead, executor);
+    }
+
+    /**
+     * Invalidate {@code cacheName} after {@code delayMillis}. Calls while one is pending are absorbed
+     * into it, except that an earlier deadline moves the pending invalidation forward: a slow retry
+     * already scheduled must not hold back the invalidation that follows a write.
+     */
+    public void invalidateLater(String cacheName, long delayMillis) {
+        BoundedCache cache = require(cacheName);
+        long dueAt = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(delayMillis);
+        pendingInvalidations.compute(cacheName, (name, pending) -> {
+            if (pending != null && pending.dueAt - dueAt <= 0) {
+                return pending;
+            }
+            if (pending != null) {
+                pending.task.cancel(false);
+            }
+            PendingInvalidation next = new PendingInvalidation(dueAt);
+            // Removal waits for this compute to finish, so the task always finds its own entry
+            next.task = executor.schedule(() -> {
+                pendingInvalidations.remove(name, next);
+                cache.refreshOrClear();
+            }, delayMillis, TimeUnit.MILLISECONDS);
+            return next;
+        });
+    }
+
+    public List<Map<String, Object>> getStatistics() {
+        List<Map<String, Object>> stats = new ArrayList<>();
+        for (BoundedCache cache : caches.values()) {
+            stats.add(cache.getStatistics());
+        }
+        return stats;
+    }
+
+    @Override
+    public void destroy() {
+        executor.shutdownNow();
+    }
+
+    private static final class PendingInvalidation {
+        private final long dueAt;
+        private volatile ScheduledFuture<?> task;
+
+        private PendingInvalidation(long dueAt) {
+            this.dueAt = dueAt;
+        }
+    }
+
+    private BoundedCache require(String cacheName) {
+        BoundedCache cache = caches.get(cacheName);
+        if (cache == null) {
+            throw new IllegalArgumentException("Unknown cache: " + cacheName);
+        }
+        return cache;
+    }
+}
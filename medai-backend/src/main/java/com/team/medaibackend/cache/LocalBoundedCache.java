@@ -0,0 +1,71 @@
+package com.team.medaibackend.cache;
+
+import java.util.*;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * In-process {@link BoundedCache}; least recently used entries go first once the bound is reached
+ */
+public class LocalBoundedCache extends BoundedCache {
+
+    private final LinkedHashMap<Object, Entry> entries = new LinkedHashMap<>(16, 0.75f, true);
+    private final AtomicLong generation = new AtomicLong();
+
+    public LocalBoundedCache(String name, long ttlMillis, int maxEntries) {
+        super(name, ttlMillis, maxEntries);
+    }
+
+    @Override
+    protected synchronized Entry read(Object key) {
+        return entries.get(key);
+    }
+
+    @Override
+    protected synchronized void write(Object key, Entry entry) {
+        entries.put(key, entry);
+
+        Iterator<Entry> eldest = entries.values().iterator();
+        while (entries.size() > maxEntries && eldest.hasNext()) {
+            eldest.next();
+            eldest.remove();
+            evictions.increment();
+        }
+    }
+
+    @Override
+    protected synchronized void delete(Object key) {
+        entries.remove(key);
+    }
+
+    @Override
+    protected synchronized void deleteAll() {
+        entries.clear();
+    }
+
+    @Override
+    protected synchronized long size() {
+        long now = System.currentTimeMillis();
+        entries.values().removeIf(entry -> isExpired(entry, now));
+        return entries.size();
+    }
+
+    @Override
+    protected synchronized Collection<Object> keys() {
+        return new ArrayList<>(entries.keySet());
+    }
+
+    @Override
+    protected long generation() {
+        return generation.get();
+    }
+
+    @Override
+    protected long nextGeneration() {
+        return generation.incrementAndGet();
+    }
+
+    @Override
+    protected String mode() {
+        return "local";
+    }
+}
@@ -0,0 +1,124 @@
+package com.team.medaibackend.cache;
+
+import org.springframework.data.redis.core.RedisCallback;
+import org.springframework.data.redis.core.RedisTemplate;
+import org.springframework.data.redis.core.ZSetOperations.TypedTuple;
+
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.*;
+
+/**
+ * {@link BoundedCache} shared by all nodes through Redis.
+ * <p>
+ * Values live under {@code <prefix><name>::<key>} with a Redis TTL. A sorted set of key -> write time
+ * per cache enforces the entry bound (oldest writes are dropped first) and lists keys for invalidation.
+ * The generation is a counter in Redis, so an invalidation on one node also stops loads on the others.
+ * Refreshes are claimed with SET NX per generation, so one node recomputes a key per refresh window.
+ */
+public class RedisBoundedCache extends BoundedCache {
+
+    private final RedisTemplate<String, Object> redis;
+    private final String keyPrefix;
+    private final String indexKey;
+    private final String refreshPrefix;
+    private final byte[] generationKey;
+    private final Duration refreshClaim;
+
+    public RedisBoundedCache(String name, long ttlMillis, int maxEntries,
+                             RedisTemplate<String, Object> redis, String prefix, double refreshAhead) {
+        super(name, ttlMillis, maxEntries);
+        this.redis = redis;
+        this.keyPrefix = prefix + name + "::";
+        this.indexKey = prefix + name + ":index";
+        this.refreshPrefix = prefix + name + ":refresh:";
+        this.generationKey = (prefix + name + ":generation").getBytes(StandardCharsets.UTF_8);
+        this.refreshClaim = Duration.ofMillis(Math.max(1000, (long) (ttlMillis * (1 - refreshAhead))));
+    }
+
+    @Override
+    protected Entry read(Object key) {
+        return (Entry) redis.opsForValue().get(keyPrefix + key);
+    }
+
+    @Override
+    protected void write(Object key, Entry entry) {
+        String member = String.valueOf(key);
+        redis.opsForValue().set(keyPrefix + member, entry, Duration.ofMillis(ttlMillis));
+        redis.opsForZSet().add(indexKey, member, entry.writtenAt());
+
+        // Members whose value already expired in Redis, then anything over the bound
+        redis.opsForZSet().removeRangeByScore(indexKey, 0, entry.writtenAt() - ttlMillis);
+        Long size = redis.opsForZSet().zCard(indexKey);
+        if (size != null && size > maxEntries) {
+            Set<TypedTuple<Object>> oldest = redis.opsForZSet().popMin(indexKey, size - maxEntries);
+            if (oldest != null) {
+                for (TypedTuple<Object> dropped : oldest) {
+                    redis.delete(keyPrefix + dropped.getValue());
+                    evictions.increment();
+                }
+            }
+        }
+    }
+
+    @Override
+    protected void delete(Object key) {
+        redis.delete(keyPrefix + key);
+        redis.opsForZSet().remove(indexKey, String.valueOf(key));
+    }
+
+    @Override
+    protected void deleteAll() {
+        List<String> dataKeys = new ArrayList<>();
+        for (Object key : members()) {
+            dataKeys.add(keyPrefix + key);
+        }
+        dataKeys.add(indexKey);
+        redis.delete(dataKeys);
+    }
+
+    @Override
+    protected long size() {
+        Long live = redis.opsForZSet().count(indexKey, System.currentTimeMillis() - ttlMillis, Double.POSITIVE_INFINITY);
+        return live != null ? live : 0;
+    }
+
+    @Override
+    protected Collection<Object> keys() {
+        Set<Object> live = redis.opsForZSet().rangeByScore(indexKey,
+                System.currentTimeMillis() - ttlMillis, Double.POSITIVE_INFINITY);
+        return live != null ? new ArrayList<>(live) : List.of();
+    }
+
+    // The counter is a plain Redis integer (INCR), not a serialized value, so it is read raw
+
+    @Override
+    protected long generation() {
+        byte[] generation = redis.execute((RedisCallback<byte[]>) connection ->
+                connection.stringCommands().get(generationKey));
+        return generation != null ? Long.parseLong(new String(generation, StandardCharsets.US_ASCII)) : 0;
+    }
+
+    @Override
+    protected long nextGeneration() {
+        Long generation = redis.execute((RedisCallback<Long>) connection ->
+                connection.stringCommands().incr(generationKey));
+        return generation != null ? generation : 0;
+    }
+
+    @Override
+    protected boolean claimRefresh(Object key, long generation) {
+        return Boolean.TRUE.equals(redis.opsForValue().setIfAbsent(
+                refreshPrefix + generation + "::" + key, "1", refreshClaim));
+    }
+
+    @Override
+    protected String mode() {
+        return "redis";
+    }
+
+    private Collection<Object> members() {
+        Set<Object> all = redis.opsForZSet().range(indexKey, 0, -1);
+        return all != null ? all : Set.of();
+    }
+}
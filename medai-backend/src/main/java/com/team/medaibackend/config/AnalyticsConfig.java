@@ -1,17 +1,77 @@
 package com.team.medaibackend.config;
 
-import org.springframework.cache.CacheManager;
+import com.team.medaibackend.cache.BoundedCache;
+import com.team.medaibackend.cache.BoundedCacheManager;
+import com.team.medaibackend.cache.LocalBoundedCache;
+import com.team.medaibackend.cache.RedisBoundedCache;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.cache.annotation.CachingConfigurer;
 import org.springframework.cache.annotation.EnableCaching;
-import org.springframework.cache.concurrent.ConcurrentMapCacheManager;
+import org.springframework.cache.interceptor.CacheErrorHandler;
+import org.springframework.cache.interceptor.LoggingCacheErrorHandler;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
+import org.springframework.data.redis.connection.RedisConnectionFactory;
+import org.springframework.data.redis.core.RedisTemplate;
+import org.springframework.data.redis.serializer.JdkSerializationRedisSerializer;
+import org.springframework.data.redis.serializer.StringRedisSerializer;
 
+import java.util.List;
+
+/**
+ * Cache for dashboard results.
+ * {@code analytics.cache.mode: local} keeps one bounded cache per node; {@code redis} shares
+ * entries between nodes so every node serves the same numbers within one TTL.
+ */
 @Configuration
 @EnableCaching
-public class AnalyticsConfig {
+public class AnalyticsConfig implements CachingConfigurer {
+
+    private static final String REDIS_PREFIX = "medai:cache:";
+
+    @Value("${analytics.cache.mode:local}")
+    private String mode;
+
+    @Value("${analytics.cache.dashboard-ttl:${analytics.cache-ttl:300}}")
+    private long dashboardTtlSeconds;
+
+    @Value("${analytics.cache.dashboard-max-entries:50}")
+    private int dashboardMaxEntries;
+
+    @Value("${analytics.cache.refresh-ahead:0.8}")
+    private double refreshAhead;
 
     @Bean
-    public CacheManager cacheManager() {
-        return new ConcurrentMapCacheManager("dashboard", "analytics");
+    public BoundedCacheManager cacheManager(ObjectProvider<RedisConnectionFactory> redisConnectionFactory) {
+        long dashboardTtl = dashboardTtlSeconds * 1000;
+
+        List<BoundedCache> caches;
+        if ("redis".equalsIgnoreCase(mode)) {
+            RedisTemplate<String, Object> redis = cacheRedisTemplate(redisConnectionFactory.getObject());
+            caches = List.of(
+                    new RedisBoundedCache("dashboard", dashboardTtl, dashboardMaxEntries, redis, REDIS_PREFIX, refreshAhead));
+        } else {
+            caches = List.of(
+                    new LocalBoundedCache("dashboard", dashboardTtl, dashboardMaxEntries));
+        }
+        return new BoundedCacheManager(caches, refreshAhead);
+    }
+
+    /**
+     * A cache that cannot be reached degrades to recomputing the value rather than failing the request
+     */
+    @Override
+    public CacheErrorHandler errorHandler() {
+        return new LoggingCacheErrorHandler();
+    }
+
+    private RedisTemplate<String, Object> cacheRedisTemplate(RedisConnectionFactory connectionFactory) {
+        RedisTemplate<String, Object> template = new RedisTemplate<>();
+        template.setConnectionFactory(connectionFactory);
+        template.setKeySerializer(StringRedisSerializer.UTF_8);
+        template.setValueSerializer(new JdkSerializationRedisSerializer());
+        template.afterPropertiesSet();
+        return template;
     }
-}
\ No newline at end of file
+}
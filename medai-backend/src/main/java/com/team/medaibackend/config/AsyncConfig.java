@@ -1,11 +1,15 @@
 package com.team.medaibackend.config;
 
+import com.team.medaibackend.metrics.SqlMetrics;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
 import org.springframework.scheduling.annotation.EnableAsync;
 import org.springframework.scheduling.annotation.AsyncConfigurer;
 import org.springframework.scheduling.concurrent.ThreadPoolTaskExecutor;
 
 import java.util.concurrent.Executor;
+import java.util.concurrent.ThreadPoolExecutor;
 
 @Configuration
 @EnableAsync
@@ -21,4 +25,85 @@ public class AsyncConfig implements AsyncConfigurer {
         executor.initialize();
         return executor;
     }
-}
\ No newline at end of file
+
+    /**
+     * Dedicated pool for search fan-out so slow sources cannot starve @Async work.
+     * When saturated a source is rejected and reported as timed out; running it on the request
+     * thread instead would bypass the per-source deadline. Statements a source runs count towards the
+     * request that submitted it.
+     */
+    @Bean(name = "searchExecutor")
+    public ThreadPoolTaskExecutor searchExecutor(
+            @Value("${search.executor.pool-size:8}") int poolSize,
+            @Value("${search.executor.queue-capacity:64}") int queueCapacity,
+            SqlMetrics sqlMetrics) {
+        ThreadPoolTaskExecutor executor = new ThreadPoolTaskExecutor();
+        executor.setCorePoolSize(poolSize);
+        executor.setMaxPoolSize(poolSize);
+        executor.setQueueCapacity(queueCapacity);
+        executor.setThreadNamePrefix("search-");
+        executor.setRejectedExecutionHandler(new ThreadPoolExecutor.AbortPolicy());
+        executor.setTaskDecorator(sqlMetrics::propagateRequest);
+        executor.initialize();
+        return executor;
+    }
+
+    /**
+     * Pool for dashboard widget queries. Sized below the JDBC pool so a cold dashboard
+     * cannot take every connection; when saturated the widget is rejected and shown as
+     * unavailable, rather than run serially on the request thread past its deadline. Widget
+     * statements count towards the dashboard request.
+     */
+    @Bean(name = "dashboardExecutor")
+    public ThreadPoolTaskExecutor dashboardExecutor(
+            @Value("${analytics.dashboard.pool-size:6}") int poolSize,
+            @Value("${analytics.dashboard.queue-capacity:32}") int queueCapacity,
+            SqlMetrics sqlMetrics) {
+        ThreadPoolTaskExecutor executor = new ThreadPoolTaskExecutor();
+        executor.setCorePoolSize(poolSize);
+        executor.setMaxPoolSize(poolSize);
+        executor.setQueueCapacity(queueCapacity);
+        executor.setThreadNamePrefix("dashboard-");
+        executor.setRejectedExecutionHandler(new ThreadPoolExecutor.AbortPolicy());
+        executor.setTaskDecorator(sqlMetrics::propagateRequest);
+        executor.initialize();
+        return executor;
+    }
+
+    /**
+     * Pool that writes the export endpoints' responses (see StreamingExportService#respond). Each export
+     * holds one JDBC connection while it streams, so the pool size caps how many can run at once.
+     * When the queue is full too, the export is rejected with a 503 (GlobalExceptionHandler).
+     */
+    @Bean(name = "streamingExecutor")
+    public ThreadPoolTaskExecutor streamingExecutor(
+            @Value("${analytics.export.pool-size:4}") int poolSize,
+            @Value("${analytics.export.queue-capacity:16}") int queueCapacity) {
+        ThreadPoolTaskExecutor executor = new ThreadPoolTaskExecutor();
+        executor.setCorePoolSize(poolSize);
+        executor.setMaxPoolSize(poolSize);
+        executor.setQueueCapacity(queueCapacity);
+        executor.setThreadNamePrefix("stream-");
+        executor.setRejectedExecutionHandler(new ThreadPoolExecutor.AbortPolicy());
+        executor.initialize();
+        return executor;
+    }
+
+    /**
+     * Pool that runs bcrypt password checks, so a login flood uses at most pool-size cores.
+     * No caller-runs fallback: when the queue is full the login is rejected at once (429).
+     */
+    @Bean(name = "loginExecutor")
+    public ThreadPoolTaskExecutor loginExecutor(
+            @Value("${auth.login.pool-size:2}") int poolSize,
+            @Value("${auth.login.queue-capacity:16}") int queueCapacity) {
+        ThreadPoolTaskExecutor executor = new ThreadPoolTaskExecutor();
+        executor.setCorePoolSize(poolSize);
+        executor.setMaxPoolSize(poolSize);
+        executor.setQueueCapacity(queueCapacity);
+        executor.setThreadNamePrefix("login-");
+        executor.setRejectedExecutionHandler(new ThreadPoolExecutor.AbortPolicy());
+        executor.initialize();
+        return executor;
+    }
+}
@@ -1,6 +1,8 @@
 package com.team.medaibackend.config;
 
 import com.team.medaibackend.security.JwtService;
+import com.team.medaibackend.security.TokenRevocationService;
+import com.team.medaibackend.security.VerifiedToken;
 import org.springframework.context.annotation.Configuration;
 import org.springframework.messaging.Message;
 import org.springframework.messaging.MessageChannel;
@@ -26,9 +28,11 @@ import java.util.List;
 public class WebSocketConfig implements WebSocketMessageBrokerConfigurer {
 
     private final JwtService jwtService;
+    private final TokenRevocationService revocations;
 
-    public WebSocketConfig(JwtService jwtService) {
+    public WebSocketConfig(JwtService jwtService, TokenRevocationService revocations) {
         this.jwtService = jwtService;
+        this.revocations = revocations;
     }
 
     @Override
@@ -72,9 +76,10 @@ public class WebSocketConfig implements WebSocketMessageBrokerConfigurer {
                         token = token.substring(7);
                     }
 
-                    if (token != null && jwtService.validateToken(token)) {
-                        String username = jwtService.getUsernameFromToken(token);
-                        String role = jwtService.getRoleFromToken(token);
+                    VerifiedToken verified = jwtService.verify(token);
+                    if (verified != null && !revocations.isRevoked(verified)) {
+                        String username = verified.username();
+                        String role = verified.role();
 
                         Authentication authentication = new UsernamePasswordAuthenticationToken(
                                 username,
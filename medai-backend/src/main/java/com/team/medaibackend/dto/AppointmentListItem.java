@@ -0,0 +1,30 @@
+package com.team.medaibackend.dto;
+
+import com.fasterxml.jackson.annotation.JsonFormat;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.LocalTime;
+
+/**
+ * Appointment row for list endpoints, selected with patient and doctor joined in the same query
+ */
+public record AppointmentListItem(
+        Long id,
+        LocalDate date,
+        @JsonFormat(pattern = "HH:mm") LocalTime time,
+        @JsonFormat(pattern = "HH:mm") LocalTime endTime,
+        String type,
+        String status,
+        String location,
+        String notes,
+        String reason,
+        Integer durationMinutes,
+        Long patientId,
+        String patientName,
+        Long doctorId,
+        String doctorName,
+        String doctorDepartment,
+        LocalDateTime createdAt
+) {
+}
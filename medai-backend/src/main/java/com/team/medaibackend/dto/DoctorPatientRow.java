@@ -0,0 +1,20 @@
+package com.team.medaibackend.dto;
+
+import java.time.LocalDate;
+
+/**
+ * One of a doctor's patients with appointment aggregates, computed in a single grouped query
+ */
+public record DoctorPatientRow(
+        Long id,
+        String patientId,
+        String name,
+        String email,
+        String sex,
+        LocalDate birthDate,
+        LocalDate lastVisit,
+        LocalDate nextAppointment,
+        LocalDate lastAppointment,
+        Long appointmentCount
+) {
+}
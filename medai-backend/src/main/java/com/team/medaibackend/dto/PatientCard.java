@@ -0,0 +1,52 @@
+package com.team.medaibackend.dto;
+
+import java.time.LocalDate;
+import java.time.Period;
+import java.util.List;
+
+/**
+ * Patient card for the doctor's patient list
+ */
+public record PatientCard(
+        Long id,
+        String patientId,
+        String name,
+        String email,
+        String sex,
+        LocalDate birthDate,
+        Integer age,
+        LocalDate lastVisit,
+        LocalDate nextAppointment,
+        long appointmentCount,
+        long reportCount,
+        long studyCount,
+        String status,
+        List<Object> flags
+) {
+
+    public static PatientCard of(DoctorPatientRow row, long reportCount, long studyCount) {
+        Integer age = row.birthDate() != null
+                ? Period.between(row.birthDate(), LocalDate.now()).getYears()
+                : null;
+
+        // Active = completed visit within the last 3 months
+        LocalDate threeMonthsAgo = LocalDate.now().minusMonths(3);
+        boolean isActive = row.lastVisit() != null && row.lastVisit().isAfter(threeMonthsAgo);
+
+        return new PatientCard(
+                row.id(),
+                row.patientId(),
+                row.name(),
+                row.email(),
+                row.sex(),
+                row.birthDate(),
+                age,
+                row.lastVisit(),
+                row.nextAppointment(),
+                row.appointmentCount(),
+                reportCount,
+                studyCount,
+                isActive ? "active" : "inactive",
+                List.of());
+    }
+}
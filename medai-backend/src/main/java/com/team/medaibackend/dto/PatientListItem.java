@@ -0,0 +1,15 @@
+package com.team.medaibackend.dto;
+
+import java.time.LocalDate;
+
+/**
+ * Minimal patient row for pickers and dropdowns
+ */
+public record PatientListItem(
+        Long id,
+        String patientId,
+        String name,
+        String sex,
+        LocalDate birthDate
+) {
+}
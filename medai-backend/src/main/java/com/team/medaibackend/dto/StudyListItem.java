@@ -0,0 +1,39 @@
+package com.team.medaibackend.dto;
+
+import com.team.medaibackend.entity.Patient;
+import com.team.medaibackend.entity.Study;
+
+import java.time.LocalDateTime;
+
+/**
+ * Study row for list endpoints, selected with the patient joined in the same query
+ */
+public record StudyListItem(
+        Long id,
+        String studyUid,
+        String description,
+        String modality,
+        String status,
+        LocalDateTime studyDate,
+        LocalDateTime createdAt,
+        Long patientId,
+        String patientName
+) {
+
+    /**
+     * For entity pages whose patient association was already fetched
+     */
+    public static StudyListItem of(Study study) {
+        Patient patient = study.getPatient();
+        return new StudyListItem(
+                study.getId(),
+                study.getStudyUid(),
+                study.getDescription(),
+                study.getModality(),
+                study.getStatus(),
+                study.getStudyDate(),
+                study.getCreatedAt(),
+                patient != null ? patient.getId() : null,
+                patient != null ? patient.getName() : null);
+    }
+}
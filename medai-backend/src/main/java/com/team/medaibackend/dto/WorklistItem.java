@@ -0,0 +1,69 @@
+package com.team.medaibackend.dto;
+
+import com.team.medaibackend.entity.Patient;
+import com.team.medaibackend.entity.Study;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+/**
+ * Worklist row; priority and task type are derived from modality and status
+ */
+public record WorklistItem(
+        Long id,
+        String studyUid,
+        LocalDateTime studyDate,
+        String modality,
+        String description,
+        String status,
+        String priority,
+        Long patientId,
+        String patientName,
+        String taskType
+) {
+
+    // CT and MR are typically higher priority
+    public static final List<String> HIGH_PRIORITY_MODALITIES = List.of("CT", "MR");
+
+    /**
+     * Constructor expression target for projection queries
+     */
+    public WorklistItem(Long id, String studyUid, LocalDateTime studyDate, String modality,
+                        String description, String status, Long patientId, String patientName) {
+        this(id, studyUid, studyDate, modality, description,
+                status != null ? status : "pending",
+                priorityFor(modality),
+                patientId,
+                patientName != null ? patientName : "Unknown Patient",
+                taskTypeFor(status));
+    }
+
+    public static WorklistItem of(Study study) {
+        Patient patient = study.getPatient();
+        return new WorklistItem(
+                study.getId(),
+                study.getStudyUid(),
+                study.getStudyDate(),
+                study.getModality(),
+                study.getDescription(),
+                study.getStatus(),
+                patient != null ? patient.getId() : null,
+                patient != null ? patient.getName() : null);
+    }
+
+    private static String priorityFor(String modality) {
+        return modality != null && HIGH_PRIORITY_MODALITIES.contains(modality) ? "high" : "normal";
+    }
+
+    private static String taskTypeFor(String status) {
+        if (status == null) return "Review Required";
+
+        switch (status) {
+            case "uploaded": return "New Study - Review Required";
+            case "pending": return "Pending Analysis";
+            case "processing": return "AI Processing";
+            case "completed": return "Completed";
+            default: return "Review Required";
+        }
+    }
+}
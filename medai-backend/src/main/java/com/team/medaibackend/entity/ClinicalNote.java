@@ -1,5 +1,6 @@
 package com.team.medaibackend.entity;
 
+import com.team.medaibackend.event.EntityChangeListener;
 import jakarta.persistence.*;
 import org.hibernate.annotations.JdbcTypeCode;
 import org.hibernate.type.SqlTypes;
@@ -9,6 +10,7 @@ import java.time.LocalDateTime;
 import java.util.Map;
 
 @Entity
+@EntityListeners(EntityChangeListener.class)
 @Table(name = "clinical_notes")
 public class ClinicalNote {
 
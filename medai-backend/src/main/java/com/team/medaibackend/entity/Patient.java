@@ -1,6 +1,7 @@
 package com.team.medaibackend.entity;
 
 import com.fasterxml.jackson.annotation.JsonIgnore;
+import com.team.medaibackend.event.EntityChangeListener;
 import jakarta.persistence.*;
 import org.hibernate.annotations.JdbcTypeCode;
 import org.hibernate.type.SqlTypes;
@@ -10,6 +11,7 @@ import java.time.LocalDateTime;
 import java.util.Map;
 
 @Entity
+@EntityListeners(EntityChangeListener.class)
 @Table(name = "patients")
 public class Patient {
 
@@ -1,5 +1,6 @@
 package com.team.medaibackend.entity;
 
+import com.team.medaibackend.event.EntityChangeListener;
 import jakarta.persistence.*;
 import org.hibernate.annotations.JdbcTypeCode;
 import org.hibernate.type.SqlTypes;
@@ -10,6 +11,7 @@ import java.util.List;
 import java.util.Map;
 
 @Entity
+@EntityListeners(EntityChangeListener.class)
 @Table(name = "studies")
 public class Study {
 
@@ -1,10 +1,12 @@
 package com.team.medaibackend.entity;
 
+import com.team.medaibackend.event.EntityChangeListener;
 import jakarta.persistence.*;
 import java.time.LocalDate;
 import java.time.LocalDateTime;
 
 @Entity
+@EntityListeners(EntityChangeListener.class)
 @Table(name = "treatment_plans")
 public class TreatmentPlan {
 
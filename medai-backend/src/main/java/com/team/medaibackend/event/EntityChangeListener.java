@@ -0,0 +1,36 @@
+package com.team.medaibackend.event;
+
+import jakarta.persistence.PostPersist;
+import jakarta.persistence.PostRemove;
+import jakarta.persistence.PostUpdate;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.stereotype.Component;
+
+/**
+ * JPA entity listener that turns entity lifecycle callbacks into {@link EntityChangedEvent}s.
+ * Hibernate resolves it through Spring's bean container, so it can be injected like any bean.
+ */
+@Component
+public class EntityChangeListener {
+
+    private final ApplicationEventPublisher eventPublisher;
+
+    public EntityChangeListener(ApplicationEventPublisher eventPublisher) {
+        this.eventPublisher = eventPublisher;
+    }
+
+    @PostPersist
+    public void onCreated(Object entity) {
+        eventPublisher.publishEvent(new EntityChangedEvent(entity, EntityChangedEvent.ChangeType.CREATED));
+    }
+
+    @PostUpdate
+    public void onUpdated(Object entity) {
+        eventPublisher.publishEvent(new EntityChangedEvent(entity, EntityChangedEvent.ChangeType.UPDATED));
+    }
+
+    @PostRemove
+    public void onDeleted(Object entity) {
+        eventPublisher.publishEvent(new EntityChangedEvent(entity, EntityChangedEvent.ChangeType.DELETED));
+    }
+}
@@ -0,0 +1,26 @@
+package com.team.medaibackend.event;
+
+/**
+ * Published after an entity registered with {@link EntityChangeListener} is inserted, updated or deleted.
+ * Consumers should use {@code @TransactionalEventListener} so they only see committed changes.
+ */
+public class EntityChangedEvent {
+
+    public enum ChangeType { CREATED, UPDATED, DELETED }
+
+    private final Object entity;
+    private final ChangeType changeType;
+
+    public EntityChangedEvent(Object entity, ChangeType changeType) {
+        this.entity = entity;
+        this.changeType = changeType;
+    }
+
+    public Object getEntity() { return entity; }
+
+    public ChangeType getChangeType() { return changeType; }
+
+    public boolean isDeleted() { return changeType == ChangeType.DELETED; }
+
+    public <T> boolean isFor(Class<T> type) { return type.isInstance(entity); }
+}
@@ -1,5 +1,6 @@
 package com.team.medaibackend.exception;
 
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.security.authorization.AuthorizationDeniedException;
@@ -10,10 +11,13 @@ import org.springframework.web.servlet.resource.NoResourceFoundException;
 
 import java.util.HashMap;
 import java.util.Map;
+import java.util.concurrent.RejectedExecutionException;
 
 @ControllerAdvice
 public class GlobalExceptionHandler {
 
+    private static final long REJECTED_RETRY_AFTER_SECONDS = 5;
+
     /**
      * Handle Spring Security authorization denied exceptions
      * Returns 403 instead of 500 and suppresses stack traces
@@ -51,6 +55,73 @@ public class GlobalExceptionHandler {
         return ResponseEntity.badRequest().body(error);
     }
 
+    /**
+     * Handle invalid request values detected in services (e.g., malformed paging cursor)
+     */
+    @ExceptionHandler(IllegalArgumentException.class)
+    public ResponseEntity<Map<String, Object>> handleIllegalArgument(
+            IllegalArgumentException ex) {
+
+        Map<String, Object> error = new HashMap<>();
+        error.put("error", "Bad Request");
+        error.put("message", ex.getMessage());
+        error.put("timestamp", System.currentTimeMillis());
+
+        return ResponseEntity.badRequest().body(error);
+    }
+
+    /**
+     * Handle rate limiting and saturated pools: 429 with Retry-After
+     */
+    @ExceptionHandler(TooManyRequestsException.class)
+    public ResponseEntity<Map<String, Object>> handleTooManyRequests(
+            TooManyRequestsException ex) {
+
+        Map<String, Object> error = new HashMap<>();
+        error.put("error", "Too Many Requests");
+        error.put("message", ex.getMessage());
+        error.put("timestamp", System.currentTimeMillis());
+
+        return ResponseEntity.status(HttpStatus.TOO_MANY_REQUESTS)
+                .header(HttpHeaders.RETRY_AFTER, String.valueOf(ex.getRetryAfterSeconds()))
+                .body(error);
+    }
+
+    /**
+     * Handle resources that are not ready yet: 503 with Retry-After
+     */
+    @ExceptionHandler(ServiceUnavailableException.class)
+    public ResponseEntity<Map<String, Object>> handleServiceUnavailable(
+            ServiceUnavailableException ex) {
+
+        Map<String, Object> error = new HashMap<>();
+        error.put("error", "Service Unavailable");
+        error.put("message", ex.getMessage());
+        error.put("timestamp", System.currentTimeMillis());
+
+        return ResponseEntity.status(HttpStatus.SERVICE_UNAVAILABLE)
+                .header(HttpHeaders.RETRY_AFTER, String.valueOf(ex.getRetryAfterSeconds()))
+                .body(error);
+    }
+
+    /**
+     * Handle work rejected by a saturated pool (e.g. a full export queue; Spring's
+     * TaskRejectedException is a subclass): 503 with Retry-After
+     */
+    @ExceptionHandler(RejectedExecutionException.class)
+    public ResponseEntity<Map<String, Object>> handleRejectedExecution(
+            RejectedExecutionException ex) {
+
+        Map<String, Object> error = new HashMap<>();
+        error.put("error", "Service Unavailable");
+        error.put("message", "The server is busy, try again shortly");
+        error.put("timestamp", System.currentTimeMillis());
+
+        return ResponseEntity.status(HttpStatus.SERVICE_UNAVAILABLE)
+                .header(HttpHeaders.RETRY_AFTER, String.valueOf(REJECTED_RETRY_AFTER_SECONDS))
+                .body(error);
+    }
+
     /**
      * Handle 404 resource not found errors
      */
@@ -0,0 +1,18 @@
+package com.team.medaibackend.exception;
+
+/**
+ * Exception thrown when a resource is temporarily not ready (e.g., a snapshot still loading).
+ */
+public class ServiceUnavailableException extends RuntimeException {
+
+    private final long retryAfterSeconds;
+
+    public ServiceUnavailableException(String message, long retryAfterSeconds) {
+        super(message);
+        this.retryAfterSeconds = retryAfterSeconds;
+    }
+
+    public long getRetryAfterSeconds() {
+        return retryAfterSeconds;
+    }
+}
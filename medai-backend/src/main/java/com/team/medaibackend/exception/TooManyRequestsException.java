@@ -0,0 +1,18 @@
+package com.team.medaibackend.exception;
+
+/**
+ * Exception thrown when a caller is rate limited or a bounded pool is saturated.
+ */
+public class TooManyRequestsException extends RuntimeException {
+
+    private final long retryAfterSeconds;
+
+    public TooManyRequestsException(String message, long retryAfterSeconds) {
+        super(message);
+        this.retryAfterSeconds = retryAfterSeconds;
+    }
+
+    public long getRetryAfterSeconds() {
+        return retryAfterSeconds;
+    }
+}
@@ -0,0 +1,81 @@
+package com.team.medaibackend.metrics;
+
+import jakarta.servlet.AsyncEvent;
+import jakarta.servlet.AsyncListener;
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.ServletException;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import org.springframework.core.Ordered;
+import org.springframework.core.annotation.Order;
+import org.springframework.stereotype.Component;
+import org.springframework.web.filter.OncePerRequestFilter;
+import org.springframework.web.servlet.HandlerMapping;
+
+import java.io.IOException;
+
+/**
+ * Times every request and records it under its route template (e.g. {@code GET /api/studies/{id}})
+ * rather than the raw path, so the key space stays bounded. Runs ahead of the security chain so
+ * rejected requests are counted too; async requests (streamed exports) are timed to completion.
+ * Also brackets the request for {@link SqlMetrics}, so statements are attributed to the route.
+ */
+@Component
+@Order(Ordered.HIGHEST_PRECEDENCE)
+public class HttpMetricsFilter extends OncePerRequestFilter {
+
+    private final HttpMetricsRegistry registry;
+    private final SqlMetrics sqlMetrics;
+
+    public HttpMetricsFilter(HttpMetricsRegistry registry, SqlMetrics sqlMetrics) {
+        this.registry = registry;
+        this.sqlMetrics = sqlMetrics;
+    }
+
+    @Override
+    protected void doFilterInternal(HttpServletRequest request,
+                                    HttpServletResponse response,
+                                    FilterChain filterChain) throws ServletException, IOException {
+        long start = System.nanoTime();
+        boolean failed = true;
+        sqlMetrics.beginRequest();
+        try {
+            filterChain.doFilter(request, response);
+            failed = false;
+        } finally {
+            sqlMetrics.endRequest(route(request));
+            if (request.isAsyncStarted()) {
+                request.getAsyncContext().addListener(new AsyncListener() {
+                    @Override
+                    public void onComplete(AsyncEvent event) {
+                        record(request, response.getStatus(), start);
+                    }
+
+                    @Override
+                    public void onTimeout(AsyncEvent event) {
+                    }
+
+                    @Override
+                    public void onError(AsyncEvent event) {
+                    }
+
+                    @Override
+                    public void onStartAsync(AsyncEvent event) {
+                    }
+                });
+            } else {
+                // An exception escaping the chain becomes a 500 even if no status was set yet
+                record(request, failed ? HttpServletResponse.SC_INTERNAL_SERVER_ERROR : response.getStatus(), start);
+            }
+        }
+    }
+
+    private void record(HttpServletRequest request, int status, long start) {
+        registry.record(route(request), status, System.nanoTime() - start);
+    }
+
+    private String route(HttpServletRequest request) {
+        Object pattern = request.getAttribute(HandlerMapping.BEST_MATCHING_PATTERN_ATTRIBUTE);
+        return request.getMethod() + " " + (pattern != null ? pattern : HttpMetricsRegistry.UNMATCHED);
+    }
+}
@@ -0,0 +1,192 @@
+package com.team.medaibackend.metrics;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.lang.management.ManagementFactory;
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Request latency per route template and status class over a sliding window of one-minute slots.
+ * <p>
+ * Each (route, status class) pair owns a ring of {@link #WINDOW_MINUTES} histograms; a request
+ * records into the slot of the current minute, and a slot is cleared the first time it is reused.
+ * Recording takes no locks except for that once-a-minute rollover. Reading merges the slots that
+ * fall inside the requested window.
+ */
+@Component
+public class HttpMetricsRegistry {
+
+    public static final int WINDOW_MINUTES = 15;
+    public static final String UNMATCHED = "UNMATCHED";
+    public static final String OTHER = "OTHER";
+
+    private final Map<Key, Window> windows = new ConcurrentHashMap<>();
+
+    @Value("${metrics.http.max-routes:300}")
+    private int maxRoutes;
+
+    private record Key(String route, String statusClass) {
+    }
+
+    private static final class Slot {
+        volatile long minute = -1;
+        volatile LatencyHistogram histogram;
+    }
+
+    private static final class Window {
+        final Slot[] slots = new Slot[WINDOW_MINUTES];
+
+        Window() {
+            for (int i = 0; i < slots.length; i++) {
+                slots[i] = new Slot();
+            }
+        }
+
+        void record(long minute, long micros) {
+            Slot slot = slots[(int) (minute % WINDOW_MINUTES)];
+            if (slot.minute != minute) {
+                synchronized (slot) {
+                    if (slot.minute != minute) {
+                        if (slot.histogram == null) {
+                            slot.histogram = new LatencyHistogram();
+                        } else {
+                            slot.histogram.reset();
+                        }
+                        slot.minute = minute;
+                    }
+                }
+            }
+            slot.histogram.record(micros);
+        }
+    }
+
+    /**
+     * @param route method and route template, e.g. "GET /api/studies/{id}"
+     */
+    public void record(String route, int status, long nanos) {
+        Key key = new Key(route, (status / 100) + "xx");
+        Window window = windows.get(key);
+        if (window == null) {
+            // Bound the key space so unmatched or crafted paths cannot grow it without limit
+            if (windows.size() >= maxRoutes) {
+                key = new Key(OTHER, key.statusClass());
+            }
+            window = windows.computeIfAbsent(key, k -> new Window());
+        }
+        window.record(currentMinute(), nanos / 1000);
+    }
+
+    /**
+     * Totals over the last {@code minutes} minutes plus per-route stats for the busiest {@code topRoutes} routes
+     */
+    public Map<String, Object> snapshot(int minutes, int topRoutes) {
+        int span = Math.max(1, Math.min(minutes, WINDOW_MINUTES));
+        long now = currentMinute();
+        double seconds = windowSeconds(span);
+
+        Stats total = new Stats();
+        Map<String, Stats> routes = new HashMap<>();
+        windows.forEach((key, window) -> {
+            Stats route = routes.computeIfAbsent(key.route(), r -> new Stats());
+            for (Slot slot : window.slots) {
+                long minute = slot.minute;
+                LatencyHistogram histogram = slot.histogram;
+                if (histogram != null && minute > now - span && minute <= now) {
+                    route.add(key.statusClass(), histogram.addTo(route.buckets));
+                }
+            }
+        });
+        routes.values().forEach(total::merge);
+
+        Map<String, Object> snapshot = new LinkedHashMap<>(total.summary(seconds));
+        snapshot.put("windowMinutes", span);
+        snapshot.put("uptimeSeconds", ManagementFactory.getRuntimeMXBean().getUptime() / 1000);
+
+        List<Map<String, Object>> routeStats = new ArrayList<>();
+        routes.entrySet().stream()
+                .filter(e -> e.getValue().count() > 0)
+                .sorted((a, b) -> Long.compare(b.getValue().count(), a.getValue().count()))
+                .limit(topRoutes)
+                .forEach(e -> {
+                    Map<String, Object> item = new LinkedHashMap<>();
+                    item.put("route", e.getKey());
+                    item.putAll(e.getValue().summary(seconds));
+                    routeStats.add(item);
+                });
+        snapshot.put("routes", routeStats);
+        return snapshot;
+    }
+
+    private long currentMinute() {
+        return System.currentTimeMillis() / 60_000;
+    }
+
+    /**
+     * Seconds covered by the window: whole past minutes plus the elapsed part of this one, capped by uptime
+     */
+    private double windowSeconds(int span) {
+        double intoMinute = (System.currentTimeMillis() % 60_000) / 1000.0;
+        double covered = (span - 1) * 60 + intoMinute;
+        double uptime = ManagementFactory.getRuntimeMXBean().getUptime() / 1000.0;
+        return Math.max(1, Math.min(covered, uptime));
+    }
+
+    private static final class Stats {
+        final long[] buckets = new long[LatencyHistogram.BUCKETS];
+        final Map<String, Long> byStatusClass = new TreeMap<>();
+        long sumMicros;
+        long maxMicros;
+
+        void add(String statusClass, long[] countSumMax) {
+            byStatusClass.merge(statusClass, countSumMax[0], Long::sum);
+            sumMicros += countSumMax[1];
+            maxMicros = Math.max(maxMicros, countSumMax[2]);
+        }
+
+        void merge(Stats other) {
+            for (int i = 0; i < buckets.length; i++) {
+                buckets[i] += other.buckets[i];
+            }
+            sumMicros += other.sumMicros;
+            maxMicros = Math.max(maxMicros, other.maxMicros);
+            other.byStatusClass.forEach((k, v) -> byStatusClass.merge(k, v, Long::sum));
+        }
+
+        long count() {
+            long count = 0;
+            for (long bucket : buckets) {
+                count += bucket;
+            }
+            return count;
+        }
+
+        Map<String, Object> summary(double seconds) {
+            long count = count();
+            long serverErrors = byStatusClass.getOrDefault("5xx", 0L);
+            long clientErrors = byStatusClass.getOrDefault("4xx", 0L);
+
+            Map<String, Object> summary = new LinkedHashMap<>();
+            summary.put("requests", count);
+            summary.put("throughput", round(count / seconds));
+            summary.put("errorRate", count > 0 ? round((double) serverErrors / count * 100) : 0.0);
+            summary.put("clientErrorRate", count > 0 ? round((double) clientErrors / count * 100) : 0.0);
+            summary.put("averageResponseTime", count > 0 ? round(sumMicros / 1000.0 / count) : 0.0);
+            summary.put("p50", millis(LatencyHistogram.quantile(buckets, count, 0.50)));
+            summary.put("p95", millis(LatencyHistogram.quantile(buckets, count, 0.95)));
+            summary.put("p99", millis(LatencyHistogram.quantile(buckets, count, 0.99)));
+            summary.put("max", millis(maxMicros));
+            summary.put("byStatusClass", new TreeMap<>(byStatusClass));
+            return summary;
+        }
+
+        private static double millis(long micros) {
+            return round(micros / 1000.0);
+        }
+
+        private static double round(double value) {
+            return Math.round(value * 100) / 100.0;
+        }
+    }
+}
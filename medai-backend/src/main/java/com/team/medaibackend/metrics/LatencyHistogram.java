@@ -0,0 +1,99 @@
+package com.team.medaibackend.metrics;
+
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * Lock-free latency histogram with HdrHistogram-style log-linear buckets, in microseconds.
+ * <p>
+ * Values below 64 microseconds are counted exactly; above that each power of two is split into 32
+ * sub-buckets, so any reported percentile is within about 3% of the true value. Values beyond
+ * {@link #MAX_MICROS} (about 4.5 minutes) land in the last bucket. Recording is one atomic increment.
+ */
+public final class LatencyHistogram {
+
+    private static final int SUB_BUCKET_BITS = 5;
+    private static final int SUB_BUCKETS = 1 << SUB_BUCKET_BITS;
+    private static final int LINEAR_LIMIT = SUB_BUCKETS * 2;
+    private static final int MAX_SHIFT = 22;
+
+    public static final long MAX_MICROS = (1L << (MAX_SHIFT + SUB_BUCKET_BITS + 1)) - 1;
+    public static final int BUCKETS = LINEAR_LIMIT + MAX_SHIFT * SUB_BUCKETS;
+
+    private final AtomicLongArray counts = new AtomicLongArray(BUCKETS);
+    private final AtomicLong sum = new AtomicLong();
+    private final AtomicLong max = new AtomicLong();
+
+    public void record(long micros) {
+        long value = Math.max(0, micros);
+        counts.incrementAndGet(bucketOf(value));
+        sum.addAndGet(value);
+        if (value > max.get()) {
+            max.accumulateAndGet(value, Math::max);
+        }
+    }
+
+    /**
+     * Adds this histogram's bucket counts to {@code target} and returns [count, sum, max]
+     */
+    public long[] addTo(long[] target) {
+        long count = 0;
+        for (int i = 0; i < BUCKETS; i++) {
+            long bucket = counts.get(i);
+            target[i] += bucket;
+            count += bucket;
+        }
+        return new long[]{count, sum.get(), max.get()};
+    }
+
+    public void reset() {
+        for (int i = 0; i < BUCKETS; i++) {
+            counts.set(i, 0);
+        }
+        sum.set(0);
+        max.set(0);
+    }
+
+    static int bucketOf(long micros) {
+        if (micros < LINEAR_LIMIT) {
+            return (int) micros;
+        }
+        if (micros > MAX_MICROS) {
+            return BUCKETS - 1;
+        }
+        int shift = 63 - Long.numberOfLeadingZeros(micros) - SUB_BUCKET_BITS;
+        int mantissa = (int) (micros >>> shift);
+        return LINEAR_LIMIT + (shift - 1) * SUB_BUCKETS + (mantissa - SUB_BUCKETS);
+    }
+
+    /**
+     * Midpoint of a bucket's value range
+     */
+    static long valueOf(int bucket) {
+        if (bucket < LINEAR_LIMIT) {
+            return bucket;
+        }
+        int shift = (bucket - LINEAR_LIMIT) / SUB_BUCKETS + 1;
+        long mantissa = (bucket - LINEAR_LIMIT) % SUB_BUCKETS + SUB_BUCKETS;
+        long low = mantissa << shift;
+        return low + (1L << shift) / 2;
+    }
+
+    /**
+     * Value at quantile {@code q} of merged bucket counts, in microseconds; 0 when empty
+     */
+    public static long quantile(long[] buckets, long total, double q) {
+        if (total == 0) {
+            return 0;
+        }
+        long rank = (long) Math.ceil(Math.min(Math.max(q, 0), 1) * total);
+        long seen = 0;
+        for (int i = 0; i < buckets.length; i++) {
+            seen += buckets[i];
+            if (seen >= Math.max(rank, 1)) {
+                return valueOf(i);
+            }
+        }
+        return valueOf(buckets.length - 1);
+    }
+}
@@ -0,0 +1,231 @@
+package com.team.medaibackend.metrics;
+
+import jakarta.servlet.http.HttpServletRequest;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import org.springframework.web.context.request.RequestAttributes;
+import org.springframework.web.context.request.RequestContextHolder;
+import org.springframework.web.context.request.ServletRequestAttributes;
+import org.springframework.web.servlet.HandlerMapping;
+
+import java.time.LocalDateTime;
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+import java.util.concurrent.atomic.LongAccumulator;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Statement counts and database time per request, per route, plus a ring buffer of slow statements.
+ * <p>
+ * Fed by {@link SqlMetricsDataSourceProcessor}, which times every JDBC execute. A request is
+ * bracketed by {@link HttpMetricsFilter}; statements that the request fans out to a worker pool are
+ * attributed to it through {@link #propagateRequest(Runnable)}, the task decorator of those pools.
+ * Statements outside a request (schedulers, async exports) only count towards the slow-statement log. Only SQL text with placeholders and the Java types
+ * of bind parameters are kept, never their values.
+ */
+@Component
+public class SqlMetrics {
+
+    private static final Logger logger = LoggerFactory.getLogger(SqlMetrics.class);
+
+    private static final int MAX_SQL_LENGTH = 2000;
+
+    private final ThreadLocal<RequestStats> current = new ThreadLocal<>();
+    private final Map<String, RouteStats> routes = new ConcurrentHashMap<>();
+    private final AtomicReferenceArray<SlowStatement> slowStatements;
+    private final AtomicLong slowWrites = new AtomicLong();
+    private final LongAdder totalStatements = new LongAdder();
+
+    @Value("${metrics.sql.slow-threshold-ms:200}")
+    private long slowThresholdMs;
+
+    @Value("${metrics.sql.repeat-warn-threshold:20}")
+    private int repeatWarnThreshold;
+
+    @Value("${metrics.http.max-routes:300}")
+    private int maxRoutes;
+
+    public SqlMetrics(@Value("${metrics.sql.slow-log-size:100}") int slowLogSize) {
+        this.slowStatements = new AtomicReferenceArray<>(Math.max(1, slowLogSize));
+    }
+
+    public record SlowStatement(String sql, List<String> parameterTypes, double durationMs,
+                                String source, LocalDateTime executedAt) {
+    }
+
+    /**
+     * Statements and database time of the request running on this thread. Worker threads the request
+     * fans out to record into the same instance, hence the locking.
+     */
+    public static final class RequestStats {
+        private int statements;
+        private long nanos;
+        private final Map<String, Integer> repeats = new HashMap<>();
+
+        public synchronized int getStatements() {
+            return statements;
+        }
+
+        public synchronized double getDatabaseMillis() {
+            return nanos / 1_000_000.0;
+        }
+
+        private synchronized void record(String shape, long statementNanos) {
+            statements++;
+            nanos += statementNanos;
+            repeats.merge(shape, 1, Integer::sum);
+        }
+    }
+
+    private static final class RouteStats {
+        final LongAdder requests = new LongAdder();
+        final LongAdder statements = new LongAdder();
+        final LongAdder nanos = new LongAdder();
+        final LongAccumulator maxStatements = new LongAccumulator(Math::max, 0);
+        volatile String mostRepeatedSql;
+        volatile int mostRepeatedCount;
+    }
+
+    public void beginRequest() {
+        current.set(new RequestStats());
+    }
+
+    public RequestStats currentRequest() {
+        return current.get();
+    }
+
+    /**
+     * Wraps a task handed to a worker pool so its statements count towards the submitting request.
+     * Sources that outlive the request (timed out, still running) keep recording into stats nobody
+     * reads any more, which is harmless.
+     */
+    public Runnable propagateRequest(Runnable task) {
+        RequestStats stats = current.get();
+        if (stats == null) {
+            return task;
+        }
+        return () -> {
+            RequestStats previous = current.get();
+            current.set(stats);
+            try {
+                task.run();
+            } finally {
+                if (previous != null) {
+                    current.set(previous);
+                } else {
+                    current.remove();
+                }
+            }
+        };
+    }
+
+    public void endRequest(String route) {
+        RequestStats stats = current.get();
+        current.remove();
+        if (stats == null) {
+            return;
+        }
+        synchronized (stats) {
+            record(route, stats);
+        }
+    }
+
+    private void record(String route, RequestStats stats) {
+        RouteStats routeStats = routes.get(route);
+        if (routeStats == null) {
+            routeStats = routes.computeIfAbsent(routes.size() >= maxRoutes ? HttpMetricsRegistry.OTHER : route, r -> new RouteStats());
+        }
+        routeStats.requests.increment();
+        routeStats.statements.add(stats.statements);
+        routeStats.nanos.add(stats.nanos);
+        routeStats.maxStatements.accumulate(stats.statements);
+
+        // The same statement many times in one request is the signature of an N+1 fetch
+        for (Map.Entry<String, Integer> repeat : stats.repeats.entrySet()) {
+            if (repeat.getValue() > routeStats.mostRepeatedCount) {
+                routeStats.mostRepeatedCount = repeat.getValue();
+                routeStats.mostRepeatedSql = repeat.getKey();
+            }
+            if (repeat.getValue() >= repeatWarnThreshold) {
+                logger.warn("{} ran the same statement {} times: {}", route, repeat.getValue(), repeat.getKey());
+            }
+        }
+    }
+
+    void onStatement(String sql, List<String> parameterTypes, long nanos) {
+        totalStatements.increment();
+        String shape = sql == null ? "" : sql.length() > MAX_SQL_LENGTH ? sql.substring(0, MAX_SQL_LENGTH) : sql;
+
+        RequestStats stats = current.get();
+        if (stats != null) {
+            stats.record(shape, nanos);
+        }
+
+        double millis = nanos / 1_000_000.0;
+        if (millis >= slowThresholdMs) {
+            SlowStatement slow = new SlowStatement(shape, parameterTypes, Math.round(millis * 10) / 10.0,
+                    source(), LocalDateTime.now());
+            slowStatements.set((int) (slowWrites.getAndIncrement() % slowStatements.length()), slow);
+        }
+    }
+
+    /**
+     * Slow statements (most recent first) and per-route statement counts, busiest routes first
+     */
+    public Map<String, Object> snapshot(int topRoutes) {
+        List<SlowStatement> slow = new ArrayList<>();
+        for (int i = 0; i < slowStatements.length(); i++) {
+            SlowStatement statement = slowStatements.get(i);
+            if (statement != null) {
+                slow.add(statement);
+            }
+        }
+        slow.sort(Comparator.comparing(SlowStatement::executedAt).reversed());
+
+        List<Map<String, Object>> routeStats = new ArrayList<>();
+        routes.entrySet().stream()
+                .sorted((a, b) -> Long.compare(b.getValue().statements.sum(), a.getValue().statements.sum()))
+                .limit(topRoutes)
+                .forEach(e -> {
+                    RouteStats stats = e.getValue();
+                    long requests = Math.max(1, stats.requests.sum());
+                    Map<String, Object> item = new LinkedHashMap<>();
+                    item.put("route", e.getKey());
+                    item.put("requests", stats.requests.sum());
+                    item.put("statementsPerRequest", Math.round((double) stats.statements.sum() / requests * 10) / 10.0);
+                    item.put("maxStatements", stats.maxStatements.get());
+                    item.put("databaseMillisPerRequest", Math.round(stats.nanos.sum() / 1_000_000.0 / requests * 10) / 10.0);
+                    item.put("mostRepeatedCount", stats.mostRepeatedCount);
+                    item.put("mostRepeatedSql", stats.mostRepeatedSql);
+                    routeStats.add(item);
+                });
+
+        Map<String, Object> snapshot = new LinkedHashMap<>();
+        snapshot.put("totalStatements", totalStatements.sum());
+        snapshot.put("slowThresholdMs", slowThresholdMs);
+        snapshot.put("slowStatements", slow);
+        snapshot.put("routes", routeStats);
+        return snapshot;
+    }
+
+    public void reset() {
+        routes.clear();
+        for (int i = 0; i < slowStatements.length(); i++) {
+            slowStatements.set(i, null);
+        }
+    }
+
+    private String source() {
+        RequestAttributes attributes = RequestContextHolder.getRequestAttributes();
+        if (attributes instanceof ServletRequestAttributes servlet) {
+            HttpServletRequest request = servlet.getRequest();
+            Object pattern = request.getAttribute(HandlerMapping.BEST_MATCHING_PATTERN_ATTRIBUTE);
+            return request.getMethod() + " " + (pattern != null ? pattern : HttpMetricsRegistry.UNMATCHED);
+        }
+        return "thread " + Thread.currentThread().getName();
+    }
+}
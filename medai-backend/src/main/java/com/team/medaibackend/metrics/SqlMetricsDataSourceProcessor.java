@@ -0,0 +1,141 @@
+package com.team.medaibackend.metrics;
+
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.beans.factory.config.BeanPostProcessor;
+import org.springframework.stereotype.Component;
+
+import javax.sql.DataSource;
+import java.lang.reflect.InvocationHandler;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+import java.sql.CallableStatement;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.Statement;
+import java.util.ArrayList;
+import java.util.Map;
+import java.util.TreeMap;
+
+/**
+ * Wraps the application DataSource so every JDBC execute is timed and reported to {@link SqlMetrics}.
+ * <p>
+ * Connections and statements are JDK proxies; {@code unwrap}/{@code isWrapperFor} go to the real
+ * objects, so Hikari and driver-specific access keep working. Bind parameters are recorded only as
+ * their Java type names. Disable with {@code metrics.sql.enabled: false}.
+ */
+@Component
+public class SqlMetricsDataSourceProcessor implements BeanPostProcessor {
+
+    private final ObjectProvider<SqlMetrics> sqlMetrics;
+    private final boolean enabled;
+    private volatile SqlMetrics resolved;
+
+    public SqlMetricsDataSourceProcessor(ObjectProvider<SqlMetrics> sqlMetrics,
+                                         @Value("${metrics.sql.enabled:true}") boolean enabled) {
+        this.sqlMetrics = sqlMetrics;
+        this.enabled = enabled;
+    }
+
+    @Override
+    public Object postProcessAfterInitialization(Object bean, String beanName) {
+        if (enabled && bean instanceof DataSource dataSource && !Proxy.isProxyClass(bean.getClass())) {
+            return proxy(DataSource.class, dataSource, (proxy, method, args) -> {
+                Object result = invoke(dataSource, method, args, proxy);
+                return result instanceof Connection connection ? wrapConnection(connection) : result;
+            });
+        }
+        return bean;
+    }
+
+    private Connection wrapConnection(Connection connection) {
+        return proxy(Connection.class, connection, (proxy, method, args) -> {
+            Object result = invoke(connection, method, args, proxy);
+            String sql = args != null && args.length > 0 && args[0] instanceof String s ? s : null;
+            if (result instanceof CallableStatement statement) {
+                return proxy(CallableStatement.class, statement, new StatementHandler(statement, sql));
+            }
+            if (result instanceof PreparedStatement statement) {
+                return proxy(PreparedStatement.class, statement, new StatementHandler(statement, sql));
+            }
+            if (result instanceof Statement statement) {
+                return proxy(Statement.class, statement, new StatementHandler(statement, null));
+            }
+            return result;
+        });
+    }
+
+    private final class StatementHandler implements InvocationHandler {
+
+        private final Statement target;
+        private final String preparedSql;
+        private final Map<Integer, String> parameterTypes = new TreeMap<>();
+        private String batchSql;
+
+        StatementHandler(Statement target, String preparedSql) {
+            this.target = target;
+            this.preparedSql = preparedSql;
+        }
+
+        @Override
+        public Object invoke(Object proxy, Method method, Object[] args) throws Throwable {
+            String name = method.getName();
+
+            if (name.startsWith("execute")) {
+                String sql = args != null && args.length > 0 && args[0] instanceof String s ? s
+                        : preparedSql != null ? preparedSql : batchSql;
+                long start = System.nanoTime();
+                try {
+                    return SqlMetricsDataSourceProcessor.invoke(target, method, args, proxy);
+                } finally {
+                    SqlMetrics metrics = metrics();
+                    if (metrics != null) {
+                        metrics.onStatement(sql, new ArrayList<>(parameterTypes.values()), System.nanoTime() - start);
+                    }
+                    parameterTypes.clear();
+                }
+            }
+
+            if (name.startsWith("set") && args != null && args.length >= 2 && args[0] instanceof Integer index) {
+                parameterTypes.put(index, name.equals("setNull") || args[1] == null
+                        ? "null" : args[1].getClass().getSimpleName());
+            } else if (name.equals("clearParameters")) {
+                parameterTypes.clear();
+            } else if (name.equals("addBatch") && args != null && args.length == 1) {
+                batchSql = (String) args[0];
+            }
+            return SqlMetricsDataSourceProcessor.invoke(target, method, args, proxy);
+        }
+    }
+
+    // Resolved lazily: the DataSource (and Flyway) come up before SqlMetrics can be created
+    private SqlMetrics metrics() {
+        SqlMetrics metrics = resolved;
+        if (metrics == null) {
+            metrics = sqlMetrics.getIfAvailable();
+            resolved = metrics;
+        }
+        return metrics;
+    }
+
+    @SuppressWarnings("unchecked")
+    private static <T> T proxy(Class<T> type, T target, InvocationHandler handler) {
+        return (T) Proxy.newProxyInstance(SqlMetricsDataSourceProcessor.class.getClassLoader(), new Class<?>[]{type}, handler);
+    }
+
+    private static Object invoke(Object target, Method method, Object[] args, Object proxy) throws Throwable {
+        // Unwrapping to an interface the proxy implements keeps the proxy; anything else reaches the real object
+        if (method.getName().equals("isWrapperFor") && ((Class<?>) args[0]).isInstance(proxy)) {
+            return true;
+        }
+        if (method.getName().equals("unwrap") && ((Class<?>) args[0]).isInstance(proxy)) {
+            return proxy;
+        }
+        try {
+            return method.invoke(target, args);
+        } catch (InvocationTargetException e) {
+            throw e.getCause();
+        }
+    }
+}
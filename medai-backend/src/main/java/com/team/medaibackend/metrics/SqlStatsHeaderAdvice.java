@@ -0,0 +1,46 @@
+package com.team.medaibackend.metrics;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.core.MethodParameter;
+import org.springframework.http.MediaType;
+import org.springframework.http.converter.HttpMessageConverter;
+import org.springframework.http.server.ServerHttpRequest;
+import org.springframework.http.server.ServerHttpResponse;
+import org.springframework.web.bind.annotation.ControllerAdvice;
+import org.springframework.web.servlet.mvc.method.annotation.ResponseBodyAdvice;
+
+import java.util.Locale;
+
+/**
+ * Echoes the request's statement count and database time in {@code X-SQL-Statements} and
+ * {@code X-SQL-Time-Ms} when {@code metrics.sql.debug-header} is on. Written just before the body,
+ * so lazy loads triggered while serializing entities are not included.
+ */
+@ControllerAdvice
+public class SqlStatsHeaderAdvice implements ResponseBodyAdvice<Object> {
+
+    private final SqlMetrics sqlMetrics;
+    private final boolean enabled;
+
+    public SqlStatsHeaderAdvice(SqlMetrics sqlMetrics, @Value("${metrics.sql.debug-header:false}") boolean enabled) {
+        this.sqlMetrics = sqlMetrics;
+        this.enabled = enabled;
+    }
+
+    @Override
+    public boolean supports(MethodParameter returnType, Class<? extends HttpMessageConverter<?>> converterType) {
+        return enabled;
+    }
+
+    @Override
+    public Object beforeBodyWrite(Object body, MethodParameter returnType, MediaType selectedContentType,
+                                  Class<? extends HttpMessageConverter<?>> selectedConverterType,
+                                  ServerHttpRequest request, ServerHttpResponse response) {
+        SqlMetrics.RequestStats stats = sqlMetrics.currentRequest();
+        if (stats != null) {
+            response.getHeaders().set("X-SQL-Statements", String.valueOf(stats.getStatements()));
+            response.getHeaders().set("X-SQL-Time-Ms", String.format(Locale.ROOT, "%.1f", stats.getDatabaseMillis()));
+        }
+        return body;
+    }
+}
@@ -1,5 +1,6 @@
 package com.team.medaibackend.repository;
 
+import com.team.medaibackend.dto.AppointmentListItem;
 import com.team.medaibackend.entity.Appointment;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
@@ -41,6 +42,33 @@ public interface AppointmentRepository extends JpaRepository<Appointment, Long>
     long countByAppointmentDate(LocalDate date);
     long countByStatus(String status);
 
+    // List projections: patient and doctor joined in one query, no entity hydration
+    String LIST_ITEM_SELECT = "SELECT new com.team.medaibackend.dto.AppointmentListItem(a.id, a.appointmentDate, " +
+            "a.appointmentTime, a.endTime, a.appointmentType, a.status, a.location, a.notes, a.reason, a.durationMinutes, " +
+            "p.id, p.name, d.id, d.fullName, d.department, a.createdAt) " +
+            "FROM Appointment a LEFT JOIN a.patient p LEFT JOIN a.doctor d ";
+
+    @Query(value = LIST_ITEM_SELECT, countQuery = "SELECT COUNT(a) FROM Appointment a")
+    Page<AppointmentListItem> findListItems(Pageable pageable);
+
+    @Query(LIST_ITEM_SELECT + "WHERE d.id = :doctorId ORDER BY a.appointmentDate, a.appointmentTime")
+    List<AppointmentListItem> findListItemsByDoctor(@Param("doctorId") Long doctorId);
+
+    @Query(LIST_ITEM_SELECT + "WHERE d.id = :doctorId AND a.appointmentDate = :date")
+    List<AppointmentListItem> findListItemsByDoctorAndDate(@Param("doctorId") Long doctorId, @Param("date") LocalDate date);
+
+    @Query(LIST_ITEM_SELECT + "WHERE d.id = :doctorId AND a.appointmentDate BETWEEN :startDate AND :endDate " +
+            "ORDER BY a.appointmentDate, a.appointmentTime")
+    List<AppointmentListItem> findListItemsByDoctorAndDateRange(@Param("doctorId") Long doctorId,
+                                                                @Param("startDate") LocalDate startDate,
+                                                                @Param("endDate") LocalDate endDate);
+
+    @Query(LIST_ITEM_SELECT + "WHERE a.appointmentDate = :date ORDER BY a.appointmentTime")
+    List<AppointmentListItem> findListItemsByDate(@Param("date") LocalDate date);
+
+    @Query(LIST_ITEM_SELECT + "WHERE p.id = :patientId ORDER BY a.appointmentDate DESC, a.appointmentTime DESC")
+    List<AppointmentListItem> findListItemsByPatient(@Param("patientId") Long patientId);
+
     // Pagination
     Page<Appointment> findByDoctorId(Long doctorId, Pageable pageable);
     Page<Appointment> findByPatientId(Long patientId, Pageable pageable);
@@ -1,9 +1,15 @@
 package com.team.medaibackend.repository;
 
+import com.team.medaibackend.dto.DoctorPatientRow;
+import com.team.medaibackend.dto.PatientListItem;
 import com.team.medaibackend.entity.Patient;
+import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
+import java.time.LocalDate;
 import java.time.LocalDateTime;
 import java.util.List;
 import java.util.Optional;
@@ -16,6 +22,34 @@ public interface PatientRepository extends JpaRepository<Patient, Long> {
     // ✅ NEW: query through relation Patient.user.email
     Optional<Patient> findByUser_Email(String email);
 
+    @Query("SELECT new com.team.medaibackend.dto.PatientListItem(p.id, p.patientId, p.name, p.sex, p.birthDate) " +
+            "FROM Patient p")
+    List<PatientListItem> findAllListItems();
+
+    /**
+     * Patients with at least one appointment with the doctor, matched on name, patient ID or email
+     */
+    @Query("SELECT new com.team.medaibackend.dto.PatientListItem(p.id, p.patientId, p.name, p.sex, p.birthDate) " +
+            "FROM Patient p " +
+            "WHERE p.id IN (SELECT a.patient.id FROM Appointment a WHERE a.doctor.id = :doctorId) " +
+            "AND (LOWER(p.name) LIKE :pattern OR LOWER(p.patientId) LIKE :pattern OR LOWER(p.email) LIKE :pattern) " +
+            "ORDER BY LOWER(p.name)")
+    List<PatientListItem> findDoctorPatientOptions(@Param("doctorId") Long doctorId,
+                                                   @Param("pattern") String pattern,
+                                                   Pageable pageable);
+
+    /**
+     * A doctor's patients with appointment aggregates (last completed visit, next scheduled visit, count)
+     */
+    @Query("SELECT new com.team.medaibackend.dto.DoctorPatientRow(p.id, p.patientId, p.name, p.email, p.sex, p.birthDate, " +
+            "MAX(CASE WHEN a.status = 'completed' THEN a.appointmentDate END), " +
+            "MIN(CASE WHEN a.status IN ('scheduled', 'confirmed') AND a.appointmentDate >= :today THEN a.appointmentDate END), " +
+            "MAX(a.appointmentDate), COUNT(a)) " +
+            "FROM Appointment a JOIN a.patient p " +
+            "WHERE a.doctor.id = :doctorId " +
+            "GROUP BY p.id, p.patientId, p.name, p.email, p.sex, p.birthDate")
+    List<DoctorPatientRow> findDoctorPatientRows(@Param("doctorId") Long doctorId, @Param("today") LocalDate today);
+
     // Analytics methods
     long countByCreatedAtBetween(LocalDateTime start, LocalDateTime end);
     List<Patient> findByCreatedAtBetween(LocalDateTime start, LocalDateTime end);
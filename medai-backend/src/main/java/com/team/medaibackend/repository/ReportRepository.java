@@ -9,7 +9,10 @@ import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
 import java.time.LocalDateTime;
+import java.util.Collection;
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
 import java.util.Optional;
 
 @Repository
@@ -37,6 +40,29 @@ public interface ReportRepository extends JpaRepository<Report, Long> {
     """)
     List<Report> findByPatientId(@Param("patientId") Long patientId);
 
+    @Query("""
+        SELECT p.id, sp.id, COUNT(r)
+        FROM Report r
+        LEFT JOIN r.patient p
+        LEFT JOIN r.study s
+        LEFT JOIN s.patient sp
+        WHERE p.id IN :patientIds OR sp.id IN :patientIds
+        GROUP BY p.id, sp.id
+    """)
+    List<Object[]> countGroupedByPatientIds(@Param("patientIds") Collection<Long> patientIds);
+
+    /**
+     * Report counts per patient, matching findByPatientId (own patient or the study's patient)
+     */
+    default Map<Long, Long> countByPatientIds(Collection<Long> patientIds) {
+        Map<Long, Long> counts = new HashMap<>();
+        for (Object[] row : countGroupedByPatientIds(patientIds)) {
+            Long patientId = patientIds.contains((Long) row[0]) ? (Long) row[0] : (Long) row[1];
+            counts.merge(patientId, (Long) row[2], Long::sum);
+        }
+        return counts;
+    }
+
     // Analytics methods
     long countByCreatedAtBetween(LocalDateTime start, LocalDateTime end);
     long countByStatusAndCreatedAtBetween(String status, LocalDateTime start, LocalDateTime end);
@@ -1,5 +1,7 @@
 package com.team.medaibackend.repository;
 
+import com.team.medaibackend.dto.StudyListItem;
+import com.team.medaibackend.dto.WorklistItem;
 import com.team.medaibackend.entity.Study;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
@@ -10,7 +12,10 @@ import org.springframework.stereotype.Repository;
 
 import java.time.LocalDate;
 import java.time.LocalDateTime;
+import java.util.Collection;
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
 import java.util.Optional;
 
 @Repository
@@ -41,6 +46,41 @@ public interface StudyRepository extends JpaRepository<Study, Long> {
                               @Param("dateTo") LocalDateTime dateTo,
                               Pageable pageable);
 
+    String LIST_ITEM_FILTERS = "WHERE (:patientId IS NULL OR p.patientId = :patientId) " +
+            "AND (:modality IS NULL OR s.modality = :modality) AND (:status IS NULL OR s.status = :status) " +
+            "AND (:search IS NULL OR LOWER(s.description) LIKE :search OR LOWER(s.accessionNumber) LIKE :search " +
+            "OR LOWER(s.studyUid) LIKE :search OR LOWER(p.name) LIKE :search)";
+
+    // List projections: one query with the patient joined, no entity hydration. Same filters as
+    // StudyService#getStudiesKeyset; search is a lower-case LIKE pattern
+    @Query(value = "SELECT new com.team.medaibackend.dto.StudyListItem(s.id, s.studyUid, s.description, " +
+            "s.modality, s.status, s.studyDate, s.createdAt, p.id, p.name) " +
+            "FROM Study s LEFT JOIN s.patient p " + LIST_ITEM_FILTERS,
+            countQuery = "SELECT COUNT(s) FROM Study s LEFT JOIN s.patient p " + LIST_ITEM_FILTERS)
+    Page<StudyListItem> findListItems(@Param("patientId") String patientId,
+                                      @Param("modality") String modality,
+                                      @Param("status") String status,
+                                      @Param("search") String search,
+                                      Pageable pageable);
+
+    @Query(value = "SELECT new com.team.medaibackend.dto.WorklistItem(s.id, s.studyUid, s.studyDate, " +
+            "s.modality, s.description, s.status, p.id, p.name) " +
+            "FROM Study s LEFT JOIN s.patient p " +
+            "WHERE (:status IS NULL OR s.status = :status)",
+            countQuery = "SELECT COUNT(s) FROM Study s WHERE (:status IS NULL OR s.status = :status)")
+    Page<WorklistItem> findWorklistItems(@Param("status") String status, Pageable pageable);
+
+    @Query("SELECT s.patient.id, COUNT(s) FROM Study s WHERE s.patient.id IN :patientIds GROUP BY s.patient.id")
+    List<Object[]> countGroupedByPatientIds(@Param("patientIds") Collection<Long> patientIds);
+
+    default Map<Long, Long> countByPatientIds(Collection<Long> patientIds) {
+        Map<Long, Long> counts = new HashMap<>();
+        for (Object[] row : countGroupedByPatientIds(patientIds)) {
+            counts.put((Long) row[0], (Long) row[1]);
+        }
+        return counts;
+    }
+
     @Query("SELECT COUNT(s) FROM Study s WHERE FUNCTION('DATE', s.createdAt) = :date")
     long countByCreatedAtDate(@Param("date") LocalDate date);
 
@@ -0,0 +1,96 @@
+package com.team.medaibackend.search;
+
+import com.team.medaibackend.search.KeysetQuery.PredicateBuilder;
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.Tuple;
+import jakarta.persistence.criteria.*;
+
+import java.time.LocalDateTime;
+import java.util.*;
+
+/**
+ * Walks rows changed after a high-water mark in (COALESCE(updatedAt, createdAt), id) order and reports
+ * which of them currently match a filter. Used to maintain materialized result sets from deltas only:
+ * changed rows that match are upserted, changed rows that no longer match are evicted.
+ * Tables need a btree index on (COALESCE(updated_at, created_at), id); rows with neither timestamp are skipped.
+ */
+public final class ChangeScan {
+
+    /**
+     * One batch of changed rows. {@code lastUpdatedAt}/{@code lastId} is the position to resume from.
+     */
+    public record Batch(List<Long> changedIds, Set<Long> matchingIds, LocalDateTime lastUpdatedAt, long lastId) {
+
+        public boolean isEmpty() {
+            return changedIds.isEmpty();
+        }
+    }
+
+    private ChangeScan() {
+    }
+
+    /**
+     * Rows with (changed at, id) strictly after (afterUpdatedAt, afterId); a null timestamp starts from the beginning.
+     */
+    public static <T> Batch fetch(EntityManager entityManager,
+                                  Class<T> type,
+                                  PredicateBuilder<T> filters,
+                                  LocalDateTime afterUpdatedAt,
+                                  long afterId,
+                                  int size) {
+        CriteriaBuilder cb = entityManager.getCriteriaBuilder();
+        CriteriaQuery<Tuple> cq = cb.createTupleQuery();
+        Root<T> root = cq.from(type);
+
+        // Rows that were never updated may have no updated_at
+        Expression<LocalDateTime> changedAt = cb.coalesce(
+                root.<LocalDateTime>get("updatedAt"), root.<LocalDateTime>get("createdAt"));
+        Path<Long> id = root.get("id");
+
+        cq.multiselect(id, changedAt);
+        if (afterUpdatedAt != null) {
+            cq.where(cb.or(
+                    cb.greaterThan(changedAt, afterUpdatedAt),
+                    cb.and(cb.equal(changedAt, afterUpdatedAt), cb.greaterThan(id, afterId))));
+        } else {
+            cq.where(cb.isNotNull(changedAt));
+        }
+        cq.orderBy(cb.asc(changedAt), cb.asc(id));
+
+        List<Tuple> rows = entityManager.createQuery(cq)
+                .setMaxResults(size)
+                .getResultList();
+
+        if (rows.isEmpty()) {
+            return new Batch(List.of(), Set.of(), afterUpdatedAt, afterId);
+        }
+
+        List<Long> changedIds = new ArrayList<>(rows.size());
+        for (Tuple row : rows) {
+            changedIds.add(row.get(0, Long.class));
+        }
+        Tuple last = rows.get(rows.size() - 1);
+
+        return new Batch(
+                changedIds,
+                matching(entityManager, type, filters, changedIds),
+                last.get(1, LocalDateTime.class),
+                last.get(0, Long.class));
+    }
+
+    private static <T> Set<Long> matching(EntityManager entityManager,
+                                          Class<T> type,
+                                          PredicateBuilder<T> filters,
+                                          List<Long> ids) {
+        CriteriaBuilder cb = entityManager.getCriteriaBuilder();
+        CriteriaQuery<Long> cq = cb.createQuery(Long.class);
+        Root<T> root = cq.from(type);
+        Path<Long> id = root.get("id");
+
+        List<Predicate> predicates = new ArrayList<>(filters.build(cb, root));
+        predicates.add(id.in(ids));
+
+        cq.select(id).where(cb.and(predicates.toArray(new Predicate[0])));
+        return new HashSet<>(entityManager.createQuery(cq).getResultList());
+    }
+}
@@ -0,0 +1,492 @@
+package com.team.medaibackend.search;
+
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import org.apache.lucene.analysis.Analyzer;
+import org.apache.lucene.analysis.LowerCaseFilter;
+import org.apache.lucene.analysis.TokenStream;
+import org.apache.lucene.analysis.Tokenizer;
+import org.apache.lucene.analysis.standard.StandardTokenizer;
+import org.apache.lucene.analysis.synonym.SolrSynonymParser;
+import org.apache.lucene.analysis.synonym.SynonymGraphFilter;
+import org.apache.lucene.analysis.synonym.SynonymMap;
+import org.apache.lucene.document.*;
+import org.apache.lucene.facet.*;
+import org.apache.lucene.facet.sortedset.DefaultSortedSetDocValuesReaderState;
+import org.apache.lucene.facet.sortedset.SortedSetDocValuesFacetCounts;
+import org.apache.lucene.facet.sortedset.SortedSetDocValuesFacetField;
+import org.apache.lucene.facet.sortedset.SortedSetDocValuesReaderState;
+import org.apache.lucene.index.IndexReader;
+import org.apache.lucene.index.IndexWriter;
+import org.apache.lucene.index.IndexWriterConfig;
+import org.apache.lucene.index.StoredFields;
+import org.apache.lucene.index.Term;
+import org.apache.lucene.queryparser.classic.MultiFieldQueryParser;
+import org.apache.lucene.queryparser.classic.ParseException;
+import org.apache.lucene.queryparser.classic.QueryParser;
+import org.apache.lucene.search.*;
+import org.apache.lucene.search.uhighlight.UnifiedHighlighter;
+import org.apache.lucene.store.FSDirectory;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.core.io.ClassPathResource;
+import org.springframework.stereotype.Component;
+
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.Reader;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.util.*;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Stream;
+
+/**
+ * Embedded Lucene index over report and clinical note text.
+ * <p>
+ * Writes go through a single {@link IndexWriter}; searches use near-real-time readers refreshed
+ * about once a second, and the index is committed to disk periodically. Medical synonyms are
+ * expanded at query time only, so the synonym list can change without reindexing.
+ * <p>
+ * A full rebuild goes into a fresh {@link Generation} in its own subdirectory while searches keep
+ * using the live one. {@link #publish} swaps it in and records it in the {@code current} file
+ * (written to a temp file and renamed, so a crash leaves either the old or the new generation).
+ * The old generation is closed and deleted a minute later, once in-flight searches are done.
+ */
+@Component
+public class ClinicalTextIndex {
+
+    private static final Logger logger = LoggerFactory.getLogger(ClinicalTextIndex.class);
+
+    public static final List<String> FACET_DIMENSIONS = List.of("type", "modality", "author", "status", "dateBucket");
+
+    private static final String FIELD_KEY = "key";
+    private static final String FIELD_TYPE = "docType";
+    private static final String FIELD_ID = "entityId";
+    private static final String FIELD_TITLE = "title";
+    private static final String FIELD_BODY = "body";
+    private static final String FIELD_DATE = "date";
+
+    // Names the live generation's subdirectory; absent for an index created before generations
+    private static final String CURRENT = "current";
+    private static final String GENERATION_PREFIX = "gen-";
+    private static final long RETIRE_DELAY_SECONDS = 60;
+
+    private final Path indexPath;
+    private final FacetsConfig facetsConfig = new FacetsConfig();
+
+    private Analyzer indexAnalyzer;
+    private Analyzer queryAnalyzer;
+    private volatile Generation live;
+    private ScheduledExecutorService committer;
+
+    // Facet ordinals are per reader; rebuilt only when the NRT reader changes
+    private volatile IndexReader facetStateReader;
+    private volatile SortedSetDocValuesReaderState facetState;
+
+    public ClinicalTextIndex(@Value("${search.fulltext.index-path:${storage.local.root-path}/index/clinical-text}") String indexPath) {
+        this.indexPath = Path.of(indexPath);
+    }
+
+    /**
+     * A document to index; facet values may be null
+     */
+    public record IndexedDocument(String type, long id, String title, String body,
+                                  String modality, String author, String status,
+                                  String date, String dateBucket) {
+    }
+
+    /**
+     * One physical index: its directory, writer and near-real-time searchers
+     */
+    public final class Generation {
+
+        private final Path path;
+        private final FSDirectory directory;
+        private final IndexWriter writer;
+        private final SearcherManager searcherManager;
+        private final ControlledRealTimeReopenThread<IndexSearcher> reopenThread;
+
+        private Generation(Path path, IndexWriterConfig.OpenMode openMode) throws IOException {
+            this.path = path;
+            Files.createDirectories(path);
+            directory = FSDirectory.open(path);
+            IndexWriterConfig config = new IndexWriterConfig(indexAnalyzer);
+            config.setOpenMode(openMode);
+            config.setRAMBufferSizeMB(64);
+            writer = new IndexWriter(directory, config);
+
+            searcherManager = new SearcherManager(writer, null);
+            reopenThread = new ControlledRealTimeReopenThread<>(writer, searcherManager, 1.0, 0.1);
+            reopenThread.setName("clinical-text-nrt-" + path.getFileName());
+            reopenThread.setDaemon(true);
+            reopenThread.start();
+        }
+
+        public void upsert(IndexedDocument document) {
+            try {
+                writer.updateDocument(keyTerm(document.type(), document.id()), toLuceneDocument(document));
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+        }
+
+        public void delete(String type, long id) {
+            try {
+                writer.deleteDocuments(keyTerm(type, id));
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+        }
+
+        private void commit() throws IOException {
+            writer.commit();
+            searcherManager.maybeRefresh();
+        }
+
+        private void close() throws IOException {
+            reopenThread.close();
+            searcherManager.close();
+            writer.close();
+            directory.close();
+        }
+    }
+
+    @PostConstruct
+    public void open() throws IOException {
+        Files.createDirectories(indexPath);
+
+        indexAnalyzer = new Analyzer() {
+            @Override
+            protected TokenStreamComponents createComponents(String fieldName) {
+                Tokenizer source = new StandardTokenizer();
+                return new TokenStreamComponents(source, new LowerCaseFilter(source));
+            }
+        };
+
+        SynonymMap synonyms = loadSynonyms();
+        queryAnalyzer = new Analyzer() {
+            @Override
+            protected TokenStreamComponents createComponents(String fieldName) {
+                Tokenizer source = new StandardTokenizer();
+                TokenStream result = new LowerCaseFilter(source);
+                result = new SynonymGraphFilter(result, synonyms, true);
+                return new TokenStreamComponents(source, result);
+            }
+        };
+
+        Path current = indexPath.resolve(CURRENT);
+        Path livePath = Files.exists(current) ? indexPath.resolve(Files.readString(current).trim()) : indexPath;
+        live = new Generation(livePath, IndexWriterConfig.OpenMode.CREATE_OR_APPEND);
+        deleteAbandonedGenerations(livePath);
+
+        committer = Executors.newSingleThreadScheduledExecutor(r -> {
+            Thread t = new Thread(r, "clinical-text-commit");
+            t.setDaemon(true);
+            return t;
+        });
+        committer.scheduleWithFixedDelay(this::commitQuietly, 30, 30, TimeUnit.SECONDS);
+
+        logger.info("Clinical text index opened at {} ({} docs)", livePath, live.writer.getDocStats().numDocs);
+    }
+
+    @PreDestroy
+    public void close() throws IOException {
+        committer.shutdownNow();
+        live.close();
+    }
+
+    public boolean isEmpty() {
+        return live.writer.getDocStats().numDocs == 0;
+    }
+
+    public void upsert(IndexedDocument document) {
+        live.upsert(document);
+    }
+
+    public void delete(String type, long id) {
+        live.delete(type, id);
+    }
+
+    /**
+     * An empty generation to rebuild into; searches and live writes keep going to the current one
+     */
+    public Generation newGeneration() {
+        try {
+            return new Generation(indexPath.resolve(GENERATION_PREFIX + System.currentTimeMillis()),
+                    IndexWriterConfig.OpenMode.CREATE);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    /**
+     * Commit the rebuilt generation and make it the live one. Callers must not write to the live
+     * index concurrently, or the write may land in the generation being retired.
+     */
+    public synchronized void publish(Generation fresh) {
+        try {
+            fresh.commit();
+            Path pointer = indexPath.resolve(CURRENT + ".tmp");
+            Files.writeString(pointer, fresh.path.getFileName().toString());
+            Files.move(pointer, indexPath.resolve(CURRENT),
+                    StandardCopyOption.ATOMIC_MOVE, StandardCopyOption.REPLACE_EXISTING);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+
+        Generation retired = live;
+        live = fresh;
+        committer.schedule(() -> retire(retired), RETIRE_DELAY_SECONDS, TimeUnit.SECONDS);
+    }
+
+    /**
+     * Throw away a rebuild that did not complete
+     */
+    public void discard(Generation abandoned) {
+        retire(abandoned);
+    }
+
+    /**
+     * Ranked search with highlighted snippets and facet counts.
+     *
+     * @param query   Lucene query syntax over title and body ("quoted phrases", AND/OR, wildcards)
+     * @param filters facet dimension to required value (drill-down)
+     */
+    public Map<String, Object> search(String query, Map<String, String> filters, int limit) {
+        Query baseQuery = parse(query);
+
+        DrillDownQuery drillDown = new DrillDownQuery(facetsConfig, baseQuery);
+        filters.forEach((dimension, value) -> {
+            if (value != null && !value.isBlank() && FACET_DIMENSIONS.contains(dimension)) {
+                drillDown.add(dimension, value);
+            }
+        });
+
+        // Searchers come from the generation that was live when the search started
+        SearcherManager searcherManager = live.searcherManager;
+        IndexSearcher searcher = null;
+        try {
+            searcher = searcherManager.acquire();
+
+            Object[] collected = searcher.search(drillDown, new MultiCollectorManager(
+                    new TopScoreDocCollectorManager(limit, Integer.MAX_VALUE), new FacetsCollectorManager()));
+            TopDocs topDocs = (TopDocs) collected[0];
+            FacetsCollector facetsCollector = (FacetsCollector) collected[1];
+
+            UnifiedHighlighter highlighter = UnifiedHighlighter.builder(searcher, indexAnalyzer).build();
+            Map<String, String[]> highlights = highlighter.highlightFields(
+                    new String[]{FIELD_TITLE, FIELD_BODY}, baseQuery, topDocs, new int[]{1, 3});
+
+            StoredFields storedFields = searcher.storedFields();
+            List<Map<String, Object>> results = new ArrayList<>();
+            for (int i = 0; i < topDocs.scoreDocs.length; i++) {
+                ScoreDoc scoreDoc = topDocs.scoreDocs[i];
+                Document doc = storedFields.document(scoreDoc.doc);
+
+                Map<String, Object> result = new HashMap<>();
+                result.put("type", doc.get(FIELD_TYPE));
+                result.put("id", doc.getField(FIELD_ID).numericValue().longValue());
+                result.put("title", doc.get(FIELD_TITLE));
+                result.put("date", doc.get(FIELD_DATE));
+                result.put("score", scoreDoc.score);
+                result.put("titleHighlight", highlights.get(FIELD_TITLE)[i]);
+                result.put("snippet", highlights.get(FIELD_BODY)[i]);
+                results.add(result);
+            }
+
+            Map<String, Object> response = new HashMap<>();
+            response.put("total", topDocs.totalHits.value);
+            response.put("results", results);
+            response.put("facets", facetCounts(searcher, facetsCollector));
+            return response;
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        } finally {
+            if (searcher != null) {
+                try {
+                    searcherManager.release(searcher);
+                } catch (IOException e) {
+                    logger.warn("Failed to release searcher", e);
+                }
+            }
+        }
+    }
+
+    public Map<String, Object> getStats() {
+        Generation current = live;
+        Map<String, Object> stats = new HashMap<>();
+        stats.put("documents", current.writer.getDocStats().numDocs);
+        stats.put("maxDoc", current.writer.getDocStats().maxDoc);
+        stats.put("ramBytesUsed", current.writer.ramBytesUsed());
+        stats.put("path", current.path.toString());
+        return stats;
+    }
+
+    private Map<String, List<Map<String, Object>>> facetCounts(IndexSearcher searcher, FacetsCollector collector)
+            throws IOException {
+        Map<String, List<Map<String, Object>>> facets = new LinkedHashMap<>();
+
+        SortedSetDocValuesReaderState state = facetState(searcher.getIndexReader());
+        if (state == null) {
+            return facets;
+        }
+
+        Facets counts = new SortedSetDocValuesFacetCounts(state, collector);
+        for (String dimension : FACET_DIMENSIONS) {
+            List<Map<String, Object>> values = new ArrayList<>();
+            try {
+                FacetResult result = counts.getTopChildren(20, dimension);
+                if (result != null) {
+                    for (LabelAndValue lv : result.labelValues) {
+                        values.add(Map.of("value", lv.label, "count", lv.value.longValue()));
+                    }
+                }
+            } catch (IllegalArgumentException e) {
+                // Dimension not present in the index yet
+            }
+            facets.put(dimension, values);
+        }
+        return facets;
+    }
+
+    private SortedSetDocValuesReaderState facetState(IndexReader reader) throws IOException {
+        if (reader != facetStateReader) {
+            synchronized (this) {
+                if (reader != facetStateReader) {
+                    try {
+                        facetState = new DefaultSortedSetDocValuesReaderState(reader, facetsConfig);
+                    } catch (IllegalArgumentException e) {
+                        // No facet fields indexed yet
+                        facetState = null;
+                    }
+                    facetStateReader = reader;
+                }
+            }
+        }
+        return facetState;
+    }
+
+    private Query parse(String query) {
+        MultiFieldQueryParser parser = new MultiFieldQueryParser(
+                new String[]{FIELD_TITLE, FIELD_BODY}, queryAnalyzer, Map.of(FIELD_TITLE, 2.0f, FIELD_BODY, 1.0f));
+        parser.setDefaultOperator(QueryParser.Operator.AND);
+        // Let multi-word synonyms ("heart attack") reach the synonym filter as one span
+        parser.setSplitOnWhitespace(false);
+        parser.setAutoGenerateMultiTermSynonymsPhraseQuery(true);
+        try {
+            return parser.parse(query);
+        } catch (ParseException e) {
+            throw new IllegalArgumentException("Invalid search query: " + e.getMessage());
+        }
+    }
+
+    private Document toLuceneDocument(IndexedDocument source) throws IOException {
+        Document doc = new Document();
+        doc.add(new StringField(FIELD_KEY, key(source.type(), source.id()), Field.Store.NO));
+        doc.add(new StringField(FIELD_TYPE, source.type(), Field.Store.YES));
+        doc.add(new StoredField(FIELD_ID, source.id()));
+        doc.add(new TextField(FIELD_TITLE, Objects.toString(source.title(), ""), Field.Store.YES));
+        doc.add(new TextField(FIELD_BODY, Objects.toString(source.body(), ""), Field.Store.YES));
+        if (source.date() != null) {
+            doc.add(new StoredField(FIELD_DATE, source.date()));
+        }
+
+        addFacet(doc, "type", source.type());
+        addFacet(doc, "modality", source.modality());
+        addFacet(doc, "author", source.author());
+        addFacet(doc, "status", source.status());
+        addFacet(doc, "dateBucket", source.dateBucket());
+
+        return facetsConfig.build(doc);
+    }
+
+    private void addFacet(Document doc, String dimension, String value) {
+        if (value != null && !value.isBlank()) {
+            doc.add(new SortedSetDocValuesFacetField(dimension, value));
+        }
+    }
+
+    private void commitQuietly() {
+        try {
+            IndexWriter writer = live.writer;
+            if (writer.hasUncommittedChanges()) {
+                writer.commit();
+            }
+        } catch (IOException | RuntimeException e) {
+            logger.warn("Periodic clinical text index commit failed", e);
+        }
+    }
+
+    private void retire(Generation generation) {
+        try {
+            generation.close();
+        } catch (IOException | RuntimeException e) {
+            logger.warn("Failed to close clinical text index generation {}", generation.path, e);
+        }
+        deleteGeneration(generation.path);
+    }
+
+    /**
+     * Generations left behind by a rebuild that was interrupted, or retired just before a shutdown
+     */
+    private void deleteAbandonedGenerations(Path livePath) throws IOException {
+        if (!livePath.equals(indexPath)) {
+            // Index files of the layout before generations, superseded by the first rebuild
+            deleteGeneration(indexPath);
+        }
+        try (Stream<Path> children = Files.list(indexPath)) {
+            children.filter(child -> child.getFileName().toString().startsWith(GENERATION_PREFIX))
+                    .filter(child -> !child.equals(livePath))
+                    .forEach(this::deleteGeneration);
+        }
+    }
+
+    private void deleteGeneration(Path path) {
+        try {
+            if (path.equals(indexPath)) {
+                // Only the files: the generations and the current file live alongside them
+                try (Stream<Path> files = Files.list(indexPath)) {
+                    for (Path file : files.filter(Files::isRegularFile).toList()) {
+                        if (!file.getFileName().toString().startsWith(CURRENT)) {
+                            Files.deleteIfExists(file);
+                        }
+                    }
+                }
+                return;
+            }
+            try (Stream<Path> files = Files.walk(path)) {
+                for (Path file : files.sorted(Comparator.reverseOrder()).toList()) {
+                    Files.deleteIfExists(file);
+                }
+            }
+        } catch (IOException e) {
+            logger.warn("Failed to delete clinical text index generation {}: {}", path, e.getMessage());
+        }
+    }
+
+    private SynonymMap loadSynonyms() throws IOException {
+        SolrSynonymParser parser = new SolrSynonymParser(true, true, indexAnalyzer);
+        ClassPathResource resource = new ClassPathResource("search/medical-synonyms.txt");
+        try (Reader reader = new InputStreamReader(resource.getInputStream(), StandardCharsets.UTF_8)) {
+            parser.parse(reader);
+            return parser.build();
+        } catch (java.text.ParseException e) {
+            throw new IOException("Invalid medical synonym file", e);
+        }
+    }
+
+    private static Term keyTerm(String type, long id) {
+        return new Term(FIELD_KEY, key(type, id));
+    }
+
+    private static String key(String type, long id) {
+        return type + ":" + id;
+    }
+}
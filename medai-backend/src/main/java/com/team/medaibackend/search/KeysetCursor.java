@@ -0,0 +1,50 @@
+package com.team.medaibackend.search;
+
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDateTime;
+import java.util.Base64;
+
+/**
+ * Opaque position in a listing ordered by (sort timestamp DESC, id DESC).
+ * Encoded as URL-safe Base64 so clients treat it as a token rather than parsing it.
+ */
+public class KeysetCursor {
+
+    private static final String NULL_MARKER = "~";
+
+    private final LocalDateTime sortValue;
+    private final long id;
+
+    public KeysetCursor(LocalDateTime sortValue, long id) {
+        this.sortValue = sortValue;
+        this.id = id;
+    }
+
+    public LocalDateTime getSortValue() { return sortValue; }
+
+    public long getId() { return id; }
+
+    public String encode() {
+        String raw = (sortValue != null ? sortValue.toString() : NULL_MARKER) + "|" + id;
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(raw.getBytes(StandardCharsets.UTF_8));
+    }
+
+    /**
+     * Decode a cursor from a previous page; null or blank means "first page".
+     */
+    public static KeysetCursor decode(String cursor) {
+        if (cursor == null || cursor.isBlank()) {
+            return null;
+        }
+
+        try {
+            String raw = new String(Base64.getUrlDecoder().decode(cursor), StandardCharsets.UTF_8);
+            int separator = raw.lastIndexOf('|');
+            String sort = raw.substring(0, separator);
+            long id = Long.parseLong(raw.substring(separator + 1));
+            return new KeysetCursor(NULL_MARKER.equals(sort) ? null : LocalDateTime.parse(sort), id);
+        } catch (RuntimeException e) {
+            throw new IllegalArgumentException("Invalid cursor");
+        }
+    }
+}
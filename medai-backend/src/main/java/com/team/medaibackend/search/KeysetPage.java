@@ -0,0 +1,28 @@
+package com.team.medaibackend.search;
+
+import java.util.List;
+import java.util.function.Function;
+
+/**
+ * One page of a keyset listing plus the cursor for the next page (null on the last page).
+ */
+public class KeysetPage<T> {
+
+    private final List<T> content;
+    private final String nextCursor;
+
+    public KeysetPage(List<T> content, String nextCursor) {
+        this.content = content;
+        this.nextCursor = nextCursor;
+    }
+
+    public List<T> getContent() { return content; }
+
+    public String getNextCursor() { return nextCursor; }
+
+    public boolean hasMore() { return nextCursor != null; }
+
+    public <R> KeysetPage<R> map(Function<T, R> mapper) {
+        return new KeysetPage<>(content.stream().map(mapper).toList(), nextCursor);
+    }
+}
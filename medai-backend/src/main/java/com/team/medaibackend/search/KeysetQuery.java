@@ -0,0 +1,88 @@
+package com.team.medaibackend.search;
+
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.criteria.*;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.function.Function;
+
+/**
+ * Seek pagination over (sortAttribute DESC, id DESC).
+ * <p>
+ * Instead of OFFSET, each page starts strictly after the cursor row, so page 10,000 costs
+ * the same index range scan as page 1. Sort columns need a (sort, id) btree index.
+ * PostgreSQL orders NULLs first for DESC, so rows with a null sort value come first.
+ * Associations listed in {@code fetches} are left-join fetched so mapping rows does not trigger lazy loads.
+ */
+public final class KeysetQuery {
+
+    @FunctionalInterface
+    public interface PredicateBuilder<T> {
+        List<Predicate> build(CriteriaBuilder cb, Root<T> root);
+    }
+
+    private KeysetQuery() {
+    }
+
+    public static <T> KeysetPage<T> fetch(EntityManager entityManager,
+                                          Class<T> type,
+                                          String sortAttribute,
+                                          Function<T, LocalDateTime> sortValue,
+                                          Function<T, Long> idValue,
+                                          PredicateBuilder<T> filters,
+                                          String cursor,
+                                          int size,
+                                          String... fetches) {
+        CriteriaBuilder cb = entityManager.getCriteriaBuilder();
+        CriteriaQuery<T> cq = cb.createQuery(type);
+        Root<T> root = cq.from(type);
+        for (String association : fetches) {
+            root.fetch(association, JoinType.LEFT);
+        }
+
+        Path<LocalDateTime> sort = root.get(sortAttribute);
+        Path<Long> id = root.get("id");
+
+        List<Predicate> predicates = new ArrayList<>(filters.build(cb, root));
+        KeysetCursor position = KeysetCursor.decode(cursor);
+        if (position != null) {
+            predicates.add(after(cb, sort, id, position));
+        }
+
+        cq.where(cb.and(predicates.toArray(new Predicate[0])));
+        cq.orderBy(cb.desc(sort), cb.desc(id));
+
+        // Fetch one extra row to know whether another page exists without counting
+        List<T> rows = entityManager.createQuery(cq)
+                .setMaxResults(size + 1)
+                .getResultList();
+
+        if (rows.size() <= size) {
+            return new KeysetPage<>(rows, null);
+        }
+
+        List<T> content = rows.subList(0, size);
+        T last = content.get(size - 1);
+        String next = new KeysetCursor(sortValue.apply(last), idValue.apply(last)).encode();
+        return new KeysetPage<>(new ArrayList<>(content), next);
+    }
+
+    private static Predicate after(CriteriaBuilder cb, Path<LocalDateTime> sort, Path<Long> id,
+                                   KeysetCursor position) {
+        if (position.getSortValue() == null) {
+            // Still inside the leading NULL block: continue by id, then every non-null row follows
+            return cb.or(
+                    cb.and(cb.isNull(sort), cb.lessThan(id, position.getId())),
+                    cb.isNotNull(sort));
+        }
+
+        // sort <= x bounds the index range; the OR breaks ties on id
+        return cb.and(
+                cb.lessThanOrEqualTo(sort, position.getSortValue()),
+                cb.or(
+                        cb.lessThan(sort, position.getSortValue()),
+                        cb.lessThan(id, position.getId())));
+    }
+}
@@ -0,0 +1,142 @@
+package com.team.medaibackend.search;
+
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentSkipListMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.BiPredicate;
+
+/**
+ * Sorted in-memory term index supporting prefix lookups.
+ * <p>
+ * Each document is indexed under one or more terms; a prefix query walks the sorted
+ * range [prefix, prefix + Character.MAX_VALUE) so cost is O(log n + matches visited).
+ * Reads are lock-free; writes are serialized so a document's terms are always replaced atomically.
+ * Memory is bounded by {@code maxEntries} and tracked as a running estimate.
+ */
+public class PrefixIndex<V> {
+
+    private static final char KEY_SEPARATOR = '\u0000';
+
+    // Rough per-entry cost: skip-list node + index levels + key String header
+    private static final long ENTRY_OVERHEAD_BYTES = 96;
+    // Rough per-document cost: reverse map entry + term list + value payload
+    private static final long DOCUMENT_OVERHEAD_BYTES = 256;
+
+    private final ConcurrentSkipListMap<String, Posting<V>> entries = new ConcurrentSkipListMap<>();
+    private final Map<String, List<String>> keysByDocument = new ConcurrentHashMap<>();
+    private final AtomicLong estimatedBytes = new AtomicLong();
+    private final int maxEntries;
+    // ConcurrentSkipListMap.size() is O(n), so the count is maintained alongside writes
+    private volatile int entryCount;
+    private volatile boolean saturated;
+
+    public PrefixIndex(int maxEntries) {
+        this.maxEntries = maxEntries;
+    }
+
+    /**
+     * Index (or re-index) a document under the given terms.
+     * Returns false if the index is full and the document was not added.
+     */
+    public synchronized boolean put(String documentKey, Collection<String> terms, V value) {
+        remove(documentKey);
+
+        Set<String> normalized = new LinkedHashSet<>();
+        for (String term : terms) {
+            String n = normalize(term);
+            if (!n.isEmpty()) {
+                normalized.add(n);
+            }
+        }
+        if (normalized.isEmpty()) {
+            return true;
+        }
+
+        if (entryCount + normalized.size() > maxEntries) {
+            saturated = true;
+            return false;
+        }
+
+        Posting<V> posting = new Posting<>(documentKey, value);
+        List<String> keys = new ArrayList<>(normalized.size());
+        long bytes = DOCUMENT_OVERHEAD_BYTES;
+        for (String term : normalized) {
+            String key = term + KEY_SEPARATOR + documentKey;
+            entries.put(key, posting);
+            keys.add(key);
+            bytes += ENTRY_OVERHEAD_BYTES + key.length();
+        }
+        keysByDocument.put(documentKey, keys);
+        entryCount += keys.size();
+        estimatedBytes.addAndGet(bytes);
+        return true;
+    }
+
+    public synchronized void remove(String documentKey) {
+        List<String> keys = keysByDocument.remove(documentKey);
+        if (keys == null) {
+            return;
+        }
+
+        long bytes = DOCUMENT_OVERHEAD_BYTES;
+        for (String key : keys) {
+            entries.remove(key);
+            bytes += ENTRY_OVERHEAD_BYTES + key.length();
+        }
+        entryCount -= keys.size();
+        estimatedBytes.addAndGet(-bytes);
+        if (entryCount < maxEntries) {
+            saturated = false;
+        }
+    }
+
+    public synchronized void clear() {
+        entries.clear();
+        keysByDocument.clear();
+        entryCount = 0;
+        estimatedBytes.set(0);
+        saturated = false;
+    }
+
+    /**
+     * Visit documents whose terms start with {@code prefix}, in term order.
+     * Each document is visited at most once; the visitor returns false to stop.
+     * At most {@code maxPostings} index entries are walked, which bounds the cost (and the
+     * de-duplication set) of a short prefix that matches a large part of the index.
+     */
+    public void scan(String prefix, int maxPostings, BiPredicate<String, V> visitor) {
+        String from = normalize(prefix);
+        if (from.isEmpty()) {
+            return;
+        }
+
+        Set<String> seen = new HashSet<>();
+        int walked = 0;
+        for (Posting<V> posting : entries.subMap(from, true, from + Character.MAX_VALUE, false).values()) {
+            if (++walked > maxPostings) {
+                return;
+            }
+            if (seen.add(posting.documentKey) && !visitor.test(posting.documentKey, posting.value)) {
+                return;
+            }
+        }
+    }
+
+    public int entryCount() { return entryCount; }
+
+    public int documentCount() { return keysByDocument.size(); }
+
+    public long estimatedBytes() { return estimatedBytes.get(); }
+
+    public int maxEntries() { return maxEntries; }
+
+    public boolean isSaturated() { return saturated; }
+
+    static String normalize(String term) {
+        return term == null ? "" : term.trim().toLowerCase(Locale.ROOT);
+    }
+
+    private record Posting<V>(String documentKey, V value) {
+    }
+}
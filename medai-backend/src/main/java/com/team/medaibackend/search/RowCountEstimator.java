@@ -0,0 +1,78 @@
+package com.team.medaibackend.search;
+
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.PersistenceContext;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Row counts from PostgreSQL planner statistics instead of count(*).
+ * Estimates are as fresh as the last ANALYZE / autovacuum, which is fine for "about N results".
+ */
+@Component
+public class RowCountEstimator {
+
+    @PersistenceContext
+    private EntityManager entityManager;
+
+    /**
+     * Estimated row count of a whole table
+     */
+    @Transactional(readOnly = true)
+    public long estimate(String table) {
+        // Summed over the leaf partitions for partitioned tables, whose own reltuples is not maintained;
+        // reltuples is -1 until a table has been analyzed
+        Number rows = (Number) entityManager.createNativeQuery(
+                        "SELECT sum(GREATEST(c.reltuples, 0)) " +
+                                "FROM pg_partition_tree(to_regclass(:table)) p " +
+                                "JOIN pg_class c ON c.oid = p.relid WHERE p.isleaf")
+                .setParameter("table", table)
+                .getSingleResult();
+
+        return rows == null ? 0 : rows.longValue();
+    }
+
+    /**
+     * Estimated row count for a filtered scan.
+     * Keys are trusted SQL conditions with a single %L placeholder (e.g. "status = %L");
+     * values are quoted server-side by format(), so user input never reaches the SQL text.
+     * Conditions may contain string literals; they are escaped into the format string here.
+     */
+    @Transactional(readOnly = true)
+    public long estimate(String table, Map<String, String> conditions) {
+        List<String> clauses = new ArrayList<>();
+        List<String> values = new ArrayList<>();
+        conditions.forEach((condition, value) -> {
+            if (value != null) {
+                clauses.add(condition);
+                values.add(value);
+            }
+        });
+
+        if (clauses.isEmpty()) {
+            return estimate(table);
+        }
+
+        StringBuilder sql = new StringBuilder("SELECT count_estimate(format('SELECT 1 FROM ")
+                .append(table)
+                .append(" WHERE ")
+                .append(String.join(" AND ", clauses).replace("'", "''"))
+                .append("'");
+        for (int i = 0; i < values.size(); i++) {
+            sql.append(", :p").append(i);
+        }
+        sql.append("))");
+
+        var query = entityManager.createNativeQuery(sql.toString());
+        for (int i = 0; i < values.size(); i++) {
+            query.setParameter("p" + i, values.get(i));
+        }
+
+        Number rows = (Number) query.getSingleResult();
+        return rows == null ? 0 : rows.longValue();
+    }
+}
@@ -6,7 +6,10 @@ import jakarta.servlet.http.HttpServletRequest;
 import jakarta.servlet.http.HttpServletResponse;
 import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
 import org.springframework.security.core.authority.SimpleGrantedAuthority;
+import org.springframework.security.core.context.SecurityContext;
 import org.springframework.security.core.context.SecurityContextHolder;
+import org.springframework.security.web.context.RequestAttributeSecurityContextRepository;
+import org.springframework.security.web.context.SecurityContextRepository;
 import org.springframework.security.web.authentication.WebAuthenticationDetailsSource;
 import org.springframework.stereotype.Component;
 import org.springframework.web.filter.OncePerRequestFilter;
@@ -15,13 +18,21 @@ import java.io.IOException;
 import java.util.Collections;
 import java.util.List;
 
+/**
+ * Authenticates requests carrying a bearer token. The context is also saved as a request attribute,
+ * which the stateless session setup reads back on later dispatches of the same request: async
+ * responses (the exports) finish on an ASYNC dispatch that this filter does not run on again.
+ */
 @Component
 public class JwtAuthFilter extends OncePerRequestFilter {
 
     private final JwtService jwtService;
+    private final TokenRevocationService revocations;
+    private final SecurityContextRepository contextRepository = new RequestAttributeSecurityContextRepository();
 
-    public JwtAuthFilter(JwtService jwtService) {
+    public JwtAuthFilter(JwtService jwtService, TokenRevocationService revocations) {
         this.jwtService = jwtService;
+        this.revocations = revocations;
     }
 
     @Override
@@ -39,9 +50,10 @@ public class JwtAuthFilter extends OncePerRequestFilter {
         final String jwt = authHeader.substring(7);
 
         try {
-            if (jwtService.validateToken(jwt)) {
-                String username = jwtService.getUsernameFromToken(jwt);
-                String role = jwtService.getRoleFromToken(jwt);
+            VerifiedToken token = jwtService.verify(jwt);
+            if (token != null && !revocations.isRevoked(token)) {
+                String username = token.username();
+                String role = token.role();
 
                 // Create authority with ROLE_ prefix for Spring Security
                 List<SimpleGrantedAuthority> authorities = Collections.singletonList(
@@ -55,7 +67,10 @@ public class JwtAuthFilter extends OncePerRequestFilter {
                 );
 
                 authToken.setDetails(new WebAuthenticationDetailsSource().buildDetails(request));
-                SecurityContextHolder.getContext().setAuthentication(authToken);
+                SecurityContext context = SecurityContextHolder.createEmptyContext();
+                context.setAuthentication(authToken);
+                SecurityContextHolder.setContext(context);
+                contextRepository.saveContext(context, request, response);
             }
         } catch (Exception e) {
             logger.error("Cannot set user authentication: " + e.getMessage());
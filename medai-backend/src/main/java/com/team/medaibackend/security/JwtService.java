@@ -1,6 +1,8 @@
 package com.team.medaibackend.security;
 
 import io.jsonwebtoken.Claims;
+import io.jsonwebtoken.JwtException;
+import io.jsonwebtoken.JwtParser;
 import io.jsonwebtoken.Jwts;
 import io.jsonwebtoken.security.Keys;
 import org.springframework.beans.factory.annotation.Value;
@@ -16,18 +18,23 @@ import java.util.function.Function;
 @Service
 public class JwtService {
 
-    @Value("${jwt.secret:myDefaultSecretKeyThatIsAtLeast256BitsLongForHS384Algorithm123456}")
-    private String secretKey;
-
-    @Value("${jwt.expiration:3600000}")
-    private long jwtExpiration; // 1 hour default
-
-    @Value("${jwt.refresh-expiration:86400000}")
-    private long refreshExpiration; // 24 hours default
-
-    private SecretKey getSigningKey() {
-        byte[] keyBytes = secretKey.getBytes(StandardCharsets.UTF_8);
-        return Keys.hmacShaKeyFor(keyBytes);
+    private final long jwtExpiration;
+    private final long refreshExpiration;
+
+    // Built once: the key and the parser are immutable and thread-safe
+    private final SecretKey signingKey;
+    private final JwtParser parser;
+    private final VerifiedTokenCache verifiedTokens;
+
+    public JwtService(@Value("${jwt.secret:myDefaultSecretKeyThatIsAtLeast256BitsLongForHS384Algorithm123456}") String secretKey,
+                      @Value("${jwt.expiration:3600000}") long jwtExpiration, // 1 hour default
+                      @Value("${jwt.refresh-expiration:86400000}") long refreshExpiration, // 24 hours default
+                      @Value("${jwt.verified-cache-size:10000}") int verifiedCacheSize) {
+        this.jwtExpiration = jwtExpiration;
+        this.refreshExpiration = refreshExpiration;
+        this.signingKey = Keys.hmacShaKeyFor(secretKey.getBytes(StandardCharsets.UTF_8));
+        this.parser = Jwts.parser().verifyWith(signingKey).build();
+        this.verifiedTokens = new VerifiedTokenCache(verifiedCacheSize);
     }
 
     public String generateAccessToken(String username, String role, Long userId) {
@@ -47,20 +54,43 @@ public class JwtService {
                 .subject(subject)
                 .issuedAt(new Date(System.currentTimeMillis()))
                 .expiration(new Date(System.currentTimeMillis() + expiration))
-                .signWith(getSigningKey(), Jwts.SIG.HS384)
+                .signWith(signingKey, Jwts.SIG.HS384)
                 .compact();
     }
 
-    public boolean validateToken(String token) {
+    /**
+     * Verifies the token and reads its claims in one parse; null when the token is invalid or expired.
+     * Tokens seen before are answered from the verified-token cache until they expire.
+     * Does not check revocation, see {@link TokenRevocationService#isRevoked}.
+     */
+    public VerifiedToken verify(String token) {
+        if (token == null || token.isEmpty()) {
+            return null;
+        }
+        long now = System.currentTimeMillis();
+        String key = VerifiedTokenCache.keyOf(token);
+        VerifiedToken verified = verifiedTokens.get(key, now);
+        if (verified != null) {
+            return verified;
+        }
+
+        Claims claims;
         try {
-            Jwts.parser()
-                    .verifyWith(getSigningKey())
-                    .build()
-                    .parseSignedClaims(token);
-            return true;
-        } catch (Exception e) {
-            return false;
+            claims = extractAllClaims(token);
+        } catch (JwtException | IllegalArgumentException e) {
+            return null;
         }
+        Date issuedAt = claims.getIssuedAt();
+        Date expiration = claims.getExpiration();
+        verified = new VerifiedToken(key, claims.getSubject(), claims.get("role", String.class),
+                claims.get("userId", Long.class), issuedAt != null ? issuedAt.getTime() / 1000 : 0,
+                expiration != null ? expiration.getTime() : Long.MAX_VALUE);
+        verifiedTokens.put(key, verified, now);
+        return verified;
+    }
+
+    public boolean validateToken(String token) {
+        return verify(token) != null;
     }
 
     public String getUsernameFromToken(String token) {
@@ -83,14 +113,10 @@ public class JwtService {
     }
 
     private Claims extractAllClaims(String token) {
-        return Jwts.parser()
-                .verifyWith(getSigningKey())
-                .build()
-                .parseSignedClaims(token)
-                .getPayload();
+        return parser.parseSignedClaims(token).getPayload();
     }
 
     public boolean isTokenExpired(String token) {
         return extractClaim(token, Claims::getExpiration).before(new Date());
     }
-}
\ No newline at end of file
+}
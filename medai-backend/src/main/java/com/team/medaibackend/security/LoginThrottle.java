@@ -0,0 +1,157 @@
+package com.team.medaibackend.security;
+
+import com.team.medaibackend.exception.TooManyRequestsException;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.util.Iterator;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Token-bucket limits on login attempts, per client IP and per username.
+ * <p>
+ * Every attempt takes a token from its IP's bucket and reserves one from its username's bucket
+ * before the password is checked, so concurrent guesses cannot all pass while the checks are
+ * queued. The username token is refunded when the password turns out to be right: guessing
+ * against an account slows down while its owner can still sign in. Buckets are per node; idle,
+ * full buckets are dropped when the maps reach their bound.
+ * <p>
+ * The IP is {@code request.getRemoteAddr()}, which is the real client only because
+ * {@code server.forward-headers-strategy} resolves X-Forwarded-For from trusted proxies
+ * ({@code server.tomcat.remoteip.internal-proxies}, loopback unless a deployment lists its proxy).
+ * Without that, every client behind a proxy would share the proxy's bucket.
+ */
+@Component
+public class LoginThrottle {
+
+    private final Map<String, TokenBucket> ipBuckets = new ConcurrentHashMap<>();
+    private final Map<String, TokenBucket> usernameBuckets = new ConcurrentHashMap<>();
+
+    private final int ipCapacity;
+    private final double ipRefillPerSecond;
+    private final int usernameCapacity;
+    private final double usernameRefillPerSecond;
+    private final int maxKeys;
+
+    public LoginThrottle(@Value("${auth.login.ip-burst:30}") int ipCapacity,
+                         @Value("${auth.login.ip-per-minute:30}") double ipPerMinute,
+                         @Value("${auth.login.username-burst:5}") int usernameCapacity,
+                         @Value("${auth.login.username-per-minute:2}") double usernamePerMinute,
+                         @Value("${auth.login.max-tracked-keys:100000}") int maxKeys) {
+        this.ipCapacity = ipCapacity;
+        this.ipRefillPerSecond = ipPerMinute / 60;
+        this.usernameCapacity = usernameCapacity;
+        this.usernameRefillPerSecond = usernamePerMinute / 60;
+        this.maxKeys = maxKeys;
+    }
+
+    /**
+     * Takes a token for the IP and reserves one for the username; call {@link #recordSuccess}
+     * once the password is right (or the attempt could not be judged) to give the latter back
+     *
+     * @throws TooManyRequestsException when either is exhausted
+     */
+    public void acquire(String username, String ipAddress) {
+        long now = System.nanoTime();
+        if (ipAddress != null) {
+            TokenBucket ip = bucket(ipBuckets, ipAddress, ipCapacity, ipRefillPerSecond, now);
+            if (!ip.tryConsume(now)) {
+                throw new TooManyRequestsException("Too many login attempts, try again later",
+                        ip.secondsUntilToken(now));
+            }
+        }
+        TokenBucket user = bucket(usernameBuckets, key(username), usernameCapacity, usernameRefillPerSecond, now);
+        if (!user.tryConsume(now)) {
+            throw new TooManyRequestsException("Too many failed login attempts for this account, try again later",
+                    user.secondsUntilToken(now));
+        }
+    }
+
+    /**
+     * Return the username token reserved by {@link #acquire}
+     */
+    public void recordSuccess(String username) {
+        TokenBucket user = usernameBuckets.get(key(username));
+        if (user != null) {
+            user.refund(System.nanoTime());
+        }
+    }
+
+    private TokenBucket bucket(Map<String, TokenBucket> buckets, String key, int capacity,
+                               double refillPerSecond, long now) {
+        TokenBucket bucket = buckets.get(key);
+        if (bucket != null) {
+            return bucket;
+        }
+        if (buckets.size() >= maxKeys) {
+            prune(buckets, now);
+        }
+        return buckets.computeIfAbsent(key, k -> new TokenBucket(capacity, refillPerSecond, now));
+    }
+
+    private void prune(Map<String, TokenBucket> buckets, long now) {
+        buckets.values().removeIf(bucket -> bucket.isFull(now));
+        // Still over the bound (e.g. a flood of distinct usernames): forget the excess
+        Iterator<TokenBucket> excess = buckets.values().iterator();
+        while (buckets.size() >= maxKeys && excess.hasNext()) {
+            excess.next();
+            excess.remove();
+        }
+    }
+
+    private static String key(String username) {
+        return username == null ? "" : username.trim().toLowerCase(Locale.ROOT);
+    }
+
+    static final class TokenBucket {
+
+        private final double capacity;
+        private final double refillPerNano;
+        private double tokens;
+        private long updatedAt;
+
+        TokenBucket(double capacity, double refillPerSecond, long now) {
+            this.capacity = capacity;
+            this.refillPerNano = refillPerSecond / TimeUnit.SECONDS.toNanos(1);
+            this.tokens = capacity;
+            this.updatedAt = now;
+        }
+
+        synchronized boolean tryConsume(long now) {
+            refill(now);
+            if (tokens >= 1) {
+                tokens -= 1;
+                return true;
+            }
+            return false;
+        }
+
+        synchronized void refund(long now) {
+            refill(now);
+            tokens = Math.min(capacity, tokens + 1);
+        }
+
+        synchronized boolean isFull(long now) {
+            refill(now);
+            return tokens >= capacity;
+        }
+
+        synchronized long secondsUntilToken(long now) {
+            refill(now);
+            if (tokens >= 1 || refillPerNano <= 0) {
+                return tokens >= 1 ? 0 : 60;
+            }
+            return (long) Math.ceil((1 - tokens) / refillPerNano / TimeUnit.SECONDS.toNanos(1));
+        }
+
+        private void refill(long now) {
+            if (now > updatedAt) {
+                tokens = Math.min(capacity, tokens + (now - updatedAt) * refillPerNano);
+                updatedAt = now;
+            }
+        }
+    }
+}
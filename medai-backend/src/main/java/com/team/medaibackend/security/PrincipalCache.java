@@ -0,0 +1,155 @@
+package com.team.medaibackend.security;
+
+import com.team.medaibackend.entity.Role;
+import com.team.medaibackend.entity.User;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.redis.connection.Message;
+import org.springframework.data.redis.connection.MessageListener;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.data.redis.listener.ChannelTopic;
+import org.springframework.data.redis.listener.RedisMessageListenerContainer;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.stream.Collectors;
+
+/**
+ * Per-node cache of who a username is (user ID, role names, enabled), so role checks do not
+ * load the user and its roles on every call.
+ * <p>
+ * A change to a user is applied by {@link #invalidate}: after the change commits, the entry is
+ * dropped here and the user ID is published on Redis so every other node drops it too. Loads
+ * that started before an invalidation are not stored (generation check), so a read racing a
+ * role change cannot bring the old roles back. Entries also expire after {@code ttl-ms}, which
+ * bounds staleness if a node misses a message.
+ */
+@Component
+public class PrincipalCache implements MessageListener {
+
+    private static final Logger logger = LoggerFactory.getLogger(PrincipalCache.class);
+
+    private static final String CHANNEL = "medai:principal:invalidate";
+
+    public record CachedPrincipal(Long userId, String username, Set<String> roles, boolean enabled, long loadedAt) {
+
+        public boolean hasRole(String roleName) {
+            return roles.contains(roleName);
+        }
+    }
+
+    private final Map<Long, CachedPrincipal> principals = new ConcurrentHashMap<>();
+    private final Map<String, Long> userIds = new ConcurrentHashMap<>();
+    private final AtomicLong generation = new AtomicLong();
+    private final StringRedisTemplate redis;
+    private final long ttlMillis;
+    private final int maxEntries;
+
+    public PrincipalCache(StringRedisTemplate redis,
+                          RedisMessageListenerContainer listenerContainer,
+                          @Value("${security.principal-cache.ttl-ms:60000}") long ttlMillis,
+                          @Value("${security.principal-cache.max-entries:10000}") int maxEntries) {
+        this.redis = redis;
+        this.ttlMillis = ttlMillis;
+        this.maxEntries = maxEntries;
+        listenerContainer.addMessageListener(this, new ChannelTopic(CHANNEL));
+    }
+
+    public CachedPrincipal get(String username) {
+        Long userId = userIds.get(username);
+        if (userId == null) {
+            return null;
+        }
+        CachedPrincipal principal = principals.get(userId);
+        if (principal == null || !principal.username().equals(username)
+                || System.currentTimeMillis() - principal.loadedAt() >= ttlMillis) {
+            return null;
+        }
+        return principal;
+    }
+
+    /**
+     * Read before loading a user; pass it to {@link #put} with the loaded user
+     */
+    public long generation() {
+        return generation.get();
+    }
+
+    /**
+     * The principal of a user, without caching it (e.g. a user loaded at some unknown generation)
+     */
+    public static CachedPrincipal describe(User user) {
+        return new CachedPrincipal(user.getId(), user.getUsername(),
+                user.getRoles().stream().map(Role::getName).collect(Collectors.toUnmodifiableSet()),
+                Boolean.TRUE.equals(user.getEnabled()), System.currentTimeMillis());
+    }
+
+    /**
+     * Cache the user unless an invalidation happened since {@code loadedGeneration} was read
+     */
+    public CachedPrincipal put(User user, long loadedGeneration) {
+        CachedPrincipal principal = describe(user);
+        if (generation.get() != loadedGeneration || maxEntries <= 0) {
+            return principal;
+        }
+        if (principals.size() >= maxEntries) {
+            principals.clear();
+            userIds.clear();
+        }
+        principals.put(principal.userId(), principal);
+        userIds.put(principal.username(), principal.userId());
+        return principal;
+    }
+
+    /**
+     * Drop the user on every node once the current transaction (if any) commits
+     */
+    public void invalidate(Long userId) {
+        if (userId == null) {
+            return;
+        }
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    evictAndPublish(userId);
+                }
+            });
+        } else {
+            evictAndPublish(userId);
+        }
+    }
+
+    @Override
+    public void onMessage(Message message, byte[] pattern) {
+        try {
+            evict(Long.valueOf(new String(message.getBody(), StandardCharsets.UTF_8)));
+        } catch (NumberFormatException e) {
+            logger.warn("Ignoring malformed principal invalidation");
+        }
+    }
+
+    private void evictAndPublish(Long userId) {
+        evict(userId);
+        try {
+            redis.convertAndSend(CHANNEL, userId.toString());
+        } catch (RuntimeException e) {
+            logger.warn("Could not publish principal invalidation for user {}: {}", userId, e.getMessage());
+        }
+    }
+
+    private void evict(Long userId) {
+        generation.incrementAndGet();
+        CachedPrincipal removed = principals.remove(userId);
+        if (removed != null) {
+            userIds.remove(removed.username(), userId);
+        }
+    }
+}
@@ -5,21 +5,31 @@ import com.team.medaibackend.repository.UserRepository;
 import org.springframework.security.core.Authentication;
 import org.springframework.security.core.context.SecurityContextHolder;
 import org.springframework.stereotype.Component;
+import org.springframework.web.context.request.RequestAttributes;
+import org.springframework.web.context.request.RequestContextHolder;
 import com.team.medaibackend.exception.UnauthorizedException;
+import com.team.medaibackend.security.PrincipalCache.CachedPrincipal;
 
 import java.util.Optional;
 
 /**
  * Utility class for security-related operations.
  * Provides methods to safely extract user information from JWT authentication.
+ * <p>
+ * The current user is loaded at most once per request (kept as a request attribute), and role
+ * and ID checks are answered from {@link PrincipalCache} without touching the database.
  */
 @Component
 public class SecurityUtils {
 
+    private static final String CURRENT_USER_ATTRIBUTE = SecurityUtils.class.getName() + ".currentUser";
+
     private final UserRepository userRepository;
+    private final PrincipalCache principalCache;
 
-    public SecurityUtils(UserRepository userRepository) {
+    public SecurityUtils(UserRepository userRepository, PrincipalCache principalCache) {
         this.userRepository = userRepository;
+        this.principalCache = principalCache;
     }
 
     /**
@@ -28,15 +38,27 @@ public class SecurityUtils {
      * @return Optional containing the User if authenticated, empty otherwise
      */
     public Optional<User> getCurrentUser() {
-        Authentication authentication = SecurityContextHolder.getContext().getAuthentication();
-
-        if (authentication == null || !authentication.isAuthenticated() ||
-                "anonymousUser".equals(authentication.getPrincipal())) {
+        Optional<String> username = getCurrentUsername();
+        if (username.isEmpty()) {
             return Optional.empty();
         }
 
-        String username = authentication.getName();
-        return userRepository.findByUsername(username);
+        RequestAttributes request = RequestContextHolder.getRequestAttributes();
+        if (request != null
+                && request.getAttribute(CURRENT_USER_ATTRIBUTE, RequestAttributes.SCOPE_REQUEST) instanceof User user
+                && username.get().equals(user.getUsername())) {
+            return Optional.of(user);
+        }
+
+        long generation = principalCache.generation();
+        Optional<User> user = userRepository.findByUsername(username.get());
+        user.ifPresent(loaded -> {
+            principalCache.put(loaded, generation);
+            if (request != null) {
+                request.setAttribute(CURRENT_USER_ATTRIBUTE, loaded, RequestAttributes.SCOPE_REQUEST);
+            }
+        });
+        return user;
     }
 
     /**
@@ -56,7 +78,7 @@ public class SecurityUtils {
      * @return Optional containing the user ID if authenticated
      */
     public Optional<Long> getCurrentUserId() {
-        return getCurrentUser().map(User::getId);
+        return getCurrentPrincipal().map(CachedPrincipal::userId);
     }
 
     /**
@@ -82,9 +104,8 @@ public class SecurityUtils {
      * @return true if user has the role, false otherwise
      */
     public boolean hasRole(String roleName) {
-        return getCurrentUser()
-                .map(user -> user.getRoles().stream()
-                        .anyMatch(role -> role.getName().equals(roleName)))
+        return getCurrentPrincipal()
+                .map(principal -> principal.hasRole(roleName))
                 .orElse(false);
     }
 
@@ -105,4 +126,19 @@ public class SecurityUtils {
     public boolean isDoctor() {
         return hasRole("DOCTOR");
     }
-}
\ No newline at end of file
+
+    private Optional<CachedPrincipal> getCurrentPrincipal() {
+        Optional<String> username = getCurrentUsername();
+        if (username.isEmpty()) {
+            return Optional.empty();
+        }
+        CachedPrincipal cached = principalCache.get(username.get());
+        if (cached != null) {
+            return Optional.of(cached);
+        }
+        // A user loaded from the database here is cached by getCurrentUser with the generation read
+        // before its load. One kept from earlier in the request may predate an invalidation since,
+        // so it answers this request but is never cached.
+        return getCurrentUser().map(PrincipalCache::describe);
+    }
+}
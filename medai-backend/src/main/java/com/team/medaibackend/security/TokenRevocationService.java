@@ -0,0 +1,234 @@
+package com.team.medaibackend.security;
+
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.SmartInitializingSingleton;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.data.redis.connection.Message;
+import org.springframework.data.redis.connection.MessageListener;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.data.redis.listener.ChannelTopic;
+import org.springframework.data.redis.listener.RedisMessageListenerContainer;
+import org.springframework.stereotype.Service;
+
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Revocation of JWTs before they expire (logout, disabled or changed accounts).
+ * <p>
+ * Two kinds of entries live in Redis, each expiring when the tokens it covers would have:
+ * a single token ({@code medai:revoked:token:<tokenId>}) and every token of a user issued up to
+ * a cutoff ({@code medai:revoked:user:<username>} = cutoff {@code iat}). Every node keeps a Bloom
+ * filter of the entries, fed through pub/sub and rebuilt from the Redis index periodically, so
+ * that the usual "not revoked" answer is local. Only a filter hit costs one Redis round trip,
+ * which tells a revoked token from a false positive.
+ * <p>
+ * The first build runs before the web server starts. Until a build has succeeded the filter would
+ * miss earlier revocations, so every check goes to Redis instead, and builds are retried every
+ * {@code initial-retry-ms}.
+ */
+@Service
+public class TokenRevocationService implements MessageListener, SmartInitializingSingleton {
+
+    private static final Logger logger = LoggerFactory.getLogger(TokenRevocationService.class);
+
+    private static final String CHANNEL = "medai:revoked";
+    private static final String INDEX_KEY = "medai:revoked:index";
+    private static final String TOKEN_KEY = "medai:revoked:token:";
+    private static final String USER_KEY = "medai:revoked:user:";
+
+    private final StringRedisTemplate redis;
+    private final ScheduledExecutorService scheduler;
+    private final int expectedEntries;
+    private final double falsePositiveRate;
+    private final long rebuildIntervalMs;
+    private final long refreshExpiration;
+    private final long initialRetryMs;
+
+    private volatile BloomFilter filter;
+    // Whether the filter has been built from the index at least once, i.e. has no false negatives
+    private volatile boolean filterReady;
+    // Filter being rebuilt, if any; entries published meanwhile go into both
+    private volatile BloomFilter building;
+
+    public TokenRevocationService(StringRedisTemplate redis,
+                                  RedisMessageListenerContainer listenerContainer,
+                                  @Value("${security.revocation.expected-entries:100000}") int expectedEntries,
+                                  @Value("${security.revocation.false-positive-rate:0.001}") double falsePositiveRate,
+                                  @Value("${security.revocation.rebuild-interval-ms:600000}") long rebuildIntervalMs,
+                                  @Value("${security.revocation.initial-retry-ms:5000}") long initialRetryMs,
+                                  @Value("${jwt.refresh-expiration:86400000}") long refreshExpiration) {
+        this.redis = redis;
+        this.expectedEntries = expectedEntries;
+        this.falsePositiveRate = falsePositiveRate;
+        this.rebuildIntervalMs = rebuildIntervalMs;
+        this.refreshExpiration = refreshExpiration;
+        this.initialRetryMs = initialRetryMs;
+        this.filter = new BloomFilter(expectedEntries, falsePositiveRate);
+        this.scheduler = Executors.newSingleThreadScheduledExecutor(r -> {
+            Thread t = new Thread(r, "token-revocations");
+            t.setDaemon(true);
+            return t;
+        });
+        listenerContainer.addMessageListener(this, new ChannelTopic(CHANNEL));
+    }
+
+    /**
+     * First build, after every bean exists but before the web server takes requests
+     */
+    @Override
+    public void afterSingletonsInstantiated() {
+        if (!rebuild()) {
+            logger.warn("Token revocation filter not built; checking every token against Redis until it is");
+        }
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void start() {
+        scheduleRebuild();
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        scheduler.shutdownNow();
+    }
+
+    /**
+     * Whether the (already verified) token has been revoked. Fails closed: if Redis cannot
+     * confirm a filter hit, or answer at all before the filter is built, the token is treated
+     * as revoked.
+     */
+    public boolean isRevoked(VerifiedToken token) {
+        if (filterReady) {
+            BloomFilter current = filter;
+            boolean tokenHit = current.mightContain(tokenEntry(token.tokenId()));
+            boolean userHit = token.username() != null && current.mightContain(userEntry(token.username()));
+            if (!tokenHit && !userHit) {
+                return false;
+            }
+        }
+
+        try {
+            List<String> values = redis.opsForValue().multiGet(List.of(
+                    TOKEN_KEY + token.tokenId(), USER_KEY + token.username()));
+            if (values == null) {
+                return true;
+            }
+            if (values.get(0) != null) {
+                return true;
+            }
+            String cutoff = values.get(1);
+            return cutoff != null && token.issuedAt() <= Long.parseLong(cutoff);
+        } catch (RuntimeException e) {
+            logger.warn("Could not check token revocation: {}", e.getMessage());
+            return true;
+        }
+    }
+
+    /**
+     * Revoke one token until it expires
+     */
+    public void revoke(VerifiedToken token) {
+        long ttl = token.expiresAt() - System.currentTimeMillis();
+        if (ttl <= 0) {
+            return;
+        }
+        String entry = tokenEntry(token.tokenId());
+        record(entry);
+        redis.opsForValue().set(TOKEN_KEY + token.tokenId(), "1", Duration.ofMillis(ttl));
+        redis.opsForZSet().add(INDEX_KEY, entry, System.currentTimeMillis() + ttl);
+        publish(entry);
+    }
+
+    /**
+     * Revoke every token issued to the user so far. Tokens issued from the next second on are
+     * accepted again, so a re-enabled user or a changed password can log in right away.
+     */
+    public void revokeUser(String username) {
+        if (username == null) {
+            return;
+        }
+        String entry = userEntry(username);
+        long cutoff = System.currentTimeMillis() / 1000;
+        record(entry);
+        redis.opsForValue().set(USER_KEY + username, Long.toString(cutoff), Duration.ofMillis(refreshExpiration));
+        redis.opsForZSet().add(INDEX_KEY, entry, System.currentTimeMillis() + refreshExpiration);
+        publish(entry);
+    }
+
+    @Override
+    public void onMessage(Message message, byte[] pattern) {
+        record(new String(message.getBody(), StandardCharsets.UTF_8));
+    }
+
+    /**
+     * Replace the filter with one built from the live index entries, dropping expired ones;
+     * false if Redis could not be read
+     */
+    boolean rebuild() {
+        BloomFilter fresh = new BloomFilter(expectedEntries, falsePositiveRate);
+        building = fresh;
+        try {
+            redis.opsForZSet().removeRangeByScore(INDEX_KEY, 0, System.currentTimeMillis());
+            Set<String> entries = redis.opsForZSet().rangeByScore(INDEX_KEY, System.currentTimeMillis(), Double.MAX_VALUE);
+            if (entries != null) {
+                entries.forEach(fresh::put);
+                if (entries.size() > expectedEntries) {
+                    logger.warn("{} revoked entries exceed the expected {}; false positives will rise",
+                            entries.size(), expectedEntries);
+                }
+            }
+            filter = fresh;
+            filterReady = true;
+            return true;
+        } catch (RuntimeException e) {
+            // Keep the current filter: once built it only ever gains entries, so it still has no
+            // false negatives. Before the first build isRevoked does not rely on it.
+            logger.warn("Could not rebuild the token revocation filter: {}", e.getMessage());
+            return false;
+        } finally {
+            building = null;
+        }
+    }
+
+    private void scheduleRebuild() {
+        scheduler.schedule(() -> {
+            rebuild();
+            scheduleRebuild();
+        }, filterReady ? rebuildIntervalMs : initialRetryMs, TimeUnit.MILLISECONDS);
+    }
+
+    private void record(String entry) {
+        filter.put(entry);
+        BloomFilter next = building;
+        if (next != null) {
+            next.put(entry);
+        }
+    }
+
+    private void publish(String entry) {
+        try {
+            redis.convertAndSend(CHANNEL, entry);
+        } catch (RuntimeException e) {
+            // Other nodes pick the entry up at their next rebuild
+            logger.warn("Could not publish token revocation: {}", e.getMessage());
+        }
+    }
+
+    private static String tokenEntry(String tokenId) {
+        return "t:" + tokenId;
+    }
+
+    private static String userEntry(String username) {
+        return "u:" + username;
+    }
+}
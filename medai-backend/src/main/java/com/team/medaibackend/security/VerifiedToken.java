@@ -0,0 +1,16 @@
+package com.team.medaibackend.security;
+
+/**
+ * Claims of a token whose signature has been checked, read once per request
+ *
+ * @param tokenId   SHA-256 of the token, used to cache and revoke it without keeping the token
+ * @param issuedAt  epoch seconds (JWT {@code iat})
+ * @param expiresAt epoch milliseconds
+ */
+public record VerifiedToken(String tokenId, String username, String role, Long userId,
+                            long issuedAt, long expiresAt) {
+
+    public boolean isExpired(long now) {
+        return now >= expiresAt;
+    }
+}
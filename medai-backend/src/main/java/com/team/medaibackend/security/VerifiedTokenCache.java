@@ -0,0 +1,106 @@
+package com.team.medaibackend.security;
+
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.Base64;
+import java.util.Iterator;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Tokens that already passed signature verification, so a client sending the same bearer token
+ * on every request pays for parsing and HMAC only once.
+ * <p>
+ * Keyed by the SHA-256 of the token, so bearer tokens themselves are never kept in memory.
+ * An entry is only served until its token expires. Lookups are lock-free; when the bound is
+ * reached, expired entries are swept and, if that is not enough, arbitrary ones are dropped.
+ */
+public class VerifiedTokenCache {
+
+    private static final ThreadLocal<MessageDigest> SHA256 = ThreadLocal.withInitial(() -> {
+        try {
+            return MessageDigest.getInstance("SHA-256");
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException(e);
+        }
+    });
+
+    private final Map<String, VerifiedToken> entries = new ConcurrentHashMap<>();
+    private final int maxEntries;
+
+    private final LongAdder hits = new LongAdder();
+    private final LongAdder misses = new LongAdder();
+
+    public VerifiedTokenCache(int maxEntries) {
+        this.maxEntries = maxEntries;
+    }
+
+    public static String keyOf(String token) {
+        byte[] digest = SHA256.get().digest(token.getBytes(StandardCharsets.UTF_8));
+        return Base64.getEncoder().encodeToString(digest);
+    }
+
+    /**
+     * The verified token for this key, or null when absent or expired
+     */
+    public VerifiedToken get(String key, long now) {
+        VerifiedToken token = entries.get(key);
+        if (token == null) {
+            misses.increment();
+            return null;
+        }
+        if (token.isExpired(now)) {
+            entries.remove(key, token);
+            misses.increment();
+            return null;
+        }
+        hits.increment();
+        return token;
+    }
+
+    public void put(String key, VerifiedToken token, long now) {
+        if (maxEntries <= 0 || token.isExpired(now)) {
+            return;
+        }
+        if (entries.size() >= maxEntries) {
+            makeRoom(now);
+        }
+        entries.put(key, token);
+    }
+
+    public void remove(String key) {
+        entries.remove(key);
+    }
+
+    public void clear() {
+        entries.clear();
+    }
+
+    public int size() {
+        return entries.size();
+    }
+
+    public long getHits() {
+        return hits.sum();
+    }
+
+    public long getMisses() {
+        return misses.sum();
+    }
+
+    private void makeRoom(long now) {
+        entries.values().removeIf(token -> token.isExpired(now));
+        if (entries.size() < maxEntries) {
+            return;
+        }
+        // Still full of live tokens: drop a tenth; they are simply verified again on next use
+        Iterator<String> keys = entries.keySet().iterator();
+        int excess = entries.size() - maxEntries + Math.max(1, maxEntries / 10);
+        while (excess-- > 0 && keys.hasNext()) {
+            keys.next();
+            keys.remove();
+        }
+    }
+}
@@ -4,6 +4,8 @@ import com.team.medaibackend.entity.Role;
 import com.team.medaibackend.entity.User;
 import com.team.medaibackend.repository.RoleRepository;
 import com.team.medaibackend.repository.UserRepository;
+import com.team.medaibackend.security.PrincipalCache;
+import com.team.medaibackend.security.TokenRevocationService;
 import com.team.medaibackend.security.SecurityUtils;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
@@ -23,6 +25,8 @@ public class AdminUserService {
     private final SecurityUtils securityUtils;
     private final SystemActivityService activityService;
     private final AuditService auditService;
+    private final PrincipalCache principalCache;
+    private final TokenRevocationService revocations;
 
     public AdminUserService(
             UserRepository userRepository,
@@ -30,13 +34,17 @@ public class AdminUserService {
             PasswordEncoder passwordEncoder,
             SecurityUtils securityUtils,
             SystemActivityService activityService,
-            AuditService auditService) {
+            AuditService auditService,
+            PrincipalCache principalCache,
+            TokenRevocationService revocations) {
         this.userRepository = userRepository;
         this.roleRepository = roleRepository;
         this.passwordEncoder = passwordEncoder;
         this.securityUtils = securityUtils;
         this.activityService = activityService;
         this.auditService = auditService;
+        this.principalCache = principalCache;
+        this.revocations = revocations;
     }
 
     @Transactional(readOnly = true)
@@ -119,6 +127,10 @@ public class AdminUserService {
         user.setUpdatedAt(LocalDateTime.now());
 
         User saved = userRepository.save(user);
+        principalCache.invalidate(userId);
+        if (roleNames != null && !roleNames.isEmpty()) {
+            revocations.revokeUser(user.getUsername());
+        }
 
         activityService.logActivity(
                 "USER_UPDATED",
@@ -143,6 +155,8 @@ public class AdminUserService {
         }
 
         userRepository.delete(user);
+        principalCache.invalidate(userId);
+        revocations.revokeUser(user.getUsername());
 
         activityService.logActivity(
                 "USER_DELETED",
@@ -161,6 +175,7 @@ public class AdminUserService {
 
         user.setPassword(passwordEncoder.encode(newPassword));
         userRepository.save(user);
+        revocations.revokeUser(user.getUsername());
 
         activityService.logActivity(
                 "PASSWORD_RESET",
@@ -178,5 +193,6 @@ public class AdminUserService {
         // Toggle enabled status (assuming you have this field)
         // user.setEnabled(!user.getEnabled());
         userRepository.save(user);
+        principalCache.invalidate(userId);
     }
 }
\ No newline at end of file
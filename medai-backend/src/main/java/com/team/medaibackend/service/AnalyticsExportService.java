@@ -0,0 +1,90 @@
+package com.team.medaibackend.service;
+
+import com.team.medaibackend.service.StreamingExportService.Format;
+import org.springframework.stereotype.Service;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
+
+import java.time.LocalDate;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Exportable analytics datasets, streamed row by row instead of built as JSON in memory
+ */
+@Service
+public class AnalyticsExportService {
+
+    private static final String AGE = "date_part('year', age(current_date, birth_date))";
+
+    public enum Dataset {
+        // One row per day: new studies, reports, finalized reports and patients
+        TRENDS(List.of("date", "studies", "reports", "finalized_reports", "new_patients"),
+                "SELECT to_char(d.day, 'YYYY-MM-DD'), COALESCE(s.n, 0), COALESCE(r.n, 0), COALESCE(r.finalized, 0), " +
+                        "COALESCE(p.n, 0) " +
+                        "FROM (SELECT CAST(g AS date) AS day FROM generate_series(CAST(:start AS date), CAST(:end AS date), " +
+                        "interval '1 day') g) d " +
+                        "LEFT JOIN (SELECT day, sum(count) AS n FROM study_daily_stats " +
+                        "WHERE day BETWEEN :start AND :end GROUP BY day) s ON s.day = d.day " +
+                        "LEFT JOIN (SELECT day, sum(count) AS n, sum(count) FILTER (WHERE status = 'finalized') AS finalized " +
+                        "FROM report_daily_stats WHERE day BETWEEN :start AND :end GROUP BY day) r ON r.day = d.day " +
+                        "LEFT JOIN (SELECT CAST(created_at AS date) AS day, count(*) AS n FROM patients " +
+                        "WHERE created_at >= :start AND created_at < :endExclusive GROUP BY 1) p ON p.day = d.day " +
+                        "ORDER BY d.day"),
+
+        // Patient counts per demographic combination, for patients registered in the range
+        DEMOGRAPHICS(List.of("age_group", "sex", "blood_type", "city", "insurance_provider", "patients"),
+                "SELECT CASE WHEN birth_date IS NULL THEN NULL " +
+                        "WHEN " + AGE + " < 18 THEN '0-17' " +
+                        "WHEN " + AGE + " < 30 THEN '18-29' " +
+                        "WHEN " + AGE + " < 45 THEN '30-44' " +
+                        "WHEN " + AGE + " < 60 THEN '45-59' " +
+                        "WHEN " + AGE + " < 75 THEN '60-74' " +
+                        "ELSE '75+' END, sex, blood_type, city, insurance_provider, count(*) " +
+                        "FROM patients WHERE created_at >= :start AND created_at < :endExclusive " +
+                        "GROUP BY 1, 2, 3, 4, 5 ORDER BY 1, 2, 3, 4, 5"),
+
+        // One row per day, user and action from the audit log
+        ACTIVITY(List.of("date", "user_id", "username", "action", "resource_type", "events"),
+                "SELECT to_char(date_trunc('day', created_at), 'YYYY-MM-DD'), user_id, username, action, resource_type, count(*) " +
+                        "FROM audit_log WHERE created_at >= :start AND created_at < :endExclusive " +
+                        "GROUP BY 1, 2, 3, 4, 5 ORDER BY 1, 3, 4, 5");
+
+        private final List<String> columns;
+        private final String sql;
+
+        Dataset(List<String> columns, String sql) {
+            this.columns = columns;
+            this.sql = sql;
+        }
+
+        public static Dataset parse(String value) {
+            for (Dataset dataset : values()) {
+                if (dataset.name().equalsIgnoreCase(value)) {
+                    return dataset;
+                }
+            }
+            throw new IllegalArgumentException("Unknown dataset '" + value + "', expected trends, demographics or activity");
+        }
+    }
+
+    private final StreamingExportService streamingExport;
+
+    public AnalyticsExportService(StreamingExportService streamingExport) {
+        this.streamingExport = streamingExport;
+    }
+
+    public StreamingResponseBody export(Dataset dataset, LocalDate startDate, LocalDate endDate, Format format, boolean gzip) {
+        if (endDate.isBefore(startDate)) {
+            throw new IllegalArgumentException("endDate must not be before startDate");
+        }
+
+        Map<String, Object> parameters = dataset == Dataset.TRENDS
+                ? Map.of("start", startDate, "end", endDate, "endExclusive", endDate.plusDays(1).atStartOfDay())
+                : Map.of("start", startDate.atStartOfDay(), "endExclusive", endDate.plusDays(1).atStartOfDay());
+        return streamingExport.stream(dataset.name().toLowerCase(), dataset.sql, parameters, dataset.columns, format, gzip);
+    }
+
+    public String fileName(Dataset dataset, LocalDate startDate, LocalDate endDate, Format format, boolean gzip) {
+        return dataset.name().toLowerCase() + "_" + startDate + "_" + endDate + format.getExtension() + (gzip ? ".gz" : "");
+    }
+}
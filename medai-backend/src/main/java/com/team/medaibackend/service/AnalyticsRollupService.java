@@ -0,0 +1,325 @@
+package com.team.medaibackend.service;
+
+import jakarta.annotation.PreDestroy;
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.PersistenceContext;
+import jakarta.persistence.Query;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.sql.SQLException;
+import java.time.Duration;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.*;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Reads and reconciles the per-day rollup tables (V32).
+ * <p>
+ * Rollups are kept current by row triggers on the source tables; this service only reads them
+ * and, once a night, recomputes a trailing window from the raw rows to repair any drift
+ * (bulk loads with triggers disabled, manual fixes, restored backups).
+ */
+@Service
+public class AnalyticsRollupService {
+
+    private static final Logger logger = LoggerFactory.getLogger(AnalyticsRollupService.class);
+
+    private static final int MAX_RECONCILE_ATTEMPTS = 5;
+
+    /**
+     * A rollup table, its source table, and each key column with the source expression it is derived from
+     */
+    public enum Rollup {
+        STUDIES("study_daily_stats", "studies",
+                new String[]{"modality", "status"},
+                new String[]{"COALESCE(modality, '')", "COALESCE(status, '')"}),
+        REPORTS("report_daily_stats", "reports",
+                new String[]{"status", "author_id"},
+                new String[]{"COALESCE(status, '')", "COALESCE(author_id, 0)"}),
+        TREATMENTS("treatment_daily_stats", "treatment_plans",
+                new String[]{"category", "status"},
+                new String[]{"COALESCE(category, '')", "COALESCE(status, '')"}),
+        AUDIT("audit_daily_stats", "audit_log",
+                new String[]{"action"},
+                new String[]{"action"});
+
+        private final String table;
+        private final String source;
+        private final String[] columns;
+        private final String[] sourceExpressions;
+
+        Rollup(String table, String source, String[] columns, String[] sourceExpressions) {
+            this.table = table;
+            this.source = source;
+            this.columns = columns;
+            this.sourceExpressions = sourceExpressions;
+        }
+
+        private String column(String name) {
+            for (String column : columns) {
+                if (column.equals(name)) {
+                    return column;
+                }
+            }
+            throw new IllegalArgumentException(table + " has no dimension " + name);
+        }
+    }
+
+    @PersistenceContext
+    private EntityManager entityManager;
+
+    private final TransactionTemplate reconcileTransaction;
+    private final ScheduledExecutorService scheduler;
+
+    @Value("${analytics.rollup.reconcile-hour:3}")
+    private int reconcileHour;
+
+    @Value("${analytics.rollup.reconcile-days:90}")
+    private int reconcileDays;
+
+    public AnalyticsRollupService(PlatformTransactionManager transactionManager) {
+        this.reconcileTransaction = new TransactionTemplate(transactionManager);
+        this.reconcileTransaction.setIsolationLevel(TransactionDefinition.ISOLATION_REPEATABLE_READ);
+        this.scheduler = Executors.newSingleThreadScheduledExecutor(r -> {
+            Thread t = new Thread(r, "analytics-rollup-reconcile");
+            t.setDaemon(true);
+            return t;
+        });
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void start() {
+        LocalDateTime now = LocalDateTime.now();
+        LocalDateTime next = now.toLocalDate().atTime(reconcileHour, 0);
+        if (!next.isAfter(now)) {
+            next = next.plusDays(1);
+        }
+        scheduler.scheduleAtFixedRate(this::reconcileNightly,
+                Duration.between(now, next).toMillis(), TimeUnit.DAYS.toMillis(1), TimeUnit.MILLISECONDS);
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        scheduler.shutdownNow();
+    }
+
+    /**
+     * Count over [start, end]; null bounds are open
+     */
+    @Transactional(readOnly = true)
+    public long total(Rollup rollup, LocalDate start, LocalDate end) {
+        return total(rollup, start, end, null, null);
+    }
+
+    /**
+     * Count over [start, end] restricted to one dimension value
+     */
+    @Transactional(readOnly = true)
+    public long total(Rollup rollup, LocalDate start, LocalDate end, String column, Object value) {
+        StringBuilder sql = new StringBuilder("SELECT COALESCE(sum(count), 0) FROM " + rollup.table + " WHERE 1 = 1");
+        appendRange(sql, start, end);
+        if (column != null) {
+            sql.append(" AND ").append(rollup.column(column)).append(" = :value");
+        }
+
+        Query query = entityManager.createNativeQuery(sql.toString());
+        bindRange(query, start, end);
+        if (column != null) {
+            query.setParameter("value", value);
+        }
+        return ((Number) query.getSingleResult()).longValue();
+    }
+
+    /**
+     * Counts per dimension value over [start, end], largest first. Empty ('' / 0) keys are left out.
+     */
+    @Transactional(readOnly = true)
+    public Map<String, Long> breakdown(Rollup rollup, LocalDate start, LocalDate end, String column) {
+        String key = rollup.column(column);
+        StringBuilder sql = new StringBuilder("SELECT CAST(" + key + " AS VARCHAR), sum(count) FROM " + rollup.table
+                + " WHERE CAST(" + key + " AS VARCHAR) NOT IN ('', '0')");
+        appendRange(sql, start, end);
+        sql.append(" GROUP BY 1 HAVING sum(count) > 0 ORDER BY 2 DESC");
+
+        Query query = entityManager.createNativeQuery(sql.toString());
+        bindRange(query, start, end);
+        return toCounts(query);
+    }
+
+    /**
+     * Daily counts over [start, end], keyed by ISO date; days without rows are absent
+     */
+    @Transactional(readOnly = true)
+    public Map<String, Long> daily(Rollup rollup, LocalDate start, LocalDate end) {
+        Query query = entityManager.createNativeQuery(
+                "SELECT to_char(day, 'YYYY-MM-DD'), sum(count) FROM " + rollup.table +
+                        " WHERE day BETWEEN :start AND :end GROUP BY day")
+                .setParameter("start", start)
+                .setParameter("end", end);
+        return toCounts(query);
+    }
+
+    /**
+     * Daily counts over [start, end] per dimension value
+     */
+    @Transactional(readOnly = true)
+    public Map<String, Map<String, Long>> dailyBy(Rollup rollup, LocalDate start, LocalDate end, String column) {
+        String key = rollup.column(column);
+
+        @SuppressWarnings("unchecked")
+        List<Object[]> rows = entityManager.createNativeQuery(
+                        "SELECT CAST(" + key + " AS VARCHAR), to_char(day, 'YYYY-MM-DD'), sum(count) FROM " + rollup.table +
+                                " WHERE day BETWEEN :start AND :end AND CAST(" + key + " AS VARCHAR) NOT IN ('', '0')" +
+                                " GROUP BY 1, 2 HAVING sum(count) > 0")
+                .setParameter("start", start)
+                .setParameter("end", end)
+                .getResultList();
+
+        Map<String, Map<String, Long>> series = new LinkedHashMap<>();
+        for (Object[] row : rows) {
+            series.computeIfAbsent((String) row[0], k -> new HashMap<>())
+                    .put((String) row[1], ((Number) row[2]).longValue());
+        }
+        return series;
+    }
+
+    /**
+     * Recompute the last {@code days} days of every rollup from the raw rows.
+     * Returns the number of rollup rows corrected per table.
+     */
+    public Map<String, Object> reconcile(int days) {
+        LocalDate today = LocalDate.now();
+        Map<String, Object> corrected = new LinkedHashMap<>();
+
+        for (Rollup rollup : Rollup.values()) {
+            long rows = 0;
+            for (LocalDate day = today.minusDays(days); !day.isAfter(today); day = day.plusDays(1)) {
+                rows += reconcileDay(rollup, day);
+            }
+            corrected.put(rollup.table, rows);
+        }
+        return corrected;
+    }
+
+    private void reconcileNightly() {
+        try {
+            long start = System.currentTimeMillis();
+            Map<String, Object> corrected = reconcile(reconcileDays);
+            logger.info("Analytics rollups reconciled ({} days) in {} ms: {}",
+                    reconcileDays, System.currentTimeMillis() - start, corrected);
+        } catch (RuntimeException e) {
+            logger.warn("Analytics rollup reconcile failed: {}", e.getMessage());
+        }
+    }
+
+    /**
+     * One short REPEATABLE READ transaction per table and day, so writers are never blocked for
+     * longer than a single day's upsert. If a writer's trigger touches a rollup row after our
+     * snapshot was taken, the upsert or delete of that row fails with a serialization error
+     * instead of overwriting the increment; the day is then recomputed from a fresh snapshot.
+     */
+    private long reconcileDay(Rollup rollup, LocalDate day) {
+        for (int attempt = 1; ; attempt++) {
+            try {
+                Number rows = reconcileTransaction.execute(status -> reconcile(rollup, day));
+                return rows != null ? rows.longValue() : 0L;
+            } catch (RuntimeException e) {
+                if (!isSerializationFailure(e) || attempt >= MAX_RECONCILE_ATTEMPTS) {
+                    throw e;
+                }
+                logger.debug("Reconcile of {} for {} raced a writer, retrying", rollup.table, day);
+            }
+        }
+    }
+
+    /**
+     * One statement: upsert the day's true counts, delete rollup rows of that day with no source rows left
+     */
+    private Number reconcile(Rollup rollup, LocalDate day) {
+        String keys = String.join(", ", rollup.columns);
+        String match = String.join(" AND ", Arrays.stream(rollup.columns)
+                .map(c -> "a." + c + " = r." + c)
+                .toList());
+
+        StringBuilder actual = new StringBuilder("SELECT CAST(created_at AS date) AS day");
+        for (int i = 0; i < rollup.columns.length; i++) {
+            actual.append(", ").append(rollup.sourceExpressions[i]).append(" AS ").append(rollup.columns[i]);
+        }
+        actual.append(", count(*) AS count FROM ").append(rollup.source)
+                .append(" WHERE created_at >= :day AND created_at < :next GROUP BY ")
+                .append(groupOrdinals(rollup.columns.length + 1));
+
+        return (Number) entityManager.createNativeQuery(
+                        "WITH actual AS (" + actual + "), " +
+                                "upserted AS (" +
+                                "INSERT INTO " + rollup.table + " (day, " + keys + ", count) " +
+                                "SELECT day, " + keys + ", count FROM actual " +
+                                "ON CONFLICT (day, " + keys + ") DO UPDATE SET count = EXCLUDED.count " +
+                                "WHERE " + rollup.table + ".count <> EXCLUDED.count RETURNING 1), " +
+                                "removed AS (" +
+                                "DELETE FROM " + rollup.table + " r WHERE r.day = :day " +
+                                "AND NOT EXISTS (SELECT 1 FROM actual a WHERE a.day = r.day AND " + match + ") RETURNING 1) " +
+                                "SELECT (SELECT count(*) FROM upserted) + (SELECT count(*) FROM removed)")
+                .setParameter("day", day)
+                .setParameter("next", day.plusDays(1))
+                .getSingleResult();
+    }
+
+    private static boolean isSerializationFailure(Throwable e) {
+        for (Throwable cause = e; cause != null; cause = cause.getCause()) {
+            if (cause instanceof SQLException sql && ("40001".equals(sql.getSQLState()) || "40P01".equals(sql.getSQLState()))) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private String groupOrdinals(int count) {
+        StringJoiner ordinals = new StringJoiner(", ");
+        for (int i = 1; i <= count; i++) {
+            ordinals.add(String.valueOf(i));
+        }
+        return ordinals.toString();
+    }
+
+    private void appendRange(StringBuilder sql, LocalDate start, LocalDate end) {
+        if (start != null) {
+            sql.append(" AND day >= :start");
+        }
+        if (end != null) {
+            sql.append(" AND day <= :end");
+        }
+    }
+
+    private void bindRange(Query query, LocalDate start, LocalDate end) {
+        if (start != null) {
+            query.setParameter("start", start);
+        }
+        if (end != null) {
+            query.setParameter("end", end);
+        }
+    }
+
+    private Map<String, Long> toCounts(Query query) {
+        @SuppressWarnings("unchecked")
+        List<Object[]> rows = query.getResultList();
+
+        Map<String, Long> counts = new LinkedHashMap<>();
+        for (Object[] row : rows) {
+            counts.put((String) row[0], ((Number) row[1]).longValue());
+        }
+        return counts;
+    }
+}
@@ -1,6 +1,7 @@
 package com.team.medaibackend.service;
 
 import com.team.medaibackend.repository.*;
+import com.team.medaibackend.service.AnalyticsRollupService.Rollup;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
@@ -21,6 +22,7 @@ public class AnalyticsService {
     private final ClinicalNoteRepository clinicalNoteRepository;
     private final UserRepository userRepository;
     private final AuditLogRepository auditLogRepository;
+    private final AnalyticsRollupService rollups;
 
     public AnalyticsService(
             PatientRepository patientRepository,
@@ -29,7 +31,8 @@ public class AnalyticsService {
             TreatmentPlanRepository treatmentPlanRepository,
             ClinicalNoteRepository clinicalNoteRepository,
             UserRepository userRepository,
-            AuditLogRepository auditLogRepository) {
+            AuditLogRepository auditLogRepository,
+            AnalyticsRollupService rollups) {
         this.patientRepository = patientRepository;
         this.studyRepository = studyRepository;
         this.reportRepository = reportRepository;
@@ -37,6 +40,7 @@ public class AnalyticsService {
         this.clinicalNoteRepository = clinicalNoteRepository;
         this.userRepository = userRepository;
         this.auditLogRepository = auditLogRepository;
+        this.rollups = rollups;
     }
 
     /**
@@ -57,7 +61,7 @@ public class AnalyticsService {
     }
 
     /**
-     * Get KPIs with trends
+     * Get KPIs with trends. Study, report and plan counts come from the daily rollups.
      */
     @Transactional(readOnly = true)
     public Map<String, Object> getKPIs(LocalDate startDate, LocalDate endDate) {
@@ -77,8 +81,8 @@ public class AnalyticsService {
         kpis.put("patients", patientKPI);
 
         // Active studies
-        long activeStudies = studyRepository.countByStatus("uploaded");
-        long totalStudies = studyRepository.count();
+        long activeStudies = rollups.total(Rollup.STUDIES, null, null, "status", "uploaded");
+        long totalStudies = rollups.total(Rollup.STUDIES, null, null);
 
         Map<String, Object> studyKPI = new HashMap<>();
         studyKPI.put("active", activeStudies);
@@ -87,9 +91,8 @@ public class AnalyticsService {
         kpis.put("studies", studyKPI);
 
         // Reports this period
-        long reportsInPeriod = reportRepository.countByCreatedAtBetween(start, end);
-        long finalizedReports = reportRepository.countByStatusAndCreatedAtBetween(
-                "finalized", start, end);
+        long reportsInPeriod = rollups.total(Rollup.REPORTS, startDate, endDate);
+        long finalizedReports = rollups.total(Rollup.REPORTS, startDate, endDate, "status", "finalized");
 
         Map<String, Object> reportKPI = new HashMap<>();
         reportKPI.put("total", reportsInPeriod);
@@ -98,8 +101,8 @@ public class AnalyticsService {
         kpis.put("reports", reportKPI);
 
         // Active treatment plans
-        long activePlans = treatmentPlanRepository.countByStatus("active");
-        long completedPlans = treatmentPlanRepository.countByStatus("completed");
+        long activePlans = rollups.total(Rollup.TREATMENTS, null, null, "status", "active");
+        long completedPlans = rollups.total(Rollup.TREATMENTS, null, null, "status", "completed");
 
         Map<String, Object> planKPI = new HashMap<>();
         planKPI.put("active", activePlans);
@@ -163,8 +166,8 @@ public class AnalyticsService {
         comparison.put("patients", patientComp);
 
         // Compare studies
-        long currentStudies = studyRepository.countByCreatedAtBetween(currStart, currEnd);
-        long previousStudies = studyRepository.countByCreatedAtBetween(prevStart, prevEnd);
+        long currentStudies = rollups.total(Rollup.STUDIES, currentStart, currentEnd);
+        long previousStudies = rollups.total(Rollup.STUDIES, previousStart, previousEnd);
 
         Map<String, Object> studyComp = new HashMap<>();
         studyComp.put("current", currentStudies);
@@ -174,8 +177,8 @@ public class AnalyticsService {
         comparison.put("studies", studyComp);
 
         // Compare reports
-        long currentReports = reportRepository.countByCreatedAtBetween(currStart, currEnd);
-        long previousReports = reportRepository.countByCreatedAtBetween(prevStart, prevEnd);
+        long currentReports = rollups.total(Rollup.REPORTS, currentStart, currentEnd);
+        long previousReports = rollups.total(Rollup.REPORTS, previousStart, previousEnd);
 
         Map<String, Object> reportComp = new HashMap<>();
         reportComp.put("current", currentReports);
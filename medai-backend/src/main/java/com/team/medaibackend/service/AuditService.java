@@ -1,7 +1,15 @@
 package com.team.medaibackend.service;
 
+import com.team.medaibackend.audit.AuditEvent;
+import com.team.medaibackend.audit.AuditWriter;
 import com.team.medaibackend.entity.AuditLog;
 import com.team.medaibackend.repository.AuditLogRepository;
+import com.team.medaibackend.search.KeysetPage;
+import com.team.medaibackend.search.KeysetQuery;
+import com.team.medaibackend.search.RowCountEstimator;
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.PersistenceContext;
+import jakarta.persistence.criteria.Predicate;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.data.domain.Page;
@@ -10,8 +18,15 @@ import org.springframework.data.domain.Pageable;
 import org.springframework.data.domain.Sort;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 
+import java.time.LocalDate;
 import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
 import java.util.Map;
 
 @Service
@@ -19,46 +34,103 @@ public class AuditService {
 
     private static final Logger logger = LoggerFactory.getLogger(AuditService.class);
 
+    private static final List<String> EXPORT_COLUMNS = List.of("ID", "Timestamp", "Action", "Resource Type",
+            "Resource ID", "User ID", "Username", "IP Address", "User Agent", "Details");
+
+    @PersistenceContext
+    private EntityManager entityManager;
+
     private final AuditLogRepository auditLogRepository;
+    private final RowCountEstimator rowCountEstimator;
+    private final AuditWriter auditWriter;
+    private final StreamingExportService streamingExport;
 
-    public AuditService(AuditLogRepository auditLogRepository) {
+    public AuditService(AuditLogRepository auditLogRepository, RowCountEstimator rowCountEstimator,
+                        AuditWriter auditWriter, StreamingExportService streamingExport) {
         this.auditLogRepository = auditLogRepository;
+        this.rowCountEstimator = rowCountEstimator;
+        this.auditWriter = auditWriter;
+        this.streamingExport = streamingExport;
     }
 
-    @Transactional
+    /**
+     * Queues the event for {@link AuditWriter}. Inside a transaction it is queued only after commit,
+     * so a rolled-back action leaves no audit row, as when the row was part of the transaction.
+     */
     public void log(String action, String resourceType, String resourceId,
                     Long userId, String username,
                     String ipAddress, String userAgent,
                     Map<String, Object> details) {
 
-        AuditLog auditLog = new AuditLog();
-        auditLog.setAction(action);
-        auditLog.setResourceType(resourceType);
-        auditLog.setResourceId(resourceId);
-        auditLog.setUserId(userId);
-        auditLog.setUsername(username);
-        auditLog.setIpAddress(ipAddress);
-        auditLog.setUserAgent(userAgent);
-        auditLog.setDetails(details);
-
-        auditLogRepository.save(auditLog);
-
-        logger.info("AUDIT: {} - {} {} by user {} ({})",
+        AuditEvent event = AuditEvent.of(action, resourceType, resourceId,
+                userId, username, ipAddress, userAgent, details);
+
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    auditWriter.enqueue(event);
+                }
+            });
+        } else {
+            auditWriter.enqueue(event);
+        }
+
+        logger.debug("AUDIT: {} - {} {} by user {} ({})",
                 action, resourceType, resourceId, username, ipAddress);
     }
 
-    @Transactional
     public void log(String action, String resourceType, String resourceId,
                     Long userId, String username) {
         log(action, resourceType, resourceId, userId, username, null, null, null);
     }
 
-    @Transactional
     public void logAnonymous(String action, String resourceType, String resourceId,
                              String ipAddress, Map<String, Object> details) {
         log(action, resourceType, resourceId, null, "anonymous", ipAddress, null, details);
     }
 
+    /**
+     * Streams matching audit rows as CSV in created_at order, read through a server-side cursor,
+     * so memory stays flat however many rows match. Dates are inclusive ISO days.
+     */
+    public StreamingResponseBody exportAuditLogs(Long userId, String action, String resourceType, String resourceId,
+                                                 String dateFrom, String dateTo, boolean gzip) {
+        StringBuilder sql = new StringBuilder(
+                "SELECT id, to_char(created_at, 'YYYY-MM-DD\"T\"HH24:MI:SS'), action, resource_type, resource_id, " +
+                        "user_id, username, ip_address, user_agent, CAST(details AS text) FROM audit_log WHERE 1 = 1");
+        Map<String, Object> parameters = new LinkedHashMap<>();
+        if (userId != null) {
+            sql.append(" AND user_id = :userId");
+            parameters.put("userId", userId);
+        }
+        if (action != null) {
+            sql.append(" AND action = :action");
+            parameters.put("action", action);
+        }
+        if (resourceType != null) {
+            sql.append(" AND resource_type = :resourceType");
+            parameters.put("resourceType", resourceType);
+        }
+        if (resourceId != null) {
+            sql.append(" AND resource_id = :resourceId");
+            parameters.put("resourceId", resourceId);
+        }
+        // Half-open range on created_at, so only the matching monthly partitions are scanned
+        if (dateFrom != null) {
+            sql.append(" AND created_at >= :dateFrom");
+            parameters.put("dateFrom", LocalDate.parse(dateFrom).atStartOfDay());
+        }
+        if (dateTo != null) {
+            sql.append(" AND created_at < :dateTo");
+            parameters.put("dateTo", LocalDate.parse(dateTo).plusDays(1).atStartOfDay());
+        }
+        sql.append(" ORDER BY created_at, id");
+
+        return streamingExport.stream("audit_log", sql.toString(), parameters, EXPORT_COLUMNS,
+                StreamingExportService.Format.CSV, gzip);
+    }
+
     @Transactional(readOnly = true)
     public Page<AuditLog> getAuditLogs(Long userId, String action, String resourceType,
                                        String dateFrom, String dateTo,
@@ -76,7 +148,57 @@ public class AuditService {
                 userId, action, resourceType, dateFromParsed, dateToParsed, pageable);
     }
 
-    @Transactional
+    /**
+     * Cursor-paged audit log listing, newest first
+     */
+    @Transactional(readOnly = true)
+    public KeysetPage<AuditLog> getAuditLogsKeyset(Long userId, String action, String resourceType,
+                                                   String dateFrom, String dateTo,
+                                                   String cursor, int size) {
+
+        LocalDateTime dateFromParsed = dateFrom != null ?
+                LocalDateTime.parse(dateFrom + "T00:00:00") : null;
+        LocalDateTime dateToParsed = dateTo != null ?
+                LocalDateTime.parse(dateTo + "T23:59:59") : null;
+
+        return KeysetQuery.fetch(
+                entityManager, AuditLog.class, "createdAt", AuditLog::getCreatedAt, AuditLog::getId,
+                (cb, log) -> {
+                    List<Predicate> predicates = new ArrayList<>();
+                    if (userId != null) {
+                        predicates.add(cb.equal(log.get("userId"), userId));
+                    }
+                    if (action != null) {
+                        predicates.add(cb.equal(log.get("action"), action));
+                    }
+                    if (resourceType != null) {
+                        predicates.add(cb.equal(log.get("resourceType"), resourceType));
+                    }
+                    if (dateFromParsed != null) {
+                        predicates.add(cb.greaterThanOrEqualTo(log.get("createdAt"), dateFromParsed));
+                    }
+                    if (dateToParsed != null) {
+                        predicates.add(cb.lessThanOrEqualTo(log.get("createdAt"), dateToParsed));
+                    }
+                    return predicates;
+                },
+                cursor, size);
+    }
+
+    /**
+     * Planner estimate of matching audit rows, avoiding count(*) over the whole table
+     */
+    public long estimateAuditLogs(Long userId, String action, String resourceType,
+                                  String dateFrom, String dateTo) {
+        Map<String, String> conditions = new LinkedHashMap<>();
+        conditions.put("user_id = %L", userId != null ? userId.toString() : null);
+        conditions.put("action = %L", action);
+        conditions.put("resource_type = %L", resourceType);
+        conditions.put("created_at >= %L", dateFrom != null ? dateFrom + " 00:00:00" : null);
+        conditions.put("created_at <= %L", dateTo != null ? dateTo + " 23:59:59" : null);
+        return rowCountEstimator.estimate("audit_log", conditions);
+    }
+
     public void logAnonymous(String action, String resourceType, String resourceId) {
         log(action, resourceType, resourceId, null, "anonymous", null, null, null);
     }
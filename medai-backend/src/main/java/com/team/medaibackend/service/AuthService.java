@@ -6,10 +6,17 @@ import com.team.medaibackend.dto.RegisterRequest;
 import com.team.medaibackend.entity.Patient;
 import com.team.medaibackend.entity.Role;
 import com.team.medaibackend.entity.User;
+import com.team.medaibackend.exception.TooManyRequestsException;
 import com.team.medaibackend.repository.PatientRepository;
 import com.team.medaibackend.repository.RoleRepository;
 import com.team.medaibackend.repository.UserRepository;
 import com.team.medaibackend.security.JwtService;
+import com.team.medaibackend.security.LoginThrottle;
+import com.team.medaibackend.security.TokenRevocationService;
+import com.team.medaibackend.security.VerifiedToken;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.concurrent.ThreadPoolTaskExecutor;
 import org.springframework.security.crypto.password.PasswordEncoder;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
@@ -18,7 +25,13 @@ import java.time.LocalDateTime;
 import java.util.ArrayList;
 import java.util.HashSet;
 import java.util.List;
+import java.util.Optional;
 import java.util.Set;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Future;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
 
 @Service
 public class AuthService {
@@ -29,29 +42,60 @@ public class AuthService {
     private final PasswordEncoder passwordEncoder;
     private final JwtService jwtService;
     private final AuditService auditService;
+    private final LoginThrottle loginThrottle;
+    private final TokenRevocationService revocations;
+    private final ThreadPoolTaskExecutor loginExecutor;
+
+    @Value("${auth.login.timeout-ms:5000}")
+    private long loginTimeoutMs;
 
     public AuthService(UserRepository userRepository,
                        RoleRepository roleRepository,
                        PatientRepository patientRepository, // ✅ NEW
                        PasswordEncoder passwordEncoder,
                        JwtService jwtService,
-                       AuditService auditService) {
+                       AuditService auditService,
+                       LoginThrottle loginThrottle,
+                       TokenRevocationService revocations,
+                       @Qualifier("loginExecutor") ThreadPoolTaskExecutor loginExecutor) {
         this.userRepository = userRepository;
         this.roleRepository = roleRepository;
         this.patientRepository = patientRepository; // ✅ NEW
         this.passwordEncoder = passwordEncoder;
         this.jwtService = jwtService;
         this.auditService = auditService;
+        this.loginThrottle = loginThrottle;
+        this.revocations = revocations;
+        this.loginExecutor = loginExecutor;
     }
 
-    @Transactional
-    public LoginResponse login(LoginRequest request) {
-        User user = userRepository.findByUsername(request.getUsername())
-                .orElseThrow(() -> new RuntimeException("Invalid username or password"));
-
-        if (!passwordEncoder.matches(request.getPassword(), user.getPassword())) {
+    /**
+     * Rate limited per IP and username; the bcrypt check runs on the bounded login pool and is
+     * rejected straight away when that pool is saturated. Not transactional, so no database
+     * connection is held while waiting for the password check. The username token taken up
+     * front is kept only for a wrong password or an unknown user.
+     */
+    public LoginResponse login(LoginRequest request, String ipAddress) {
+        loginThrottle.acquire(request.getUsername(), ipAddress);
+
+        Optional<User> found = userRepository.findByUsername(request.getUsername());
+        if (found.isEmpty()) {
             throw new RuntimeException("Invalid username or password");
         }
+        User user = found.get();
+
+        boolean matches;
+        try {
+            matches = passwordMatches(request.getPassword(), user.getPassword());
+        } catch (TooManyRequestsException e) {
+            // Never checked, so not a guess against the account
+            loginThrottle.recordSuccess(request.getUsername());
+            throw e;
+        }
+        if (!matches) {
+            throw new RuntimeException("Invalid username or password");
+        }
+        loginThrottle.recordSuccess(request.getUsername());
 
         if (!user.getEnabled()) {
             throw new RuntimeException("Account is disabled");
@@ -70,11 +114,31 @@ public class AuthService {
 
         // Audit log
         auditService.log(AuditService.ACTION_LOGIN, "USER", user.getId().toString(),
-                user.getId(), user.getUsername());
+                user.getId(), user.getUsername(), ipAddress, null, null);
 
         return buildLoginResponse(user, accessToken, refreshToken);
     }
 
+    private boolean passwordMatches(String rawPassword, String encodedPassword) {
+        Future<Boolean> check;
+        try {
+            check = loginExecutor.submit(() -> passwordEncoder.matches(rawPassword, encodedPassword));
+        } catch (RejectedExecutionException e) {
+            throw new TooManyRequestsException("Login service is busy, try again shortly", 1);
+        }
+        try {
+            return check.get(loginTimeoutMs, TimeUnit.MILLISECONDS);
+        } catch (TimeoutException e) {
+            check.cancel(true);
+            throw new TooManyRequestsException("Login service is busy, try again shortly", 1);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new RuntimeException("Login interrupted");
+        } catch (ExecutionException e) {
+            throw new RuntimeException("Invalid username or password");
+        }
+    }
+
     @Transactional
     public LoginResponse register(RegisterRequest request) {
         // Check if username already exists
@@ -159,11 +223,12 @@ public class AuthService {
     }
 
     public LoginResponse refreshToken(String refreshToken) {
-        if (!jwtService.validateToken(refreshToken)) {
+        VerifiedToken verified = jwtService.verify(refreshToken);
+        if (verified == null || revocations.isRevoked(verified)) {
             throw new RuntimeException("Invalid refresh token");
         }
 
-        String username = jwtService.getUsernameFromToken(refreshToken);
+        String username = verified.username();
         User user = userRepository.findByUsername(username)
                 .orElseThrow(() -> new RuntimeException("User not found"));
 
@@ -172,6 +237,25 @@ public class AuthService {
         return buildLoginResponse(user, newAccessToken, refreshToken);
     }
 
+    /**
+     * Revokes the access token and, when given, the refresh token, so neither can be used again
+     */
+    public void logout(String accessToken, String refreshToken, String ipAddress) {
+        VerifiedToken access = jwtService.verify(accessToken);
+        if (access == null) {
+            throw new RuntimeException("Invalid access token");
+        }
+        revocations.revoke(access);
+
+        VerifiedToken refresh = jwtService.verify(refreshToken);
+        if (refresh != null && refresh.username() != null && refresh.username().equals(access.username())) {
+            revocations.revoke(refresh);
+        }
+
+        auditService.log(AuditService.ACTION_LOGOUT, "USER", String.valueOf(access.userId()),
+                access.userId(), access.username(), ipAddress, null, null);
+    }
+
     private LoginResponse buildLoginResponse(User user, String accessToken, String refreshToken) {
         LoginResponse response = new LoginResponse();
         response.setAccessToken(accessToken);
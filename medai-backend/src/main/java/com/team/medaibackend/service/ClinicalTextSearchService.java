@@ -0,0 +1,347 @@
+package com.team.medaibackend.service;
+
+import com.team.medaibackend.entity.ClinicalNote;
+import com.team.medaibackend.entity.Report;
+import com.team.medaibackend.entity.User;
+import com.team.medaibackend.event.EntityChangedEvent;
+import com.team.medaibackend.search.ClinicalTextIndex;
+import com.team.medaibackend.search.ClinicalTextIndex.IndexedDocument;
+import jakarta.annotation.PreDestroy;
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.PersistenceContext;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.event.TransactionalEventListener;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.LocalDate;
+import java.time.format.DateTimeFormatter;
+import java.util.*;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+/**
+ * Feeds report and clinical note text into {@link ClinicalTextIndex} and serves faceted search over it.
+ * Committed writes are re-read and indexed on a single background thread, so the index trails
+ * the database by roughly the NRT refresh interval.
+ * <p>
+ * A reindex builds a new index generation in the background while searches keep using the current
+ * one. Documents changed meanwhile are noted and re-read into the new generation just before it
+ * is swapped in; that last step runs on the indexing thread, so no live change can fall between.
+ */
+@Service
+public class ClinicalTextSearchService {
+
+    private static final Logger logger = LoggerFactory.getLogger(ClinicalTextSearchService.class);
+
+    private static final DateTimeFormatter MONTH_BUCKET = DateTimeFormatter.ofPattern("yyyy-MM");
+    private static final int REINDEX_BATCH_SIZE = 500;
+
+    @PersistenceContext
+    private EntityManager entityManager;
+
+    private final ClinicalTextIndex index;
+    private final TransactionTemplate readOnlyTransaction;
+    private final ExecutorService indexingExecutor;
+    private final ExecutorService reindexExecutor;
+    private final int reindexThreads;
+
+    private volatile boolean reindexing;
+    // "type:id" of documents changed while a rebuild is loading; null when no rebuild runs
+    private volatile Set<String> changedDuringReindex;
+    private volatile Map<String, Object> lastReindex;
+
+    public ClinicalTextSearchService(ClinicalTextIndex index,
+                                     PlatformTransactionManager transactionManager,
+                                     @Value("${search.fulltext.reindex-threads:4}") int reindexThreads) {
+        this.index = index;
+        this.readOnlyTransaction = new TransactionTemplate(transactionManager);
+        this.readOnlyTransaction.setReadOnly(true);
+        this.reindexThreads = reindexThreads;
+        this.indexingExecutor = Executors.newSingleThreadExecutor(r -> {
+            Thread t = new Thread(r, "clinical-text-indexer");
+            t.setDaemon(true);
+            return t;
+        });
+        this.reindexExecutor = Executors.newSingleThreadExecutor(r -> {
+            Thread t = new Thread(r, "clinical-text-reindex");
+            t.setDaemon(true);
+            return t;
+        });
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        reindexExecutor.shutdownNow();
+        indexingExecutor.shutdown();
+    }
+
+    /**
+     * First start (or a deleted index directory) builds the index from scratch
+     */
+    @EventListener(ApplicationReadyEvent.class)
+    public void initializeIndex() {
+        if (index.isEmpty()) {
+            startReindex();
+        }
+    }
+
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onEntityChanged(EntityChangedEvent event) {
+        Object entity = event.getEntity();
+
+        if (entity instanceof Report report) {
+            Long id = report.getId();
+            indexingExecutor.submit(() -> apply(event.isDeleted(), "report", id));
+        } else if (entity instanceof ClinicalNote note) {
+            Long id = note.getId();
+            indexingExecutor.submit(() -> apply(event.isDeleted(), "note", id));
+        }
+    }
+
+    /**
+     * Full-text search with highlighting and facet counts.
+     * Filters: type (report/note), modality, author, status, dateBucket (yyyy-MM).
+     */
+    public Map<String, Object> search(String query, Map<String, String> filters, int limit) {
+        if (query == null || query.trim().isEmpty()) {
+            throw new IllegalArgumentException("Query is required");
+        }
+        return index.search(query.trim(), filters, Math.min(Math.max(limit, 1), 100));
+    }
+
+    public Map<String, Object> getStats() {
+        Map<String, Object> stats = new HashMap<>(index.getStats());
+        stats.put("reindexing", reindexing);
+        stats.put("lastReindex", lastReindex);
+        return stats;
+    }
+
+    /**
+     * Rebuild the index in the background; false if a rebuild is already running.
+     * Progress and the outcome show up in {@link #getStats()}.
+     */
+    public boolean startReindex() {
+        synchronized (this) {
+            if (reindexing) {
+                return false;
+            }
+            reindexing = true;
+        }
+        try {
+            reindexExecutor.execute(this::reindex);
+        } catch (RuntimeException e) {
+            reindexing = false;
+            throw e;
+        }
+        return true;
+    }
+
+    /**
+     * Load everything into a fresh generation and swap it in. Reports and notes are split into id
+     * ranges loaded in parallel, each worker in its own read-only transaction; IndexWriter itself
+     * is thread-safe.
+     */
+    private void reindex() {
+        long start = System.currentTimeMillis();
+        ClinicalTextIndex.Generation generation = index.newGeneration();
+        changedDuringReindex = ConcurrentHashMap.newKeySet();
+        ExecutorService workers = Executors.newFixedThreadPool(reindexThreads);
+        try {
+            AtomicLong reports = new AtomicLong();
+            AtomicLong notes = new AtomicLong();
+            List<Future<?>> tasks = new ArrayList<>();
+            for (long[] range : idRanges("Report")) {
+                tasks.add(workers.submit(() -> reports.addAndGet(indexRange(generation, "report", range[0], range[1]))));
+            }
+            for (long[] range : idRanges("ClinicalNote")) {
+                tasks.add(workers.submit(() -> notes.addAndGet(indexRange(generation, "note", range[0], range[1]))));
+            }
+            for (Future<?> task : tasks) {
+                task.get();
+            }
+
+            int caughtUp = indexingExecutor.submit(() -> {
+                Set<String> changed = changedDuringReindex;
+                changedDuringReindex = null;
+                for (String key : changed) {
+                    int separator = key.indexOf(':');
+                    write(generation, key.substring(0, separator), Long.valueOf(key.substring(separator + 1)));
+                }
+                index.publish(generation);
+                return changed.size();
+            }).get();
+
+            long elapsed = System.currentTimeMillis() - start;
+            logger.info("Clinical text reindex: {} reports, {} notes, {} changed meanwhile in {} ms",
+                    reports.get(), notes.get(), caughtUp, elapsed);
+
+            Map<String, Object> result = new HashMap<>();
+            result.put("reports", reports.get());
+            result.put("notes", notes.get());
+            result.put("changedDuringReindex", caughtUp);
+            result.put("elapsedMillis", elapsed);
+            result.put("finishedAt", System.currentTimeMillis());
+            lastReindex = result;
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            abandon(generation, "interrupted");
+        } catch (ExecutionException e) {
+            logger.error("Clinical text reindex failed", e.getCause());
+            abandon(generation, e.getCause().getMessage());
+        } catch (RuntimeException e) {
+            logger.error("Clinical text reindex failed", e);
+            abandon(generation, e.getMessage());
+        } finally {
+            workers.shutdownNow();
+            reindexing = false;
+        }
+    }
+
+    private void abandon(ClinicalTextIndex.Generation generation, String reason) {
+        changedDuringReindex = null;
+        index.discard(generation);
+        lastReindex = Map.of("failed", String.valueOf(reason), "finishedAt", System.currentTimeMillis());
+    }
+
+    private void apply(boolean deleted, String type, Long id) {
+        try {
+            if (deleted) {
+                index.delete(type, id);
+            } else {
+                readOnlyTransaction.executeWithoutResult(status -> loadDocument(type, id)
+                        .ifPresentOrElse(index::upsert, () -> index.delete(type, id)));
+            }
+        } catch (RuntimeException e) {
+            logger.warn("Failed to index {} {}: {}", type, id, e.getMessage());
+        }
+
+        Set<String> changed = changedDuringReindex;
+        if (changed != null) {
+            changed.add(type + ":" + id);
+        }
+    }
+
+    /**
+     * Current state of one document into a rebuilt generation: its latest version, or nothing if it is gone
+     */
+    private void write(ClinicalTextIndex.Generation generation, String type, Long id) {
+        readOnlyTransaction.executeWithoutResult(status -> loadDocument(type, id)
+                .ifPresentOrElse(generation::upsert, () -> generation.delete(type, id)));
+    }
+
+    private Optional<IndexedDocument> loadDocument(String type, Long id) {
+        return "report".equals(type)
+                ? load(Report.class, id).map(this::toDocument)
+                : load(ClinicalNote.class, id).map(this::toDocument);
+    }
+
+    private <T> Optional<T> load(Class<T> entityType, Long id) {
+        return Optional.ofNullable(entityManager.find(entityType, id));
+    }
+
+    /**
+     * Split [min, max] ids into one slice per worker
+     */
+    private List<long[]> idRanges(String entityName) {
+        Object[] bounds = readOnlyTransaction.execute(status -> (Object[]) entityManager
+                .createQuery("SELECT MIN(e.id), MAX(e.id) FROM " + entityName + " e")
+                .getSingleResult());
+
+        List<long[]> ranges = new ArrayList<>();
+        if (bounds == null || bounds[0] == null) {
+            return ranges;
+        }
+
+        long min = ((Number) bounds[0]).longValue();
+        long max = ((Number) bounds[1]).longValue();
+        long step = Math.max(1, (max - min + reindexThreads) / reindexThreads);
+        for (long lo = min; lo <= max; lo += step) {
+            ranges.add(new long[]{lo, Math.min(max + 1, lo + step)});
+        }
+        return ranges;
+    }
+
+    private long indexRange(ClinicalTextIndex.Generation generation, String type, long fromId, long toId) {
+        long count = 0;
+        long afterId = fromId - 1;
+
+        while (true) {
+            long after = afterId;
+            List<IndexedDocument> batch = readOnlyTransaction.execute(status -> "report".equals(type)
+                    ? entityManager.createQuery(
+                                    "SELECT r FROM Report r LEFT JOIN FETCH r.study LEFT JOIN FETCH r.author " +
+                                            "WHERE r.id > :after AND r.id < :to ORDER BY r.id", Report.class)
+                            .setParameter("after", after)
+                            .setParameter("to", toId)
+                            .setMaxResults(REINDEX_BATCH_SIZE)
+                            .getResultStream().map(this::toDocument).toList()
+                    : entityManager.createQuery(
+                                    "SELECT n FROM ClinicalNote n LEFT JOIN FETCH n.study LEFT JOIN FETCH n.doctor " +
+                                            "WHERE n.id > :after AND n.id < :to ORDER BY n.id", ClinicalNote.class)
+                            .setParameter("after", after)
+                            .setParameter("to", toId)
+                            .setMaxResults(REINDEX_BATCH_SIZE)
+                            .getResultStream().map(this::toDocument).toList());
+
+            if (batch == null || batch.isEmpty()) {
+                return count;
+            }
+
+            batch.forEach(generation::upsert);
+            count += batch.size();
+            afterId = batch.get(batch.size() - 1).id();
+        }
+    }
+
+    private IndexedDocument toDocument(Report report) {
+        String body = join(report.getSummary(), report.getFindings(), report.getImpression(), report.getRecommendations());
+        LocalDate date = report.getCreatedAt() != null ? report.getCreatedAt().toLocalDate() : null;
+        return new IndexedDocument(
+                "report",
+                report.getId(),
+                report.getTitle(),
+                body,
+                report.getStudy() != null ? report.getStudy().getModality() : null,
+                authorName(report.getAuthor()),
+                report.getStatus(),
+                date != null ? date.toString() : null,
+                date != null ? date.format(MONTH_BUCKET) : null);
+    }
+
+    private IndexedDocument toDocument(ClinicalNote note) {
+        String body = join(note.getSubjective(), note.getObjective(), note.getAssessment(), note.getPlan(), note.getContent());
+        LocalDate date = note.getNoteDate();
+        return new IndexedDocument(
+                "note",
+                note.getId(),
+                note.getTitle(),
+                body,
+                note.getStudy() != null ? note.getStudy().getModality() : null,
+                authorName(note.getDoctor()),
+                note.getStatus(),
+                date != null ? date.toString() : null,
+                date != null ? date.format(MONTH_BUCKET) : null);
+    }
+
+    private String authorName(User user) {
+        if (user == null) {
+            return null;
+        }
+        return user.getFullName() != null ? user.getFullName() : user.getUsername();
+    }
+
+    private String join(String... sections) {
+        return Stream.of(sections)
+                .filter(Objects::nonNull)
+                .filter(s -> !s.isBlank())
+                .collect(Collectors.joining("\n\n"));
+    }
+}
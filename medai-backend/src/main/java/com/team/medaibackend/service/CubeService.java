@@ -0,0 +1,266 @@
+package com.team.medaibackend.service;
+
+import com.team.medaibackend.analytics.ColumnarTable;
+import com.team.medaibackend.exception.ServiceUnavailableException;
+import jakarta.annotation.PreDestroy;
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.PersistenceContext;
+import org.hibernate.jpa.HibernateHints;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.*;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Stream;
+
+/**
+ * Ad-hoc cube over an in-memory columnar snapshot of studies, reports and appointments.
+ * <p>
+ * The snapshot is rebuilt in the background every {@code analytics.cube.refresh-interval-ms} and
+ * swapped in atomically; queries only scan the primitive arrays and never touch the database.
+ * Numbers are therefore up to one refresh interval old.
+ */
+@Service
+public class CubeService {
+
+    private static final Logger logger = LoggerFactory.getLogger(CubeService.class);
+
+    // The first snapshot usually builds in a few seconds after startup
+    private static final long LOADING_RETRY_AFTER_SECONDS = 5;
+
+    private static final int FETCH_SIZE = 10_000;
+
+    private static final String AGE = "date_part('year', age(current_date, p.birth_date))";
+    private static final String AGE_GROUP = "CASE WHEN p.birth_date IS NULL THEN NULL " +
+            "WHEN " + AGE + " < 18 THEN '0-17' " +
+            "WHEN " + AGE + " < 30 THEN '18-29' " +
+            "WHEN " + AGE + " < 45 THEN '30-44' " +
+            "WHEN " + AGE + " < 60 THEN '45-59' " +
+            "WHEN " + AGE + " < 75 THEN '60-74' " +
+            "ELSE '75+' END";
+
+    /**
+     * Calendar dimensions derived from a timestamp expression, in the order of {@link #CALENDAR}
+     */
+    private static final List<String> CALENDAR = List.of("weekday", "hour", "month");
+
+    private static String calendar(String ts) {
+        return "to_char(" + ts + ", 'FMDay'), to_char(" + ts + ", 'HH24'), to_char(" + ts + ", 'YYYY-MM')";
+    }
+
+    private static String epochDay(String ts) {
+        return "CAST(" + ts + " AS date) - DATE '1970-01-01'";
+    }
+
+    /**
+     * Each query returns the epoch day, then one text column per dimension, then one int per measure
+     */
+    private record Source(String table, List<String> dimensions, List<String> measures, String sql) {
+    }
+
+    private static final List<Source> SOURCES = List.of(
+            new Source("studies",
+                    concat(List.of("modality", "status", "patient_sex", "patient_age_group", "reporting_doctor"), CALENDAR),
+                    List.of("turnaround_minutes"),
+                    "SELECT " + epochDay("t.ts") + ", t.modality, t.status, t.sex, t.age_group, t.doctor, " +
+                            calendar("t.ts") + ", t.minutes " +
+                            "FROM (SELECT COALESCE(s.study_date, s.created_at) AS ts, s.modality, s.status, p.sex, " +
+                            AGE_GROUP + " AS age_group, r.doctor, " +
+                            "CAST(round(extract(epoch FROM r.finalized_at - s.created_at) / 60) AS int) AS minutes " +
+                            "FROM studies s LEFT JOIN patients p ON p.id = s.patient_id " +
+                            "LEFT JOIN LATERAL (SELECT COALESCE(u.full_name, u.username) AS doctor, r.finalized_at " +
+                            "FROM reports r LEFT JOIN users u ON u.id = r.author_id WHERE r.study_id = s.id " +
+                            "ORDER BY r.finalized_at NULLS LAST, r.id LIMIT 1) r ON true) t " +
+                            "WHERE t.ts IS NOT NULL"),
+            new Source("reports",
+                    concat(List.of("status", "modality", "author"), CALENDAR),
+                    List.of("turnaround_minutes"),
+                    "SELECT " + epochDay("r.created_at") + ", r.status, s.modality, COALESCE(u.full_name, u.username), " +
+                            calendar("r.created_at") + ", " +
+                            "CAST(round(extract(epoch FROM r.finalized_at - r.created_at) / 60) AS int) " +
+                            "FROM reports r LEFT JOIN studies s ON s.id = r.study_id " +
+                            "LEFT JOIN users u ON u.id = r.author_id WHERE r.created_at IS NOT NULL"),
+            new Source("appointments",
+                    concat(List.of("type", "status", "doctor", "location"), CALENDAR),
+                    List.of("duration_minutes"),
+                    "SELECT " + epochDay("a.appointment_date") + ", a.appointment_type, a.status, " +
+                            "COALESCE(u.full_name, u.username), a.location, " +
+                            calendar("(a.appointment_date + a.appointment_time)") + ", a.duration_minutes " +
+                            "FROM appointments a LEFT JOIN users u ON u.id = a.doctor_id"));
+
+    @PersistenceContext
+    private EntityManager entityManager;
+
+    private final TransactionTemplate snapshotTransaction;
+    private final ScheduledExecutorService scheduler;
+
+    private volatile Snapshot snapshot;
+
+    @Value("${analytics.cube.refresh-interval-ms:300000}")
+    private long refreshIntervalMs;
+
+    private record Snapshot(Map<String, ColumnarTable> tables, LocalDateTime builtAt, long buildMillis) {
+    }
+
+    public CubeService(PlatformTransactionManager transactionManager) {
+        this.snapshotTransaction = new TransactionTemplate(transactionManager);
+        this.snapshotTransaction.setReadOnly(true);
+        this.scheduler = Executors.newSingleThreadScheduledExecutor(r -> {
+            Thread t = new Thread(r, "analytics-cube");
+            t.setDaemon(true);
+            return t;
+        });
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void start() {
+        scheduler.scheduleWithFixedDelay(() -> {
+            try {
+                refresh();
+            } catch (RuntimeException e) {
+                logger.warn("Cube snapshot refresh failed, keeping the previous one: {}", e.getMessage());
+            }
+        }, 0, refreshIntervalMs, TimeUnit.MILLISECONDS);
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        scheduler.shutdownNow();
+    }
+
+    /**
+     * Rebuild the snapshot now; concurrent queries keep using the previous one until it is swapped in
+     */
+    public synchronized Map<String, Object> refresh() {
+        long start = System.currentTimeMillis();
+        Map<String, ColumnarTable> tables = new LinkedHashMap<>();
+        for (Source source : SOURCES) {
+            tables.put(source.table(), snapshotTransaction.execute(status -> load(source)));
+        }
+        snapshot = new Snapshot(tables, LocalDateTime.now(), System.currentTimeMillis() - start);
+        logger.info("Cube snapshot rebuilt in {} ms", snapshot.buildMillis());
+        return getSchema();
+    }
+
+    private ColumnarTable load(Source source) {
+        int dimensions = source.dimensions().size();
+        int measures = source.measures().size();
+        ColumnarTable.Builder builder = ColumnarTable.builder(source.table(), source.dimensions(), source.measures());
+
+        @SuppressWarnings("unchecked")
+        Stream<Object[]> rows = entityManager.createNativeQuery(source.sql())
+                .setHint(HibernateHints.HINT_FETCH_SIZE, FETCH_SIZE)
+                .setHint(HibernateHints.HINT_READ_ONLY, true)
+                .getResultStream();
+        try (rows) {
+            rows.forEach(row -> {
+                String[] values = new String[dimensions];
+                for (int d = 0; d < dimensions; d++) {
+                    values[d] = row[1 + d] == null ? null : row[1 + d].toString();
+                }
+                int[] measured = new int[measures];
+                for (int m = 0; m < measures; m++) {
+                    Object value = row[1 + dimensions + m];
+                    measured[m] = value == null ? ColumnarTable.MISSING : ((Number) value).intValue();
+                }
+                builder.addRow(((Number) row[0]).longValue(), values, measured);
+            });
+        }
+        return builder.build();
+    }
+
+    /**
+     * Tables with their dimensions, measures, row counts and memory use
+     */
+    public Map<String, Object> getSchema() {
+        Snapshot current = snapshot;
+        Map<String, Object> schema = new LinkedHashMap<>();
+        if (current == null) {
+            schema.put("status", "loading");
+            return schema;
+        }
+
+        Map<String, Object> tables = new LinkedHashMap<>();
+        long totalBytes = 0;
+        for (ColumnarTable table : current.tables().values()) {
+            Map<String, Object> info = new LinkedHashMap<>();
+            info.put("dimensions", table.getDimensionNames());
+            info.put("measures", table.getMeasureNames());
+            info.put("rows", table.getRowCount());
+            info.put("memoryBytes", table.getMemoryBytes());
+            tables.put(table.getName(), info);
+            totalBytes += table.getMemoryBytes();
+        }
+        schema.put("status", "ready");
+        schema.put("tables", tables);
+        schema.put("memoryBytes", totalBytes);
+        schema.put("builtAt", current.builtAt());
+        schema.put("buildMillis", current.buildMillis());
+        return schema;
+    }
+
+    /**
+     * Slice one table by the given dimensions.
+     *
+     * @param filters entries of the form {@code dimension:value|value}
+     */
+    public Map<String, Object> query(String table, LocalDate startDate, LocalDate endDate,
+                                     List<String> dimensions, List<String> filters, String measure, int limit) {
+        Snapshot current = snapshot;
+        if (current == null) {
+            throw new ServiceUnavailableException("Cube snapshot is still loading", LOADING_RETRY_AFTER_SECONDS);
+        }
+        ColumnarTable columns = current.tables().get(table);
+        if (columns == null) {
+            throw new IllegalArgumentException("Unknown cube table '" + table + "', expected one of " + current.tables().keySet());
+        }
+
+        long start = System.nanoTime();
+        List<Map<String, Object>> rows = columns.aggregate(
+                startDate == null ? Long.MIN_VALUE : startDate.toEpochDay(),
+                endDate == null ? Long.MAX_VALUE : endDate.toEpochDay(),
+                dimensions == null ? List.of() : dimensions,
+                parseFilters(filters), measure, Math.max(1, limit));
+
+        Map<String, Object> result = new LinkedHashMap<>();
+        result.put("table", table);
+        result.put("dimensions", dimensions == null ? List.of() : dimensions);
+        result.put("measure", measure);
+        result.put("rows", rows);
+        result.put("elapsedMicros", (System.nanoTime() - start) / 1000);
+        result.put("snapshotAt", current.builtAt());
+        return result;
+    }
+
+    private Map<String, Set<String>> parseFilters(List<String> filters) {
+        Map<String, Set<String>> parsed = new LinkedHashMap<>();
+        if (filters == null) {
+            return parsed;
+        }
+        for (String filter : filters) {
+            int colon = filter.indexOf(':');
+            if (colon <= 0) {
+                throw new IllegalArgumentException("Filter must look like dimension:value|value, got '" + filter + "'");
+            }
+            parsed.computeIfAbsent(filter.substring(0, colon), d -> new HashSet<>())
+                    .addAll(Arrays.asList(filter.substring(colon + 1).split("\\|")));
+        }
+        return parsed;
+    }
+
+    private static List<String> concat(List<String> first, List<String> second) {
+        List<String> all = new ArrayList<>(first);
+        all.addAll(second);
+        return List.copyOf(all);
+    }
+}
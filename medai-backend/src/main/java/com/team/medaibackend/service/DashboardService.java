@@ -1,19 +1,33 @@
 package com.team.medaibackend.service;
 
+import com.team.medaibackend.cache.BoundedCacheManager;
+import com.team.medaibackend.event.EntityChangedEvent;
+import jakarta.annotation.PostConstruct;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.cache.annotation.Cacheable;
 import org.springframework.stereotype.Service;
-import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.event.TransactionalEventListener;
+import org.springframework.transaction.support.TransactionTemplate;
 
 import java.time.LocalDate;
 import java.util.*;
+import java.util.concurrent.*;
+import java.util.function.Supplier;
 
 /**
  * Dashboard aggregation service
- * Combines data from multiple analytics services
+ * Combines data from multiple analytics services. Widgets are independent, so they are
+ * queried concurrently and a slow or failing widget is left out instead of holding up the page.
  */
 @Service
 public class DashboardService {
 
+    private static final Logger logger = LoggerFactory.getLogger(DashboardService.class);
+
     private final AnalyticsService analyticsService;
     private final PatientAnalyticsService patientAnalyticsService;
     private final StudyAnalyticsService studyAnalyticsService;
@@ -21,6 +35,18 @@ public class DashboardService {
     private final TreatmentAnalyticsService treatmentAnalyticsService;
     private final UserAnalyticsService userAnalyticsService;
     private final SystemAnalyticsService systemAnalyticsService;
+    private final BoundedCacheManager cacheManager;
+    private final Executor dashboardExecutor;
+    private final TransactionTemplate widgetTransaction;
+    private final long widgetTimeoutMs;
+
+    // A dashboard missing widgets is cached only this long before it is recomputed in the background
+    @Value("${analytics.dashboard.partial-retry-ms:30000}")
+    private long partialRetryMs;
+
+    // Writes within this window are folded into one dashboard reload
+    @Value("${analytics.cache.invalidation-delay-ms:2000}")
+    private long invalidationDelayMs;
 
     public DashboardService(
             AnalyticsService analyticsService,
@@ -29,7 +55,11 @@ public class DashboardService {
             ReportAnalyticsService reportAnalyticsService,
             TreatmentAnalyticsService treatmentAnalyticsService,
             UserAnalyticsService userAnalyticsService,
-            SystemAnalyticsService systemAnalyticsService) {
+            SystemAnalyticsService systemAnalyticsService,
+            BoundedCacheManager cacheManager,
+            @Qualifier("dashboardExecutor") Executor dashboardExecutor,
+            PlatformTransactionManager transactionManager,
+            @Value("${analytics.dashboard.widget-timeout-ms:5000}") long widgetTimeoutMs) {
         this.analyticsService = analyticsService;
         this.patientAnalyticsService = patientAnalyticsService;
         this.studyAnalyticsService = studyAnalyticsService;
@@ -37,74 +67,162 @@ public class DashboardService {
         this.treatmentAnalyticsService = treatmentAnalyticsService;
         this.userAnalyticsService = userAnalyticsService;
         this.systemAnalyticsService = systemAnalyticsService;
+        this.cacheManager = cacheManager;
+        this.dashboardExecutor = dashboardExecutor;
+        this.widgetTimeoutMs = widgetTimeoutMs;
+
+        // Each widget gets its own read-only transaction; the timeout is applied to its JDBC
+        // statements, so a widget that overruns is cancelled in the database, not just abandoned
+        this.widgetTransaction = new TransactionTemplate(transactionManager);
+        this.widgetTransaction.setReadOnly(true);
+        this.widgetTransaction.setTimeout((int) Math.max(1, (widgetTimeoutMs + 999) / 1000));
+    }
+
+    /**
+     * Dashboard keys are reloaded before they expire. The loader calls the methods on this
+     * instance directly, bypassing the caching proxy, so it always recomputes.
+     */
+    @PostConstruct
+    public void enableRefreshAhead() {
+        cacheManager.refreshAhead("dashboard", key -> "widgets".equals(key) ? getWidgets() : getDashboardOverview());
+    }
+
+    /**
+     * Committed changes to patients, studies, reports, plans or notes reload the dashboard,
+     * on every node when the cache is shared
+     */
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onEntityChanged(EntityChangedEvent event) {
+        cacheManager.invalidateLater("dashboard", invalidationDelayMs);
     }
 
     /**
      * Get complete dashboard data
-     * Cached for 5 minutes
+     * Cached for analytics.cache-ttl and refreshed ahead of expiry
      */
-    @Cacheable(value = "dashboard", key = "'overview'")
-    @Transactional(readOnly = true)
+    @Cacheable(value = "dashboard", key = "'overview'", sync = true)
     public Map<String, Object> getDashboardOverview() {
-        Map<String, Object> dashboard = new HashMap<>();
-
         LocalDate endDate = LocalDate.now();
         LocalDate startDate = endDate.minusDays(30);
 
+        Map<String, Supplier<Object>> parts = new LinkedHashMap<>();
+        parts.put("overview", analyticsService::getSystemOverview);
+        parts.put("kpis", () -> analyticsService.getKPIs(startDate, endDate));
+        parts.put("recentActivity", () -> analyticsService.getRecentActivity(10));
+        parts.put("studies", studyAnalyticsService::getPerformanceMetrics);
+        parts.put("reports", reportAnalyticsService::getStatusDistribution);
+        parts.put("treatments", treatmentAnalyticsService::getOverview);
+
+        List<String> unavailable = new ArrayList<>();
+        Map<String, Object> results = compose(parts, unavailable);
+
+        Map<String, Object> dashboard = new HashMap<>();
+
         // System overview
-        dashboard.put("overview", analyticsService.getSystemOverview());
+        dashboard.put("overview", results.get("overview"));
 
         // KPIs
-        dashboard.put("kpis", analyticsService.getKPIs(startDate, endDate));
+        dashboard.put("kpis", results.get("kpis"));
 
         // Recent activity
-        dashboard.put("recentActivity", analyticsService.getRecentActivity(10));
+        dashboard.put("recentActivity", results.get("recentActivity"));
 
         // Quick stats
         Map<String, Object> quickStats = new HashMap<>();
-        quickStats.put("studies", studyAnalyticsService.getPerformanceMetrics());
-        quickStats.put("reports", reportAnalyticsService.getStatusDistribution());
-        quickStats.put("treatments", treatmentAnalyticsService.getOverview());
+        quickStats.put("studies", results.get("studies"));
+        quickStats.put("reports", results.get("reports"));
+        quickStats.put("treatments", results.get("treatments"));
         dashboard.put("quickStats", quickStats);
 
+        dashboard.put("unavailable", unavailable);
         return dashboard;
     }
 
     /**
      * Get dashboard widgets
      */
-    @Cacheable(value = "dashboard", key = "'widgets'")
-    @Transactional(readOnly = true)
+    @Cacheable(value = "dashboard", key = "'widgets'", sync = true)
     public List<Map<String, Object>> getWidgets() {
-        List<Map<String, Object>> widgets = new ArrayList<>();
-
         LocalDate endDate = LocalDate.now();
         LocalDate startDate = endDate.minusDays(30);
 
+        Map<String, Supplier<Object>> parts = new LinkedHashMap<>();
+        parts.put("patient-demographics", patientAnalyticsService::getDemographics);
+        parts.put("study-trends", () -> studyAnalyticsService.getStudyTrends(startDate, endDate));
+        parts.put("report-status", reportAnalyticsService::getStatusDistribution);
+
+        List<String> unavailable = new ArrayList<>();
+        Map<String, Object> results = compose(parts, unavailable);
+
+        List<Map<String, Object>> widgets = new ArrayList<>();
+
         // Patient demographics widget
-        Map<String, Object> patientWidget = new HashMap<>();
-        patientWidget.put("id", "patient-demographics");
-        patientWidget.put("title", "Patient Demographics");
-        patientWidget.put("type", "chart");
-        patientWidget.put("data", patientAnalyticsService.getDemographics());
-        widgets.add(patientWidget);
+        widgets.add(widget("patient-demographics", "Patient Demographics", "chart", results, unavailable));
 
         // Study trends widget
-        Map<String, Object> studyWidget = new HashMap<>();
-        studyWidget.put("id", "study-trends");
-        studyWidget.put("title", "Study Volume");
-        studyWidget.put("type", "line-chart");
-        studyWidget.put("data", studyAnalyticsService.getStudyTrends(startDate, endDate));
-        widgets.add(studyWidget);
+        widgets.add(widget("study-trends", "Study Volume", "line-chart", results, unavailable));
 
         // Report status widget
-        Map<String, Object> reportWidget = new HashMap<>();
-        reportWidget.put("id", "report-status");
-        reportWidget.put("title", "Report Status");
-        reportWidget.put("type", "pie-chart");
-        reportWidget.put("data", reportAnalyticsService.getStatusDistribution());
-        widgets.add(reportWidget);
+        widgets.add(widget("report-status", "Report Status", "pie-chart", results, unavailable));
 
         return widgets;
     }
-}
\ No newline at end of file
+
+    private Map<String, Object> widget(String id, String title, String type,
+                                       Map<String, Object> results, List<String> unavailable) {
+        Map<String, Object> widget = new HashMap<>();
+        widget.put("id", id);
+        widget.put("title", title);
+        widget.put("type", type);
+        widget.put("data", results.get(id));
+        widget.put("unavailable", unavailable.contains(id));
+        return widget;
+    }
+
+    /**
+     * Run every part concurrently against one shared deadline. Parts that time out or fail map to
+     * null and are named in {@code unavailable}; the partial result is then recomputed soon rather
+     * than served for a full TTL.
+     */
+    private Map<String, Object> compose(Map<String, Supplier<Object>> parts, List<String> unavailable) {
+        Map<String, CompletableFuture<Object>> futures = new LinkedHashMap<>();
+        parts.forEach((name, part) -> {
+            try {
+                futures.put(name, CompletableFuture.supplyAsync(
+                        () -> widgetTransaction.execute(status -> part.get()), dashboardExecutor));
+            } catch (RejectedExecutionException e) {
+                futures.put(name, CompletableFuture.failedFuture(e));
+            }
+        });
+
+        long deadline = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(widgetTimeoutMs);
+        Map<String, Object> results = new HashMap<>();
+
+        for (Map.Entry<String, CompletableFuture<Object>> entry : futures.entrySet()) {
+            String name = entry.getKey();
+            try {
+                long remaining = Math.max(0, deadline - System.nanoTime());
+                results.put(name, entry.getValue().get(remaining, TimeUnit.NANOSECONDS));
+            } catch (TimeoutException e) {
+                entry.getValue().cancel(true);
+                unavailable.add(name);
+                logger.warn("Dashboard widget '{}' missed its {} ms deadline", name, widgetTimeoutMs);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                unavailable.add(name);
+            } catch (ExecutionException e) {
+                unavailable.add(name);
+                if (e.getCause() instanceof RejectedExecutionException) {
+                    logger.warn("Dashboard widget '{}' skipped: dashboard pool saturated", name);
+                } else {
+                    logger.error("Dashboard widget '{}' failed: {}", name, e.getCause().getMessage());
+                }
+            }
+        }
+
+        if (!unavailable.isEmpty()) {
+            cacheManager.invalidateLater("dashboard", partialRetryMs);
+        }
+        return results;
+    }
+}
@@ -0,0 +1,235 @@
+package com.team.medaibackend.service;
+
+import jakarta.annotation.PreDestroy;
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.PersistenceContext;
+import org.hibernate.jpa.HibernateHints;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.OutputStreamWriter;
+import java.io.UncheckedIOException;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.time.LocalDate;
+import java.time.format.DateTimeFormatter;
+import java.util.*;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Stream;
+import java.util.zip.GZIPOutputStream;
+
+/**
+ * Maintains the monthly partitions of audit_log and system_activity_log (V35).
+ * <p>
+ * Each run creates the coming months' partitions ahead of time, so inserts never fall into the
+ * default partition. Months older than the retention period are detached (a short lock on the
+ * parent), written to {@code <archive-path>/<table>/<partition>.ndjson.gz} and then dropped.
+ * Creating and detaching partitions lock the parent exclusively; both give up after
+ * {@code lock-timeout-ms} rather than queue every log insert behind a long reader of the table,
+ * and are retried on the next run.
+ * A month detached by an interrupted run is picked up again by the next one; an advisory lock
+ * per partition keeps two nodes from archiving the same month.
+ */
+@Service
+public class LogPartitionService {
+
+    private static final Logger logger = LoggerFactory.getLogger(LogPartitionService.class);
+
+    @PersistenceContext
+    private EntityManager entityManager;
+
+    private final TransactionTemplate transaction;
+    private final ScheduledExecutorService scheduler;
+
+    @Value("${audit.partitions.months-ahead:3}")
+    private int monthsAhead;
+
+    @Value("${audit.partitions.maintenance-interval-ms:21600000}")
+    private long maintenanceIntervalMs;
+
+    @Value("${audit.partitions.archive-path:${storage.local.root-path}/archive}")
+    private String archivePath;
+
+    @Value("${audit.partitions.lock-timeout-ms:2000}")
+    private long lockTimeoutMs;
+
+    @Value("${audit.partitions.fetch-size:5000}")
+    private int fetchSize;
+
+    @Value("${audit.retention.audit-log-months:72}")
+    private int auditLogRetentionMonths;
+
+    @Value("${audit.retention.activity-log-months:12}")
+    private int activityLogRetentionMonths;
+
+    public LogPartitionService(PlatformTransactionManager transactionManager) {
+        this.transaction = new TransactionTemplate(transactionManager);
+        this.scheduler = Executors.newSingleThreadScheduledExecutor(r -> {
+            Thread t = new Thread(r, "log-partitions");
+            t.setDaemon(true);
+            return t;
+        });
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void start() {
+        scheduler.scheduleWithFixedDelay(this::maintain, 0, maintenanceIntervalMs, TimeUnit.MILLISECONDS);
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        scheduler.shutdownNow();
+    }
+
+    /**
+     * Create upcoming partitions and archive expired ones; returns the archived partitions per table
+     */
+    public Map<String, List<String>> maintain() {
+        Map<String, List<String>> archived = new LinkedHashMap<>();
+        Map<String, Integer> retention = new LinkedHashMap<>();
+        retention.put("audit_log", auditLogRetentionMonths);
+        retention.put("system_activity_log", activityLogRetentionMonths);
+
+        retention.forEach((table, months) -> {
+            try {
+                createUpcoming(table);
+                archived.put(table, months > 0 ? archiveExpired(table, months) : List.of());
+            } catch (RuntimeException e) {
+                logger.warn("Partition maintenance of {} failed: {}", table, e.getMessage());
+            }
+        });
+        return archived;
+    }
+
+    private void createUpcoming(String table) {
+        LocalDate month = LocalDate.now().withDayOfMonth(1);
+        transaction.executeWithoutResult(status -> {
+            entityManager.createNativeQuery("SELECT pg_advisory_xact_lock(hashtext(:table))")
+                    .setParameter("table", table)
+                    .getSingleResult();
+            limitLockWait();
+            for (int i = 0; i <= monthsAhead; i++) {
+                entityManager.createNativeQuery("SELECT ensure_monthly_partition(:table, :month)")
+                        .setParameter("table", table)
+                        .setParameter("month", java.sql.Date.valueOf(month.plusMonths(i)))
+                        .getSingleResult();
+            }
+        });
+    }
+
+    private List<String> archiveExpired(String table, int retentionMonths) {
+        LocalDate cutoff = LocalDate.now().withDayOfMonth(1).minusMonths(retentionMonths);
+        List<String> archived = new ArrayList<>();
+
+        for (Object[] partition : monthlyPartitions(table)) {
+            String name = (String) partition[0];
+            boolean attached = (Boolean) partition[1];
+            LocalDate month = LocalDate.parse(name.substring(table.length() + 1) + "01",
+                    DateTimeFormatter.BASIC_ISO_DATE);
+            if (!month.isBefore(cutoff)) {
+                continue;
+            }
+            try {
+                if (attached) {
+                    transaction.executeWithoutResult(status -> {
+                        limitLockWait();
+                        entityManager.createNativeQuery("ALTER TABLE " + table + " DETACH PARTITION " + name)
+                                .executeUpdate();
+                    });
+                }
+                Long rows = transaction.execute(status -> archiveAndDrop(table, name));
+                if (rows != null) {
+                    archived.add(name);
+                    logger.info("Archived {} ({} rows)", name, rows);
+                }
+            } catch (RuntimeException e) {
+                // Another node may have got there first, or the parent stayed locked past lock-timeout-ms;
+                // whatever is left is retried next run
+                logger.warn("Could not archive {}: {}", name, e.getMessage());
+            }
+        }
+        return archived;
+    }
+
+    /**
+     * Bound how long the current transaction waits for a lock (SET LOCAL ends with the transaction)
+     */
+    private void limitLockWait() {
+        entityManager.createNativeQuery("SET LOCAL lock_timeout = '" + lockTimeoutMs + "ms'").executeUpdate();
+    }
+
+    /**
+     * Monthly partitions of the table, attached or left detached by an interrupted run, oldest first.
+     * Names are matched against a strict pattern, so they are safe to use as identifiers.
+     */
+    private List<Object[]> monthlyPartitions(String table) {
+        @SuppressWarnings("unchecked")
+        List<Object[]> rows = entityManager.createNativeQuery(
+                        "SELECT CAST(c.relname AS text), (i.inhrelid IS NOT NULL) " +
+                                "FROM pg_class c " +
+                                "LEFT JOIN pg_inherits i ON i.inhrelid = c.oid " +
+                                "WHERE c.relkind = 'r' AND c.relnamespace = CAST(current_schema() AS regnamespace) " +
+                                "AND c.relname ~ :pattern " +
+                                "ORDER BY c.relname")
+                .setParameter("pattern", "^" + table + "_[0-9]{6}$")
+                .getResultList();
+        return rows;
+    }
+
+    private Long archiveAndDrop(String table, String partition) {
+        Boolean locked = (Boolean) entityManager.createNativeQuery("SELECT pg_try_advisory_xact_lock(hashtext(:name))")
+                .setParameter("name", partition)
+                .getSingleResult();
+        if (!Boolean.TRUE.equals(locked)) {
+            return null;
+        }
+        Object exists = entityManager.createNativeQuery("SELECT to_regclass(:name) IS NOT NULL")
+                .setParameter("name", partition)
+                .getSingleResult();
+        if (!Boolean.TRUE.equals(exists)) {
+            return null;
+        }
+
+        Path target = Path.of(archivePath, table, partition + ".ndjson.gz");
+        Path temp = target.resolveSibling(partition + ".ndjson.gz.tmp");
+        long rows = 0;
+        try {
+            Files.createDirectories(target.getParent());
+            @SuppressWarnings("unchecked")
+            Stream<Object> results = entityManager.createNativeQuery(
+                            "SELECT CAST(row_to_json(t) AS text) FROM " + partition + " t ORDER BY created_at, id")
+                    .setHint(HibernateHints.HINT_FETCH_SIZE, fetchSize)
+                    .setHint(HibernateHints.HINT_READ_ONLY, true)
+                    .getResultStream();
+            try (results; Writer writer = new BufferedWriter(new OutputStreamWriter(
+                    new GZIPOutputStream(Files.newOutputStream(temp), 65536), StandardCharsets.UTF_8))) {
+                Iterator<Object> iterator = results.iterator();
+                while (iterator.hasNext()) {
+                    writer.write(String.valueOf(iterator.next()));
+                    writer.write('\n');
+                    rows++;
+                }
+            }
+            Files.move(temp, target, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+
+        // Dropped only once the archive is safely on disk; a failure rolls this back and keeps the table
+        entityManager.createNativeQuery("DROP TABLE " + partition).executeUpdate();
+        return rows;
+    }
+}
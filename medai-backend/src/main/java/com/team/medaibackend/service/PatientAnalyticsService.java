@@ -1,27 +1,27 @@
 package com.team.medaibackend.service;
 
-import com.team.medaibackend.entity.Patient;
-import com.team.medaibackend.repository.PatientRepository;
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.PersistenceContext;
+import jakarta.persistence.Query;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
 import java.time.LocalDate;
 import java.time.LocalDateTime;
-import java.time.Period;
 import java.util.*;
-import java.util.stream.Collectors;
 
 /**
- * Patient-specific analytics
+ * Patient-specific analytics.
+ * Distributions are GROUP BY queries, so memory use does not grow with the patients table.
  */
 @Service
 public class PatientAnalyticsService {
 
-    private final PatientRepository patientRepository;
+    // Age in whole years, as Period.between(birthDate, today).getYears()
+    private static final String AGE = "date_part('year', age(current_date, birth_date))";
 
-    public PatientAnalyticsService(PatientRepository patientRepository) {
-        this.patientRepository = patientRepository;
-    }
+    @PersistenceContext
+    private EntityManager entityManager;
 
     /**
      * Get patient demographics breakdown
@@ -30,70 +30,36 @@ public class PatientAnalyticsService {
     public Map<String, Object> getDemographics() {
         Map<String, Object> demographics = new HashMap<>();
 
-        List<Patient> allPatients = patientRepository.findAll();
-
         // Age distribution
-        Map<String, Long> ageGroups = allPatients.stream()
-                .filter(p -> p.getBirthDate() != null)
-                .collect(Collectors.groupingBy(
-                        this::getAgeGroup,
-                        Collectors.counting()
-                ));
+        Map<String, Long> ageGroups = countBy(entityManager.createNativeQuery(
+                "SELECT CASE " +
+                        "WHEN " + AGE + " < 18 THEN '0-17' " +
+                        "WHEN " + AGE + " < 30 THEN '18-29' " +
+                        "WHEN " + AGE + " < 45 THEN '30-44' " +
+                        "WHEN " + AGE + " < 60 THEN '45-59' " +
+                        "WHEN " + AGE + " < 75 THEN '60-74' " +
+                        "ELSE '75+' END AS age_group, count(*) " +
+                        "FROM patients WHERE birth_date IS NOT NULL GROUP BY age_group ORDER BY age_group"));
         demographics.put("ageDistribution", ageGroups);
 
         // Gender distribution
-        Map<String, Long> genderDist = allPatients.stream()
-                .filter(p -> p.getSex() != null)
-                .collect(Collectors.groupingBy(
-                        Patient::getSex,
-                        Collectors.counting()
-                ));
-        demographics.put("genderDistribution", genderDist);
+        demographics.put("genderDistribution", countBy(entityManager.createNativeQuery(
+                "SELECT sex, count(*) FROM patients WHERE sex IS NOT NULL GROUP BY sex")));
 
         // Blood type distribution
-        Map<String, Long> bloodTypeDist = allPatients.stream()
-                .filter(p -> p.getBloodType() != null)
-                .collect(Collectors.groupingBy(
-                        Patient::getBloodType,
-                        Collectors.counting()
-                ));
-        demographics.put("bloodTypeDistribution", bloodTypeDist);
+        demographics.put("bloodTypeDistribution", countBy(entityManager.createNativeQuery(
+                "SELECT blood_type, count(*) FROM patients WHERE blood_type IS NOT NULL GROUP BY blood_type")));
 
         // Geographic distribution (by city)
-        Map<String, Long> geoDist = allPatients.stream()
-                .filter(p -> p.getCity() != null)
-                .collect(Collectors.groupingBy(
-                        Patient::getCity,
-                        Collectors.counting()
-                ))
-                .entrySet().stream()
-                .sorted(Map.Entry.<String, Long>comparingByValue().reversed())
-                .limit(10)
-                .collect(Collectors.toMap(
-                        Map.Entry::getKey,
-                        Map.Entry::getValue,
-                        (e1, e2) -> e1,
-                        LinkedHashMap::new
-                ));
-        demographics.put("topCities", geoDist);
+        demographics.put("topCities", countBy(entityManager.createNativeQuery(
+                "SELECT city, count(*) FROM patients WHERE city IS NOT NULL " +
+                        "GROUP BY city ORDER BY count(*) DESC LIMIT 10")));
 
         // Insurance providers
-        Map<String, Long> insuranceDist = allPatients.stream()
-                .filter(p -> p.getInsuranceProvider() != null && !p.getInsuranceProvider().isEmpty())
-                .collect(Collectors.groupingBy(
-                        Patient::getInsuranceProvider,
-                        Collectors.counting()
-                ))
-                .entrySet().stream()
-                .sorted(Map.Entry.<String, Long>comparingByValue().reversed())
-                .limit(10)
-                .collect(Collectors.toMap(
-                        Map.Entry::getKey,
-                        Map.Entry::getValue,
-                        (e1, e2) -> e1,
-                        LinkedHashMap::new
-                ));
-        demographics.put("topInsuranceProviders", insuranceDist);
+        demographics.put("topInsuranceProviders", countBy(entityManager.createNativeQuery(
+                "SELECT insurance_provider, count(*) FROM patients " +
+                        "WHERE insurance_provider IS NOT NULL AND insurance_provider <> '' " +
+                        "GROUP BY insurance_provider ORDER BY count(*) DESC LIMIT 10")));
 
         return demographics;
     }
@@ -108,21 +74,19 @@ public class PatientAnalyticsService {
         LocalDateTime start = startDate.atStartOfDay();
         LocalDateTime end = endDate.atTime(23, 59, 59);
 
-        List<Patient> patients = patientRepository.findByCreatedAtBetween(start, end);
-
         // Group by date
-        Map<LocalDate, Long> patientsByDate = patients.stream()
-                .collect(Collectors.groupingBy(
-                        p -> p.getCreatedAt().toLocalDate(),
-                        Collectors.counting()
-                ));
+        Map<String, Long> patientsByDate = countBy(entityManager.createNativeQuery(
+                        "SELECT to_char(date_trunc('day', created_at), 'YYYY-MM-DD'), count(*) FROM patients " +
+                                "WHERE created_at BETWEEN :start AND :end GROUP BY 1")
+                .setParameter("start", start)
+                .setParameter("end", end));
 
         // Fill in missing dates with 0
         LocalDate current = startDate;
         while (!current.isAfter(endDate)) {
             Map<String, Object> dataPoint = new HashMap<>();
             dataPoint.put("date", current.toString());
-            dataPoint.put("count", patientsByDate.getOrDefault(current, 0L));
+            dataPoint.put("count", patientsByDate.getOrDefault(current.toString(), 0L));
             trends.add(dataPoint);
             current = current.plusDays(1);
         }
@@ -135,33 +99,8 @@ public class PatientAnalyticsService {
      */
     @Transactional(readOnly = true)
     public Map<String, Long> getCommonConditions() {
-        List<Patient> patients = patientRepository.findAll();
-
-        Map<String, Long> conditions = new HashMap<>();
-
-        patients.stream()
-                .filter(p -> p.getMedicalConditions() != null && !p.getMedicalConditions().isEmpty())
-                .forEach(p -> {
-                    // Split conditions by comma or semicolon
-                    String[] patientConditions = p.getMedicalConditions().split("[,;]");
-                    for (String condition : patientConditions) {
-                        String trimmed = condition.trim();
-                        if (!trimmed.isEmpty()) {
-                            conditions.merge(trimmed, 1L, Long::sum);
-                        }
-                    }
-                });
-
-        // Return top 10
-        return conditions.entrySet().stream()
-                .sorted(Map.Entry.<String, Long>comparingByValue().reversed())
-                .limit(10)
-                .collect(Collectors.toMap(
-                        Map.Entry::getKey,
-                        Map.Entry::getValue,
-                        (e1, e2) -> e1,
-                        LinkedHashMap::new
-                ));
+        // Conditions are a comma/semicolon separated list per patient
+        return topListEntries("medical_conditions");
     }
 
     /**
@@ -169,31 +108,7 @@ public class PatientAnalyticsService {
      */
     @Transactional(readOnly = true)
     public Map<String, Long> getCommonAllergies() {
-        List<Patient> patients = patientRepository.findAll();
-
-        Map<String, Long> allergies = new HashMap<>();
-
-        patients.stream()
-                .filter(p -> p.getAllergies() != null && !p.getAllergies().isEmpty())
-                .forEach(p -> {
-                    String[] patientAllergies = p.getAllergies().split("[,;]");
-                    for (String allergy : patientAllergies) {
-                        String trimmed = allergy.trim();
-                        if (!trimmed.isEmpty()) {
-                            allergies.merge(trimmed, 1L, Long::sum);
-                        }
-                    }
-                });
-
-        return allergies.entrySet().stream()
-                .sorted(Map.Entry.<String, Long>comparingByValue().reversed())
-                .limit(10)
-                .collect(Collectors.toMap(
-                        Map.Entry::getKey,
-                        Map.Entry::getValue,
-                        (e1, e2) -> e1,
-                        LinkedHashMap::new
-                ));
+        return topListEntries("allergies");
     }
 
     /**
@@ -203,49 +118,51 @@ public class PatientAnalyticsService {
     public Map<String, Object> getPatientStatistics() {
         Map<String, Object> stats = new HashMap<>();
 
-        long total = patientRepository.count();
+        Object[] row = (Object[]) entityManager.createNativeQuery(
+                        "SELECT count(*), " +
+                                "count(*) FILTER (WHERE name IS NOT NULL AND birth_date IS NOT NULL AND sex IS NOT NULL " +
+                                "AND phone IS NOT NULL AND email IS NOT NULL), " +
+                                "avg(" + AGE + ") " +
+                                "FROM patients")
+                .getSingleResult();
+
+        long total = ((Number) row[0]).longValue();
         stats.put("totalPatients", total);
 
         // Patients with complete profiles
-        List<Patient> allPatients = patientRepository.findAll();
-        long completeProfiles = allPatients.stream()
-                .filter(this::isProfileComplete)
-                .count();
+        long completeProfiles = ((Number) row[1]).longValue();
         stats.put("completeProfiles", completeProfiles);
         stats.put("profileCompletionRate", total > 0 ? (double) completeProfiles / total * 100 : 0);
 
         // Average age
-        double avgAge = allPatients.stream()
-                .filter(p -> p.getBirthDate() != null)
-                .mapToInt(this::calculateAge)
-                .average()
-                .orElse(0);
+        double avgAge = row[2] != null ? ((Number) row[2]).doubleValue() : 0;
         stats.put("averageAge", Math.round(avgAge * 10) / 10.0);
 
         return stats;
     }
 
-    // Helper methods
-    private String getAgeGroup(Patient patient) {
-        int age = calculateAge(patient);
-        if (age < 18) return "0-17";
-        if (age < 30) return "18-29";
-        if (age < 45) return "30-44";
-        if (age < 60) return "45-59";
-        if (age < 75) return "60-74";
-        return "75+";
+    /**
+     * Top 10 entries of a delimited list column, split and counted in SQL
+     */
+    private Map<String, Long> topListEntries(String column) {
+        return countBy(entityManager.createNativeQuery(
+                "SELECT trim(entry), count(*) FROM patients, " +
+                        "regexp_split_to_table(" + column + ", '[,;]') AS entry " +
+                        "WHERE " + column + " IS NOT NULL AND trim(entry) <> '' " +
+                        "GROUP BY trim(entry) ORDER BY count(*) DESC LIMIT 10"));
     }
 
-    private int calculateAge(Patient patient) {
-        if (patient.getBirthDate() == null) return 0;
-        return Period.between(patient.getBirthDate(), LocalDate.now()).getYears();
-    }
+    /**
+     * (key, count) rows into an insertion-ordered map
+     */
+    private Map<String, Long> countBy(Query query) {
+        @SuppressWarnings("unchecked")
+        List<Object[]> rows = query.getResultList();
 
-    private boolean isProfileComplete(Patient patient) {
-        return patient.getName() != null &&
-                patient.getBirthDate() != null &&
-                patient.getSex() != null &&
-                patient.getPhone() != null &&
-                patient.getEmail() != null;
+        Map<String, Long> counts = new LinkedHashMap<>();
+        for (Object[] row : rows) {
+            counts.put((String) row[0], ((Number) row[1]).longValue());
+        }
+        return counts;
     }
-}
\ No newline at end of file
+}
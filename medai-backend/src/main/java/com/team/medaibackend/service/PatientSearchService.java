@@ -2,6 +2,9 @@ package com.team.medaibackend.service;
 
 import com.team.medaibackend.entity.Patient;
 import com.team.medaibackend.repository.PatientRepository;
+import com.team.medaibackend.search.ChangeScan;
+import com.team.medaibackend.search.KeysetPage;
+import com.team.medaibackend.search.KeysetQuery;
 import jakarta.persistence.EntityManager;
 import jakarta.persistence.PersistenceContext;
 import jakarta.persistence.criteria.*;
@@ -58,6 +61,69 @@ public class PatientSearchService {
                 .toList();
     }
 
+    /**
+     * Typo-tolerant patient lookup backed by pg_trgm.
+     * Matches name (word similarity), patient ID, phone and email, ranked by best similarity.
+     */
+    @Transactional(readOnly = true)
+    public List<Map<String, Object>> fuzzySearchPatients(String query, double threshold, int limit) {
+        if (!(threshold >= 0 && threshold <= 1)) {
+            throw new IllegalArgumentException("Threshold must be between 0 and 1");
+        }
+
+        String searchTerm = query.trim().toLowerCase();
+
+        // Transaction-local thresholds so the % and <% operators can use the trigram indexes
+        entityManager.createNativeQuery(
+                        "SELECT set_config('pg_trgm.similarity_threshold', :threshold, true), " +
+                                "set_config('pg_trgm.word_similarity_threshold', :threshold, true)")
+                .setParameter("threshold", String.valueOf(threshold))
+                .getSingleResult();
+
+        @SuppressWarnings("unchecked")
+        List<Object[]> rows = entityManager.createNativeQuery(
+                        "SELECT p.id, GREATEST(" +
+                                "word_similarity(:query, lower(p.name)), " +
+                                "similarity(lower(p.patient_id), :query), " +
+                                "similarity(p.phone, :query), " +
+                                "similarity(lower(p.email), :query)) AS score " +
+                                "FROM patients p " +
+                                "WHERE :query <% lower(p.name) " +
+                                "OR lower(p.patient_id) % :query " +
+                                "OR p.phone % :query " +
+                                "OR lower(p.email) % :query " +
+                                "ORDER BY score DESC, p.id " +
+                                "LIMIT :limit")
+                .setParameter("query", searchTerm)
+                .setParameter("limit", limit)
+                .getResultList();
+
+        if (rows.isEmpty()) {
+            return new ArrayList<>();
+        }
+
+        Map<Long, Double> scores = new LinkedHashMap<>();
+        for (Object[] row : rows) {
+            scores.put(((Number) row[0]).longValue(), ((Number) row[1]).doubleValue());
+        }
+
+        Map<Long, Patient> patientsById = new HashMap<>();
+        patientRepository.findAllById(scores.keySet())
+                .forEach(p -> patientsById.put(p.getId(), p));
+
+        List<Map<String, Object>> results = new ArrayList<>();
+        scores.forEach((id, score) -> {
+            Patient patient = patientsById.get(id);
+            if (patient != null) {
+                Map<String, Object> result = mapPatientToSearchResult(patient);
+                result.put("score", score);
+                results.add(result);
+            }
+        });
+
+        return results;
+    }
+
     /**
      * Advanced search with filters
      */
@@ -72,6 +138,111 @@ public class PatientSearchService {
         CriteriaQuery<Patient> cq = cb.createQuery(Patient.class);
         Root<Patient> patient = cq.from(Patient.class);
 
+        List<Predicate> predicates = buildFilterPredicates(cb, patient, query, filters);
+
+        cq.where(cb.and(predicates.toArray(new Predicate[0])));
+        cq.orderBy(cb.desc(patient.get("createdAt")));
+
+        // Get total count
+        CriteriaQuery<Long> countQuery = cb.createQuery(Long.class);
+        Root<Patient> countRoot = countQuery.from(Patient.class);
+        countQuery.select(cb.count(countRoot));
+        countQuery.where(cb.and(predicates.toArray(new Predicate[0])));
+        long total = entityManager.createQuery(countQuery).getSingleResult();
+
+        // Get paginated results
+        List<Patient> patients = entityManager.createQuery(cq)
+                .setFirstResult(page * size)
+                .setMaxResults(size)
+                .getResultList();
+
+        Map<String, Object> result = new HashMap<>();
+        result.put("results", patients.stream().map(this::mapPatientToSearchResult).toList());
+        result.put("total", total);
+        result.put("totalPages", (int) Math.ceil((double) total / size));
+
+        return result;
+    }
+
+    /**
+     * Advanced search with keyset (cursor) paging - constant cost per page, no count(*)
+     */
+    @Transactional(readOnly = true)
+    public Map<String, Object> advancedSearchKeyset(
+            String query,
+            Map<String, Object> filters,
+            String cursor,
+            int size) {
+
+        KeysetPage<Patient> page = KeysetQuery.fetch(
+                entityManager, Patient.class, "createdAt", Patient::getCreatedAt, Patient::getId,
+                (cb, patient) -> buildFilterPredicates(cb, patient, query, filters),
+                cursor, size);
+
+        Map<String, Object> result = new HashMap<>();
+        result.put("results", page.getContent().stream().map(this::mapPatientToSearchResult).toList());
+        result.put("nextCursor", page.getNextCursor());
+        result.put("hasMore", page.hasMore());
+
+        return result;
+    }
+
+    /**
+     * Rows changed after the (updatedAt, id) position, and which of them match - for saved search materialization
+     */
+    @Transactional(readOnly = true)
+    public ChangeScan.Batch scanChanges(
+            String query,
+            Map<String, Object> filters,
+            LocalDateTime afterUpdatedAt,
+            long afterId,
+            int size) {
+
+        return ChangeScan.fetch(
+                entityManager, Patient.class,
+                (cb, patient) -> buildFilterPredicates(cb, patient, query, filters),
+                afterUpdatedAt, afterId, size);
+    }
+
+    /**
+     * Load and map rows by id, keeping the order of {@code ids}; ids that no longer exist are skipped
+     */
+    @Transactional(readOnly = true)
+    public List<Map<String, Object>> findByIds(List<Long> ids) {
+        Map<Long, Patient> byId = new HashMap<>();
+        patientRepository.findAllById(ids).forEach(e -> byId.put(e.getId(), e));
+
+        return ids.stream()
+                .map(byId::get)
+                .filter(Objects::nonNull)
+                .map(this::mapPatientToSearchResult)
+                .toList();
+    }
+
+    /**
+     * Quick filter: New patients
+     */
+    @Transactional(readOnly = true)
+    public List<Map<String, Object>> getNewPatients(int days, int limit) {
+        LocalDate since = LocalDate.now().minusDays(days);
+
+        List<Patient> patients = patientRepository.findAll().stream()
+                .filter(p -> p.getCreatedAt().toLocalDate().isAfter(since))
+                .sorted((p1, p2) -> p2.getCreatedAt().compareTo(p1.getCreatedAt()))
+                .limit(limit)
+                .toList();
+
+        return patients.stream()
+                .map(this::mapPatientToSearchResult)
+                .toList();
+    }
+
+    private List<Predicate> buildFilterPredicates(
+            CriteriaBuilder cb,
+            Root<Patient> patient,
+            String query,
+            Map<String, Object> filters) {
+
         List<Predicate> predicates = new ArrayList<>();
 
         // Text search
@@ -136,46 +307,7 @@ public class PatientSearchService {
             }
         }
 
-        cq.where(cb.and(predicates.toArray(new Predicate[0])));
-        cq.orderBy(cb.desc(patient.get("createdAt")));
-
-        // Get total count
-        CriteriaQuery<Long> countQuery = cb.createQuery(Long.class);
-        Root<Patient> countRoot = countQuery.from(Patient.class);
-        countQuery.select(cb.count(countRoot));
-        countQuery.where(cb.and(predicates.toArray(new Predicate[0])));
-        long total = entityManager.createQuery(countQuery).getSingleResult();
-
-        // Get paginated results
-        List<Patient> patients = entityManager.createQuery(cq)
-                .setFirstResult(page * size)
-                .setMaxResults(size)
-                .getResultList();
-
-        Map<String, Object> result = new HashMap<>();
-        result.put("results", patients.stream().map(this::mapPatientToSearchResult).toList());
-        result.put("total", total);
-        result.put("totalPages", (int) Math.ceil((double) total / size));
-
-        return result;
-    }
-
-    /**
-     * Quick filter: New patients
-     */
-    @Transactional(readOnly = true)
-    public List<Map<String, Object>> getNewPatients(int days, int limit) {
-        LocalDate since = LocalDate.now().minusDays(days);
-
-        List<Patient> patients = patientRepository.findAll().stream()
-                .filter(p -> p.getCreatedAt().toLocalDate().isAfter(since))
-                .sorted((p1, p2) -> p2.getCreatedAt().compareTo(p1.getCreatedAt()))
-                .limit(limit)
-                .toList();
-
-        return patients.stream()
-                .map(this::mapPatientToSearchResult)
-                .toList();
+        return predicates;
     }
 
     private Map<String, Object> mapPatientToSearchResult(Patient patient) {
@@ -1,12 +1,15 @@
 package com.team.medaibackend.service;
 
+import com.team.medaibackend.analytics.QuantileSketch;
 import com.team.medaibackend.entity.Report;
 import com.team.medaibackend.repository.ReportRepository;
+import com.team.medaibackend.service.AnalyticsRollupService.Rollup;
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.PersistenceContext;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
 import java.time.LocalDate;
-import java.time.LocalDateTime;
 import java.time.temporal.ChronoUnit;
 import java.util.*;
 import java.util.stream.Collectors;
@@ -17,10 +20,18 @@ import java.util.stream.Collectors;
 @Service
 public class ReportAnalyticsService {
 
+    private static final List<String> TURNAROUND_STAGES = List.of("upload_to_draft", "draft_to_final", "upload_to_final");
+    private static final Set<String> TURNAROUND_GROUPS = Set.of("none", "modality", "radiologist", "day");
+
+    @PersistenceContext
+    private EntityManager entityManager;
+
     private final ReportRepository reportRepository;
+    private final AnalyticsRollupService rollups;
 
-    public ReportAnalyticsService(ReportRepository reportRepository) {
+    public ReportAnalyticsService(ReportRepository reportRepository, AnalyticsRollupService rollups) {
         this.reportRepository = reportRepository;
+        this.rollups = rollups;
     }
 
     /**
@@ -30,26 +41,16 @@ public class ReportAnalyticsService {
     public Map<String, Object> getProductionMetrics(LocalDate startDate, LocalDate endDate) {
         Map<String, Object> metrics = new HashMap<>();
 
-        LocalDateTime start = startDate.atStartOfDay();
-        LocalDateTime end = endDate.atTime(23, 59, 59);
-
-        List<Report> reports = reportRepository.findByCreatedAtBetween(start, end);
+        // Reports by status
+        Map<String, Long> statusDist = rollups.breakdown(Rollup.REPORTS, startDate, endDate, "status");
+        long total = rollups.total(Rollup.REPORTS, startDate, endDate);
 
         // Total reports created
-        metrics.put("totalReports", reports.size());
-
-        // Reports by status
-        Map<String, Long> statusDist = reports.stream()
-                .filter(r -> r.getStatus() != null)
-                .collect(Collectors.groupingBy(
-                        Report::getStatus,
-                        Collectors.counting()
-                ));
+        metrics.put("totalReports", total);
         metrics.put("byStatus", statusDist);
 
         // Finalized vs draft ratio
         long finalized = statusDist.getOrDefault("finalized", 0L);
-        long total = reports.size();
         metrics.put("finalizedPercentage", total > 0 ? (double) finalized / total * 100 : 0);
 
         // Average reports per day
@@ -66,24 +67,14 @@ public class ReportAnalyticsService {
     public List<Map<String, Object>> getReportTrends(LocalDate startDate, LocalDate endDate) {
         List<Map<String, Object>> trends = new ArrayList<>();
 
-        LocalDateTime start = startDate.atStartOfDay();
-        LocalDateTime end = endDate.atTime(23, 59, 59);
-
-        List<Report> reports = reportRepository.findByCreatedAtBetween(start, end);
-
-        // Group by date
-        Map<LocalDate, Long> reportsByDate = reports.stream()
-                .collect(Collectors.groupingBy(
-                        r -> r.getCreatedAt().toLocalDate(),
-                        Collectors.counting()
-                ));
+        Map<String, Long> reportsByDate = rollups.daily(Rollup.REPORTS, startDate, endDate);
 
         // Fill in missing dates
         LocalDate current = startDate;
         while (!current.isAfter(endDate)) {
             Map<String, Object> dataPoint = new HashMap<>();
             dataPoint.put("date", current.toString());
-            dataPoint.put("count", reportsByDate.getOrDefault(current, 0L));
+            dataPoint.put("count", reportsByDate.getOrDefault(current.toString(), 0L));
             trends.add(dataPoint);
             current = current.plusDays(1);
         }
@@ -96,30 +87,25 @@ public class ReportAnalyticsService {
      */
     @Transactional(readOnly = true)
     public List<Map<String, Object>> getReportsByDoctor(LocalDate startDate, LocalDate endDate) {
-        LocalDateTime start = startDate.atStartOfDay();
-        LocalDateTime end = endDate.atTime(23, 59, 59);
-
-        List<Report> reports = reportRepository.findByCreatedAtBetween(start, end);
-
-        Map<String, Long> doctorCounts = reports.stream()
-                .filter(r -> r.getAuthor() != null)
-                .collect(Collectors.groupingBy(
-                        r -> r.getAuthor().getFullName() != null ?
-                                r.getAuthor().getFullName() : "Unknown",
-                        Collectors.counting()
-                ));
-
-        // Convert to list and sort
-        return doctorCounts.entrySet().stream()
-                .sorted(Map.Entry.<String, Long>comparingByValue().reversed())
-                .limit(10)
-                .map(entry -> {
-                    Map<String, Object> item = new HashMap<>();
-                    item.put("doctor", entry.getKey());
-                    item.put("count", entry.getValue());
-                    return item;
-                })
-                .collect(Collectors.toList());
+        @SuppressWarnings("unchecked")
+        List<Object[]> rows = entityManager.createNativeQuery(
+                        "SELECT u.id, COALESCE(u.full_name, 'Unknown'), sum(r.count) FROM report_daily_stats r " +
+                                "JOIN users u ON u.id = r.author_id " +
+                                "WHERE r.day BETWEEN :start AND :end " +
+                                "GROUP BY u.id, u.full_name HAVING sum(r.count) > 0 ORDER BY 3 DESC LIMIT 10")
+                .setParameter("start", startDate)
+                .setParameter("end", endDate)
+                .getResultList();
+
+        List<Map<String, Object>> doctors = new ArrayList<>();
+        for (Object[] row : rows) {
+            Map<String, Object> item = new HashMap<>();
+            item.put("doctorId", ((Number) row[0]).longValue());
+            item.put("doctor", row[1]);
+            item.put("count", ((Number) row[2]).longValue());
+            doctors.add(item);
+        }
+        return doctors;
     }
 
     /**
@@ -169,14 +155,7 @@ public class ReportAnalyticsService {
      */
     @Transactional(readOnly = true)
     public Map<String, Long> getStatusDistribution() {
-        List<Report> reports = reportRepository.findAll();
-
-        return reports.stream()
-                .filter(r -> r.getStatus() != null)
-                .collect(Collectors.groupingBy(
-                        Report::getStatus,
-                        Collectors.counting()
-                ));
+        return rollups.breakdown(Rollup.REPORTS, null, null, "status");
     }
 
     /**
@@ -214,4 +193,86 @@ public class ReportAnalyticsService {
 
         return analysis;
     }
-}
\ No newline at end of file
+
+    /**
+     * Turnaround percentiles (p50/p90/p99, in hours) per stage, optionally grouped by modality,
+     * radiologist or day. Answered by merging the per-day sketches maintained by
+     * {@link TurnaroundSketchService}, so the cost depends on the number of days and groups, not reports.
+     * Radiologist groups are keyed by user id, so namesakes stay apart; "radiologists" maps each id
+     * to its display name.
+     */
+    @Transactional(readOnly = true)
+    public Map<String, Object> getTurnaroundPercentiles(LocalDate startDate, LocalDate endDate, String groupBy) {
+        String grouping = groupBy == null ? "none" : groupBy.toLowerCase();
+        if (!TURNAROUND_GROUPS.contains(grouping)) {
+            throw new IllegalArgumentException("groupBy must be one of " + TURNAROUND_GROUPS);
+        }
+
+        @SuppressWarnings("unchecked")
+        List<Object[]> rows = entityManager.createNativeQuery(
+                        "SELECT to_char(t.day, 'YYYY-MM-DD'), t.stage, t.modality, " +
+                                "t.author_id, COALESCE(u.full_name, u.username, 'Unknown'), t.sketch " +
+                                "FROM report_turnaround_sketches t LEFT JOIN users u ON u.id = t.author_id " +
+                                "WHERE t.day BETWEEN :start AND :end")
+                .setParameter("start", startDate)
+                .setParameter("end", endDate)
+                .getResultList();
+
+        Map<String, QuantileSketch> overall = new HashMap<>();
+        Map<String, Map<String, QuantileSketch>> groups = new TreeMap<>();
+        Map<String, String> radiologists = new TreeMap<>();
+        for (Object[] row : rows) {
+            String stage = (String) row[1];
+            QuantileSketch sketch = QuantileSketch.decode((byte[]) row[5]);
+            overall.computeIfAbsent(stage, s -> new QuantileSketch()).merge(sketch);
+
+            String group = switch (grouping) {
+                case "modality" -> ((String) row[2]).isEmpty() ? "Unknown" : (String) row[2];
+                case "radiologist" -> {
+                    String authorId = row[3].toString();
+                    radiologists.putIfAbsent(authorId, (String) row[4]);
+                    yield authorId;
+                }
+                case "day" -> (String) row[0];
+                default -> null;
+            };
+            if (group != null) {
+                groups.computeIfAbsent(group, g -> new HashMap<>())
+                        .computeIfAbsent(stage, s -> new QuantileSketch())
+                        .merge(sketch);
+            }
+        }
+
+        Map<String, Object> result = new LinkedHashMap<>();
+        result.put("unit", "hours");
+        result.put("groupBy", grouping);
+        result.put("overall", summarizeStages(overall));
+        if (!"none".equals(grouping)) {
+            Map<String, Object> byGroup = new LinkedHashMap<>();
+            groups.forEach((group, stages) -> byGroup.put(group, summarizeStages(stages)));
+            result.put("groups", byGroup);
+        }
+        if ("radiologist".equals(grouping)) {
+            result.put("radiologists", radiologists);
+        }
+        return result;
+    }
+
+    private Map<String, Object> summarizeStages(Map<String, QuantileSketch> sketches) {
+        Map<String, Object> stages = new LinkedHashMap<>();
+        for (String stage : TURNAROUND_STAGES) {
+            QuantileSketch sketch = sketches.getOrDefault(stage, new QuantileSketch());
+            Map<String, Object> summary = new LinkedHashMap<>();
+            summary.put("count", sketch.getCount());
+            summary.put("p50", minutesToHours(sketch.quantile(0.50)));
+            summary.put("p90", minutesToHours(sketch.quantile(0.90)));
+            summary.put("p99", minutesToHours(sketch.quantile(0.99)));
+            stages.put(stage, summary);
+        }
+        return stages;
+    }
+
+    private double minutesToHours(double minutes) {
+        return Math.round(minutes / 60 * 10) / 10.0;
+    }
+}
@@ -2,6 +2,9 @@ package com.team.medaibackend.service;
 
 import com.team.medaibackend.entity.Report;
 import com.team.medaibackend.repository.ReportRepository;
+import com.team.medaibackend.search.ChangeScan;
+import com.team.medaibackend.search.KeysetPage;
+import com.team.medaibackend.search.KeysetQuery;
 import jakarta.persistence.EntityManager;
 import jakarta.persistence.PersistenceContext;
 import jakarta.persistence.criteria.*;
@@ -72,6 +75,127 @@ public class ReportSearchService {
         CriteriaQuery<Report> cq = cb.createQuery(Report.class);
         Root<Report> report = cq.from(Report.class);
 
+        List<Predicate> predicates = buildFilterPredicates(cb, report, query, filters);
+
+        cq.where(cb.and(predicates.toArray(new Predicate[0])));
+        cq.orderBy(cb.desc(report.get("createdAt")));
+
+        // Get total count
+        CriteriaQuery<Long> countQuery = cb.createQuery(Long.class);
+        Root<Report> countRoot = countQuery.from(Report.class);
+        countQuery.select(cb.count(countRoot));
+        countQuery.where(cb.and(predicates.toArray(new Predicate[0])));
+        long total = entityManager.createQuery(countQuery).getSingleResult();
+
+        // Get paginated results
+        List<Report> reports = entityManager.createQuery(cq)
+                .setFirstResult(page * size)
+                .setMaxResults(size)
+                .getResultList();
+
+        Map<String, Object> result = new HashMap<>();
+        result.put("results", reports.stream().map(this::mapReportToSearchResult).toList());
+        result.put("total", total);
+        result.put("totalPages", (int) Math.ceil((double) total / size));
+
+        return result;
+    }
+
+    /**
+     * Advanced search with keyset (cursor) paging - constant cost per page, no count(*)
+     */
+    @Transactional(readOnly = true)
+    public Map<String, Object> advancedSearchKeyset(
+            String query,
+            Map<String, Object> filters,
+            String cursor,
+            int size) {
+
+        KeysetPage<Report> page = KeysetQuery.fetch(
+                entityManager, Report.class, "createdAt", Report::getCreatedAt, Report::getId,
+                (cb, report) -> buildFilterPredicates(cb, report, query, filters),
+                cursor, size);
+
+        Map<String, Object> result = new HashMap<>();
+        result.put("results", page.getContent().stream().map(this::mapReportToSearchResult).toList());
+        result.put("nextCursor", page.getNextCursor());
+        result.put("hasMore", page.hasMore());
+
+        return result;
+    }
+
+    /**
+     * Rows changed after the (updatedAt, id) position, and which of them match - for saved search materialization
+     */
+    @Transactional(readOnly = true)
+    public ChangeScan.Batch scanChanges(
+            String query,
+            Map<String, Object> filters,
+            LocalDateTime afterUpdatedAt,
+            long afterId,
+            int size) {
+
+        return ChangeScan.fetch(
+                entityManager, Report.class,
+                (cb, report) -> buildFilterPredicates(cb, report, query, filters),
+                afterUpdatedAt, afterId, size);
+    }
+
+    /**
+     * Load and map rows by id, keeping the order of {@code ids}; ids that no longer exist are skipped
+     */
+    @Transactional(readOnly = true)
+    public List<Map<String, Object>> findByIds(List<Long> ids) {
+        Map<Long, Report> byId = new HashMap<>();
+        reportRepository.findAllById(ids).forEach(e -> byId.put(e.getId(), e));
+
+        return ids.stream()
+                .map(byId::get)
+                .filter(Objects::nonNull)
+                .map(this::mapReportToSearchResult)
+                .toList();
+    }
+
+    /**
+     * Quick filter: Recent reports
+     */
+    @Transactional(readOnly = true)
+    public List<Map<String, Object>> getRecentReports(int days, int limit) {
+        LocalDateTime since = LocalDateTime.now().minusDays(days);
+
+        List<Report> reports = reportRepository.findAll().stream()
+                .filter(r -> r.getCreatedAt().isAfter(since))
+                .sorted((r1, r2) -> r2.getCreatedAt().compareTo(r1.getCreatedAt()))
+                .limit(limit)
+                .toList();
+
+        return reports.stream()
+                .map(this::mapReportToSearchResult)
+                .toList();
+    }
+
+    /**
+     * Quick filter: Pending reports (drafts)
+     */
+    @Transactional(readOnly = true)
+    public List<Map<String, Object>> getPendingReports(int limit) {
+        List<Report> reports = reportRepository.findAll().stream()
+                .filter(r -> "draft".equals(r.getStatus()) || !r.getFinalized())
+                .sorted((r1, r2) -> r2.getCreatedAt().compareTo(r1.getCreatedAt()))
+                .limit(limit)
+                .toList();
+
+        return reports.stream()
+                .map(this::mapReportToSearchResult)
+                .toList();
+    }
+
+    private List<Predicate> buildFilterPredicates(
+            CriteriaBuilder cb,
+            Root<Report> report,
+            String query,
+            Map<String, Object> filters) {
+
         List<Predicate> predicates = new ArrayList<>();
 
         // Text search
@@ -130,62 +254,7 @@ public class ReportSearchService {
             }
         }
 
-        cq.where(cb.and(predicates.toArray(new Predicate[0])));
-        cq.orderBy(cb.desc(report.get("createdAt")));
-
-        // Get total count
-        CriteriaQuery<Long> countQuery = cb.createQuery(Long.class);
-        Root<Report> countRoot = countQuery.from(Report.class);
-        countQuery.select(cb.count(countRoot));
-        countQuery.where(cb.and(predicates.toArray(new Predicate[0])));
-        long total = entityManager.createQuery(countQuery).getSingleResult();
-
-        // Get paginated results
-        List<Report> reports = entityManager.createQuery(cq)
-                .setFirstResult(page * size)
-                .setMaxResults(size)
-                .getResultList();
-
-        Map<String, Object> result = new HashMap<>();
-        result.put("results", reports.stream().map(this::mapReportToSearchResult).toList());
-        result.put("total", total);
-        result.put("totalPages", (int) Math.ceil((double) total / size));
-
-        return result;
-    }
-
-    /**
-     * Quick filter: Recent reports
-     */
-    @Transactional(readOnly = true)
-    public List<Map<String, Object>> getRecentReports(int days, int limit) {
-        LocalDateTime since = LocalDateTime.now().minusDays(days);
-
-        List<Report> reports = reportRepository.findAll().stream()
-                .filter(r -> r.getCreatedAt().isAfter(since))
-                .sorted((r1, r2) -> r2.getCreatedAt().compareTo(r1.getCreatedAt()))
-                .limit(limit)
-                .toList();
-
-        return reports.stream()
-                .map(this::mapReportToSearchResult)
-                .toList();
-    }
-
-    /**
-     * Quick filter: Pending reports (drafts)
-     */
-    @Transactional(readOnly = true)
-    public List<Map<String, Object>> getPendingReports(int limit) {
-        List<Report> reports = reportRepository.findAll().stream()
-                .filter(r -> "draft".equals(r.getStatus()) || !r.getFinalized())
-                .sorted((r1, r2) -> r2.getCreatedAt().compareTo(r1.getCreatedAt()))
-                .limit(limit)
-                .toList();
-
-        return reports.stream()
-                .map(this::mapReportToSearchResult)
-                .toList();
+        return predicates;
     }
 
     private Map<String, Object> mapReportToSearchResult(Report report) {
@@ -0,0 +1,480 @@
+package com.team.medaibackend.service;
+
+import com.team.medaibackend.entity.Patient;
+import com.team.medaibackend.entity.Report;
+import com.team.medaibackend.entity.SavedSearch;
+import com.team.medaibackend.entity.Study;
+import com.team.medaibackend.entity.TreatmentPlan;
+import com.team.medaibackend.entity.User;
+import com.team.medaibackend.event.EntityChangedEvent;
+import com.team.medaibackend.repository.SavedSearchRepository;
+import com.team.medaibackend.repository.UserRepository;
+import com.team.medaibackend.search.ChangeScan;
+import jakarta.annotation.PreDestroy;
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.PersistenceContext;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.event.TransactionalEventListener;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Keeps a materialized result set per saved search / quick filter.
+ * <p>
+ * Each refresh only scans rows whose COALESCE(updated_at, created_at) is past the search's high-water
+ * mark: changed rows that match are upserted, changed rows that no longer match are evicted, and
+ * rolling windows (new_patients, todays_studies) are pruned by sort date. Rows that enter the
+ * result set during a refresh are what subscribers get notified about.
+ * <p>
+ * A transaction still open during a refresh can commit rows stamped before anything that refresh
+ * scanned, so the stored mark never passes the start of the oldest open transaction among the
+ * backend's own sessions, the only ones that write the scanned tables (pg_stat_activity rows with
+ * this connection's application_name; the application's database role must be able to see its own
+ * sessions there), so reporting queries, autovacuum and other clients don't hold the mark back.
+ * Rows past that point are scanned again next time, which is harmless: upserts and evictions are
+ * idempotent and only rows not already in the result set count as new.
+ */
+@Service
+public class SavedSearchMaterializationService {
+
+    private static final Logger logger = LoggerFactory.getLogger(SavedSearchMaterializationService.class);
+
+    private static final int SCAN_BATCH_SIZE = 500;
+
+    // entity type -> table and the column its search results are ordered by
+    private static final Map<String, String[]> SORT_COLUMNS = Map.of(
+            "patients", new String[]{"patients", "created_at"},
+            "studies", new String[]{"studies", "study_date"},
+            "reports", new String[]{"reports", "created_at"},
+            "treatments", new String[]{"treatment_plans", "created_at"}
+    );
+
+    @PersistenceContext
+    private EntityManager entityManager;
+
+    private final SavedSearchRepository savedSearchRepository;
+    private final SearchService searchService;
+    private final NotificationService notificationService;
+    private final UserRepository userRepository;
+    private final TransactionTemplate transaction;
+    private final ScheduledExecutorService scheduler;
+    private final Set<String> dirtyEntityTypes = ConcurrentHashMap.newKeySet();
+
+    @Value("${search.saved.refresh-interval-ms:30000}")
+    private long refreshIntervalMs;
+
+    // Timestamps are taken from the application clock, transaction starts from the database clock
+    @Value("${search.saved.clock-skew-ms:1000}")
+    private long clockSkewMs;
+
+    public SavedSearchMaterializationService(SavedSearchRepository savedSearchRepository,
+                                             SearchService searchService,
+                                             NotificationService notificationService,
+                                             UserRepository userRepository,
+                                             PlatformTransactionManager transactionManager) {
+        this.savedSearchRepository = savedSearchRepository;
+        this.searchService = searchService;
+        this.notificationService = notificationService;
+        this.userRepository = userRepository;
+        this.transaction = new TransactionTemplate(transactionManager);
+        this.scheduler = Executors.newSingleThreadScheduledExecutor(r -> {
+            Thread t = new Thread(r, "saved-search-refresh");
+            t.setDaemon(true);
+            return t;
+        });
+    }
+
+    /**
+     * Subscribed searches are refreshed in the background so alerts go out without anyone opening them
+     */
+    @EventListener(ApplicationReadyEvent.class)
+    public void start() {
+        scheduler.scheduleWithFixedDelay(this::refreshSubscribed, refreshIntervalMs, refreshIntervalMs, TimeUnit.MILLISECONDS);
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        scheduler.shutdownNow();
+    }
+
+    public boolean isMaterializable(SavedSearch search) {
+        return SORT_COLUMNS.containsKey(search.getEntityType().toLowerCase());
+    }
+
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onEntityChanged(EntityChangedEvent event) {
+        String entityType = entityType(event.getEntity());
+        if (entityType == null) {
+            return;
+        }
+
+        dirtyEntityTypes.add(entityType);
+        if (event.isDeleted()) {
+            Long id = entityId(event.getEntity());
+            scheduler.execute(() -> evict(entityType, id));
+        }
+    }
+
+    /**
+     * Bring the materialized results up to date from the high-water mark.
+     * Returns the number of rows that newly entered the result set.
+     */
+    public int refresh(SavedSearch search) {
+        Integer added = transaction.execute(status -> refreshInTransaction(search));
+        return added != null ? added : 0;
+    }
+
+    /**
+     * Refresh, then page through the materialized results in the search's usual sort order
+     */
+    public Map<String, Object> page(SavedSearch search, int page, int size) {
+        return transaction.execute(status -> {
+            int added = refreshInTransaction(search);
+
+            @SuppressWarnings("unchecked")
+            List<Number> rows = entityManager.createNativeQuery(
+                            "SELECT entity_id FROM saved_search_results WHERE saved_search_id = :id " +
+                                    "ORDER BY sort_at DESC, entity_id DESC")
+                    .setParameter("id", search.getId())
+                    .setFirstResult(page * size)
+                    .setMaxResults(size)
+                    .getResultList();
+
+            List<Long> ids = rows.stream().map(Number::longValue).toList();
+            Object[] state = state(search.getId());
+            int total = ((Number) state[2]).intValue();
+
+            Map<String, Object> result = new HashMap<>();
+            result.put("results", searchService.findByIds(search.getEntityType(), ids));
+            result.put("total", total);
+            result.put("totalPages", (int) Math.ceil((double) total / size));
+            result.put("newResults", added);
+            result.put("materializedAt", toLocalDateTime(state[3]));
+            return result;
+        });
+    }
+
+    /**
+     * Forget materialized state, e.g. after the search definition changed
+     */
+    public void reset(Long savedSearchId) {
+        transaction.executeWithoutResult(status -> {
+            entityManager.createNativeQuery("DELETE FROM saved_search_results WHERE saved_search_id = :id")
+                    .setParameter("id", savedSearchId)
+                    .executeUpdate();
+            entityManager.createNativeQuery("DELETE FROM saved_search_materializations WHERE saved_search_id = :id")
+                    .setParameter("id", savedSearchId)
+                    .executeUpdate();
+        });
+    }
+
+    public void subscribe(Long savedSearchId, Long userId) {
+        transaction.executeWithoutResult(status -> entityManager.createNativeQuery(
+                        "INSERT INTO saved_search_subscriptions (saved_search_id, user_id) VALUES (:id, :userId) " +
+                                "ON CONFLICT (saved_search_id, user_id) DO NOTHING")
+                .setParameter("id", savedSearchId)
+                .setParameter("userId", userId)
+                .executeUpdate());
+    }
+
+    public void unsubscribe(Long savedSearchId, Long userId) {
+        transaction.executeWithoutResult(status -> entityManager.createNativeQuery(
+                        "DELETE FROM saved_search_subscriptions WHERE saved_search_id = :id AND user_id = :userId")
+                .setParameter("id", savedSearchId)
+                .setParameter("userId", userId)
+                .executeUpdate());
+    }
+
+    private int refreshInTransaction(SavedSearch search) {
+        String entityType = search.getEntityType().toLowerCase();
+        String[] sortColumn = SORT_COLUMNS.get(entityType);
+        if (sortColumn == null) {
+            throw new IllegalArgumentException("Saved searches over '" + search.getEntityType() + "' cannot be materialized");
+        }
+
+        Long id = search.getId();
+        LocalDateTime now = LocalDateTime.now();
+
+        // Row lock serializes concurrent refreshes of the same search
+        entityManager.createNativeQuery(
+                        "INSERT INTO saved_search_materializations (saved_search_id) VALUES (:id) ON CONFLICT DO NOTHING")
+                .setParameter("id", id)
+                .executeUpdate();
+        Object[] state = (Object[]) entityManager.createNativeQuery(
+                        "SELECT through_updated_at, through_id, result_count, refreshed_at " +
+                                "FROM saved_search_materializations WHERE saved_search_id = :id FOR UPDATE")
+                .setParameter("id", id)
+                .getSingleResult();
+
+        LocalDateTime throughUpdatedAt = toLocalDateTime(state[0]);
+        long throughId = ((Number) state[1]).longValue();
+        boolean initial = throughUpdatedAt == null;
+        // Taken before scanning: whatever commits later was stamped after this
+        LocalDateTime settledUntil = settledUntil();
+
+        LocalDateTime afterUpdatedAt = throughUpdatedAt;
+        long afterId = throughId;
+        Map<String, Object> filters = effectiveFilters(search, now);
+        int added = 0;
+
+        while (true) {
+            ChangeScan.Batch batch = searchService.scanChanges(
+                    entityType, search.getSearchQuery(), filters, afterUpdatedAt, afterId, SCAN_BATCH_SIZE);
+            if (batch.isEmpty()) {
+                break;
+            }
+
+            List<Long> evicted = batch.changedIds().stream()
+                    .filter(changed -> !batch.matchingIds().contains(changed))
+                    .toList();
+            if (!evicted.isEmpty()) {
+                entityManager.createNativeQuery(
+                                "DELETE FROM saved_search_results WHERE saved_search_id = :id AND entity_id IN (:ids)")
+                        .setParameter("id", id)
+                        .setParameter("ids", evicted)
+                        .executeUpdate();
+            }
+
+            if (!batch.matchingIds().isEmpty()) {
+                added += upsert(id, sortColumn, batch.matchingIds());
+            }
+
+            afterUpdatedAt = batch.lastUpdatedAt();
+            afterId = batch.lastId();
+
+            if (batch.changedIds().size() < SCAN_BATCH_SIZE) {
+                break;
+            }
+        }
+
+        if (afterUpdatedAt != null && afterUpdatedAt.isBefore(settledUntil)) {
+            throughUpdatedAt = afterUpdatedAt;
+            throughId = afterId;
+        } else {
+            throughUpdatedAt = settledUntil;
+            throughId = -1;
+        }
+
+        LocalDateTime windowStart = windowStart(search, now);
+        if (windowStart != null) {
+            entityManager.createNativeQuery(
+                            "DELETE FROM saved_search_results WHERE saved_search_id = :id AND sort_at < :windowStart")
+                    .setParameter("id", id)
+                    .setParameter("windowStart", windowStart)
+                    .executeUpdate();
+        }
+
+        entityManager.createNativeQuery(
+                        "UPDATE saved_search_materializations SET through_updated_at = :through, through_id = :throughId, " +
+                                "result_count = (SELECT count(*) FROM saved_search_results WHERE saved_search_id = :id), " +
+                                "refreshed_at = :now WHERE saved_search_id = :id")
+                .setParameter("through", throughUpdatedAt)
+                .setParameter("throughId", throughId)
+                .setParameter("now", now)
+                .setParameter("id", id)
+                .executeUpdate();
+
+        // The first materialization is a baseline, not news
+        if (!initial && added > 0) {
+            notifySubscribers(search, added);
+        }
+        return added;
+    }
+
+    /**
+     * Upsert matching rows; returns how many were not already in the result set
+     */
+    private int upsert(Long savedSearchId, String[] sortColumn, Set<Long> ids) {
+        long existing = ((Number) entityManager.createNativeQuery(
+                        "SELECT count(*) FROM saved_search_results WHERE saved_search_id = :id AND entity_id IN (:ids)")
+                .setParameter("id", savedSearchId)
+                .setParameter("ids", ids)
+                .getSingleResult()).longValue();
+
+        entityManager.createNativeQuery(
+                        "INSERT INTO saved_search_results (saved_search_id, entity_id, sort_at) " +
+                                "SELECT :id, e.id, e." + sortColumn[1] + " FROM " + sortColumn[0] + " e WHERE e.id IN (:ids) " +
+                                "ON CONFLICT (saved_search_id, entity_id) DO UPDATE SET sort_at = EXCLUDED.sort_at")
+                .setParameter("id", savedSearchId)
+                .setParameter("ids", ids)
+                .executeUpdate();
+
+        return (int) (ids.size() - existing);
+    }
+
+    private void notifySubscribers(SavedSearch search, int added) {
+        @SuppressWarnings("unchecked")
+        List<Number> userIds = entityManager.createNativeQuery(
+                        "SELECT user_id FROM saved_search_subscriptions WHERE saved_search_id = :id")
+                .setParameter("id", search.getId())
+                .getResultList();
+        if (userIds.isEmpty()) {
+            return;
+        }
+
+        Long ownerId = search.getCreatedBy().getId();
+        String content = added + (added == 1 ? " new result" : " new results") +
+                " for saved search \"" + search.getName() + "\"";
+
+        for (User user : userRepository.findAllById(userIds.stream().map(Number::longValue).toList())) {
+            // Subscribers keep alerts only while they can still see the search
+            if (Boolean.TRUE.equals(search.getIsPublic()) || user.getId().equals(ownerId)) {
+                notificationService.createSystemNotification(user, "Saved search updated", content);
+            }
+        }
+
+        entityManager.createNativeQuery(
+                        "UPDATE saved_search_subscriptions SET last_notified_at = :now WHERE saved_search_id = :id")
+                .setParameter("now", LocalDateTime.now())
+                .setParameter("id", search.getId())
+                .executeUpdate();
+    }
+
+    private void refreshSubscribed() {
+        if (dirtyEntityTypes.isEmpty()) {
+            return;
+        }
+
+        Set<String> types = new HashSet<>(dirtyEntityTypes);
+        dirtyEntityTypes.removeAll(types);
+
+        try {
+            List<Long> ids = transaction.execute(status -> {
+                @SuppressWarnings("unchecked")
+                List<Number> rows = entityManager.createNativeQuery(
+                                "SELECT DISTINCT saved_search_id FROM saved_search_subscriptions")
+                        .getResultList();
+                return rows.stream().map(Number::longValue).toList();
+            });
+
+            for (SavedSearch search : savedSearchRepository.findAllById(ids)) {
+                if (types.contains(search.getEntityType().toLowerCase())) {
+                    refreshQuietly(search);
+                }
+            }
+        } catch (RuntimeException e) {
+            logger.warn("Saved search background refresh failed: {}", e.getMessage());
+        }
+    }
+
+    private void refreshQuietly(SavedSearch search) {
+        try {
+            int added = refresh(search);
+            if (added > 0) {
+                logger.debug("Saved search {} gained {} results", search.getId(), added);
+            }
+        } catch (RuntimeException e) {
+            logger.warn("Failed to refresh saved search {}: {}", search.getId(), e.getMessage());
+        }
+    }
+
+    private void evict(String entityType, Long entityId) {
+        try {
+            transaction.executeWithoutResult(status -> entityManager.createNativeQuery(
+                            "WITH removed AS (" +
+                                    "DELETE FROM saved_search_results r USING saved_searches s " +
+                                    "WHERE s.id = r.saved_search_id AND lower(s.entity_type) = :entityType " +
+                                    "AND r.entity_id = :entityId RETURNING r.saved_search_id) " +
+                                    "UPDATE saved_search_materializations m SET result_count = GREATEST(m.result_count - 1, 0) " +
+                                    "FROM removed WHERE m.saved_search_id = removed.saved_search_id")
+                    .setParameter("entityType", entityType)
+                    .setParameter("entityId", entityId)
+                    .executeUpdate());
+        } catch (RuntimeException e) {
+            logger.warn("Failed to evict {} {} from saved searches: {}", entityType, entityId, e.getMessage());
+        }
+    }
+
+    /**
+     * System quick filters carry no stored filters; their criteria are defined here, relative to now
+     */
+    private Map<String, Object> effectiveFilters(SavedSearch search, LocalDateTime now) {
+        Map<String, Object> filters = new HashMap<>();
+        String quickFilterType = search.getQuickFilterType();
+
+        if ("new_patients".equals(quickFilterType)) {
+            filters.put("startDate", now.minusDays(7));
+        } else if ("pending_reports".equals(quickFilterType)) {
+            filters.put("finalized", false);
+        } else if ("active_plans".equals(quickFilterType)) {
+            filters.put("status", "active");
+        } else if ("todays_studies".equals(quickFilterType)) {
+            LocalDateTime startOfDay = now.toLocalDate().atStartOfDay();
+            filters.put("startDate", startOfDay.toString());
+            filters.put("endDate", startOfDay.plusDays(1).toString());
+        }
+
+        if (search.getFilters() != null) {
+            filters.putAll(search.getFilters());
+        }
+        return filters;
+    }
+
+    /**
+     * Rolling windows age rows out without any write to them, so they are pruned by sort date
+     */
+    private LocalDateTime windowStart(SavedSearch search, LocalDateTime now) {
+        String quickFilterType = search.getQuickFilterType();
+        if ("new_patients".equals(quickFilterType)) {
+            return now.minusDays(7);
+        }
+        if ("todays_studies".equals(quickFilterType)) {
+            return now.toLocalDate().atStartOfDay();
+        }
+        return null;
+    }
+
+    /**
+     * Start of the oldest other open transaction of this application (less the clock skew allowance),
+     * or now if there is none
+     */
+    private LocalDateTime settledUntil() {
+        Object oldest = entityManager.createNativeQuery(
+                        "SELECT CAST(COALESCE(min(xact_start), clock_timestamp()) AS timestamp) FROM pg_stat_activity " +
+                                "WHERE datname = current_database() AND pid <> pg_backend_pid() " +
+                                "AND backend_type = 'client backend' AND state <> 'idle' AND xact_start IS NOT NULL " +
+                                "AND application_name = current_setting('application_name')")
+                .getSingleResult();
+        return toLocalDateTime(oldest).minusNanos(clockSkewMs * 1_000_000);
+    }
+
+    private Object[] state(Long savedSearchId) {
+        return (Object[]) entityManager.createNativeQuery(
+                        "SELECT through_updated_at, through_id, result_count, refreshed_at " +
+                                "FROM saved_search_materializations WHERE saved_search_id = :id")
+                .setParameter("id", savedSearchId)
+                .getSingleResult();
+    }
+
+    private String entityType(Object entity) {
+        if (entity instanceof Patient) return "patients";
+        if (entity instanceof Study) return "studies";
+        if (entity instanceof Report) return "reports";
+        if (entity instanceof TreatmentPlan) return "treatments";
+        return null;
+    }
+
+    private Long entityId(Object entity) {
+        return (Long) entityManager.getEntityManagerFactory().getPersistenceUnitUtil().getIdentifier(entity);
+    }
+
+    private LocalDateTime toLocalDateTime(Object value) {
+        if (value instanceof Timestamp timestamp) {
+            return timestamp.toLocalDateTime();
+        }
+        return (LocalDateTime) value;
+    }
+}
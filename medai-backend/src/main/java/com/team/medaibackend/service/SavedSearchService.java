@@ -8,6 +8,7 @@ import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
 import java.util.List;
+import java.util.Map;
 
 /**
  * Service for managing saved searches
@@ -19,16 +20,19 @@ public class SavedSearchService {
     private final SecurityUtils securityUtils;
     private final SearchService searchService;
     private final AuditService auditService;
+    private final SavedSearchMaterializationService materializationService;
 
     public SavedSearchService(
             SavedSearchRepository savedSearchRepository,
             SecurityUtils securityUtils,
             SearchService searchService,
-            AuditService auditService) {
+            AuditService auditService,
+            SavedSearchMaterializationService materializationService) {
         this.savedSearchRepository = savedSearchRepository;
         this.securityUtils = securityUtils;
         this.searchService = searchService;
         this.auditService = auditService;
+        this.materializationService = materializationService;
     }
 
     /**
@@ -118,6 +122,9 @@ public class SavedSearchService {
             throw new RuntimeException("System quick filters cannot be modified");
         }
 
+        // Materialized results only stay valid while the criteria are unchanged
+        boolean criteriaChanged = updates.getSearchQuery() != null || updates.getFilters() != null;
+
         // Update fields
         if (updates.getName() != null) {
             existing.setName(updates.getName());
@@ -137,6 +144,10 @@ public class SavedSearchService {
 
         SavedSearch saved = savedSearchRepository.save(existing);
 
+        if (criteriaChanged) {
+            materializationService.reset(saved.getId());
+        }
+
         auditService.log(
                 AuditService.ACTION_UPDATE,
                 "SAVED_SEARCH",
@@ -179,7 +190,9 @@ public class SavedSearchService {
     }
 
     /**
-     * Execute saved search
+     * Execute saved search.
+     * Patient, study, report and treatment searches are served from their materialized result set,
+     * refreshed incrementally first; other entity types run the full query.
      */
     @Transactional
     public Object executeSavedSearch(Long id, int page, int size) {
@@ -188,6 +201,14 @@ public class SavedSearchService {
         // Increment execution count (done by trigger in database)
         // Just execute the search based on saved criteria
 
+        if (materializationService.isMaterializable(savedSearch)) {
+            Map<String, Object> results = materializationService.page(savedSearch, page, size);
+            results.put("entityType", savedSearch.getEntityType());
+            results.put("page", page);
+            results.put("size", size);
+            return results;
+        }
+
         return searchService.advancedSearch(
                 savedSearch.getEntityType(),
                 savedSearch.getSearchQuery(),
@@ -197,6 +218,36 @@ public class SavedSearchService {
         );
     }
 
+    /**
+     * Subscribe current user to new-result notifications for a saved search
+     */
+    @Transactional
+    public void subscribe(Long id) {
+        User currentUser = securityUtils.getCurrentUserOrThrow();
+        SavedSearch savedSearch = getSavedSearchById(id);
+
+        if (!Boolean.TRUE.equals(savedSearch.getIsPublic())
+                && !savedSearch.getCreatedBy().getId().equals(currentUser.getId())) {
+            throw new RuntimeException("You don't have permission to subscribe to this saved search");
+        }
+        if (!materializationService.isMaterializable(savedSearch)) {
+            throw new RuntimeException("Notifications are not available for this saved search");
+        }
+
+        materializationService.subscribe(id, currentUser.getId());
+        // Establish the baseline now so the first alert only reports genuinely new matches
+        materializationService.refresh(savedSearch);
+    }
+
+    /**
+     * Unsubscribe current user from a saved search
+     */
+    @Transactional
+    public void unsubscribe(Long id) {
+        User currentUser = securityUtils.getCurrentUserOrThrow();
+        materializationService.unsubscribe(id, currentUser.getId());
+    }
+
     /**
      * Get recently used saved searches
      */
@@ -1,10 +1,21 @@
 package com.team.medaibackend.service;
 
+import com.team.medaibackend.search.ChangeScan;
+import com.team.medaibackend.search.RowCountEstimator;
 import com.team.medaibackend.security.SecurityUtils;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
 import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
 
+import java.time.LocalDateTime;
 import java.util.*;
+import java.util.concurrent.*;
+import java.util.function.Supplier;
 
 /**
  * Core search service - orchestrates searches across all entities
@@ -12,29 +23,55 @@ import java.util.*;
 @Service
 public class SearchService {
 
+    private static final Logger logger = LoggerFactory.getLogger(SearchService.class);
+
     private final PatientSearchService patientSearchService;
     private final StudySearchService studySearchService;
     private final ReportSearchService reportSearchService;
     private final TreatmentSearchService treatmentSearchService;
     private final SecurityUtils securityUtils;
+    private final SuggestionIndexService suggestionIndexService;
+    private final RowCountEstimator rowCountEstimator;
+    private final Executor searchExecutor;
+    private final TransactionTemplate sourceTransaction;
+    private final long sourceTimeoutMs;
 
     public SearchService(
             PatientSearchService patientSearchService,
             StudySearchService studySearchService,
             ReportSearchService reportSearchService,
             TreatmentSearchService treatmentSearchService,
-            SecurityUtils securityUtils) {
+            SecurityUtils securityUtils,
+            SuggestionIndexService suggestionIndexService,
+            RowCountEstimator rowCountEstimator,
+            @Qualifier("searchExecutor") Executor searchExecutor,
+            PlatformTransactionManager transactionManager,
+            @Value("${search.source-timeout-ms:1500}") long sourceTimeoutMs) {
         this.patientSearchService = patientSearchService;
         this.studySearchService = studySearchService;
         this.reportSearchService = reportSearchService;
         this.treatmentSearchService = treatmentSearchService;
         this.securityUtils = securityUtils;
+        this.suggestionIndexService = suggestionIndexService;
+        this.rowCountEstimator = rowCountEstimator;
+        this.searchExecutor = searchExecutor;
+        this.sourceTimeoutMs = sourceTimeoutMs;
+
+        // Each source gets its own read-only transaction whose timeout is applied to its JDBC
+        // statements, so a source that overruns is cancelled in the database and gives its pool
+        // thread and connection back, rather than running on after it was abandoned. JDBC timeouts
+        // are whole seconds, so the deadline is rounded up.
+        this.sourceTransaction = new TransactionTemplate(transactionManager);
+        this.sourceTransaction.setReadOnly(true);
+        this.sourceTransaction.setTimeout((int) Math.max(1, (sourceTimeoutMs + 999) / 1000));
     }
 
     /**
-     * Global search across all entities
+     * Global search across all entities.
+     * Sources run concurrently, each in its own read-only transaction; any source that
+     * misses the deadline, or cannot be scheduled because the search pool is saturated,
+     * contributes no results and is listed under "timedOut".
      */
-    @Transactional(readOnly = true)
     public Map<String, Object> globalSearch(String query, int limit) {
         Map<String, Object> results = new HashMap<>();
 
@@ -44,28 +81,38 @@ public class SearchService {
 
         String searchQuery = query.trim();
 
-        // Search all entity types in parallel (simplified - sequential for now)
-        results.put("patients", patientSearchService.searchPatients(searchQuery, limit));
-        results.put("studies", studySearchService.searchStudies(searchQuery, limit));
-        results.put("reports", reportSearchService.searchReports(searchQuery, limit));
-        results.put("treatments", treatmentSearchService.searchTreatmentPlans(searchQuery, limit));
+        List<String> timedOut = new ArrayList<>();
+        Map<String, List<Map<String, Object>>> sourceResults = fanOut(searchQuery, limit, timedOut);
+        results.putAll(sourceResults);
 
         // Calculate total count
         int totalCount = 0;
-        for (Object value : results.values()) {
-            if (value instanceof List) {
-                totalCount += ((List<?>) value).size();
-            }
+        for (List<Map<String, Object>> value : sourceResults.values()) {
+            totalCount += value.size();
         }
         results.put("totalCount", totalCount);
+        results.put("timedOut", timedOut);
 
         return results;
     }
 
     /**
-     * Get search suggestions
+     * Fuzzy patient lookup ranked by trigram similarity, with the threshold clamped to 0..1 and the
+     * limit to 1..100 like the other search endpoints
      */
     @Transactional(readOnly = true)
+    public List<Map<String, Object>> fuzzyPatientSearch(String query, double threshold, int limit) {
+        if (query == null || query.trim().isEmpty()) {
+            return new ArrayList<>();
+        }
+
+        return patientSearchService.fuzzySearchPatients(query, Math.min(Math.max(threshold, 0), 1),
+                Math.min(Math.max(limit, 1), 100));
+    }
+
+    /**
+     * Get search suggestions (prefix index, or database fan-out while the index is loading)
+     */
     public List<Map<String, Object>> getSearchSuggestions(String query, int limit) {
         List<Map<String, Object>> suggestions = new ArrayList<>();
 
@@ -75,34 +122,36 @@ public class SearchService {
 
         String searchQuery = query.trim();
 
+        // Served from memory once the prefix index has loaded
+        if (suggestionIndexService.isReady()) {
+            return suggestionIndexService.suggest(searchQuery, limit);
+        }
+
         // Get top suggestions from each entity type
         int perType = Math.max(2, limit / 4);
 
-        List<Map<String, Object>> patients = patientSearchService.searchPatients(searchQuery, perType);
-        List<Map<String, Object>> studies = studySearchService.searchStudies(searchQuery, perType);
-        List<Map<String, Object>> reports = reportSearchService.searchReports(searchQuery, perType);
-        List<Map<String, Object>> treatments = treatmentSearchService.searchTreatmentPlans(searchQuery, perType);
+        Map<String, List<Map<String, Object>>> sourceResults = fanOut(searchQuery, perType, new ArrayList<>());
 
         // Combine and add type labels
-        patients.forEach(p -> {
+        sourceResults.get("patients").forEach(p -> {
             p.put("type", "patient");
             p.put("icon", "User");
             suggestions.add(p);
         });
 
-        studies.forEach(s -> {
+        sourceResults.get("studies").forEach(s -> {
             s.put("type", "study");
             s.put("icon", "Document");
             suggestions.add(s);
         });
 
-        reports.forEach(r -> {
+        sourceResults.get("reports").forEach(r -> {
             r.put("type", "report");
             r.put("icon", "Files");
             suggestions.add(r);
         });
 
-        treatments.forEach(t -> {
+        sourceResults.get("treatments").forEach(t -> {
             t.put("type", "treatment");
             t.put("icon", "Checked");
             suggestions.add(t);
@@ -151,4 +200,143 @@ public class SearchService {
 
         return results;
     }
-}
\ No newline at end of file
+
+    /**
+     * Advanced search with cursor paging.
+     * With {@code estimateCount}, unfiltered searches also report the planner's table row estimate.
+     */
+    @Transactional(readOnly = true)
+    public Map<String, Object> advancedSearchKeyset(
+            String entityType,
+            String query,
+            Map<String, Object> filters,
+            String cursor,
+            int size,
+            boolean estimateCount) {
+
+        Map<String, Object> results = new HashMap<>();
+        String table;
+
+        switch (entityType.toLowerCase()) {
+            case "patients":
+                results = patientSearchService.advancedSearchKeyset(query, filters, cursor, size);
+                table = "patients";
+                break;
+            case "studies":
+                results = studySearchService.advancedSearchKeyset(query, filters, cursor, size);
+                table = "studies";
+                break;
+            case "reports":
+                results = reportSearchService.advancedSearchKeyset(query, filters, cursor, size);
+                table = "reports";
+                break;
+            case "treatments":
+                results = treatmentSearchService.advancedSearchKeyset(query, filters, cursor, size);
+                table = "treatment_plans";
+                break;
+            default:
+                results.put("results", new ArrayList<>());
+                results.put("hasMore", false);
+                table = null;
+        }
+
+        boolean unfiltered = (query == null || query.trim().isEmpty()) && (filters == null || filters.isEmpty());
+        if (estimateCount && table != null && unfiltered) {
+            results.put("estimatedTotal", rowCountEstimator.estimate(table));
+        }
+
+        results.put("entityType", entityType);
+        results.put("size", size);
+
+        return results;
+    }
+
+    /**
+     * Delta scan for saved search materialization, dispatched by entity type
+     */
+    public ChangeScan.Batch scanChanges(
+            String entityType,
+            String query,
+            Map<String, Object> filters,
+            LocalDateTime afterUpdatedAt,
+            long afterId,
+            int size) {
+
+        return switch (entityType.toLowerCase()) {
+            case "patients" -> patientSearchService.scanChanges(query, filters, afterUpdatedAt, afterId, size);
+            case "studies" -> studySearchService.scanChanges(query, filters, afterUpdatedAt, afterId, size);
+            case "reports" -> reportSearchService.scanChanges(query, filters, afterUpdatedAt, afterId, size);
+            case "treatments" -> treatmentSearchService.scanChanges(query, filters, afterUpdatedAt, afterId, size);
+            default -> throw new IllegalArgumentException("Unsupported entity type: " + entityType);
+        };
+    }
+
+    /**
+     * Search result rows for the given ids, in the given order
+     */
+    public List<Map<String, Object>> findByIds(String entityType, List<Long> ids) {
+        if (ids.isEmpty()) {
+            return new ArrayList<>();
+        }
+
+        return switch (entityType.toLowerCase()) {
+            case "patients" -> patientSearchService.findByIds(ids);
+            case "studies" -> studySearchService.findByIds(ids);
+            case "reports" -> reportSearchService.findByIds(ids);
+            case "treatments" -> treatmentSearchService.findByIds(ids);
+            default -> new ArrayList<>();
+        };
+    }
+
+    /**
+     * Query all four entity sources concurrently against a shared deadline.
+     * Sources that time out or fail yield an empty list; timed-out names are added to {@code timedOut}.
+     */
+    private Map<String, List<Map<String, Object>>> fanOut(String query, int limit, List<String> timedOut) {
+        Map<String, CompletableFuture<List<Map<String, Object>>>> futures = new LinkedHashMap<>();
+        futures.put("patients", submit(() -> patientSearchService.searchPatients(query, limit)));
+        futures.put("studies", submit(() -> studySearchService.searchStudies(query, limit)));
+        futures.put("reports", submit(() -> reportSearchService.searchReports(query, limit)));
+        futures.put("treatments", submit(() -> treatmentSearchService.searchTreatmentPlans(query, limit)));
+
+        long deadline = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(sourceTimeoutMs);
+        Map<String, List<Map<String, Object>>> results = new LinkedHashMap<>();
+
+        for (Map.Entry<String, CompletableFuture<List<Map<String, Object>>>> entry : futures.entrySet()) {
+            String source = entry.getKey();
+            CompletableFuture<List<Map<String, Object>>> future = entry.getValue();
+            try {
+                long remaining = Math.max(0, deadline - System.nanoTime());
+                // Source lists are immutable (Stream.toList), copy so callers can decorate rows
+                results.put(source, new ArrayList<>(future.get(remaining, TimeUnit.NANOSECONDS)));
+            } catch (TimeoutException e) {
+                // Does not interrupt the task; its statement is cancelled by the transaction timeout
+                future.cancel(true);
+                timedOut.add(source);
+                results.put(source, new ArrayList<>());
+                logger.warn("Search source '{}' missed its {} ms deadline", source, sourceTimeoutMs);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                results.put(source, new ArrayList<>());
+            } catch (ExecutionException e) {
+                results.put(source, new ArrayList<>());
+                if (e.getCause() instanceof RejectedExecutionException) {
+                    timedOut.add(source);
+                    logger.warn("Search source '{}' skipped: search pool saturated", source);
+                } else {
+                    logger.error("Search source '{}' failed: {}", source, e.getCause().getMessage());
+                }
+            }
+        }
+
+        return results;
+    }
+
+    private CompletableFuture<List<Map<String, Object>>> submit(Supplier<List<Map<String, Object>>> source) {
+        try {
+            return CompletableFuture.supplyAsync(() -> sourceTransaction.execute(status -> source.get()), searchExecutor);
+        } catch (RejectedExecutionException e) {
+            return CompletableFuture.failedFuture(e);
+        }
+    }
+}
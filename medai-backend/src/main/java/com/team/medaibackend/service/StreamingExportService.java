@@ -0,0 +1,195 @@
+package com.team.medaibackend.service;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.PersistenceContext;
+import jakarta.persistence.Query;
+import jakarta.servlet.http.HttpServletResponse;
+import org.hibernate.jpa.HibernateHints;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.HttpHeaders;
+import org.springframework.scheduling.concurrent.ThreadPoolTaskExecutor;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+import org.springframework.web.context.request.async.WebAsyncTask;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
+
+import java.io.*;
+import java.nio.charset.StandardCharsets;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.stream.Stream;
+import java.util.zip.GZIPOutputStream;
+
+/**
+ * Streams the rows of a native query to the client as CSV or NDJSON.
+ * <p>
+ * Rows are read through a server-side cursor ({@code analytics.export.fetch-size} at a time, inside a
+ * read-only transaction so the driver does not buffer the whole result) and written straight to the
+ * response, optionally gzipped. Memory use is one fetch batch regardless of how many rows there are.
+ * Exports run on the {@code streamingExecutor} pool under their own timeout
+ * ({@code analytics.export.timeout-ms}); other async requests keep the MVC defaults.
+ */
+@Service
+public class StreamingExportService {
+
+    private static final Logger logger = LoggerFactory.getLogger(StreamingExportService.class);
+
+    public enum Format {
+        CSV("text/csv", ".csv"),
+        NDJSON("application/x-ndjson", ".ndjson");
+
+        private final String contentType;
+        private final String extension;
+
+        Format(String contentType, String extension) {
+            this.contentType = contentType;
+            this.extension = extension;
+        }
+
+        public String getContentType() {
+            return contentType;
+        }
+
+        public String getExtension() {
+            return extension;
+        }
+
+        public static Format parse(String value) {
+            try {
+                return valueOf(value.toUpperCase(Locale.ROOT));
+            } catch (IllegalArgumentException e) {
+                throw new IllegalArgumentException("Unsupported export format '" + value + "', expected csv or ndjson");
+            }
+        }
+    }
+
+    @PersistenceContext
+    private EntityManager entityManager;
+
+    private final TransactionTemplate exportTransaction;
+    private final ObjectMapper objectMapper;
+    private final ThreadPoolTaskExecutor streamingExecutor;
+
+    @Value("${analytics.export.fetch-size:5000}")
+    private int fetchSize;
+
+    @Value("${analytics.export.timeout-ms:600000}")
+    private long timeoutMs;
+
+    public StreamingExportService(PlatformTransactionManager transactionManager, ObjectMapper objectMapper,
+                                  @Qualifier("streamingExecutor") ThreadPoolTaskExecutor streamingExecutor) {
+        this.exportTransaction = new TransactionTemplate(transactionManager);
+        this.exportTransaction.setReadOnly(true);
+        this.objectMapper = objectMapper;
+        this.streamingExecutor = streamingExecutor;
+    }
+
+    /**
+     * Write the export to the response on the streaming pool. When the pool and its queue are full
+     * the export is rejected rather than run on the request thread.
+     */
+    public WebAsyncTask<Void> respond(HttpServletResponse response, HttpHeaders headers, StreamingResponseBody body) {
+        return new WebAsyncTask<>(timeoutMs, streamingExecutor, () -> {
+            response.setStatus(HttpServletResponse.SC_OK);
+            headers.forEach((header, values) -> values.forEach(value -> response.addHeader(header, value)));
+            body.writeTo(response.getOutputStream());
+            response.flushBuffer();
+            return null;
+        });
+    }
+
+    /**
+     * @param columns header names, one per selected column, in order
+     */
+    public StreamingResponseBody stream(String name, String sql, Map<String, Object> parameters,
+                                        List<String> columns, Format format, boolean gzip) {
+        return output -> {
+            long start = System.currentTimeMillis();
+            OutputStream target = gzip ? new GZIPOutputStream(output, 8192) : output;
+            Writer writer = new BufferedWriter(new OutputStreamWriter(target, StandardCharsets.UTF_8), 16384);
+
+            if (format == Format.CSV) {
+                writeCsvRow(writer, columns.toArray());
+            }
+            Long rows = exportTransaction.execute(status -> {
+                Query query = entityManager.createNativeQuery(sql)
+                        .setHint(HibernateHints.HINT_FETCH_SIZE, fetchSize)
+                        .setHint(HibernateHints.HINT_READ_ONLY, true);
+                parameters.forEach(query::setParameter);
+
+                long written = 0;
+                @SuppressWarnings("unchecked")
+                Stream<Object> results = query.getResultStream();
+                try (results) {
+                    var iterator = results.iterator();
+                    while (iterator.hasNext()) {
+                        Object result = iterator.next();
+                        Object[] row = result instanceof Object[] values ? values : new Object[]{result};
+                        if (format == Format.CSV) {
+                            writeCsvRow(writer, row);
+                        } else {
+                            writeJsonRow(writer, columns, row);
+                        }
+                        written++;
+                    }
+                } catch (IOException e) {
+                    // Client went away; end the cursor and the transaction
+                    throw new UncheckedIOException(e);
+                }
+                return written;
+            });
+
+            writer.flush();
+            if (target instanceof GZIPOutputStream compressed) {
+                compressed.finish();
+            }
+            logger.info("Exported {} rows of {} as {} in {} ms", rows, name, format, System.currentTimeMillis() - start);
+        };
+    }
+
+    private void writeCsvRow(Writer writer, Object[] values) throws IOException {
+        for (int i = 0; i < values.length; i++) {
+            if (i > 0) {
+                writer.write(',');
+            }
+            writer.write(csvValue(values[i]));
+        }
+        writer.write("\r\n");
+    }
+
+    private void writeJsonRow(Writer writer, List<String> columns, Object[] values) throws IOException {
+        Map<String, Object> row = new LinkedHashMap<>();
+        for (int i = 0; i < values.length; i++) {
+            row.put(columns.get(i), values[i]);
+        }
+        writer.write(objectMapper.writeValueAsString(row));
+        writer.write('\n');
+    }
+
+    /**
+     * RFC 4180 quoting; text that a spreadsheet would run as a formula is prefixed with a quote
+     */
+    static String csvValue(Object value) {
+        if (value == null) {
+            return "";
+        }
+        if (value instanceof Number || value instanceof Boolean) {
+            return value.toString();
+        }
+        String text = value.toString();
+        if (!text.isEmpty() && "=+-@\t\r".indexOf(text.charAt(0)) >= 0) {
+            text = "'" + text;
+        }
+        if (text.indexOf(',') >= 0 || text.indexOf('"') >= 0 || text.indexOf('\n') >= 0 || text.indexOf('\r') >= 0) {
+            return '"' + text.replace("\"", "\"\"") + '"';
+        }
+        return text;
+    }
+}
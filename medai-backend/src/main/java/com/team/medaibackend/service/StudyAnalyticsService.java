@@ -1,25 +1,28 @@
 package com.team.medaibackend.service;
 
-import com.team.medaibackend.entity.Study;
-import com.team.medaibackend.repository.StudyRepository;
+import com.team.medaibackend.service.AnalyticsRollupService.Rollup;
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.PersistenceContext;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
 import java.time.LocalDate;
-import java.time.LocalDateTime;
 import java.util.*;
-import java.util.stream.Collectors;
 
 /**
- * Study and imaging analytics
+ * Study and imaging analytics.
+ * Counts by day, modality and status read the study_daily_stats rollup; the rest aggregates in PostgreSQL.
  */
 @Service
 public class StudyAnalyticsService {
 
-    private final StudyRepository studyRepository;
+    @PersistenceContext
+    private EntityManager entityManager;
 
-    public StudyAnalyticsService(StudyRepository studyRepository) {
-        this.studyRepository = studyRepository;
+    private final AnalyticsRollupService rollups;
+
+    public StudyAnalyticsService(AnalyticsRollupService rollups) {
+        this.rollups = rollups;
     }
 
     /**
@@ -27,55 +30,15 @@ public class StudyAnalyticsService {
      */
     @Transactional(readOnly = true)
     public Map<String, Long> getStudiesByModality() {
-        List<Study> studies = studyRepository.findAll();
-
-        return studies.stream()
-                .filter(s -> s.getModality() != null)
-                .collect(Collectors.groupingBy(
-                        Study::getModality,
-                        Collectors.counting()
-                ))
-                .entrySet().stream()
-                .sorted(Map.Entry.<String, Long>comparingByValue().reversed())
-                .collect(Collectors.toMap(
-                        Map.Entry::getKey,
-                        Map.Entry::getValue,
-                        (e1, e2) -> e1,
-                        LinkedHashMap::new
-                ));
+        return rollups.breakdown(Rollup.STUDIES, null, null, "modality");
     }
 
     /**
-     * Get study volume trends
+     * Get study volume trends (studies received per day, from the daily rollup)
      */
     @Transactional(readOnly = true)
     public List<Map<String, Object>> getStudyTrends(LocalDate startDate, LocalDate endDate) {
-        List<Map<String, Object>> trends = new ArrayList<>();
-
-        LocalDateTime start = startDate.atStartOfDay();
-        LocalDateTime end = endDate.atTime(23, 59, 59);
-
-        List<Study> studies = studyRepository.findByCreatedAtBetween(start, end);
-
-        // Group by date
-        Map<LocalDate, Long> studiesByDate = studies.stream()
-                .filter(s -> s.getStudyDate() != null)
-                .collect(Collectors.groupingBy(
-                        s -> s.getStudyDate().toLocalDate(),
-                        Collectors.counting()
-                ));
-
-        // Fill in missing dates
-        LocalDate current = startDate;
-        while (!current.isAfter(endDate)) {
-            Map<String, Object> dataPoint = new HashMap<>();
-            dataPoint.put("date", current.toString());
-            dataPoint.put("count", studiesByDate.getOrDefault(current, 0L));
-            trends.add(dataPoint);
-            current = current.plusDays(1);
-        }
-
-        return trends;
+        return fillDates(startDate, endDate, rollups.daily(Rollup.STUDIES, startDate, endDate));
     }
 
     /**
@@ -83,14 +46,7 @@ public class StudyAnalyticsService {
      */
     @Transactional(readOnly = true)
     public Map<String, Long> getStudyStatusDistribution() {
-        List<Study> studies = studyRepository.findAll();
-
-        return studies.stream()
-                .filter(s -> s.getStatus() != null)
-                .collect(Collectors.groupingBy(
-                        Study::getStatus,
-                        Collectors.counting()
-                ));
+        return rollups.breakdown(Rollup.STUDIES, null, null, "status");
     }
 
     /**
@@ -100,39 +56,10 @@ public class StudyAnalyticsService {
     public Map<String, List<Map<String, Object>>> getModalityTrends(
             LocalDate startDate, LocalDate endDate) {
 
-        LocalDateTime start = startDate.atStartOfDay();
-        LocalDateTime end = endDate.atTime(23, 59, 59);
-
-        List<Study> studies = studyRepository.findByCreatedAtBetween(start, end);
-
-        // Group by modality, then by date
-        Map<String, Map<LocalDate, Long>> modalityDateCounts = studies.stream()
-                .filter(s -> s.getModality() != null && s.getStudyDate() != null)
-                .collect(Collectors.groupingBy(
-                        Study::getModality,
-                        Collectors.groupingBy(
-                                s -> s.getStudyDate().toLocalDate(),
-                                Collectors.counting()
-                        )
-                ));
-
         // Convert to chart-friendly format
         Map<String, List<Map<String, Object>>> result = new LinkedHashMap<>();
-
-        modalityDateCounts.forEach((modality, dateCounts) -> {
-            List<Map<String, Object>> series = new ArrayList<>();
-
-            LocalDate current = startDate;
-            while (!current.isAfter(endDate)) {
-                Map<String, Object> dataPoint = new HashMap<>();
-                dataPoint.put("date", current.toString());
-                dataPoint.put("count", dateCounts.getOrDefault(current, 0L));
-                series.add(dataPoint);
-                current = current.plusDays(1);
-            }
-
-            result.put(modality, series);
-        });
+        rollups.dailyBy(Rollup.STUDIES, startDate, endDate, "modality").forEach((modality, dateCounts) ->
+                result.put(modality, fillDates(startDate, endDate, dateCounts)));
 
         return result;
     }
@@ -144,37 +71,21 @@ public class StudyAnalyticsService {
     public Map<String, Object> getPerformanceMetrics() {
         Map<String, Object> metrics = new HashMap<>();
 
-        List<Study> studies = studyRepository.findAll();
+        // Total studies and studies received in the last 30 days
+        LocalDate today = LocalDate.now();
+        long recentStudies = rollups.total(Rollup.STUDIES, today.minusDays(29), today);
 
-        // Total studies
-        metrics.put("totalStudies", studies.size());
+        metrics.put("totalStudies", rollups.total(Rollup.STUDIES, null, null));
 
         // Studies by status
-        Map<String, Long> statusCounts = studies.stream()
-                .filter(s -> s.getStatus() != null)
-                .collect(Collectors.groupingBy(
-                        Study::getStatus,
-                        Collectors.counting()
-                ));
-        metrics.put("byStatus", statusCounts);
+        metrics.put("byStatus", getStudyStatusDistribution());
 
         // Average studies per day (last 30 days)
-        LocalDateTime thirtyDaysAgo = LocalDateTime.now().minusDays(30);
-        long recentStudies = studies.stream()
-                .filter(s -> s.getCreatedAt() != null && s.getCreatedAt().isAfter(thirtyDaysAgo))
-                .count();
         metrics.put("averagePerDay", Math.round(recentStudies / 30.0 * 10) / 10.0);
 
         // Most active modality
-        String mostActiveModality = studies.stream()
-                .filter(s -> s.getModality() != null)
-                .collect(Collectors.groupingBy(
-                        Study::getModality,
-                        Collectors.counting()
-                ))
-                .entrySet().stream()
-                .max(Map.Entry.comparingByValue())
-                .map(Map.Entry::getKey)
+        String mostActiveModality = getStudiesByModality().keySet().stream()
+                .findFirst()
                 .orElse("N/A");
         metrics.put("mostActiveModality", mostActiveModality);
 
@@ -186,18 +97,20 @@ public class StudyAnalyticsService {
      */
     @Transactional(readOnly = true)
     public List<Map<String, Object>> getHourlyActivity() {
-        List<Study> studies = studyRepository.findAll();
-
-        // Create 7x24 grid (day of week x hour)
+        // Create 7x24 grid (day of week x hour); ISO day of week is 1 (Monday) to 7 (Sunday)
         int[][] grid = new int[7][24];
 
-        studies.stream()
-                .filter(s -> s.getStudyDate() != null)
-                .forEach(s -> {
-                    int dayOfWeek = s.getStudyDate().getDayOfWeek().getValue() - 1; // 0-6
-                    int hour = s.getStudyDate().getHour(); // 0-23
-                    grid[dayOfWeek][hour]++;
-                });
+        @SuppressWarnings("unchecked")
+        List<Object[]> rows = entityManager.createNativeQuery(
+                        "SELECT CAST(extract(isodow FROM study_date) AS int), CAST(extract(hour FROM study_date) AS int), count(*) " +
+                                "FROM studies WHERE study_date IS NOT NULL GROUP BY 1, 2")
+                .getResultList();
+
+        for (Object[] row : rows) {
+            int dayOfWeek = ((Number) row[0]).intValue() - 1; // 0-6
+            int hour = ((Number) row[1]).intValue(); // 0-23
+            grid[dayOfWeek][hour] = ((Number) row[2]).intValue();
+        }
 
         // Convert to list format
         List<Map<String, Object>> heatmapData = new ArrayList<>();
@@ -215,4 +128,23 @@ public class StudyAnalyticsService {
 
         return heatmapData;
     }
-}
\ No newline at end of file
+
+    /**
+     * One data point per day in range, zero where no row was returned
+     */
+    private List<Map<String, Object>> fillDates(LocalDate startDate, LocalDate endDate, Map<String, Long> countsByDate) {
+        List<Map<String, Object>> series = new ArrayList<>();
+
+        LocalDate current = startDate;
+        while (!current.isAfter(endDate)) {
+            String date = current.toString();
+            Map<String, Object> dataPoint = new HashMap<>();
+            dataPoint.put("date", date);
+            dataPoint.put("count", countsByDate.getOrDefault(date, 0L));
+            series.add(dataPoint);
+            current = current.plusDays(1);
+        }
+
+        return series;
+    }
+}
@@ -2,6 +2,9 @@ package com.team.medaibackend.service;
 
 import com.team.medaibackend.entity.Study;
 import com.team.medaibackend.repository.StudyRepository;
+import com.team.medaibackend.search.ChangeScan;
+import com.team.medaibackend.search.KeysetPage;
+import com.team.medaibackend.search.KeysetQuery;
 import jakarta.persistence.EntityManager;
 import jakarta.persistence.PersistenceContext;
 import jakarta.persistence.criteria.*;
@@ -70,40 +73,7 @@ public class StudySearchService {
         CriteriaQuery<Study> cq = cb.createQuery(Study.class);
         Root<Study> study = cq.from(Study.class);
 
-        List<Predicate> predicates = new ArrayList<>();
-
-        // Text search
-        if (query != null && !query.trim().isEmpty()) {
-            String searchPattern = "%" + query.toLowerCase() + "%";
-            predicates.add(cb.or(
-                    cb.like(cb.lower(study.get("accessionNumber")), searchPattern),
-                    cb.like(cb.lower(study.get("description")), searchPattern)
-            ));
-        }
-
-        // Apply filters
-        if (filters != null) {
-            // Modality filter
-            if (filters.containsKey("modality")) {
-                predicates.add(cb.equal(study.get("modality"), filters.get("modality")));
-            }
-
-            // Status filter
-            if (filters.containsKey("status")) {
-                predicates.add(cb.equal(study.get("status"), filters.get("status")));
-            }
-
-            // Date range filter
-            if (filters.containsKey("startDate")) {
-                LocalDateTime startDate = LocalDateTime.parse(filters.get("startDate").toString());
-                predicates.add(cb.greaterThanOrEqualTo(study.get("studyDate"), startDate));
-            }
-
-            if (filters.containsKey("endDate")) {
-                LocalDateTime endDate = LocalDateTime.parse(filters.get("endDate").toString());
-                predicates.add(cb.lessThanOrEqualTo(study.get("studyDate"), endDate));
-            }
-        }
+        List<Predicate> predicates = buildFilterPredicates(cb, study, query, filters);
 
         cq.where(cb.and(predicates.toArray(new Predicate[0])));
         cq.orderBy(cb.desc(study.get("studyDate")));
@@ -129,6 +99,61 @@ public class StudySearchService {
         return result;
     }
 
+    /**
+     * Advanced search with keyset (cursor) paging - constant cost per page, no count(*)
+     */
+    @Transactional(readOnly = true)
+    public Map<String, Object> advancedSearchKeyset(
+            String query,
+            Map<String, Object> filters,
+            String cursor,
+            int size) {
+
+        KeysetPage<Study> page = KeysetQuery.fetch(
+                entityManager, Study.class, "studyDate", Study::getStudyDate, Study::getId,
+                (cb, study) -> buildFilterPredicates(cb, study, query, filters),
+                cursor, size);
+
+        Map<String, Object> result = new HashMap<>();
+        result.put("results", page.getContent().stream().map(this::mapStudyToSearchResult).toList());
+        result.put("nextCursor", page.getNextCursor());
+        result.put("hasMore", page.hasMore());
+
+        return result;
+    }
+
+    /**
+     * Rows changed after the (updatedAt, id) position, and which of them match - for saved search materialization
+     */
+    @Transactional(readOnly = true)
+    public ChangeScan.Batch scanChanges(
+            String query,
+            Map<String, Object> filters,
+            LocalDateTime afterUpdatedAt,
+            long afterId,
+            int size) {
+
+        return ChangeScan.fetch(
+                entityManager, Study.class,
+                (cb, study) -> buildFilterPredicates(cb, study, query, filters),
+                afterUpdatedAt, afterId, size);
+    }
+
+    /**
+     * Load and map rows by id, keeping the order of {@code ids}; ids that no longer exist are skipped
+     */
+    @Transactional(readOnly = true)
+    public List<Map<String, Object>> findByIds(List<Long> ids) {
+        Map<Long, Study> byId = new HashMap<>();
+        studyRepository.findAllById(ids).forEach(e -> byId.put(e.getId(), e));
+
+        return ids.stream()
+                .map(byId::get)
+                .filter(Objects::nonNull)
+                .map(this::mapStudyToSearchResult)
+                .toList();
+    }
+
     /**
      * Quick filter: Today's studies
      */
@@ -150,6 +175,50 @@ public class StudySearchService {
                 .toList();
     }
 
+    private List<Predicate> buildFilterPredicates(
+            CriteriaBuilder cb,
+            Root<Study> study,
+            String query,
+            Map<String, Object> filters) {
+
+        List<Predicate> predicates = new ArrayList<>();
+
+        // Text search
+        if (query != null && !query.trim().isEmpty()) {
+            String searchPattern = "%" + query.toLowerCase() + "%";
+            predicates.add(cb.or(
+                    cb.like(cb.lower(study.get("accessionNumber")), searchPattern),
+                    cb.like(cb.lower(study.get("description")), searchPattern)
+            ));
+        }
+
+        // Apply filters
+        if (filters != null) {
+            // Modality filter
+            if (filters.containsKey("modality")) {
+                predicates.add(cb.equal(study.get("modality"), filters.get("modality")));
+            }
+
+            // Status filter
+            if (filters.containsKey("status")) {
+                predicates.add(cb.equal(study.get("status"), filters.get("status")));
+            }
+
+            // Date range filter
+            if (filters.containsKey("startDate")) {
+                LocalDateTime startDate = LocalDateTime.parse(filters.get("startDate").toString());
+                predicates.add(cb.greaterThanOrEqualTo(study.get("studyDate"), startDate));
+            }
+
+            if (filters.containsKey("endDate")) {
+                LocalDateTime endDate = LocalDateTime.parse(filters.get("endDate").toString());
+                predicates.add(cb.lessThanOrEqualTo(study.get("studyDate"), endDate));
+            }
+        }
+
+        return predicates;
+    }
+
     private Map<String, Object> mapStudyToSearchResult(Study study) {
         Map<String, Object> result = new HashMap<>();
         result.put("id", study.getId());
@@ -2,9 +2,17 @@ package com.team.medaibackend.service;
 
 import com.team.medaibackend.dto.StudyDetailDto;
 import com.team.medaibackend.dto.StudyDto;
+import com.team.medaibackend.dto.WorklistItem;
 import com.team.medaibackend.entity.Series;
 import com.team.medaibackend.entity.Study;
 import com.team.medaibackend.repository.StudyRepository;
+import com.team.medaibackend.search.KeysetPage;
+import com.team.medaibackend.search.KeysetQuery;
+import com.team.medaibackend.search.RowCountEstimator;
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.PersistenceContext;
+import jakarta.persistence.criteria.Path;
+import jakarta.persistence.criteria.Predicate;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.PageRequest;
 import org.springframework.data.domain.Pageable;
@@ -14,16 +22,25 @@ import org.springframework.transaction.annotation.Transactional;
 
 import java.time.LocalDateTime;
 import java.time.format.DateTimeFormatter;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Map;
+import java.util.function.Function;
 import java.util.stream.Collectors;
 
 @Service
 public class StudyService {
 
+    @PersistenceContext
+    private EntityManager entityManager;
+
     private final StudyRepository studyRepository;
+    private final RowCountEstimator rowCountEstimator;
 
-    public StudyService(StudyRepository studyRepository) {
+    public StudyService(StudyRepository studyRepository, RowCountEstimator rowCountEstimator) {
         this.studyRepository = studyRepository;
+        this.rowCountEstimator = rowCountEstimator;
     }
 
     @Transactional(readOnly = true)
@@ -43,6 +60,79 @@ public class StudyService {
         return studies.map(this::toDto);
     }
 
+    /**
+     * Cursor-paged study listing ordered by {@code sortField} (studyDate or createdAt) descending.
+     * The patient is fetched in the same query since every listing shows the patient name.
+     * {@code patientId} is the DICOM patient ID; {@code search} matches description, accession
+     * number, study UID or patient name; {@code priority} is the worklist priority (high or normal).
+     * Null or empty filters are ignored.
+     */
+    @Transactional(readOnly = true)
+    public KeysetPage<Study> getStudiesKeyset(String patientId, String modality, String status,
+                                              String search, String priority,
+                                              String sortField, String cursor, int size) {
+        Function<Study, LocalDateTime> sortValue =
+                "createdAt".equals(sortField) ? Study::getCreatedAt : Study::getStudyDate;
+
+        return KeysetQuery.fetch(
+                entityManager, Study.class, sortField, sortValue, Study::getId,
+                (cb, study) -> {
+                    List<Predicate> predicates = new ArrayList<>();
+                    if (hasText(patientId)) {
+                        predicates.add(cb.equal(study.get("patient").get("patientId"), patientId));
+                    }
+                    if (hasText(modality)) {
+                        predicates.add(cb.equal(study.get("modality"), modality));
+                    }
+                    if (hasText(status)) {
+                        predicates.add(cb.equal(study.get("status"), status));
+                    }
+                    if (hasText(search)) {
+                        String pattern = "%" + search.toLowerCase() + "%";
+                        predicates.add(cb.or(
+                                cb.like(cb.lower(study.<String>get("description")), pattern),
+                                cb.like(cb.lower(study.<String>get("accessionNumber")), pattern),
+                                cb.like(cb.lower(study.<String>get("studyUid")), pattern),
+                                cb.like(cb.lower(study.get("patient").<String>get("name")), pattern)));
+                    }
+                    if (hasText(priority)) {
+                        Path<String> studyModality = study.get("modality");
+                        Predicate high = studyModality.in(WorklistItem.HIGH_PRIORITY_MODALITIES);
+                        predicates.add("high".equalsIgnoreCase(priority)
+                                ? high
+                                : cb.or(cb.isNull(studyModality), cb.not(high)));
+                    }
+                    return predicates;
+                },
+                cursor, size, "patient");
+    }
+
+    /**
+     * Planner estimate of the number of studies matching the listing filters
+     */
+    public long estimateStudies(String patientId, String modality, String status,
+                                String search, String priority) {
+        String highModalities = String.join(",", WorklistItem.HIGH_PRIORITY_MODALITIES);
+        Map<String, String> conditions = new LinkedHashMap<>();
+        conditions.put("patient_id IN (SELECT id FROM patients WHERE patient_id = %L)",
+                hasText(patientId) ? patientId : null);
+        conditions.put("modality = %L", hasText(modality) ? modality : null);
+        conditions.put("status = %L", hasText(status) ? status : null);
+        conditions.put("lower(concat_ws(' ', description, accession_number, study_uid, " +
+                        "(SELECT name FROM patients p WHERE p.id = patient_id))) LIKE %L",
+                hasText(search) ? "%" + search.toLowerCase() + "%" : null);
+        if (hasText(priority)) {
+            conditions.put("high".equalsIgnoreCase(priority)
+                    ? "modality = ANY (string_to_array(%L, ','))"
+                    : "(modality IS NULL OR modality <> ALL (string_to_array(%L, ',')))", highModalities);
+        }
+        return rowCountEstimator.estimate("studies", conditions);
+    }
+
+    private static boolean hasText(String value) {
+        return value != null && !value.isEmpty();
+    }
+
     @Transactional(readOnly = true)
     public StudyDetailDto getStudyDetail(String studyUid) {
         Study study = studyRepository.findByStudyUid(studyUid)
@@ -0,0 +1,248 @@
+package com.team.medaibackend.service;
+
+import com.team.medaibackend.entity.Patient;
+import com.team.medaibackend.entity.Report;
+import com.team.medaibackend.entity.Study;
+import com.team.medaibackend.entity.TreatmentPlan;
+import com.team.medaibackend.event.EntityChangedEvent;
+import com.team.medaibackend.search.PrefixIndex;
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.PersistenceContext;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.scheduling.annotation.Async;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import java.util.*;
+import java.util.function.Consumer;
+
+/**
+ * In-memory type-ahead index over patient names/IDs, study accession numbers,
+ * report UIDs and treatment plan titles.
+ * Built once at startup, then kept current from committed entity changes.
+ */
+@Service
+public class SuggestionIndexService {
+
+    private static final Logger logger = LoggerFactory.getLogger(SuggestionIndexService.class);
+
+    private static final int LOAD_BATCH_SIZE = 1000;
+
+    // Every value of the "type" field put in the index
+    private static final int TYPE_COUNT = 4;
+
+    @PersistenceContext
+    private EntityManager entityManager;
+
+    private final PrefixIndex<Map<String, Object>> index;
+    private final int scanBudget;
+
+    private volatile boolean ready;
+    private volatile long lastRebuildMillis;
+
+    public SuggestionIndexService(@Value("${search.suggestions.max-entries:2000000}") int maxEntries,
+                                  @Value("${search.suggestions.scan-budget:2000}") int scanBudget) {
+        this.index = new PrefixIndex<>(maxEntries);
+        this.scanBudget = scanBudget;
+    }
+
+    public boolean isReady() {
+        return ready;
+    }
+
+    /**
+     * Rebuild the whole index from the database in id-ordered batches.
+     */
+    @Async
+    @EventListener(ApplicationReadyEvent.class)
+    @Transactional(readOnly = true)
+    public void rebuild() {
+        long start = System.currentTimeMillis();
+        ready = false;
+        index.clear();
+
+        try {
+            loadAll(Patient.class, this::indexPatient);
+            loadAll(Study.class, this::indexStudy);
+            loadAll(Report.class, this::indexReport);
+            loadAll(TreatmentPlan.class, this::indexTreatmentPlan);
+
+            lastRebuildMillis = System.currentTimeMillis() - start;
+            ready = true;
+            logger.info("Suggestion index built: {} documents, {} terms, ~{} KB in {} ms",
+                    index.documentCount(), index.entryCount(), index.estimatedBytes() / 1024, lastRebuildMillis);
+        } catch (Exception e) {
+            logger.error("Failed to build suggestion index, falling back to database suggestions", e);
+        }
+    }
+
+    /**
+     * Apply committed writes to the index
+     */
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onEntityChanged(EntityChangedEvent event) {
+        Object entity = event.getEntity();
+
+        if (entity instanceof Patient patient) {
+            apply(event, "patient:" + patient.getId(), () -> indexPatient(patient));
+        } else if (entity instanceof Study study) {
+            apply(event, "study:" + study.getId(), () -> indexStudy(study));
+        } else if (entity instanceof Report report) {
+            apply(event, "report:" + report.getId(), () -> indexReport(report));
+        } else if (entity instanceof TreatmentPlan plan) {
+            apply(event, "treatment:" + plan.getId(), () -> indexTreatmentPlan(plan));
+        }
+    }
+
+    /**
+     * Prefix suggestions, at most max(2, limit / 4) per entity type.
+     * The scan stops once the limit is reached, every type is capped, or {@code scan-budget}
+     * index entries have been walked, so a short prefix dominated by one type (thousands of
+     * patients under "a") costs the same as any other keystroke.
+     */
+    public List<Map<String, Object>> suggest(String query, int limit) {
+        int perType = Math.max(2, limit / 4);
+        Map<String, Integer> perTypeCounts = new HashMap<>();
+        List<Map<String, Object>> suggestions = new ArrayList<>();
+        int[] cappedTypes = {0};
+
+        index.scan(query, scanBudget, (documentKey, value) -> {
+            String type = (String) value.get("type");
+            int count = perTypeCounts.merge(type, 1, Integer::sum);
+            if (count <= perType) {
+                suggestions.add(new HashMap<>(value));
+                if (count == perType) {
+                    cappedTypes[0]++;
+                }
+            }
+            return suggestions.size() < limit && cappedTypes[0] < TYPE_COUNT;
+        });
+
+        return suggestions;
+    }
+
+    public Map<String, Object> getStats() {
+        Map<String, Object> stats = new HashMap<>();
+        stats.put("ready", ready);
+        stats.put("documents", index.documentCount());
+        stats.put("terms", index.entryCount());
+        stats.put("maxTerms", index.maxEntries());
+        stats.put("saturated", index.isSaturated());
+        stats.put("estimatedBytes", index.estimatedBytes());
+        stats.put("lastRebuildMillis", lastRebuildMillis);
+        return stats;
+    }
+
+    private void apply(EntityChangedEvent event, String documentKey, Runnable reindex) {
+        if (event.isDeleted()) {
+            index.remove(documentKey);
+        } else {
+            reindex.run();
+        }
+    }
+
+    private <T> void loadAll(Class<T> type, Consumer<T> indexer) {
+        String jpql = "SELECT e FROM " + type.getSimpleName() + " e WHERE e.id > :afterId ORDER BY e.id";
+        long afterId = 0;
+
+        while (true) {
+            List<T> batch = entityManager.createQuery(jpql, type)
+                    .setParameter("afterId", afterId)
+                    .setMaxResults(LOAD_BATCH_SIZE)
+                    .getResultList();
+
+            if (batch.isEmpty()) {
+                return;
+            }
+
+            batch.forEach(indexer);
+            afterId = (Long) entityManager.getEntityManagerFactory()
+                    .getPersistenceUnitUtil()
+                    .getIdentifier(batch.get(batch.size() - 1));
+            entityManager.clear();
+        }
+    }
+
+    private void indexPatient(Patient patient) {
+        Map<String, Object> value = new HashMap<>();
+        value.put("id", patient.getId());
+        value.put("patientId", patient.getPatientId());
+        value.put("name", patient.getName());
+        value.put("sex", patient.getSex());
+        value.put("birthDate", patient.getBirthDate());
+        value.put("type", "patient");
+        value.put("icon", "User");
+
+        List<String> terms = new ArrayList<>(tokens(patient.getName()));
+        terms.add(patient.getPatientId());
+        put("patient:" + patient.getId(), terms, value);
+    }
+
+    private void indexStudy(Study study) {
+        Map<String, Object> value = new HashMap<>();
+        value.put("id", study.getId());
+        value.put("accessionNumber", study.getAccessionNumber());
+        value.put("description", study.getDescription());
+        value.put("modality", study.getModality());
+        value.put("studyDate", study.getStudyDate());
+        value.put("status", study.getStatus());
+        value.put("type", "study");
+        value.put("icon", "Document");
+
+        put("study:" + study.getId(), Collections.singletonList(study.getAccessionNumber()), value);
+    }
+
+    private void indexReport(Report report) {
+        Map<String, Object> value = new HashMap<>();
+        value.put("id", report.getId());
+        value.put("reportUid", report.getReportUid());
+        value.put("title", report.getTitle());
+        value.put("status", report.getStatus());
+        value.put("createdAt", report.getCreatedAt());
+        value.put("type", "report");
+        value.put("icon", "Files");
+
+        put("report:" + report.getId(), Collections.singletonList(report.getReportUid()), value);
+    }
+
+    private void indexTreatmentPlan(TreatmentPlan plan) {
+        Map<String, Object> value = new HashMap<>();
+        value.put("id", plan.getId());
+        value.put("planUid", plan.getPlanUid());
+        value.put("title", plan.getTitle());
+        value.put("status", plan.getStatus());
+        value.put("priority", plan.getPriority());
+        value.put("type", "treatment");
+        value.put("icon", "Checked");
+
+        put("treatment:" + plan.getId(), tokens(plan.getTitle()), value);
+    }
+
+    private void put(String documentKey, List<String> terms, Map<String, Object> value) {
+        if (!index.put(documentKey, terms, Collections.unmodifiableMap(value))) {
+            logger.warn("Suggestion index full ({} terms), skipping {}", index.maxEntries(), documentKey);
+        }
+    }
+
+    /**
+     * The full value plus each whitespace-separated word, so "smi" matches "John Smith"
+     */
+    private List<String> tokens(String text) {
+        List<String> tokens = new ArrayList<>();
+        if (text == null || text.isBlank()) {
+            return tokens;
+        }
+
+        tokens.add(text);
+        String[] words = text.trim().split("\\s+");
+        if (words.length > 1) {
+            tokens.addAll(Arrays.asList(words));
+        }
+        return tokens;
+    }
+}
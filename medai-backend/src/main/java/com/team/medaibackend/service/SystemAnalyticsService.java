@@ -1,9 +1,20 @@
 package com.team.medaibackend.service;
 
-import com.team.medaibackend.repository.AuditLogRepository;
+import com.team.medaibackend.audit.AuditWriter;
+import com.team.medaibackend.cache.BoundedCacheManager;
+import com.team.medaibackend.metrics.HttpMetricsRegistry;
+import com.team.medaibackend.metrics.SqlMetrics;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
+import javax.sql.DataSource;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.sql.Connection;
+import java.sql.SQLException;
 import java.util.HashMap;
 import java.util.Map;
 
@@ -13,33 +24,58 @@ import java.util.Map;
 @Service
 public class SystemAnalyticsService {
 
-    private final AuditLogRepository auditLogRepository;
+    private static final Logger logger = LoggerFactory.getLogger(SystemAnalyticsService.class);
 
-    public SystemAnalyticsService(AuditLogRepository auditLogRepository) {
-        this.auditLogRepository = auditLogRepository;
-    }
+    private static final int DATABASE_CHECK_TIMEOUT_SECONDS = 2;
 
-    /**
-     * Get system performance metrics
-     */
-    @Transactional(readOnly = true)
-    public Map<String, Object> getPerformanceMetrics() {
-        Map<String, Object> metrics = new HashMap<>();
+    private final HttpMetricsRegistry httpMetrics;
+    private final SqlMetrics sqlMetrics;
+    private final AuditWriter auditWriter;
+    private final DataSource dataSource;
+    private final BoundedCacheManager cacheManager;
+    private final Path storageRoot;
 
-        // System uptime (simplified - would need actual monitoring)
-        metrics.put("uptime", 99.9); // Placeholder
+    @Value("${metrics.http.degraded-error-rate:5}")
+    private double degradedErrorRate;
 
-        // Error rate (from audit logs with errors)
-        long totalActions = auditLogRepository.count();
-        // In real system, filter ERROR level logs
-        metrics.put("errorRate", 0.1); // Placeholder
+    @Value("${metrics.http.degraded-p95-ms:2000}")
+    private double degradedP95Ms;
 
-        // Response time (would need actual monitoring)
-        metrics.put("averageResponseTime", 150); // ms, placeholder
+    public SystemAnalyticsService(HttpMetricsRegistry httpMetrics, SqlMetrics sqlMetrics, AuditWriter auditWriter,
+                                  DataSource dataSource, BoundedCacheManager cacheManager,
+                                  @Value("${storage.local.root-path}") String storageRoot) {
+        this.httpMetrics = httpMetrics;
+        this.sqlMetrics = sqlMetrics;
+        this.auditWriter = auditWriter;
+        this.dataSource = dataSource;
+        this.cacheManager = cacheManager;
+        this.storageRoot = Path.of(storageRoot);
+    }
 
+    /**
+     * Get system performance metrics from the request histograms over the last {@code windowMinutes}.
+     * "uptime" is availability: the share of requests that did not fail with a 5xx.
+     */
+    public Map<String, Object> getPerformanceMetrics(int windowMinutes) {
+        Map<String, Object> metrics = httpMetrics.snapshot(windowMinutes, 20);
+        metrics.put("uptime", availability(metrics));
         return metrics;
     }
 
+    /**
+     * Statements per request by route (N+1 candidates first) and the most recent slow statements
+     */
+    public Map<String, Object> getSqlMetrics() {
+        return sqlMetrics.snapshot(50);
+    }
+
+    /**
+     * Start a fresh measurement, e.g. right after a deploy
+     */
+    public void resetSqlMetrics() {
+        sqlMetrics.reset();
+    }
+
     /**
      * Get storage usage statistics
      */
@@ -56,17 +92,85 @@ public class SystemAnalyticsService {
     }
 
     /**
-     * Get system health status
+     * Get system health status. Database, file storage and cache are probed on every call;
+     * overallStatus is the worst of them and the request health.
      */
-    @Transactional(readOnly = true)
     public Map<String, Object> getHealthStatus() {
         Map<String, Object> health = new HashMap<>();
 
-        health.put("database", "healthy");
-        health.put("fileStorage", "healthy");
-        health.put("cache", "healthy");
-        health.put("overallStatus", "healthy");
+        long start = System.nanoTime();
+        String database = databaseStatus();
+        health.put("database", database);
+        health.put("databaseResponseTime", (System.nanoTime() - start) / 1_000_000.0);
+        String fileStorage = fileStorageStatus();
+        health.put("fileStorage", fileStorage);
+        health.put("fileStorageUsableSpace", storageRoot.toFile().getUsableSpace());
+        String cache = cacheStatus();
+        health.put("cache", cache);
+
+        // Request health over the last five minutes
+        Map<String, Object> requests = httpMetrics.snapshot(5, 0);
+        double errorRate = (double) requests.get("errorRate");
+        double p95 = (double) requests.get("p95");
+        health.put("uptime", availability(requests));
+        health.put("errorRate", errorRate);
+        health.put("avgResponseTime", requests.get("averageResponseTime"));
+        health.put("p95ResponseTime", p95);
+        health.put("throughput", requests.get("throughput"));
+        health.put("api", errorRate > degradedErrorRate || p95 > degradedP95Ms ? "degraded" : "healthy");
+        health.put("overallStatus", worst(database, fileStorage, cache, (String) health.get("api")));
+        health.put("auditWriter", auditWriter.getStatistics());
 
         return health;
     }
+
+    /**
+     * A pooled connection that answers a validation round trip in time
+     */
+    private String databaseStatus() {
+        try (Connection connection = dataSource.getConnection()) {
+            return connection.isValid(DATABASE_CHECK_TIMEOUT_SECONDS) ? "healthy" : "unhealthy";
+        } catch (SQLException e) {
+            logger.warn("Database health check failed: {}", e.getMessage());
+            return "unhealthy";
+        }
+    }
+
+    /**
+     * Uploads, exports and the audit spill file all live under the storage root
+     */
+    private String fileStorageStatus() {
+        return Files.isDirectory(storageRoot) && Files.isWritable(storageRoot) ? "healthy" : "unhealthy";
+    }
+
+    /**
+     * Reading the cache statistics touches the store (Redis in shared mode). A cache that cannot be
+     * reached only costs recomputation, so it degrades the system rather than failing it.
+     */
+    private String cacheStatus() {
+        try {
+            cacheManager.getStatistics();
+            return "healthy";
+        } catch (RuntimeException e) {
+            logger.warn("Cache health check failed: {}", e.getMessage());
+            return "degraded";
+        }
+    }
+
+    private static String worst(String... statuses) {
+        String worst = "healthy";
+        for (String status : statuses) {
+            if ("unhealthy".equals(status)) {
+                return status;
+            }
+            if ("degraded".equals(status)) {
+                worst = status;
+            }
+        }
+        return worst;
+    }
+
+    private double availability(Map<String, Object> requests) {
+        return Math.round((100 - (double) requests.get("errorRate")) * 100) / 100.0;
+    }
 }
\ No newline at end of file
@@ -2,11 +2,11 @@ package com.team.medaibackend.service;
 
 import com.team.medaibackend.entity.TreatmentPlan;
 import com.team.medaibackend.repository.TreatmentPlanRepository;
+import com.team.medaibackend.service.AnalyticsRollupService.Rollup;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
 import java.time.LocalDate;
-import java.time.LocalDateTime;
 import java.time.temporal.ChronoUnit;
 import java.util.*;
 import java.util.stream.Collectors;
@@ -18,9 +18,12 @@ import java.util.stream.Collectors;
 public class TreatmentAnalyticsService {
 
     private final TreatmentPlanRepository treatmentPlanRepository;
+    private final AnalyticsRollupService rollups;
 
-    public TreatmentAnalyticsService(TreatmentPlanRepository treatmentPlanRepository) {
+    public TreatmentAnalyticsService(TreatmentPlanRepository treatmentPlanRepository,
+                                     AnalyticsRollupService rollups) {
         this.treatmentPlanRepository = treatmentPlanRepository;
+        this.rollups = rollups;
     }
 
     /**
@@ -66,14 +69,7 @@ public class TreatmentAnalyticsService {
      */
     @Transactional(readOnly = true)
     public Map<String, Long> getPlansByCategory() {
-        List<TreatmentPlan> plans = treatmentPlanRepository.findAll();
-
-        return plans.stream()
-                .filter(p -> p.getCategory() != null)
-                .collect(Collectors.groupingBy(
-                        TreatmentPlan::getCategory,
-                        Collectors.counting()
-                ));
+        return rollups.breakdown(Rollup.TREATMENTS, null, null, "category");
     }
 
     /**
@@ -98,24 +94,14 @@ public class TreatmentAnalyticsService {
     public List<Map<String, Object>> getTreatmentTrends(LocalDate startDate, LocalDate endDate) {
         List<Map<String, Object>> trends = new ArrayList<>();
 
-        LocalDateTime start = startDate.atStartOfDay();
-        LocalDateTime end = endDate.atTime(23, 59, 59);
-
-        List<TreatmentPlan> plans = treatmentPlanRepository.findByCreatedAtBetween(start, end);
-
-        // Group by date
-        Map<LocalDate, Long> plansByDate = plans.stream()
-                .collect(Collectors.groupingBy(
-                        p -> p.getCreatedAt().toLocalDate(),
-                        Collectors.counting()
-                ));
+        Map<String, Long> plansByDate = rollups.daily(Rollup.TREATMENTS, startDate, endDate);
 
         // Fill in missing dates
         LocalDate current = startDate;
         while (!current.isAfter(endDate)) {
             Map<String, Object> dataPoint = new HashMap<>();
             dataPoint.put("date", current.toString());
-            dataPoint.put("count", plansByDate.getOrDefault(current, 0L));
+            dataPoint.put("count", plansByDate.getOrDefault(current.toString(), 0L));
             trends.add(dataPoint);
             current = current.plusDays(1);
         }
@@ -130,17 +116,9 @@ public class TreatmentAnalyticsService {
     public Map<String, Object> getSuccessRateAnalysis() {
         Map<String, Object> analysis = new HashMap<>();
 
-        List<TreatmentPlan> plans = treatmentPlanRepository.findAll();
-
-        long completed = plans.stream()
-                .filter(p -> "completed".equals(p.getStatus()))
-                .count();
-
-        long cancelled = plans.stream()
-                .filter(p -> "cancelled".equals(p.getStatus()))
-                .count();
-
-        long total = plans.size();
+        long completed = rollups.total(Rollup.TREATMENTS, null, null, "status", "completed");
+        long cancelled = rollups.total(Rollup.TREATMENTS, null, null, "status", "cancelled");
+        long total = rollups.total(Rollup.TREATMENTS, null, null);
 
         analysis.put("totalPlans", total);
         analysis.put("completed", completed);
@@ -2,6 +2,9 @@ package com.team.medaibackend.service;
 
 import com.team.medaibackend.entity.TreatmentPlan;
 import com.team.medaibackend.repository.TreatmentPlanRepository;
+import com.team.medaibackend.search.ChangeScan;
+import com.team.medaibackend.search.KeysetPage;
+import com.team.medaibackend.search.KeysetQuery;
 import jakarta.persistence.EntityManager;
 import jakarta.persistence.PersistenceContext;
 import jakarta.persistence.criteria.*;
@@ -9,6 +12,7 @@ import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
 import java.time.LocalDate;
+import java.time.LocalDateTime;
 import java.util.*;
 
 /**
@@ -72,79 +76,7 @@ public class TreatmentSearchService {
         CriteriaQuery<TreatmentPlan> cq = cb.createQuery(TreatmentPlan.class);
         Root<TreatmentPlan> plan = cq.from(TreatmentPlan.class);
 
-        List<Predicate> predicates = new ArrayList<>();
-
-        // Text search
-        if (query != null && !query.trim().isEmpty()) {
-            String searchPattern = "%" + query.toLowerCase() + "%";
-            predicates.add(cb.or(
-                    cb.like(cb.lower(plan.get("planUid")), searchPattern),
-                    cb.like(cb.lower(plan.get("title")), searchPattern),
-                    cb.like(cb.lower(plan.get("diagnosis")), searchPattern),
-                    cb.like(cb.lower(plan.get("description")), searchPattern)
-            ));
-        }
-
-        // Apply filters
-        if (filters != null) {
-            // Status filter
-            if (filters.containsKey("status")) {
-                predicates.add(cb.equal(plan.get("status"), filters.get("status")));
-            }
-
-            // Priority filter
-            if (filters.containsKey("priority")) {
-                predicates.add(cb.equal(plan.get("priority"), filters.get("priority")));
-            }
-
-            // Category filter
-            if (filters.containsKey("category")) {
-                predicates.add(cb.equal(plan.get("category"), filters.get("category")));
-            }
-
-            // Doctor filter
-            if (filters.containsKey("doctorId")) {
-                predicates.add(cb.equal(plan.get("doctor").get("id"), filters.get("doctorId")));
-            }
-
-            // Patient filter
-            if (filters.containsKey("patientId")) {
-                predicates.add(cb.equal(plan.get("patient").get("id"), filters.get("patientId")));
-            }
-
-            // Progress range filter
-            if (filters.containsKey("minProgress")) {
-                int minProgress = ((Number) filters.get("minProgress")).intValue();
-                predicates.add(cb.greaterThanOrEqualTo(plan.get("progressPercentage"), minProgress));
-            }
-
-            if (filters.containsKey("maxProgress")) {
-                int maxProgress = ((Number) filters.get("maxProgress")).intValue();
-                predicates.add(cb.lessThanOrEqualTo(plan.get("progressPercentage"), maxProgress));
-            }
-
-            // Start date range filter
-            if (filters.containsKey("startDateFrom")) {
-                LocalDate startDateFrom = (LocalDate) filters.get("startDateFrom");
-                predicates.add(cb.greaterThanOrEqualTo(plan.get("startDate"), startDateFrom));
-            }
-
-            if (filters.containsKey("startDateTo")) {
-                LocalDate startDateTo = (LocalDate) filters.get("startDateTo");
-                predicates.add(cb.lessThanOrEqualTo(plan.get("startDate"), startDateTo));
-            }
-
-            // End date range filter
-            if (filters.containsKey("endDateFrom")) {
-                LocalDate endDateFrom = (LocalDate) filters.get("endDateFrom");
-                predicates.add(cb.greaterThanOrEqualTo(plan.get("endDate"), endDateFrom));
-            }
-
-            if (filters.containsKey("endDateTo")) {
-                LocalDate endDateTo = (LocalDate) filters.get("endDateTo");
-                predicates.add(cb.lessThanOrEqualTo(plan.get("endDate"), endDateTo));
-            }
-        }
+        List<Predicate> predicates = buildFilterPredicates(cb, plan, query, filters);
 
         cq.where(cb.and(predicates.toArray(new Predicate[0])));
         cq.orderBy(cb.desc(plan.get("createdAt")));
@@ -170,6 +102,61 @@ public class TreatmentSearchService {
         return result;
     }
 
+    /**
+     * Advanced search with keyset (cursor) paging - constant cost per page, no count(*)
+     */
+    @Transactional(readOnly = true)
+    public Map<String, Object> advancedSearchKeyset(
+            String query,
+            Map<String, Object> filters,
+            String cursor,
+            int size) {
+
+        KeysetPage<TreatmentPlan> page = KeysetQuery.fetch(
+                entityManager, TreatmentPlan.class, "createdAt", TreatmentPlan::getCreatedAt, TreatmentPlan::getId,
+                (cb, plan) -> buildFilterPredicates(cb, plan, query, filters),
+                cursor, size);
+
+        Map<String, Object> result = new HashMap<>();
+        result.put("results", page.getContent().stream().map(this::mapTreatmentPlanToSearchResult).toList());
+        result.put("nextCursor", page.getNextCursor());
+        result.put("hasMore", page.hasMore());
+
+        return result;
+    }
+
+    /**
+     * Rows changed after the (updatedAt, id) position, and which of them match - for saved search materialization
+     */
+    @Transactional(readOnly = true)
+    public ChangeScan.Batch scanChanges(
+            String query,
+            Map<String, Object> filters,
+            LocalDateTime afterUpdatedAt,
+            long afterId,
+            int size) {
+
+        return ChangeScan.fetch(
+                entityManager, TreatmentPlan.class,
+                (cb, plan) -> buildFilterPredicates(cb, plan, query, filters),
+                afterUpdatedAt, afterId, size);
+    }
+
+    /**
+     * Load and map rows by id, keeping the order of {@code ids}; ids that no longer exist are skipped
+     */
+    @Transactional(readOnly = true)
+    public List<Map<String, Object>> findByIds(List<Long> ids) {
+        Map<Long, TreatmentPlan> byId = new HashMap<>();
+        treatmentPlanRepository.findAllById(ids).forEach(e -> byId.put(e.getId(), e));
+
+        return ids.stream()
+                .map(byId::get)
+                .filter(Objects::nonNull)
+                .map(this::mapTreatmentPlanToSearchResult)
+                .toList();
+    }
+
     /**
      * Quick filter: Active plans
      */
@@ -238,6 +225,89 @@ public class TreatmentSearchService {
         return priorityValues.getOrDefault(priority1, 0) - priorityValues.getOrDefault(priority2, 0);
     }
 
+    private List<Predicate> buildFilterPredicates(
+            CriteriaBuilder cb,
+            Root<TreatmentPlan> plan,
+            String query,
+            Map<String, Object> filters) {
+
+        List<Predicate> predicates = new ArrayList<>();
+
+        // Text search
+        if (query != null && !query.trim().isEmpty()) {
+            String searchPattern = "%" + query.toLowerCase() + "%";
+            predicates.add(cb.or(
+                    cb.like(cb.lower(plan.get("planUid")), searchPattern),
+                    cb.like(cb.lower(plan.get("title")), searchPattern),
+                    cb.like(cb.lower(plan.get("diagnosis")), searchPattern),
+                    cb.like(cb.lower(plan.get("description")), searchPattern)
+            ));
+        }
+
+        // Apply filters
+        if (filters != null) {
+            // Status filter
+            if (filters.containsKey("status")) {
+                predicates.add(cb.equal(plan.get("status"), filters.get("status")));
+            }
+
+            // Priority filter
+            if (filters.containsKey("priority")) {
+                predicates.add(cb.equal(plan.get("priority"), filters.get("priority")));
+            }
+
+            // Category filter
+            if (filters.containsKey("category")) {
+                predicates.add(cb.equal(plan.get("category"), filters.get("category")));
+            }
+
+            // Doctor filter
+            if (filters.containsKey("doctorId")) {
+                predicates.add(cb.equal(plan.get("doctor").get("id"), filters.get("doctorId")));
+            }
+
+            // Patient filter
+            if (filters.containsKey("patientId")) {
+                predicates.add(cb.equal(plan.get("patient").get("id"), filters.get("patientId")));
+            }
+
+            // Progress range filter
+            if (filters.containsKey("minProgress")) {
+                int minProgress = ((Number) filters.get("minProgress")).intValue();
+                predicates.add(cb.greaterThanOrEqualTo(plan.get("progressPercentage"), minProgress));
+            }
+
+            if (filters.containsKey("maxProgress")) {
+                int maxProgress = ((Number) filters.get("maxProgress")).intValue();
+                predicates.add(cb.lessThanOrEqualTo(plan.get("progressPercentage"), maxProgress));
+            }
+
+            // Start date range filter
+            if (filters.containsKey("startDateFrom")) {
+                LocalDate startDateFrom = (LocalDate) filters.get("startDateFrom");
+                predicates.add(cb.greaterThanOrEqualTo(plan.get("startDate"), startDateFrom));
+            }
+
+            if (filters.containsKey("startDateTo")) {
+                LocalDate startDateTo = (LocalDate) filters.get("startDateTo");
+                predicates.add(cb.lessThanOrEqualTo(plan.get("startDate"), startDateTo));
+            }
+
+            // End date range filter
+            if (filters.containsKey("endDateFrom")) {
+                LocalDate endDateFrom = (LocalDate) filters.get("endDateFrom");
+                predicates.add(cb.greaterThanOrEqualTo(plan.get("endDate"), endDateFrom));
+            }
+
+            if (filters.containsKey("endDateTo")) {
+                LocalDate endDateTo = (LocalDate) filters.get("endDateTo");
+                predicates.add(cb.lessThanOrEqualTo(plan.get("endDate"), endDateTo));
+            }
+        }
+
+        return predicates;
+    }
+
     private Map<String, Object> mapTreatmentPlanToSearchResult(TreatmentPlan plan) {
         Map<String, Object> result = new HashMap<>();
         result.put("id", plan.getId());
@@ -0,0 +1,156 @@
+package com.team.medaibackend.service;
+
+import com.team.medaibackend.analytics.QuantileSketch;
+import jakarta.annotation.PreDestroy;
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.PersistenceContext;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.sql.Date;
+import java.time.LocalDate;
+import java.util.*;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Stream;
+
+/**
+ * Maintains report_turnaround_sketches (V34).
+ * <p>
+ * A trigger on reports queues every day a write touches (old and new created/finalized days).
+ * This service claims queued days with SKIP LOCKED, so several nodes can share the work, and
+ * rebuilds each day's sketches from that day's reports only. A write that commits mid-rebuild
+ * re-queues its day, so the result converges without any locking of reports.
+ */
+@Service
+public class TurnaroundSketchService {
+
+    private static final Logger logger = LoggerFactory.getLogger(TurnaroundSketchService.class);
+
+    private static final int DAYS_PER_BATCH = 20;
+
+    // stage, modality, author, minutes
+    private static final String DAY_VALUES =
+            "SELECT 'upload_to_draft', COALESCE(s.modality, ''), r.author_id, " +
+                    "extract(epoch FROM r.created_at - s.created_at) / 60 " +
+                    "FROM reports r JOIN studies s ON s.id = r.study_id " +
+                    "WHERE r.created_at >= :day AND r.created_at < :next " +
+                    "UNION ALL " +
+                    "SELECT 'draft_to_final', COALESCE(s.modality, ''), r.author_id, " +
+                    "extract(epoch FROM r.finalized_at - r.created_at) / 60 " +
+                    "FROM reports r LEFT JOIN studies s ON s.id = r.study_id " +
+                    "WHERE r.finalized_at >= :day AND r.finalized_at < :next AND r.created_at IS NOT NULL " +
+                    "UNION ALL " +
+                    "SELECT 'upload_to_final', COALESCE(s.modality, ''), r.author_id, " +
+                    "extract(epoch FROM r.finalized_at - s.created_at) / 60 " +
+                    "FROM reports r JOIN studies s ON s.id = r.study_id " +
+                    "WHERE r.finalized_at >= :day AND r.finalized_at < :next";
+
+    @PersistenceContext
+    private EntityManager entityManager;
+
+    private final TransactionTemplate transaction;
+    private final ScheduledExecutorService scheduler;
+
+    @Value("${analytics.turnaround.rebuild-interval-ms:60000}")
+    private long rebuildIntervalMs;
+
+    public TurnaroundSketchService(PlatformTransactionManager transactionManager) {
+        this.transaction = new TransactionTemplate(transactionManager);
+        this.scheduler = Executors.newSingleThreadScheduledExecutor(r -> {
+            Thread t = new Thread(r, "turnaround-sketches");
+            t.setDaemon(true);
+            return t;
+        });
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void start() {
+        scheduler.scheduleWithFixedDelay(this::rebuildQueuedDays, 0, rebuildIntervalMs, TimeUnit.MILLISECONDS);
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        scheduler.shutdownNow();
+    }
+
+    /**
+     * Rebuild every queued day; returns how many were rebuilt
+     */
+    public int rebuildQueuedDays() {
+        int rebuilt = 0;
+        try {
+            while (true) {
+                Integer batch = transaction.execute(status -> rebuildBatch());
+                if (batch == null || batch == 0) {
+                    break;
+                }
+                rebuilt += batch;
+            }
+            if (rebuilt > 0) {
+                logger.debug("Rebuilt turnaround sketches for {} days", rebuilt);
+            }
+        } catch (RuntimeException e) {
+            logger.warn("Turnaround sketch rebuild failed: {}", e.getMessage());
+        }
+        return rebuilt;
+    }
+
+    private int rebuildBatch() {
+        @SuppressWarnings("unchecked")
+        List<Date> days = entityManager.createNativeQuery(
+                        "DELETE FROM report_turnaround_dirty_days WHERE day IN (" +
+                                "SELECT day FROM report_turnaround_dirty_days ORDER BY day " +
+                                "LIMIT :limit FOR UPDATE SKIP LOCKED) RETURNING day")
+                .setParameter("limit", DAYS_PER_BATCH)
+                .getResultList();
+
+        for (Date day : days) {
+            rebuild(day.toLocalDate());
+        }
+        return days.size();
+    }
+
+    private void rebuild(LocalDate day) {
+        Map<List<Object>, QuantileSketch> sketches = new HashMap<>();
+
+        @SuppressWarnings("unchecked")
+        Stream<Object[]> rows = entityManager.createNativeQuery(DAY_VALUES)
+                .setParameter("day", day.atStartOfDay())
+                .setParameter("next", day.plusDays(1).atStartOfDay())
+                .getResultStream();
+        try (rows) {
+            rows.forEach(row -> {
+                if (row[3] == null) {
+                    return;
+                }
+                List<Object> key = List.of(row[0], row[1], ((Number) row[2]).longValue());
+                // Clock skew between upload and report can give small negative durations
+                double minutes = Math.max(0, ((Number) row[3]).doubleValue());
+                sketches.computeIfAbsent(key, k -> new QuantileSketch()).add(minutes);
+            });
+        }
+
+        entityManager.createNativeQuery("DELETE FROM report_turnaround_sketches WHERE day = :day")
+                .setParameter("day", day)
+                .executeUpdate();
+
+        sketches.forEach((key, sketch) -> entityManager.createNativeQuery(
+                        "INSERT INTO report_turnaround_sketches (day, stage, modality, author_id, count, sketch) " +
+                                "VALUES (:day, :stage, :modality, :author, :count, :sketch)")
+                .setParameter("day", day)
+                .setParameter("stage", key.get(0))
+                .setParameter("modality", key.get(1))
+                .setParameter("author", key.get(2))
+                .setParameter("count", sketch.getCount())
+                .setParameter("sketch", sketch.encode())
+                .executeUpdate());
+    }
+}
@@ -1,30 +1,34 @@
 package com.team.medaibackend.service;
 
-import com.team.medaibackend.entity.AuditLog;
-import com.team.medaibackend.repository.AuditLogRepository;
 import com.team.medaibackend.repository.UserRepository;
+import com.team.medaibackend.service.AnalyticsRollupService.Rollup;
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.PersistenceContext;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
 import java.time.LocalDate;
 import java.time.LocalDateTime;
 import java.util.*;
-import java.util.stream.Collectors;
 
 /**
  * User activity and engagement analytics
+ * Audit log metrics are GROUP BY / count(DISTINCT) aggregates; no audit rows are loaded into memory.
  */
 @Service
 public class UserAnalyticsService {
 
+    @PersistenceContext
+    private EntityManager entityManager;
+
     private final UserRepository userRepository;
-    private final AuditLogRepository auditLogRepository;
+    private final AnalyticsRollupService rollups;
 
     public UserAnalyticsService(
             UserRepository userRepository,
-            AuditLogRepository auditLogRepository) {
+            AnalyticsRollupService rollups) {
         this.userRepository = userRepository;
-        this.auditLogRepository = auditLogRepository;
+        this.rollups = rollups;
     }
 
     /**
@@ -37,17 +41,19 @@ public class UserAnalyticsService {
         LocalDateTime start = startDate.atStartOfDay();
         LocalDateTime end = endDate.atTime(23, 59, 59);
 
-        List<AuditLog> logs = auditLogRepository.findByCreatedAtBetween(start, end);
+        Object[] row = (Object[]) entityManager.createNativeQuery(
+                        "SELECT count(*), count(DISTINCT user_id) FROM audit_log " +
+                                "WHERE created_at BETWEEN :start AND :end")
+                .setParameter("start", start)
+                .setParameter("end", end)
+                .getSingleResult();
 
         // Total actions
-        metrics.put("totalActions", logs.size());
+        long totalActions = ((Number) row[0]).longValue();
+        metrics.put("totalActions", totalActions);
 
         // Unique active users
-        long uniqueUsers = logs.stream()
-                .map(AuditLog::getUserId)
-                .filter(Objects::nonNull)
-                .distinct()
-                .count();
+        long uniqueUsers = ((Number) row[1]).longValue();
         metrics.put("activeUsers", uniqueUsers);
 
         // Total registered users
@@ -57,7 +63,7 @@ public class UserAnalyticsService {
 
         // Actions per user
         metrics.put("averageActionsPerUser", uniqueUsers > 0 ?
-                (double) logs.size() / uniqueUsers : 0);
+                (double) totalActions / uniqueUsers : 0);
 
         return metrics;
     }
@@ -70,25 +76,24 @@ public class UserAnalyticsService {
         LocalDateTime start = startDate.atStartOfDay();
         LocalDateTime end = endDate.atTime(23, 59, 59);
 
-        List<AuditLog> logs = auditLogRepository.findByCreatedAtBetween(start, end);
-
-        Map<String, Long> userActionCounts = logs.stream()
-                .filter(log -> log.getUsername() != null)
-                .collect(Collectors.groupingBy(
-                        AuditLog::getUsername,
-                        Collectors.counting()
-                ));
-
-        return userActionCounts.entrySet().stream()
-                .sorted(Map.Entry.<String, Long>comparingByValue().reversed())
-                .limit(limit)
-                .map(entry -> {
-                    Map<String, Object> item = new HashMap<>();
-                    item.put("username", entry.getKey());
-                    item.put("actionCount", entry.getValue());
-                    return item;
-                })
-                .collect(Collectors.toList());
+        @SuppressWarnings("unchecked")
+        List<Object[]> rows = entityManager.createNativeQuery(
+                        "SELECT username, count(*) FROM audit_log " +
+                                "WHERE created_at BETWEEN :start AND :end AND username IS NOT NULL " +
+                                "GROUP BY username ORDER BY count(*) DESC LIMIT :limit")
+                .setParameter("start", start)
+                .setParameter("end", end)
+                .setParameter("limit", limit)
+                .getResultList();
+
+        List<Map<String, Object>> users = new ArrayList<>();
+        for (Object[] row : rows) {
+            Map<String, Object> item = new HashMap<>();
+            item.put("username", row[0]);
+            item.put("actionCount", ((Number) row[1]).longValue());
+            users.add(item);
+        }
+        return users;
     }
 
     /**
@@ -96,26 +101,11 @@ public class UserAnalyticsService {
      */
     @Transactional(readOnly = true)
     public Map<String, Long> getActionDistribution(LocalDate startDate, LocalDate endDate) {
-        LocalDateTime start = startDate.atStartOfDay();
-        LocalDateTime end = endDate.atTime(23, 59, 59);
-
-        List<AuditLog> logs = auditLogRepository.findByCreatedAtBetween(start, end);
-
-        return logs.stream()
-                .filter(log -> log.getAction() != null)
-                .collect(Collectors.groupingBy(
-                        AuditLog::getAction,
-                        Collectors.counting()
-                ))
-                .entrySet().stream()
-                .sorted(Map.Entry.<String, Long>comparingByValue().reversed())
+        Map<String, Long> top = new LinkedHashMap<>();
+        rollups.breakdown(Rollup.AUDIT, startDate, endDate, "action").entrySet().stream()
                 .limit(10)
-                .collect(Collectors.toMap(
-                        Map.Entry::getKey,
-                        Map.Entry::getValue,
-                        (e1, e2) -> e1,
-                        LinkedHashMap::new
-                ));
+                .forEach(entry -> top.put(entry.getKey(), entry.getValue()));
+        return top;
     }
 
     /**
@@ -126,22 +116,20 @@ public class UserAnalyticsService {
         LocalDateTime start = startDate.atStartOfDay();
         LocalDateTime end = endDate.atTime(23, 59, 59);
 
-        List<AuditLog> logs = auditLogRepository.findByCreatedAtBetween(start, end);
-
-        return logs.stream()
-                .filter(log -> log.getResourceType() != null)
-                .collect(Collectors.groupingBy(
-                        AuditLog::getResourceType,
-                        Collectors.counting()
-                ))
-                .entrySet().stream()
-                .sorted(Map.Entry.<String, Long>comparingByValue().reversed())
-                .collect(Collectors.toMap(
-                        Map.Entry::getKey,
-                        Map.Entry::getValue,
-                        (e1, e2) -> e1,
-                        LinkedHashMap::new
-                ));
+        @SuppressWarnings("unchecked")
+        List<Object[]> rows = entityManager.createNativeQuery(
+                        "SELECT resource_type, count(*) FROM audit_log " +
+                                "WHERE created_at BETWEEN :start AND :end AND resource_type IS NOT NULL " +
+                                "GROUP BY resource_type ORDER BY count(*) DESC")
+                .setParameter("start", start)
+                .setParameter("end", end)
+                .getResultList();
+
+        Map<String, Long> usage = new LinkedHashMap<>();
+        for (Object[] row : rows) {
+            usage.put((String) row[0], ((Number) row[1]).longValue());
+        }
+        return usage;
     }
 
     /**
@@ -151,24 +139,14 @@ public class UserAnalyticsService {
     public List<Map<String, Object>> getActivityTrends(LocalDate startDate, LocalDate endDate) {
         List<Map<String, Object>> trends = new ArrayList<>();
 
-        LocalDateTime start = startDate.atStartOfDay();
-        LocalDateTime end = endDate.atTime(23, 59, 59);
-
-        List<AuditLog> logs = auditLogRepository.findByCreatedAtBetween(start, end);
-
-        // Group by date
-        Map<LocalDate, Long> actionsByDate = logs.stream()
-                .collect(Collectors.groupingBy(
-                        log -> log.getCreatedAt().toLocalDate(),
-                        Collectors.counting()
-                ));
+        Map<String, Long> actionsByDate = rollups.daily(Rollup.AUDIT, startDate, endDate);
 
         // Fill in missing dates
         LocalDate current = startDate;
         while (!current.isAfter(endDate)) {
             Map<String, Object> dataPoint = new HashMap<>();
             dataPoint.put("date", current.toString());
-            dataPoint.put("count", actionsByDate.getOrDefault(current, 0L));
+            dataPoint.put("count", actionsByDate.getOrDefault(current.toString(), 0L));
             trends.add(dataPoint);
             current = current.plusDays(1);
         }
@@ -181,18 +159,20 @@ public class UserAnalyticsService {
      */
     @Transactional(readOnly = true)
     public List<Map<String, Object>> getActivityHeatmap() {
-        List<AuditLog> logs = auditLogRepository.findAll();
-
-        // Create 7x24 grid
+        // Create 7x24 grid; ISO day of week is 1 (Monday) to 7 (Sunday)
         int[][] grid = new int[7][24];
 
-        logs.stream()
-                .filter(log -> log.getCreatedAt() != null)
-                .forEach(log -> {
-                    int dayOfWeek = log.getCreatedAt().getDayOfWeek().getValue() - 1; // 0-6
-                    int hour = log.getCreatedAt().getHour(); // 0-23
-                    grid[dayOfWeek][hour]++;
-                });
+        @SuppressWarnings("unchecked")
+        List<Object[]> rows = entityManager.createNativeQuery(
+                        "SELECT CAST(extract(isodow FROM created_at) AS int), CAST(extract(hour FROM created_at) AS int), count(*) " +
+                                "FROM audit_log WHERE created_at IS NOT NULL GROUP BY 1, 2")
+                .getResultList();
+
+        for (Object[] row : rows) {
+            int dayOfWeek = ((Number) row[0]).intValue() - 1; // 0-6
+            int hour = ((Number) row[1]).intValue(); // 0-23
+            grid[dayOfWeek][hour] = ((Number) row[2]).intValue();
+        }
 
         // Convert to list
         List<Map<String, Object>> heatmapData = new ArrayList<>();
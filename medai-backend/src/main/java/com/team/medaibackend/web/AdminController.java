@@ -6,22 +6,27 @@ import com.team.medaibackend.exception.UnauthorizedException;
 import com.team.medaibackend.repository.AuditLogRepository;
 import com.team.medaibackend.repository.RoleRepository;
 import com.team.medaibackend.repository.UserRepository;
+import com.team.medaibackend.security.PrincipalCache;
+import com.team.medaibackend.security.TokenRevocationService;
 import com.team.medaibackend.security.SecurityUtils;
 import com.team.medaibackend.service.AuditService;
+import com.team.medaibackend.service.StreamingExportService;
+import jakarta.servlet.http.HttpServletResponse;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.PageRequest;
 import org.springframework.data.domain.Pageable;
 import org.springframework.data.domain.Sort;
 import org.springframework.http.HttpHeaders;
-import org.springframework.http.HttpStatus;
 import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.security.crypto.password.PasswordEncoder;
 import org.springframework.transaction.annotation.Transactional;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.context.request.async.WebAsyncTask;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 
-import java.nio.charset.StandardCharsets;
 import java.time.LocalDate;
+import java.time.format.DateTimeParseException;
 import java.util.*;
 import java.util.regex.Pattern;
 
@@ -35,6 +40,9 @@ public class AdminController {
     private final AuditService auditService;
     private final PasswordEncoder passwordEncoder;
     private final SecurityUtils securityUtils;
+    private final PrincipalCache principalCache;
+    private final TokenRevocationService revocations;
+    private final StreamingExportService streamingExport;
 
     // Email validation pattern
     private static final Pattern EMAIL_PATTERN = Pattern.compile(
@@ -46,13 +54,19 @@ public class AdminController {
                            AuditLogRepository auditLogRepository,
                            AuditService auditService,
                            PasswordEncoder passwordEncoder,
-                           SecurityUtils securityUtils) {
+                           SecurityUtils securityUtils,
+                           PrincipalCache principalCache,
+                           TokenRevocationService revocations,
+                           StreamingExportService streamingExport) {
         this.userRepository = userRepository;
         this.roleRepository = roleRepository;
         this.auditLogRepository = auditLogRepository;
         this.auditService = auditService;
         this.passwordEncoder = passwordEncoder;
         this.securityUtils = securityUtils;
+        this.principalCache = principalCache;
+        this.revocations = revocations;
+        this.streamingExport = streamingExport;
     }
 
     @GetMapping("/users")
@@ -272,6 +286,11 @@ public class AdminController {
             }
 
             userRepository.save(user);
+            principalCache.invalidate(id);
+            if (request.containsKey("role")) {
+                // Tokens carry the role; make the user log in again to pick up the new one
+                revocations.revokeUser(user.getUsername());
+            }
 
             // Audit log
             auditService.log("UPDATE_USER", "USER", id.toString(),
@@ -328,6 +347,10 @@ public class AdminController {
 
         user.setEnabled(enabled);
         userRepository.save(user);
+        principalCache.invalidate(id);
+        if (!enabled) {
+            revocations.revokeUser(user.getUsername());
+        }
 
         // Audit log
         auditService.log(enabled ? "ENABLE_USER" : "DISABLE_USER", "USER", id.toString(),
@@ -363,6 +386,7 @@ public class AdminController {
         User user = userOpt.get();
         user.setPasswordHash(passwordEncoder.encode(newPassword));
         userRepository.save(user);
+        revocations.revokeUser(user.getUsername());
 
         // Audit log
         auditService.log("RESET_PASSWORD", "USER", id.toString(),
@@ -415,6 +439,8 @@ public class AdminController {
 
         // Delete the user
         userRepository.deleteById(id);
+        principalCache.invalidate(id);
+        revocations.revokeUser(deletedUsername);
 
         return ResponseEntity.ok(Map.of(
                 "message", "User '" + deletedUsername + "' deleted successfully",
@@ -461,6 +487,10 @@ public class AdminController {
 
             user.setEnabled(enabled);
             userRepository.save(user);
+            principalCache.invalidate(userId);
+            if (!enabled) {
+                revocations.revokeUser(user.getUsername());
+            }
             updated++;
 
             auditService.log(enabled ? "ENABLE_USER" : "DISABLE_USER", "USER", userId.toString(),
@@ -509,25 +539,50 @@ public class AdminController {
         return ResponseEntity.ok(stats);
     }
 
+    /**
+     * Full audit trail as CSV (gzip by default), streamed from a database cursor
+     */
     @GetMapping("/audit/export")
-    public ResponseEntity<byte[]> exportAuditLogs() {
+    public WebAsyncTask<Void> exportAuditLogs(
+            @RequestParam(required = false) Long userId,
+            @RequestParam(required = false) String action,
+            @RequestParam(required = false) String resourceType,
+            @RequestParam(required = false) String resourceId,
+            @RequestParam(required = false) String dateFrom,
+            @RequestParam(required = false) String dateTo,
+            @RequestParam(defaultValue = "true") boolean gzip,
+            HttpServletResponse response) {
         // Verify admin access
+        User currentUser = securityUtils.getCurrentUserOrThrow();
         if (!securityUtils.isAdmin()) {
             throw new UnauthorizedException("Admin access required");
         }
 
-        // Simple CSV export
-        StringBuilder csv = new StringBuilder();
-        csv.append("ID,Timestamp,Action,Resource Type,Resource ID,User ID,Username,IP Address\n");
+        StreamingResponseBody body;
+        try {
+            body = auditService.exportAuditLogs(userId, action, resourceType, resourceId, dateFrom, dateTo, gzip);
+        } catch (DateTimeParseException e) {
+            throw new IllegalArgumentException("Dates must be in yyyy-MM-dd format");
+        }
 
-        // For now, return empty CSV structure
-        byte[] csvBytes = csv.toString().getBytes(StandardCharsets.UTF_8);
+        Map<String, Object> filters = new LinkedHashMap<>();
+        filters.put("userId", userId);
+        filters.put("action", action);
+        filters.put("resourceType", resourceType);
+        filters.put("resourceId", resourceId);
+        filters.put("dateFrom", dateFrom);
+        filters.put("dateTo", dateTo);
+        filters.values().removeIf(Objects::isNull);
+        auditService.log(AuditService.ACTION_EXPORT, "AUDIT_LOG", null,
+                currentUser.getId(), currentUser.getUsername(), null, null, filters);
 
         HttpHeaders headers = new HttpHeaders();
-        headers.setContentType(MediaType.parseMediaType("text/csv"));
-        headers.setContentDispositionFormData("attachment", "audit_logs_" + LocalDate.now() + ".csv");
-        headers.setContentLength(csvBytes.length);
+        headers.setContentType(gzip
+                ? MediaType.parseMediaType("application/gzip")
+                : MediaType.parseMediaType("text/csv;charset=UTF-8"));
+        headers.setContentDispositionFormData("attachment",
+                "audit_logs_" + LocalDate.now() + ".csv" + (gzip ? ".gz" : ""));
 
-        return new ResponseEntity<>(csvBytes, headers, HttpStatus.OK);
+        return streamingExport.respond(response, headers, body);
     }
-}
\ No newline at end of file
+}
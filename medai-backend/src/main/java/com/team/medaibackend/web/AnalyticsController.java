@@ -1,15 +1,28 @@
 package com.team.medaibackend.web;
 
+import com.team.medaibackend.cache.BoundedCacheManager;
 import com.team.medaibackend.service.*;
+import com.team.medaibackend.service.AnalyticsExportService.Dataset;
+import com.team.medaibackend.service.StreamingExportService.Format;
+import jakarta.servlet.http.HttpServletResponse;
 import org.springframework.format.annotation.DateTimeFormat;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.security.access.prepost.PreAuthorize;
+import org.springframework.web.bind.annotation.DeleteMapping;
 import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.PathVariable;
+import org.springframework.web.bind.annotation.PostMapping;
 import org.springframework.web.bind.annotation.RequestMapping;
 import org.springframework.web.bind.annotation.RequestParam;
 import org.springframework.web.bind.annotation.RestController;
+import org.springframework.web.context.request.async.WebAsyncTask;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 
 import java.time.LocalDate;
+import java.util.List;
+import java.util.Map;
 
 @RestController
 @RequestMapping("/api/analytics")
@@ -21,6 +34,11 @@ public class AnalyticsController {
     private final TreatmentAnalyticsService treatmentAnalytics;
     private final UserAnalyticsService userAnalytics;
     private final SystemAnalyticsService systemAnalytics;
+    private final AnalyticsRollupService rollups;
+    private final BoundedCacheManager cacheManager;
+    private final CubeService cube;
+    private final AnalyticsExportService analyticsExport;
+    private final StreamingExportService streamingExport;
 
     public AnalyticsController(
             PatientAnalyticsService patientAnalytics,
@@ -28,13 +46,23 @@ public class AnalyticsController {
             ReportAnalyticsService reportAnalytics,
             TreatmentAnalyticsService treatmentAnalytics,
             UserAnalyticsService userAnalytics,
-            SystemAnalyticsService systemAnalytics) {
+            SystemAnalyticsService systemAnalytics,
+            AnalyticsRollupService rollups,
+            BoundedCacheManager cacheManager,
+            CubeService cube,
+            AnalyticsExportService analyticsExport,
+            StreamingExportService streamingExport) {
         this.patientAnalytics = patientAnalytics;
         this.studyAnalytics = studyAnalytics;
         this.reportAnalytics = reportAnalytics;
         this.treatmentAnalytics = treatmentAnalytics;
         this.userAnalytics = userAnalytics;
         this.systemAnalytics = systemAnalytics;
+        this.rollups = rollups;
+        this.cacheManager = cacheManager;
+        this.cube = cube;
+        this.analyticsExport = analyticsExport;
+        this.streamingExport = streamingExport;
     }
 
     // Patient Analytics
@@ -140,6 +168,19 @@ public class AnalyticsController {
         return ResponseEntity.ok(reportAnalytics.getTurnaroundAnalysis());
     }
 
+    @GetMapping("/reports/turnaround/percentiles")
+    @PreAuthorize("hasAnyRole('DOCTOR', 'ADMIN')")
+    public ResponseEntity<?> getTurnaroundPercentiles(
+            @RequestParam @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate startDate,
+            @RequestParam @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate endDate,
+            @RequestParam(defaultValue = "none") String groupBy) {
+        try {
+            return ResponseEntity.ok(reportAnalytics.getTurnaroundPercentiles(startDate, endDate, groupBy));
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.badRequest().body(Map.of("message", e.getMessage()));
+        }
+    }
+
     // Treatment Analytics
     @GetMapping("/treatments/overview")
     @PreAuthorize("hasAnyRole('DOCTOR', 'ADMIN')")
@@ -206,8 +247,8 @@ public class AnalyticsController {
     // System Analytics
     @GetMapping("/system/performance")
     @PreAuthorize("hasRole('ADMIN')")
-    public ResponseEntity<?> getSystemPerformance() {
-        return ResponseEntity.ok(systemAnalytics.getPerformanceMetrics());
+    public ResponseEntity<?> getSystemPerformance(@RequestParam(defaultValue = "5") int windowMinutes) {
+        return ResponseEntity.ok(systemAnalytics.getPerformanceMetrics(windowMinutes));
     }
 
     @GetMapping("/system/storage")
@@ -221,4 +262,92 @@ public class AnalyticsController {
     public ResponseEntity<?> getSystemHealth() {
         return ResponseEntity.ok(systemAnalytics.getHealthStatus());
     }
-}
\ No newline at end of file
+
+    @GetMapping("/system/sql")
+    @PreAuthorize("hasRole('ADMIN')")
+    public ResponseEntity<?> getSqlMetrics() {
+        return ResponseEntity.ok(systemAnalytics.getSqlMetrics());
+    }
+
+    @DeleteMapping("/system/sql")
+    @PreAuthorize("hasRole('ADMIN')")
+    public ResponseEntity<?> resetSqlMetrics() {
+        systemAnalytics.resetSqlMetrics();
+        return ResponseEntity.ok(Map.of("message", "SQL metrics reset"));
+    }
+
+    @GetMapping("/cache/stats")
+    @PreAuthorize("hasRole('ADMIN')")
+    public ResponseEntity<?> getCacheStatistics() {
+        return ResponseEntity.ok(cacheManager.getStatistics());
+    }
+
+    @PostMapping("/rollups/reconcile")
+    @PreAuthorize("hasRole('ADMIN')")
+    public ResponseEntity<?> reconcileRollups(@RequestParam(defaultValue = "90") int days) {
+        try {
+            return ResponseEntity.ok(rollups.reconcile(days));
+        } catch (Exception e) {
+            return ResponseEntity.badRequest().body(Map.of("message", e.getMessage()));
+        }
+    }
+
+    // Ad-hoc cube
+    @GetMapping("/cube")
+    @PreAuthorize("hasRole('ADMIN')")
+    public ResponseEntity<?> getCubeSchema() {
+        return ResponseEntity.ok(cube.getSchema());
+    }
+
+    @GetMapping("/cube/{table}")
+    @PreAuthorize("hasRole('ADMIN')")
+    public ResponseEntity<?> queryCube(
+            @PathVariable String table,
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate startDate,
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate endDate,
+            @RequestParam(required = false) List<String> dimensions,
+            @RequestParam(required = false) List<String> filter,
+            @RequestParam(required = false) String measure,
+            @RequestParam(defaultValue = "1000") int limit) {
+        try {
+            return ResponseEntity.ok(cube.query(table, startDate, endDate, dimensions, filter, measure, limit));
+        } catch (IllegalArgumentException e) {
+            // A snapshot still loading is a 503 with Retry-After from GlobalExceptionHandler
+            return ResponseEntity.badRequest().body(Map.of("message", e.getMessage()));
+        }
+    }
+
+    @PostMapping("/cube/refresh")
+    @PreAuthorize("hasRole('ADMIN')")
+    public ResponseEntity<?> refreshCube() {
+        try {
+            return ResponseEntity.ok(cube.refresh());
+        } catch (Exception e) {
+            return ResponseEntity.badRequest().body(Map.of("message", e.getMessage()));
+        }
+    }
+
+    // Streaming exports (trends, demographics, activity)
+    @GetMapping("/export/{dataset}")
+    @PreAuthorize("hasRole('ADMIN') or (hasRole('DOCTOR') and !#dataset.equalsIgnoreCase('activity'))")
+    public WebAsyncTask<Void> exportDataset(
+            @PathVariable String dataset,
+            @RequestParam @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate startDate,
+            @RequestParam @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate endDate,
+            @RequestParam(defaultValue = "csv") String format,
+            @RequestParam(defaultValue = "true") boolean gzip,
+            HttpServletResponse response) {
+        // An unknown dataset or format, or a bad range, is a 400 from GlobalExceptionHandler
+        Dataset exported = Dataset.parse(dataset);
+        Format exportFormat = Format.parse(format);
+        StreamingResponseBody body = analyticsExport.export(exported, startDate, endDate, exportFormat, gzip);
+
+        HttpHeaders headers = new HttpHeaders();
+        headers.setContentType(gzip
+                ? MediaType.parseMediaType("application/gzip")
+                : MediaType.parseMediaType(exportFormat.getContentType() + ";charset=UTF-8"));
+        headers.setContentDispositionFormData("attachment",
+                analyticsExport.fileName(exported, startDate, endDate, exportFormat, gzip));
+        return streamingExport.respond(response, headers, body);
+    }
+}
@@ -1,5 +1,6 @@
 package com.team.medaibackend.web;
 
+import com.team.medaibackend.dto.AppointmentListItem;
 import com.team.medaibackend.entity.Appointment;
 import com.team.medaibackend.entity.Patient;
 import com.team.medaibackend.entity.User;
@@ -47,15 +48,10 @@ public class AppointmentController {
             @RequestParam(required = false) String status
     ) {
         Pageable pageable = PageRequest.of(page, size, Sort.by("appointmentDate", "appointmentTime").ascending());
-        Page<Appointment> appointmentPage = appointmentRepository.findAll(pageable);
-
-        List<Map<String, Object>> result = new ArrayList<>();
-        for (Appointment apt : appointmentPage.getContent()) {
-            result.add(toDto(apt));
-        }
+        Page<AppointmentListItem> appointmentPage = appointmentRepository.findListItems(pageable);
 
         Map<String, Object> response = new HashMap<>();
-        response.put("content", result);
+        response.put("content", appointmentPage.getContent());
         response.put("totalElements", appointmentPage.getTotalElements());
         response.put("totalPages", appointmentPage.getTotalPages());
 
@@ -64,7 +60,7 @@ public class AppointmentController {
 
     // Get appointments for logged-in doctor
     @GetMapping("/doctor")
-    public ResponseEntity<List<Map<String, Object>>> getDoctorAppointments(Authentication authentication) {
+    public ResponseEntity<List<AppointmentListItem>> getDoctorAppointments(Authentication authentication) {
         String username = authentication.getName();
         User doctor = userRepository.findByUsername(username).orElse(null);
 
@@ -72,18 +68,12 @@ public class AppointmentController {
             return ResponseEntity.ok(Collections.emptyList());
         }
 
-        List<Appointment> appointments = appointmentRepository.findByDoctorIdOrderByAppointmentDateAscAppointmentTimeAsc(doctor.getId());
-
-        List<Map<String, Object>> result = appointments.stream()
-                .map(this::toDto)
-                .toList();
-
-        return ResponseEntity.ok(result);
+        return ResponseEntity.ok(appointmentRepository.findListItemsByDoctor(doctor.getId()));
     }
 
     // Get today's appointments for a doctor
     @GetMapping("/doctor/today")
-    public ResponseEntity<List<Map<String, Object>>> getDoctorTodayAppointments(Authentication authentication) {
+    public ResponseEntity<List<AppointmentListItem>> getDoctorTodayAppointments(Authentication authentication) {
         String username = authentication.getName();
         User doctor = userRepository.findByUsername(username).orElse(null);
 
@@ -92,18 +82,12 @@ public class AppointmentController {
         }
 
         LocalDate today = LocalDate.now();
-        List<Appointment> appointments = appointmentRepository.findByDoctorIdAndAppointmentDate(doctor.getId(), today);
-
-        List<Map<String, Object>> result = appointments.stream()
-                .map(this::toDto)
-                .toList();
-
-        return ResponseEntity.ok(result);
+        return ResponseEntity.ok(appointmentRepository.findListItemsByDoctorAndDate(doctor.getId(), today));
     }
 
     // Get appointments for a specific week (for doctor calendar)
     @GetMapping("/doctor/week")
-    public ResponseEntity<List<Map<String, Object>>> getDoctorWeekAppointments(
+    public ResponseEntity<List<AppointmentListItem>> getDoctorWeekAppointments(
             @RequestParam String startDate,
             @RequestParam String endDate,
             Authentication authentication
@@ -118,32 +102,19 @@ public class AppointmentController {
         LocalDate start = LocalDate.parse(startDate);
         LocalDate end = LocalDate.parse(endDate);
 
-        List<Appointment> appointments = appointmentRepository.findByDoctorIdAndDateRange(
-                doctor.getId(), start, end);
-
-        List<Map<String, Object>> result = appointments.stream()
-                .map(this::toDto)
-                .toList();
-
-        return ResponseEntity.ok(result);
+        return ResponseEntity.ok(appointmentRepository.findListItemsByDoctorAndDateRange(doctor.getId(), start, end));
     }
 
     // Get today's appointments for nurse schedule
     @GetMapping("/today")
-    public ResponseEntity<List<Map<String, Object>>> getTodayAppointments() {
+    public ResponseEntity<List<AppointmentListItem>> getTodayAppointments() {
         LocalDate today = LocalDate.now();
-        List<Appointment> appointments = appointmentRepository.findByAppointmentDateOrderByAppointmentTimeAsc(today);
-
-        List<Map<String, Object>> result = appointments.stream()
-                .map(this::toDto)
-                .toList();
-
-        return ResponseEntity.ok(result);
+        return ResponseEntity.ok(appointmentRepository.findListItemsByDate(today));
     }
 
     // Get patient's appointments
     @GetMapping("/patient")
-    public ResponseEntity<List<Map<String, Object>>> getPatientAppointments(Authentication authentication) {
+    public ResponseEntity<List<AppointmentListItem>> getPatientAppointments(Authentication authentication) {
         String username = authentication.getName();
         User user = userRepository.findByUsername(username).orElse(null);
 
@@ -154,20 +125,16 @@ public class AppointmentController {
         // Find patient record linked to this user
         Patient patient = patientRepository.findByUser_Email(user.getEmail()).orElse(null);
 
-        List<Appointment> appointments;
+        List<AppointmentListItem> appointments;
 
         if (patient != null) {
-            appointments = appointmentRepository.findByPatientIdOrderByAppointmentDateDescAppointmentTimeDesc(patient.getId());
+            appointments = appointmentRepository.findListItemsByPatient(patient.getId());
         } else {
             // If no patient record exists, return appointments created by this user (as patient)
             appointments = Collections.emptyList();
         }
 
-        List<Map<String, Object>> result = appointments.stream()
-                .map(this::toDto)
-                .toList();
-
-        return ResponseEntity.ok(result);
+        return ResponseEntity.ok(appointments);
     }
 
     @GetMapping("/{id}")
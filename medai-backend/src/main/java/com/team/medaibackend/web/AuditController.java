@@ -1,6 +1,7 @@
 package com.team.medaibackend.web;
 
 import com.team.medaibackend.entity.AuditLog;
+import com.team.medaibackend.search.KeysetPage;
 import com.team.medaibackend.service.AuditService;
 import org.springframework.data.domain.Page;
 import org.springframework.http.ResponseEntity;
@@ -30,7 +31,27 @@ public class AuditController {
             @RequestParam(required = false) String dateFrom,
             @RequestParam(required = false) String dateTo,
             @RequestParam(defaultValue = "0") int page,
-            @RequestParam(defaultValue = "50") int size) {
+            @RequestParam(defaultValue = "50") int size,
+            @RequestParam(defaultValue = "offset") String paging,
+            @RequestParam(required = false) String cursor,
+            @RequestParam(defaultValue = "false") boolean estimateCount) {
+
+        if ("keyset".equals(paging) || cursor != null) {
+            KeysetPage<AuditLog> logs = auditService.getAuditLogsKeyset(
+                    userId, action, resourceType, dateFrom, dateTo, cursor, size);
+
+            Map<String, Object> response = new HashMap<>();
+            response.put("content", logs.getContent());
+            response.put("nextCursor", logs.getNextCursor());
+            response.put("hasMore", logs.hasMore());
+            response.put("pageSize", size);
+            if (estimateCount) {
+                response.put("estimatedTotalElements",
+                        auditService.estimateAuditLogs(userId, action, resourceType, dateFrom, dateTo));
+            }
+
+            return ResponseEntity.ok(response);
+        }
 
         Page<AuditLog> logs = auditService.getAuditLogs(
                 userId, action, resourceType, dateFrom, dateTo, page, size);
@@ -3,8 +3,12 @@ package com.team.medaibackend.web;
 import com.team.medaibackend.dto.LoginRequest;
 import com.team.medaibackend.dto.LoginResponse;
 import com.team.medaibackend.dto.RegisterRequest;
+import com.team.medaibackend.exception.TooManyRequestsException;
 import com.team.medaibackend.service.AuthService;
+import jakarta.servlet.http.HttpServletRequest;
 import jakarta.validation.Valid;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
 
@@ -23,10 +27,14 @@ public class AuthController {
     }
 
     @PostMapping("/login")
-    public ResponseEntity<?> login(@Valid @RequestBody LoginRequest request) {
+    public ResponseEntity<?> login(@Valid @RequestBody LoginRequest request, HttpServletRequest httpRequest) {
         try {
-            LoginResponse response = authService.login(request);
+            LoginResponse response = authService.login(request, httpRequest.getRemoteAddr());
             return ResponseEntity.ok(response);
+        } catch (TooManyRequestsException e) {
+            return ResponseEntity.status(HttpStatus.TOO_MANY_REQUESTS)
+                    .header(HttpHeaders.RETRY_AFTER, String.valueOf(e.getRetryAfterSeconds()))
+                    .body(Map.of("message", e.getMessage()));
         } catch (RuntimeException e) {
             Map<String, String> error = new HashMap<>();
             error.put("message", e.getMessage());
@@ -62,6 +70,24 @@ public class AuthController {
         }
     }
 
+    @PostMapping("/logout")
+    public ResponseEntity<?> logout(@RequestHeader(value = "Authorization", required = false) String authHeader,
+                                    @RequestBody(required = false) Map<String, String> request,
+                                    HttpServletRequest httpRequest) {
+        try {
+            if (authHeader == null || !authHeader.startsWith("Bearer ")) {
+                throw new RuntimeException("Access token is required");
+            }
+            String refreshToken = request != null ? request.get("refreshToken") : null;
+            authService.logout(authHeader.substring(7), refreshToken, httpRequest.getRemoteAddr());
+            return ResponseEntity.ok(Map.of("message", "Logged out"));
+        } catch (RuntimeException e) {
+            Map<String, String> error = new HashMap<>();
+            error.put("message", e.getMessage());
+            return ResponseEntity.badRequest().body(error);
+        }
+    }
+
     @GetMapping("/roles")
     public ResponseEntity<Map<String, Object>> getAvailableRoles() {
         Map<String, Object> response = new HashMap<>();
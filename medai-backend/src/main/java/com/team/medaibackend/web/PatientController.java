@@ -1,9 +1,13 @@
 package com.team.medaibackend.web;
 
+import com.team.medaibackend.dto.DoctorPatientRow;
+import com.team.medaibackend.dto.PatientCard;
+import com.team.medaibackend.dto.PatientListItem;
 import com.team.medaibackend.entity.*;
 import com.team.medaibackend.repository.*;
 import com.team.medaibackend.security.SecurityUtils;
 import com.team.medaibackend.service.AuditService;
+import org.springframework.data.domain.PageRequest;
 import org.springframework.http.ResponseEntity;
 import org.springframework.security.core.Authentication;
 import org.springframework.security.crypto.password.PasswordEncoder;
@@ -157,23 +161,11 @@ public class PatientController {
     }
 
     @GetMapping("/all")
-    public ResponseEntity<List<Map<String, Object>>> getAllPatients(
+    public ResponseEntity<List<PatientListItem>> getAllPatients(
             @RequestParam(defaultValue = "0") int page,
             @RequestParam(defaultValue = "100") int size) {
 
-        List<Patient> patients = patientRepository.findAll();
-
-        List<Map<String, Object>> result = patients.stream().map(patient -> {
-            Map<String, Object> dto = new HashMap<>();
-            dto.put("id", patient.getId());
-            dto.put("patientId", patient.getPatientId());
-            dto.put("name", patient.getName());
-            dto.put("sex", patient.getSex());
-            dto.put("birthDate", patient.getBirthDate());
-            return dto;
-        }).toList();
-
-        return ResponseEntity.ok(result);
+        return ResponseEntity.ok(patientRepository.findAllListItems());
     }
 
     // ============================================================================
@@ -199,55 +191,42 @@ public class PatientController {
         // Get current doctor
         User doctor = securityUtils.getCurrentUserOrThrow();
 
-        // Get all appointments for this doctor to find their patients
-        List<Appointment> doctorAppointments = appointmentRepository
-                .findByDoctorIdOrderByAppointmentDateAscAppointmentTimeAsc(doctor.getId());
-
-        // Extract unique patient IDs
-        Set<Long> patientIds = doctorAppointments.stream()
-                .map(apt -> apt.getPatient().getId())
-                .collect(Collectors.toSet());
-
-        // Get all patients for this doctor
-        List<Patient> allPatients = patientRepository.findAllById(patientIds);
+        // One grouped query: each patient with an appointment with this doctor, plus visit aggregates
+        List<DoctorPatientRow> allPatients = patientRepository.findDoctorPatientRows(doctor.getId(), LocalDate.now());
 
         // Apply filters
-        List<Patient> filteredPatients = allPatients.stream()
+        List<DoctorPatientRow> filteredPatients = allPatients.stream()
                 .filter(p -> {
                     // Search filter (name, ID, email)
                     if (search != null && !search.trim().isEmpty()) {
                         String searchLower = search.toLowerCase();
                         boolean matches =
-                                (p.getName() != null && p.getName().toLowerCase().contains(searchLower)) ||
-                                        (p.getPatientId() != null && p.getPatientId().toLowerCase().contains(searchLower)) ||
-                                        (p.getEmail() != null && p.getEmail().toLowerCase().contains(searchLower));
+                                (p.name() != null && p.name().toLowerCase().contains(searchLower)) ||
+                                        (p.patientId() != null && p.patientId().toLowerCase().contains(searchLower)) ||
+                                        (p.email() != null && p.email().toLowerCase().contains(searchLower));
                         if (!matches) return false;
                     }
 
                     // Gender filter
                     if (gender != null && !gender.isEmpty()) {
-                        if (p.getSex() == null || !p.getSex().equalsIgnoreCase(gender)) {
+                        if (p.sex() == null || !p.sex().equalsIgnoreCase(gender)) {
                             return false;
                         }
                     }
 
                     // Age filter
                     if (ageMin != null || ageMax != null) {
-                        if (p.getBirthDate() == null) return false;
-                        int age = Period.between(p.getBirthDate(), LocalDate.now()).getYears();
+                        if (p.birthDate() == null) return false;
+                        int age = Period.between(p.birthDate(), LocalDate.now()).getYears();
                         if (ageMin != null && age < ageMin) return false;
                         if (ageMax != null && age > ageMax) return false;
                     }
 
-                    // Status filter (active = visited in last 3 months)
+                    // Status filter (active = any appointment in last 3 months)
                     if (status != null && !status.isEmpty()) {
                         LocalDate threeMonthsAgo = LocalDate.now().minusMonths(3);
-                        boolean hasRecentAppointment = doctorAppointments.stream()
-                                .anyMatch(apt ->
-                                        apt.getPatient().getId().equals(p.getId()) &&
-                                                apt.getAppointmentDate() != null &&
-                                                apt.getAppointmentDate().isAfter(threeMonthsAgo)
-                                );
+                        boolean hasRecentAppointment = p.lastAppointment() != null
+                                && p.lastAppointment().isAfter(threeMonthsAgo);
 
                         if ("active".equals(status) && !hasRecentAppointment) return false;
                         if ("inactive".equals(status) && hasRecentAppointment) return false;
@@ -266,23 +245,23 @@ public class PatientController {
 
             switch (sort) {
                 case "name":
-                    String name1 = p1.getName() != null ? p1.getName() : "";
-                    String name2 = p2.getName() != null ? p2.getName() : "";
+                    String name1 = p1.name() != null ? p1.name() : "";
+                    String name2 = p2.name() != null ? p2.name() : "";
                     comparison = name1.compareToIgnoreCase(name2);
                     break;
                 case "lastVisit":
-                    LocalDate lastVisit1 = getLastVisitDate(p1.getId(), doctorAppointments);
-                    LocalDate lastVisit2 = getLastVisitDate(p2.getId(), doctorAppointments);
+                    LocalDate lastVisit1 = p1.lastVisit();
+                    LocalDate lastVisit2 = p2.lastVisit();
                     if (lastVisit1 == null && lastVisit2 == null) comparison = 0;
                     else if (lastVisit1 == null) comparison = 1;
                     else if (lastVisit2 == null) comparison = -1;
                     else comparison = lastVisit1.compareTo(lastVisit2);
                     break;
                 case "age":
-                    Integer age1 = p1.getBirthDate() != null ?
-                            Period.between(p1.getBirthDate(), LocalDate.now()).getYears() : 0;
-                    Integer age2 = p2.getBirthDate() != null ?
-                            Period.between(p2.getBirthDate(), LocalDate.now()).getYears() : 0;
+                    Integer age1 = p1.birthDate() != null ?
+                            Period.between(p1.birthDate(), LocalDate.now()).getYears() : 0;
+                    Integer age2 = p2.birthDate() != null ?
+                            Period.between(p2.birthDate(), LocalDate.now()).getYears() : 0;
                     comparison = age1.compareTo(age2);
                     break;
                 default:
@@ -295,12 +274,18 @@ public class PatientController {
         // Pagination
         int start = page * size;
         int end = Math.min(start + size, filteredPatients.size());
-        List<Patient> paginatedPatients = start < filteredPatients.size() ?
+        List<DoctorPatientRow> paginatedPatients = start < filteredPatients.size() ?
                 filteredPatients.subList(start, end) : Collections.emptyList();
 
-        // Build response with enhanced data
-        List<Map<String, Object>> patientData = paginatedPatients.stream()
-                .map(p -> buildPatientCardData(p, doctor.getId()))
+        // Report and study counts for the page only, one grouped query each
+        Set<Long> pageIds = paginatedPatients.stream().map(DoctorPatientRow::id).collect(Collectors.toSet());
+        Map<Long, Long> reportCounts = pageIds.isEmpty() ? Map.of() : reportRepository.countByPatientIds(pageIds);
+        Map<Long, Long> studyCounts = pageIds.isEmpty() ? Map.of() : studyRepository.countByPatientIds(pageIds);
+
+        List<PatientCard> patientData = paginatedPatients.stream()
+                .map(p -> PatientCard.of(p,
+                        reportCounts.getOrDefault(p.id(), 0L),
+                        studyCounts.getOrDefault(p.id(), 0L)))
                 .collect(Collectors.toList());
 
         Map<String, Object> response = new HashMap<>();
@@ -327,58 +312,13 @@ public class PatientController {
         try {
             User doctor = securityUtils.getCurrentUserOrThrow();
 
-            // Get all appointments for this doctor to find their patients
-            List<Appointment> doctorAppointments = appointmentRepository
-                    .findByDoctorIdOrderByAppointmentDateAscAppointmentTimeAsc(doctor.getId());
-
-            // Extract unique patient IDs
-            Set<Long> patientIds = doctorAppointments.stream()
-                    .map(apt -> apt.getPatient().getId())
-                    .collect(Collectors.toSet());
-
-            // Get all patients for this doctor
-            List<Patient> allPatients = patientRepository.findAllById(patientIds);
-
-            // Apply search filter if provided
-            List<Patient> filteredPatients = allPatients;
-            if (search != null && !search.trim().isEmpty()) {
-                String searchLower = search.toLowerCase();
-                filteredPatients = allPatients.stream()
-                        .filter(p -> {
-                            boolean matches =
-                                    (p.getName() != null && p.getName().toLowerCase().contains(searchLower)) ||
-                                            (p.getPatientId() != null && p.getPatientId().toLowerCase().contains(searchLower)) ||
-                                            (p.getEmail() != null && p.getEmail().toLowerCase().contains(searchLower));
-                            return matches;
-                        })
-                        .collect(Collectors.toList());
-            }
+            String pattern = search != null && !search.trim().isEmpty()
+                    ? "%" + search.toLowerCase() + "%"
+                    : "%";
 
-            // Sort by name
-            filteredPatients.sort((p1, p2) -> {
-                String name1 = p1.getName() != null ? p1.getName() : "";
-                String name2 = p2.getName() != null ? p2.getName() : "";
-                return name1.compareToIgnoreCase(name2);
-            });
-
-            // Limit to 50 results for dropdown performance
-            List<Patient> limitedResults = filteredPatients.stream()
-                    .limit(50)
-                    .collect(Collectors.toList());
-
-            // Build simple response for dropdown
-            List<Map<String, Object>> patientData = limitedResults.stream()
-                    .map(p -> {
-                        Map<String, Object> data = new HashMap<>();
-                        data.put("id", p.getId());
-                        data.put("patientId", p.getPatientId());
-                        data.put("name", p.getName());
-                        data.put("email", p.getEmail());
-                        data.put("sex", p.getSex());
-                        data.put("birthDate", p.getBirthDate());
-                        return data;
-                    })
-                    .collect(Collectors.toList());
+            // Sorted by name and limited to 50 results for dropdown performance
+            List<PatientListItem> patientData = patientRepository.findDoctorPatientOptions(
+                    doctor.getId(), pattern, PageRequest.of(0, 50));
 
             return ResponseEntity.ok(patientData);
         } catch (Exception e) {
@@ -822,15 +762,6 @@ public class PatientController {
     // HELPER METHODS
     // ============================================================================
 
-    private LocalDate getLastVisitDate(Long patientId, List<Appointment> appointments) {
-        return appointments.stream()
-                .filter(apt -> apt.getPatient().getId().equals(patientId))
-                .filter(apt -> "completed".equals(apt.getStatus()))
-                .map(Appointment::getAppointmentDate)
-                .max(LocalDate::compareTo)
-                .orElse(null);
-    }
-
     private Map<String, Object> buildPatientCardData(Patient patient, Long doctorId) {
         Map<String, Object> data = new HashMap<>();
 
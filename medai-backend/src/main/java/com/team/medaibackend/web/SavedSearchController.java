@@ -188,6 +188,36 @@ public class SavedSearchController {
         }
     }
 
+    /**
+     * Subscribe to new-result notifications
+     */
+    @PostMapping("/{id}/subscription")
+    @PreAuthorize("hasAnyRole('DOCTOR', 'ADMIN', 'PATIENT')")
+    public ResponseEntity<?> subscribe(@PathVariable Long id) {
+        try {
+            savedSearchService.subscribe(id);
+            return ResponseEntity.ok(Map.of("message", "Subscribed to saved search"));
+        } catch (Exception e) {
+            return ResponseEntity.badRequest()
+                    .body(Map.of("message", e.getMessage()));
+        }
+    }
+
+    /**
+     * Unsubscribe from new-result notifications
+     */
+    @DeleteMapping("/{id}/subscription")
+    @PreAuthorize("hasAnyRole('DOCTOR', 'ADMIN', 'PATIENT')")
+    public ResponseEntity<?> unsubscribe(@PathVariable Long id) {
+        try {
+            savedSearchService.unsubscribe(id);
+            return ResponseEntity.ok(Map.of("message", "Unsubscribed from saved search"));
+        } catch (Exception e) {
+            return ResponseEntity.badRequest()
+                    .body(Map.of("message", e.getMessage()));
+        }
+    }
+
     /**
      * Get recently used searches
      */
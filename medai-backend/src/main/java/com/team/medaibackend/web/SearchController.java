@@ -1,10 +1,14 @@
 package com.team.medaibackend.web;
 
+import com.team.medaibackend.service.ClinicalTextSearchService;
 import com.team.medaibackend.service.SearchService;
+import com.team.medaibackend.service.SuggestionIndexService;
+import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.security.access.prepost.PreAuthorize;
 import org.springframework.web.bind.annotation.*;
 
+import java.util.HashMap;
 import java.util.Map;
 
 @RestController
@@ -12,9 +16,15 @@ import java.util.Map;
 public class SearchController {
 
     private final SearchService searchService;
+    private final SuggestionIndexService suggestionIndexService;
+    private final ClinicalTextSearchService clinicalTextSearchService;
 
-    public SearchController(SearchService searchService) {
+    public SearchController(SearchService searchService,
+                            SuggestionIndexService suggestionIndexService,
+                            ClinicalTextSearchService clinicalTextSearchService) {
         this.searchService = searchService;
+        this.suggestionIndexService = suggestionIndexService;
+        this.clinicalTextSearchService = clinicalTextSearchService;
     }
 
     /**
@@ -33,6 +43,23 @@ public class SearchController {
         }
     }
 
+    /**
+     * Typo-tolerant patient search (name, patient ID, phone, email)
+     */
+    @GetMapping("/patients/fuzzy")
+    @PreAuthorize("hasAnyRole('DOCTOR', 'ADMIN', 'NURSE')")
+    public ResponseEntity<?> fuzzyPatientSearch(
+            @RequestParam String query,
+            @RequestParam(defaultValue = "0.3") double threshold,
+            @RequestParam(defaultValue = "10") int limit) {
+        try {
+            return ResponseEntity.ok(searchService.fuzzyPatientSearch(query, threshold, limit));
+        } catch (Exception e) {
+            return ResponseEntity.badRequest()
+                    .body(Map.of("message", e.getMessage()));
+        }
+    }
+
     /**
      * Get search suggestions
      */
@@ -49,6 +76,65 @@ public class SearchController {
         }
     }
 
+    /**
+     * Suggestion index size and memory footprint
+     */
+    @GetMapping("/suggestions/stats")
+    @PreAuthorize("hasRole('ADMIN')")
+    public ResponseEntity<?> getSuggestionIndexStats() {
+        return ResponseEntity.ok(suggestionIndexService.getStats());
+    }
+
+    /**
+     * Full-text search over report and clinical note text with highlights and facet counts
+     */
+    @GetMapping("/fulltext")
+    @PreAuthorize("hasAnyRole('DOCTOR', 'ADMIN')")
+    public ResponseEntity<?> fullTextSearch(
+            @RequestParam String query,
+            @RequestParam(required = false) String type,
+            @RequestParam(required = false) String modality,
+            @RequestParam(required = false) String author,
+            @RequestParam(required = false) String status,
+            @RequestParam(required = false) String dateBucket,
+            @RequestParam(defaultValue = "20") int limit) {
+        try {
+            Map<String, String> filters = new HashMap<>();
+            filters.put("type", type);
+            filters.put("modality", modality);
+            filters.put("author", author);
+            filters.put("status", status);
+            filters.put("dateBucket", dateBucket);
+            return ResponseEntity.ok(clinicalTextSearchService.search(query, filters, limit));
+        } catch (Exception e) {
+            return ResponseEntity.badRequest()
+                    .body(Map.of("message", e.getMessage()));
+        }
+    }
+
+    /**
+     * Full-text index size
+     */
+    @GetMapping("/fulltext/stats")
+    @PreAuthorize("hasRole('ADMIN')")
+    public ResponseEntity<?> getFullTextStats() {
+        return ResponseEntity.ok(clinicalTextSearchService.getStats());
+    }
+
+    /**
+     * Rebuild the full-text index from the database in the background; searches keep using the
+     * current index until the new one is swapped in. Progress is in /fulltext/stats.
+     */
+    @PostMapping("/fulltext/reindex")
+    @PreAuthorize("hasRole('ADMIN')")
+    public ResponseEntity<?> reindexFullText() {
+        if (!clinicalTextSearchService.startReindex()) {
+            return ResponseEntity.status(HttpStatus.CONFLICT)
+                    .body(Map.of("message", "Reindex already in progress"));
+        }
+        return ResponseEntity.accepted().body(Map.of("message", "Reindex started"));
+    }
+
     /**
      * Advanced search with filters
      */
@@ -65,6 +151,14 @@ public class SearchController {
             int size = request.containsKey("size") ?
                     ((Number) request.get("size")).intValue() : 20;
 
+            // Cursor paging: {"paging": "keyset", "cursor": <nextCursor from previous page>}
+            if ("keyset".equals(request.get("paging")) || request.get("cursor") != null) {
+                String cursor = (String) request.get("cursor");
+                boolean estimateCount = Boolean.TRUE.equals(request.get("estimateCount"));
+                return ResponseEntity.ok(
+                        searchService.advancedSearchKeyset(entityType, query, filters, cursor, size, estimateCount));
+            }
+
             return ResponseEntity.ok(
                     searchService.advancedSearch(entityType, query, filters, page, size));
         } catch (Exception e) {
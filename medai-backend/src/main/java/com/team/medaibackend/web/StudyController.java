@@ -1,10 +1,13 @@
 package com.team.medaibackend.web;
 
+import com.team.medaibackend.dto.StudyListItem;
 import com.team.medaibackend.entity.Study;
 import com.team.medaibackend.entity.Patient;
 import com.team.medaibackend.repository.StudyRepository;
 import com.team.medaibackend.repository.PatientRepository;
+import com.team.medaibackend.search.KeysetPage;
 import com.team.medaibackend.service.AuditService;
+import com.team.medaibackend.service.StudyService;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.PageRequest;
 import org.springframework.data.domain.Pageable;
@@ -22,13 +25,16 @@ public class StudyController {
     private final StudyRepository studyRepository;
     private final PatientRepository patientRepository;
     private final AuditService auditService;
+    private final StudyService studyService;
 
     public StudyController(StudyRepository studyRepository,
                            PatientRepository patientRepository,
-                           AuditService auditService) {
+                           AuditService auditService,
+                           StudyService studyService) {
         this.studyRepository = studyRepository;
         this.patientRepository = patientRepository;
         this.auditService = auditService;
+        this.studyService = studyService;
     }
 
     @GetMapping
@@ -38,23 +44,25 @@ public class StudyController {
             @RequestParam(required = false) String patientId,
             @RequestParam(required = false) String modality,
             @RequestParam(required = false) String status,
-            @RequestParam(required = false) String search
+            @RequestParam(required = false) String search,
+            @RequestParam(defaultValue = "offset") String paging,
+            @RequestParam(required = false) String cursor,
+            @RequestParam(defaultValue = "false") boolean estimateCount
     ) {
+        if ("keyset".equals(paging) || cursor != null) {
+            return getStudiesKeyset(patientId, modality, status, search, cursor, size, estimateCount);
+        }
+
         Pageable pageable = PageRequest.of(page, size, Sort.by("studyDate").descending());
-        Page<Study> studyPage;
 
-        if (modality != null && !modality.isEmpty()) {
-            studyPage = studyRepository.findByModality(modality, pageable);
-        } else if (status != null && !status.isEmpty()) {
-            studyPage = studyRepository.findByStatus(status, pageable);
-        } else {
-            studyPage = studyRepository.findAll(pageable);
-        }
+        Page<StudyListItem> studyPage = studyRepository.findListItems(
+                hasText(patientId) ? patientId : null,
+                hasText(modality) ? modality : null,
+                hasText(status) ? status : null,
+                hasText(search) ? "%" + search.toLowerCase() + "%" : null,
+                pageable);
 
-        List<Map<String, Object>> studyList = new ArrayList<>();
-        for (Study study : studyPage.getContent()) {
-            studyList.add(toDto(study));
-        }
+        List<StudyListItem> studyList = studyPage.getContent();
 
         Map<String, Object> response = new HashMap<>();
         response.put("content", studyList);
@@ -66,6 +74,28 @@ public class StudyController {
         return ResponseEntity.ok(response);
     }
 
+    private ResponseEntity<Map<String, Object>> getStudiesKeyset(
+            String patientId, String modality, String status, String search,
+            String cursor, int size, boolean estimateCount) {
+        KeysetPage<Study> studyPage = studyService.getStudiesKeyset(
+                patientId, modality, status, search, null, "studyDate", cursor, size);
+
+        List<StudyListItem> studyList = studyPage.getContent().stream()
+                .map(StudyListItem::of)
+                .toList();
+
+        Map<String, Object> response = new HashMap<>();
+        response.put("content", studyList);
+        response.put("nextCursor", studyPage.getNextCursor());
+        response.put("hasMore", studyPage.hasMore());
+        response.put("size", size);
+        if (estimateCount) {
+            response.put("estimatedTotalElements", studyService.estimateStudies(patientId, modality, status, search, null));
+        }
+
+        return ResponseEntity.ok(response);
+    }
+
     @GetMapping("/{id}")
     public ResponseEntity<?> getStudy(@PathVariable Long id) {
         return studyRepository.findById(id)
@@ -180,4 +210,8 @@ public class StudyController {
 
         return dto;
     }
+
+    private static boolean hasText(String value) {
+        return value != null && !value.isEmpty();
+    }
 }
\ No newline at end of file
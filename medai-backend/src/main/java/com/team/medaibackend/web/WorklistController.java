@@ -1,8 +1,11 @@
 package com.team.medaibackend.web;
 
+import com.team.medaibackend.dto.WorklistItem;
 import com.team.medaibackend.entity.Study;
 import com.team.medaibackend.repository.StudyRepository;
 import com.team.medaibackend.repository.UserRepository;
+import com.team.medaibackend.search.KeysetPage;
+import com.team.medaibackend.service.StudyService;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.PageRequest;
 import org.springframework.data.domain.Pageable;
@@ -14,9 +17,7 @@ import org.springframework.web.bind.annotation.RequestMapping;
 import org.springframework.web.bind.annotation.RequestParam;
 import org.springframework.web.bind.annotation.RestController;
 
-import java.util.ArrayList;
 import java.util.HashMap;
-import java.util.List;
 import java.util.Map;
 
 @RestController
@@ -25,10 +26,13 @@ public class WorklistController {
 
     private final StudyRepository studyRepository;
     private final UserRepository userRepository;
+    private final StudyService studyService;
 
-    public WorklistController(StudyRepository studyRepository, UserRepository userRepository) {
+    public WorklistController(StudyRepository studyRepository, UserRepository userRepository,
+                              StudyService studyService) {
         this.studyRepository = studyRepository;
         this.userRepository = userRepository;
+        this.studyService = studyService;
     }
 
     @GetMapping
@@ -37,47 +41,34 @@ public class WorklistController {
             @RequestParam(defaultValue = "20") int size,
             @RequestParam(required = false) String status,
             @RequestParam(required = false) String priority,
+            @RequestParam(defaultValue = "offset") String paging,
+            @RequestParam(required = false) String cursor,
+            @RequestParam(defaultValue = "false") boolean estimateCount,
             Authentication authentication
     ) {
-        Pageable pageable = PageRequest.of(page, size, Sort.by("createdAt").descending());
+        if ("keyset".equals(paging) || cursor != null) {
+            KeysetPage<Study> studies = studyService.getStudiesKeyset(
+                    null, null, status, null, priority, "createdAt", cursor, size);
+
+            Map<String, Object> response = new HashMap<>();
+            response.put("content", studies.getContent().stream().map(WorklistItem::of).toList());
+            response.put("nextCursor", studies.getNextCursor());
+            response.put("hasMore", studies.hasMore());
+            if (estimateCount) {
+                response.put("estimatedTotalElements", studyService.estimateStudies(null, null, status, null, priority));
+            }
 
-        // Get studies that need review
-        Page<Study> studies;
-        if (status != null && !status.isEmpty()) {
-            studies = studyRepository.findByStatus(status, pageable);
-        } else {
-            // Default: show all studies as worklist items
-            studies = studyRepository.findAll(pageable);
+            return ResponseEntity.ok(response);
         }
 
-        List<Map<String, Object>> worklistItems = new ArrayList<>();
-        for (Study study : studies.getContent()) {
-            Map<String, Object> item = new HashMap<>();
-            item.put("id", study.getId());
-            item.put("studyUid", study.getStudyUid());
-            item.put("studyDate", study.getStudyDate() != null ? study.getStudyDate().toString() : null);
-            item.put("modality", study.getModality());
-            item.put("description", study.getDescription());
-            item.put("status", study.getStatus() != null ? study.getStatus() : "pending");
-
-            // Determine priority based on modality
-            String itemPriority = determinePriority(study);
-            item.put("priority", itemPriority);
-
-            if (study.getPatient() != null) {
-                item.put("patientId", study.getPatient().getId());
-                item.put("patientName", study.getPatient().getName());
-            } else {
-                item.put("patientName", "Unknown Patient");
-            }
-
-            item.put("taskType", getTaskType(study.getStatus()));
+        Pageable pageable = PageRequest.of(page, size, Sort.by("createdAt").descending());
 
-            worklistItems.add(item);
-        }
+        // Get studies that need review; default: show all studies as worklist items
+        Page<WorklistItem> studies = studyRepository.findWorklistItems(
+                status != null && !status.isEmpty() ? status : null, pageable);
 
         Map<String, Object> response = new HashMap<>();
-        response.put("content", worklistItems);
+        response.put("content", studies.getContent());
         response.put("totalElements", studies.getTotalElements());
         response.put("totalPages", studies.getTotalPages());
 
@@ -101,26 +92,4 @@ public class WorklistController {
 
         return ResponseEntity.ok(stats);
     }
-
-    private String determinePriority(Study study) {
-        if (study.getModality() == null) return "normal";
-
-        // CT and MR are typically higher priority
-        if ("CT".equals(study.getModality()) || "MR".equals(study.getModality())) {
-            return "high";
-        }
-        return "normal";
-    }
-
-    private String getTaskType(String status) {
-        if (status == null) return "Review Required";
-
-        switch (status) {
-            case "uploaded": return "New Study - Review Required";
-            case "pending": return "Pending Analysis";
-            case "processing": return "AI Processing";
-            case "completed": return "Completed";
-            default: return "Review Required";
-        }
-    }
 }
\ No newline at end of file
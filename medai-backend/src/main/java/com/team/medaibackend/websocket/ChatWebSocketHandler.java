@@ -1,31 +1,81 @@
 package com.team.medaibackend.websocket;
 
 import com.fasterxml.jackson.databind.ObjectMapper;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Component;
 import org.springframework.web.socket.*;
+import org.springframework.web.socket.handler.ConcurrentWebSocketSessionDecorator;
+import org.springframework.web.socket.handler.SessionLimitExceededException;
 import org.springframework.web.socket.handler.TextWebSocketHandler;
 
 import java.io.IOException;
+import java.util.LinkedHashMap;
 import java.util.Map;
+import java.util.Set;
 import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.LongAdder;
 
+/**
+ * Direct chat and typing notifications over plain WebSocket.
+ * <p>
+ * A user may be connected from several devices or tabs at once; messages go to all of them.
+ * Every session is wrapped in a {@link ConcurrentWebSocketSessionDecorator}, so any number of
+ * threads can send to it safely: while one thread writes, others queue up in its buffer. A client
+ * that stops reading, so that a send blocks longer than {@code send-time-limit-ms} or the buffer
+ * outgrows {@code send-buffer-size-limit}, is disconnected instead of holding back the senders.
+ */
 @Component
 public class ChatWebSocketHandler extends TextWebSocketHandler {
 
+    private static final Logger logger = LoggerFactory.getLogger(ChatWebSocketHandler.class);
+
+    private record Connection(Long userId, WebSocketSession session) {
+    }
+
     private final ObjectMapper objectMapper = new ObjectMapper();
 
-    // Map of userId -> WebSocketSession
-    private final Map<Long, WebSocketSession> sessions = new ConcurrentHashMap<>();
+    // userId -> that user's open sessions (decorated)
+    private final Map<Long, Set<WebSocketSession>> sessionsByUser = new ConcurrentHashMap<>();
+    // session ID -> owner and decorated session, so closing a connection is a single lookup
+    private final Map<String, Connection> connections = new ConcurrentHashMap<>();
+
+    private final int sendTimeLimitMs;
+    private final int bufferSizeLimit;
+    private final LongAdder slowConsumersDropped = new LongAdder();
+
+    public ChatWebSocketHandler(@Value("${websocket.send-time-limit-ms:10000}") int sendTimeLimitMs,
+                                @Value("${websocket.send-buffer-size-limit:524288}") int bufferSizeLimit) {
+        this.sendTimeLimitMs = sendTimeLimitMs;
+        this.bufferSizeLimit = bufferSizeLimit;
+    }
 
     @Override
     public void afterConnectionEstablished(WebSocketSession session) throws Exception {
         // Extract userId from query params (you'll need to implement auth)
-        String userId = session.getUri().getQuery(); // Simple example
-        if (userId != null && userId.startsWith("userId=")) {
-            Long id = Long.valueOf(userId.substring(7));
-            sessions.put(id, session);
-            System.out.println("WebSocket connection established for user: " + id);
+        String query = session.getUri() != null ? session.getUri().getQuery() : null;
+        if (query == null || !query.startsWith("userId=")) {
+            return;
+        }
+        Long userId;
+        try {
+            userId = Long.valueOf(query.substring(7));
+        } catch (NumberFormatException e) {
+            session.close(CloseStatus.BAD_DATA);
+            return;
         }
+
+        WebSocketSession decorated = new ConcurrentWebSocketSessionDecorator(session, sendTimeLimitMs,
+                bufferSizeLimit, ConcurrentWebSocketSessionDecorator.OverflowStrategy.TERMINATE);
+        connections.put(session.getId(), new Connection(userId, decorated));
+        // Added under the map's lock for the key, so a concurrent unregister cannot drop the set meanwhile
+        sessionsByUser.compute(userId, (id, sessions) -> {
+            Set<WebSocketSession> open = sessions != null ? sessions : ConcurrentHashMap.newKeySet();
+            open.add(decorated);
+            return open;
+        });
+        logger.debug("WebSocket connection established for user {} (session {})", userId, session.getId());
     }
 
     @Override
@@ -35,40 +85,97 @@ public class ChatWebSocketHandler extends TextWebSocketHandler {
 
         String type = (String) payload.get("type");
 
-        if ("message".equals(type)) {
-            // Handle new message - broadcast to recipient
+        if ("message".equals(type) || "typing".equals(type)) {
+            // New message or typing indicator - forward to every session of the recipient
             Long recipientId = Long.valueOf(payload.get("recipientId").toString());
-            WebSocketSession recipientSession = sessions.get(recipientId);
-
-            if (recipientSession != null && recipientSession.isOpen()) {
-                recipientSession.sendMessage(message);
-            }
-        } else if ("typing".equals(type)) {
-            // Handle typing indicator
-            Long recipientId = Long.valueOf(payload.get("recipientId").toString());
-            WebSocketSession recipientSession = sessions.get(recipientId);
-
-            if (recipientSession != null && recipientSession.isOpen()) {
-                recipientSession.sendMessage(message);
-            }
+            send(recipientId, message);
         }
     }
 
+    @Override
+    public void handleTransportError(WebSocketSession session, Throwable exception) throws Exception {
+        unregister(session.getId());
+        super.handleTransportError(session, exception);
+    }
+
     @Override
     public void afterConnectionClosed(WebSocketSession session, CloseStatus status) throws Exception {
-        // Remove session
-        sessions.entrySet().removeIf(entry -> entry.getValue().equals(session));
-        System.out.println("WebSocket connection closed");
+        unregister(session.getId());
+        logger.debug("WebSocket connection {} closed: {}", session.getId(), status);
     }
 
     /**
-     * Send message to specific user
+     * Send message to every session of a specific user
      */
     public void sendToUser(Long userId, Object message) throws IOException {
-        WebSocketSession session = sessions.get(userId);
-        if (session != null && session.isOpen()) {
-            String json = objectMapper.writeValueAsString(message);
-            session.sendMessage(new TextMessage(json));
+        if (!sessionsByUser.containsKey(userId)) {
+            return;
+        }
+        // Serialized once, however many devices the user has
+        send(userId, new TextMessage(objectMapper.writeValueAsString(message)));
+    }
+
+    public boolean isConnected(Long userId) {
+        return sessionsByUser.containsKey(userId);
+    }
+
+    public Map<String, Object> getStatistics() {
+        Map<String, Object> stats = new LinkedHashMap<>();
+        stats.put("connectedUsers", sessionsByUser.size());
+        stats.put("sessions", connections.size());
+        stats.put("slowConsumersDropped", slowConsumersDropped.sum());
+        return stats;
+    }
+
+    private void send(Long userId, TextMessage message) {
+        Set<WebSocketSession> sessions = sessionsByUser.get(userId);
+        if (sessions == null) {
+            return;
+        }
+        for (WebSocketSession session : sessions) {
+            if (!session.isOpen()) {
+                unregister(session.getId());
+                continue;
+            }
+            try {
+                session.sendMessage(message);
+            } catch (SessionLimitExceededException e) {
+                // The decorator only flags the session and stops sending; closing it is up to us,
+                // so the client reconnects instead of silently missing every later message
+                if (unregister(session.getId())) {
+                    slowConsumersDropped.increment();
+                    logger.info("Dropping slow WebSocket client of user {} (session {}): {}",
+                            userId, session.getId(), e.getMessage());
+                }
+                closeQuietly(session, e.getStatus());
+            } catch (IOException | IllegalStateException e) {
+                logger.debug("WebSocket send to session {} failed: {}", session.getId(), e.getMessage());
+                unregister(session.getId());
+                closeQuietly(session, CloseStatus.SESSION_NOT_RELIABLE);
+            }
+        }
+    }
+
+    /**
+     * Forget the session; false if it was already gone
+     */
+    private boolean unregister(String sessionId) {
+        Connection connection = connections.remove(sessionId);
+        if (connection == null) {
+            return false;
+        }
+        sessionsByUser.computeIfPresent(connection.userId(), (id, sessions) -> {
+            sessions.remove(connection.session());
+            return sessions.isEmpty() ? null : sessions;
+        });
+        return true;
+    }
+
+    private static void closeQuietly(WebSocketSession session, CloseStatus status) {
+        try {
+            session.close(status);
+        } catch (IOException | IllegalStateException e) {
+            // Already gone
         }
     }
-}
\ No newline at end of file
+}
@@ -0,0 +1,19 @@
+-- ============================================================================
+-- Migration V29: Patient Fuzzy Search
+-- Description: Trigram indexes for typo-tolerant patient lookup
+-- ============================================================================
+
+CREATE EXTENSION IF NOT EXISTS pg_trgm;
+
+-- Expressions must match PatientSearchService.fuzzySearchPatients exactly,
+-- otherwise the planner falls back to a sequential scan.
+CREATE INDEX IF NOT EXISTS idx_patients_name_trgm
+    ON patients USING gin (lower(name) gin_trgm_ops);
+CREATE INDEX IF NOT EXISTS idx_patients_patient_id_trgm
+    ON patients USING gin (lower(patient_id) gin_trgm_ops);
+CREATE INDEX IF NOT EXISTS idx_patients_phone_trgm
+    ON patients USING gin (phone gin_trgm_ops);
+CREATE INDEX IF NOT EXISTS idx_patients_email_trgm
+    ON patients USING gin (lower(email) gin_trgm_ops);
+
+COMMENT ON INDEX idx_patients_name_trgm IS 'Trigram index for fuzzy patient name search';
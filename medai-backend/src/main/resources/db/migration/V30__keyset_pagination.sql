@@ -0,0 +1,25 @@
+-- ============================================================================
+-- Migration V30: Keyset Pagination
+-- Description: (sort key, id) indexes for cursor paging and planner-based count estimates
+-- ============================================================================
+
+-- Composite indexes matching ORDER BY <sort> DESC, id DESC (scanned backwards)
+CREATE INDEX IF NOT EXISTS idx_patients_created_id ON patients(created_at, id);
+CREATE INDEX IF NOT EXISTS idx_studies_study_date_id ON studies(study_date, id);
+CREATE INDEX IF NOT EXISTS idx_studies_created_id ON studies(created_at, id);
+CREATE INDEX IF NOT EXISTS idx_reports_created_id ON reports(created_at, id);
+CREATE INDEX IF NOT EXISTS idx_treatments_created_id ON treatment_plans(created_at, id);
+CREATE INDEX IF NOT EXISTS idx_audit_log_created_id ON audit_log(created_at, id);
+
+-- Planner row estimate for an arbitrary query (EXPLAIN only, the query is never executed)
+CREATE OR REPLACE FUNCTION count_estimate(query TEXT)
+    RETURNS BIGINT AS $$
+DECLARE
+    plan JSONB;
+BEGIN
+    EXECUTE 'EXPLAIN (FORMAT JSON) ' || query INTO plan;
+    RETURN (plan -> 0 -> 'Plan' ->> 'Plan Rows')::BIGINT;
+END;
+$$ LANGUAGE plpgsql;
+
+COMMENT ON FUNCTION count_estimate(TEXT) IS 'Estimated row count from the query plan, used instead of count(*) for large listings';
@@ -0,0 +1,47 @@
+-- ============================================================================
+-- Migration V31: Materialized Saved Searches
+-- Description: Stored result sets for saved searches / quick filters, refreshed
+--              from an updated_at high-water mark, plus new-result subscriptions
+-- ============================================================================
+
+-- Kept apart from saved_searches so refreshes do not fire its updated_at trigger
+CREATE TABLE IF NOT EXISTS saved_search_materializations (
+                                                             saved_search_id BIGINT PRIMARY KEY REFERENCES saved_searches(id) ON DELETE CASCADE,
+                                                             through_updated_at TIMESTAMP,
+                                                             through_id BIGINT NOT NULL DEFAULT 0,
+                                                             result_count INTEGER NOT NULL DEFAULT 0,
+                                                             refreshed_at TIMESTAMP NOT NULL DEFAULT CURRENT_TIMESTAMP
+);
+
+-- sort_at mirrors the column the entity's search results are ordered by
+CREATE TABLE IF NOT EXISTS saved_search_results (
+                                                    saved_search_id BIGINT NOT NULL REFERENCES saved_searches(id) ON DELETE CASCADE,
+                                                    entity_id BIGINT NOT NULL,
+                                                    sort_at TIMESTAMP,
+                                                    matched_at TIMESTAMP NOT NULL DEFAULT CURRENT_TIMESTAMP,
+                                                    PRIMARY KEY (saved_search_id, entity_id)
+);
+
+CREATE INDEX IF NOT EXISTS idx_saved_search_results_sort
+    ON saved_search_results(saved_search_id, sort_at DESC, entity_id DESC);
+
+CREATE TABLE IF NOT EXISTS saved_search_subscriptions (
+                                                          id BIGSERIAL PRIMARY KEY,
+                                                          saved_search_id BIGINT NOT NULL REFERENCES saved_searches(id) ON DELETE CASCADE,
+                                                          user_id BIGINT NOT NULL REFERENCES users(id) ON DELETE CASCADE,
+                                                          last_notified_at TIMESTAMP,
+                                                          created_at TIMESTAMP NOT NULL DEFAULT CURRENT_TIMESTAMP,
+                                                          UNIQUE (saved_search_id, user_id)
+);
+
+CREATE INDEX IF NOT EXISTS idx_saved_search_subscriptions_user ON saved_search_subscriptions(user_id);
+
+-- Delta scans walk (updated_at, id) forward from the high-water mark
+CREATE INDEX IF NOT EXISTS idx_patients_updated_id ON patients(updated_at, id);
+CREATE INDEX IF NOT EXISTS idx_studies_updated_id ON studies(updated_at, id);
+CREATE INDEX IF NOT EXISTS idx_reports_updated_id ON reports(updated_at, id);
+CREATE INDEX IF NOT EXISTS idx_treatments_updated_id ON treatment_plans(updated_at, id);
+
+COMMENT ON TABLE saved_search_results IS 'Materialized result ids per saved search';
+COMMENT ON TABLE saved_search_subscriptions IS 'Users notified when a saved search gains new results';
+COMMENT ON COLUMN saved_search_materializations.through_updated_at IS '(updated_at, id) high-water mark of the last incremental refresh';
@@ -0,0 +1,192 @@
+-- ============================================================================
+-- Migration V32: Daily Analytics Rollups
+-- Description: Per-day counts maintained by row triggers on write, so date-range
+--              analytics read O(days) rows instead of scanning raw events.
+--              NULL dimensions are stored as '' (or 0) so they can be part of the key.
+-- ============================================================================
+
+CREATE TABLE IF NOT EXISTS study_daily_stats (
+                                                 day DATE NOT NULL,
+                                                 modality VARCHAR(20) NOT NULL,
+                                                 status VARCHAR(50) NOT NULL,
+                                                 count BIGINT NOT NULL DEFAULT 0,
+                                                 PRIMARY KEY (day, modality, status)
+);
+
+CREATE TABLE IF NOT EXISTS report_daily_stats (
+                                                  day DATE NOT NULL,
+                                                  status VARCHAR(50) NOT NULL,
+                                                  author_id BIGINT NOT NULL,
+                                                  count BIGINT NOT NULL DEFAULT 0,
+                                                  PRIMARY KEY (day, status, author_id)
+);
+
+CREATE TABLE IF NOT EXISTS treatment_daily_stats (
+                                                     day DATE NOT NULL,
+                                                     category VARCHAR(100) NOT NULL,
+                                                     status VARCHAR(50) NOT NULL,
+                                                     count BIGINT NOT NULL DEFAULT 0,
+                                                     PRIMARY KEY (day, category, status)
+);
+
+CREATE TABLE IF NOT EXISTS audit_daily_stats (
+                                                 day DATE NOT NULL,
+                                                 action VARCHAR(100) NOT NULL,
+                                                 count BIGINT NOT NULL DEFAULT 0,
+                                                 PRIMARY KEY (day, action)
+);
+
+-- ============================================================================
+-- Write-side maintenance: -1 on the old key, +1 on the new key.
+-- Updates that leave the key untouched return early, so edits to report text
+-- or study metadata never touch the rollup rows.
+-- ============================================================================
+
+CREATE OR REPLACE FUNCTION rollup_study_daily_stats()
+    RETURNS TRIGGER AS $$
+BEGIN
+    IF TG_OP = 'UPDATE'
+        AND NEW.created_at::date IS NOT DISTINCT FROM OLD.created_at::date
+        AND NEW.modality IS NOT DISTINCT FROM OLD.modality
+        AND NEW.status IS NOT DISTINCT FROM OLD.status THEN
+        RETURN NULL;
+    END IF;
+
+    IF TG_OP IN ('UPDATE', 'DELETE') AND OLD.created_at IS NOT NULL THEN
+        UPDATE study_daily_stats SET count = count - 1
+        WHERE day = OLD.created_at::date
+          AND modality = COALESCE(OLD.modality, '')
+          AND status = COALESCE(OLD.status, '');
+    END IF;
+
+    IF TG_OP IN ('INSERT', 'UPDATE') AND NEW.created_at IS NOT NULL THEN
+        INSERT INTO study_daily_stats (day, modality, status, count)
+        VALUES (NEW.created_at::date, COALESCE(NEW.modality, ''), COALESCE(NEW.status, ''), 1)
+        ON CONFLICT (day, modality, status) DO UPDATE SET count = study_daily_stats.count + 1;
+    END IF;
+
+    RETURN NULL;
+END;
+$$ LANGUAGE plpgsql;
+
+CREATE OR REPLACE FUNCTION rollup_report_daily_stats()
+    RETURNS TRIGGER AS $$
+BEGIN
+    IF TG_OP = 'UPDATE'
+        AND NEW.created_at::date IS NOT DISTINCT FROM OLD.created_at::date
+        AND NEW.status IS NOT DISTINCT FROM OLD.status
+        AND NEW.author_id IS NOT DISTINCT FROM OLD.author_id THEN
+        RETURN NULL;
+    END IF;
+
+    IF TG_OP IN ('UPDATE', 'DELETE') AND OLD.created_at IS NOT NULL THEN
+        UPDATE report_daily_stats SET count = count - 1
+        WHERE day = OLD.created_at::date
+          AND status = COALESCE(OLD.status, '')
+          AND author_id = COALESCE(OLD.author_id, 0);
+    END IF;
+
+    IF TG_OP IN ('INSERT', 'UPDATE') AND NEW.created_at IS NOT NULL THEN
+        INSERT INTO report_daily_stats (day, status, author_id, count)
+        VALUES (NEW.created_at::date, COALESCE(NEW.status, ''), COALESCE(NEW.author_id, 0), 1)
+        ON CONFLICT (day, status, author_id) DO UPDATE SET count = report_daily_stats.count + 1;
+    END IF;
+
+    RETURN NULL;
+END;
+$$ LANGUAGE plpgsql;
+
+CREATE OR REPLACE FUNCTION rollup_treatment_daily_stats()
+    RETURNS TRIGGER AS $$
+BEGIN
+    IF TG_OP = 'UPDATE'
+        AND NEW.created_at::date IS NOT DISTINCT FROM OLD.created_at::date
+        AND NEW.category IS NOT DISTINCT FROM OLD.category
+        AND NEW.status IS NOT DISTINCT FROM OLD.status THEN
+        RETURN NULL;
+    END IF;
+
+    IF TG_OP IN ('UPDATE', 'DELETE') AND OLD.created_at IS NOT NULL THEN
+        UPDATE treatment_daily_stats SET count = count - 1
+        WHERE day = OLD.created_at::date
+          AND category = COALESCE(OLD.category, '')
+          AND status = COALESCE(OLD.status, '');
+    END IF;
+
+    IF TG_OP IN ('INSERT', 'UPDATE') AND NEW.created_at IS NOT NULL THEN
+        INSERT INTO treatment_daily_stats (day, category, status, count)
+        VALUES (NEW.created_at::date, COALESCE(NEW.category, ''), COALESCE(NEW.status, ''), 1)
+        ON CONFLICT (day, category, status) DO UPDATE SET count = treatment_daily_stats.count + 1;
+    END IF;
+
+    RETURN NULL;
+END;
+$$ LANGUAGE plpgsql;
+
+-- Audit rows are append-only; deletes come from retention clean-up
+CREATE OR REPLACE FUNCTION rollup_audit_daily_stats()
+    RETURNS TRIGGER AS $$
+BEGIN
+    IF TG_OP = 'DELETE' THEN
+        IF OLD.created_at IS NOT NULL THEN
+            UPDATE audit_daily_stats SET count = count - 1
+            WHERE day = OLD.created_at::date AND action = OLD.action;
+        END IF;
+    ELSIF NEW.created_at IS NOT NULL THEN
+        INSERT INTO audit_daily_stats (day, action, count)
+        VALUES (NEW.created_at::date, NEW.action, 1)
+        ON CONFLICT (day, action) DO UPDATE SET count = audit_daily_stats.count + 1;
+    END IF;
+
+    RETURN NULL;
+END;
+$$ LANGUAGE plpgsql;
+
+CREATE TRIGGER trigger_rollup_study_daily_stats
+    AFTER INSERT OR UPDATE OR DELETE ON studies
+    FOR EACH ROW
+EXECUTE FUNCTION rollup_study_daily_stats();
+
+CREATE TRIGGER trigger_rollup_report_daily_stats
+    AFTER INSERT OR UPDATE OR DELETE ON reports
+    FOR EACH ROW
+EXECUTE FUNCTION rollup_report_daily_stats();
+
+CREATE TRIGGER trigger_rollup_treatment_daily_stats
+    AFTER INSERT OR UPDATE OR DELETE ON treatment_plans
+    FOR EACH ROW
+EXECUTE FUNCTION rollup_treatment_daily_stats();
+
+CREATE TRIGGER trigger_rollup_audit_daily_stats
+    AFTER INSERT OR DELETE ON audit_log
+    FOR EACH ROW
+EXECUTE FUNCTION rollup_audit_daily_stats();
+
+-- ============================================================================
+-- Backfill from existing rows
+-- ============================================================================
+
+INSERT INTO study_daily_stats (day, modality, status, count)
+SELECT created_at::date, COALESCE(modality, ''), COALESCE(status, ''), count(*)
+FROM studies WHERE created_at IS NOT NULL
+GROUP BY 1, 2, 3;
+
+INSERT INTO report_daily_stats (day, status, author_id, count)
+SELECT created_at::date, COALESCE(status, ''), COALESCE(author_id, 0), count(*)
+FROM reports WHERE created_at IS NOT NULL
+GROUP BY 1, 2, 3;
+
+INSERT INTO treatment_daily_stats (day, category, status, count)
+SELECT created_at::date, COALESCE(category, ''), COALESCE(status, ''), count(*)
+FROM treatment_plans WHERE created_at IS NOT NULL
+GROUP BY 1, 2, 3;
+
+INSERT INTO audit_daily_stats (day, action, count)
+SELECT created_at::date, action, count(*)
+FROM audit_log WHERE created_at IS NOT NULL
+GROUP BY 1, 2;
+
+COMMENT ON TABLE study_daily_stats IS 'Studies per created day x modality x status, trigger-maintained';
+COMMENT ON TABLE report_daily_stats IS 'Reports per created day x status x author, trigger-maintained';
+COMMENT ON TABLE treatment_daily_stats IS 'Treatment plans per created day x category x status, trigger-maintained';
+COMMENT ON TABLE audit_daily_stats IS 'Audit log entries per day x action, trigger-maintained';
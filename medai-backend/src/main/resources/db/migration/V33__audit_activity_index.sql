@@ -0,0 +1,8 @@
+-- ============================================================================
+-- Migration V33: Audit Activity Index
+-- Description: Covering index for per-range user activity aggregates, so
+--              count(DISTINCT user_id) and GROUP BY username over a date range
+--              can run as index-only scans instead of visiting every heap page
+-- ============================================================================
+
+CREATE INDEX IF NOT EXISTS idx_audit_log_created_user ON audit_log(created_at, user_id, username);
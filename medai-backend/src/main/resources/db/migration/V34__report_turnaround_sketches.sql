@@ -0,0 +1,68 @@
+-- ============================================================================
+-- Migration V34: Report Turnaround Sketches
+-- Description: Per-day quantile sketches of report turnaround, one per stage,
+--              modality and author, merged at query time for any date range.
+--              A trigger queues the days a report write touches; the
+--              application rebuilds those days' sketches from raw rows.
+-- ============================================================================
+
+-- stage: upload_to_draft (keyed by report created day),
+--        draft_to_final / upload_to_final (keyed by finalized day); values in minutes
+CREATE TABLE IF NOT EXISTS report_turnaround_sketches (
+                                                          day DATE NOT NULL,
+                                                          stage VARCHAR(20) NOT NULL,
+                                                          modality VARCHAR(20) NOT NULL,
+                                                          author_id BIGINT NOT NULL,
+                                                          count BIGINT NOT NULL,
+                                                          sketch BYTEA NOT NULL,
+                                                          PRIMARY KEY (day, stage, modality, author_id)
+);
+
+CREATE TABLE IF NOT EXISTS report_turnaround_dirty_days (
+                                                            day DATE PRIMARY KEY,
+                                                            queued_at TIMESTAMP NOT NULL DEFAULT CURRENT_TIMESTAMP
+);
+
+CREATE OR REPLACE FUNCTION queue_report_turnaround_days()
+    RETURNS TRIGGER AS $$
+BEGIN
+    IF TG_OP = 'UPDATE'
+        AND NEW.created_at IS NOT DISTINCT FROM OLD.created_at
+        AND NEW.finalized_at IS NOT DISTINCT FROM OLD.finalized_at
+        AND NEW.author_id IS NOT DISTINCT FROM OLD.author_id
+        AND NEW.study_id IS NOT DISTINCT FROM OLD.study_id THEN
+        RETURN NULL;
+    END IF;
+
+    IF TG_OP IN ('UPDATE', 'DELETE') THEN
+        INSERT INTO report_turnaround_dirty_days (day)
+        SELECT d FROM (VALUES (OLD.created_at::date), (OLD.finalized_at::date)) v(d) WHERE d IS NOT NULL
+        ON CONFLICT (day) DO NOTHING;
+    END IF;
+
+    IF TG_OP IN ('INSERT', 'UPDATE') THEN
+        INSERT INTO report_turnaround_dirty_days (day)
+        SELECT d FROM (VALUES (NEW.created_at::date), (NEW.finalized_at::date)) v(d) WHERE d IS NOT NULL
+        ON CONFLICT (day) DO NOTHING;
+    END IF;
+
+    RETURN NULL;
+END;
+$$ LANGUAGE plpgsql;
+
+CREATE TRIGGER trigger_queue_report_turnaround_days
+    AFTER INSERT OR UPDATE OR DELETE ON reports
+    FOR EACH ROW
+EXECUTE FUNCTION queue_report_turnaround_days();
+
+CREATE INDEX IF NOT EXISTS idx_reports_finalized_at ON reports(finalized_at);
+
+-- Build every existing day on first run
+INSERT INTO report_turnaround_dirty_days (day)
+SELECT created_at::date FROM reports WHERE created_at IS NOT NULL
+UNION
+SELECT finalized_at::date FROM reports WHERE finalized_at IS NOT NULL
+ON CONFLICT (day) DO NOTHING;
+
+COMMENT ON TABLE report_turnaround_sketches IS 'Mergeable turnaround quantile sketches per day x stage x modality x author';
+COMMENT ON TABLE report_turnaround_dirty_days IS 'Days whose turnaround sketches must be rebuilt';
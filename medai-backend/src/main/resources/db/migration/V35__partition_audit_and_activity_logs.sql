@@ -0,0 +1,144 @@
+-- ============================================================================
+-- Migration V35: Partitioned Audit and Activity Logs
+-- Description: audit_log and system_activity_log become monthly range partitions
+--              on created_at. Range queries prune to the months they touch, and
+--              retention detaches and archives whole months (LogPartitionService)
+--              instead of running large DELETEs.
+-- ============================================================================
+
+-- Creates <parent>_YYYYMM for the month containing the given day, if missing.
+-- Rows that went to <parent>_default before the month existed are moved into it,
+-- since PostgreSQL refuses to create a partition whose rows sit in the default one.
+CREATE OR REPLACE FUNCTION ensure_monthly_partition(parent TEXT, month DATE)
+    RETURNS TEXT AS $$
+DECLARE
+    start_day DATE := date_trunc('month', month)::date;
+    end_day DATE := (date_trunc('month', month) + INTERVAL '1 month')::date;
+    partition_name TEXT := parent || '_' || to_char(start_day, 'YYYYMM');
+    stray_rows BIGINT;
+BEGIN
+    IF to_regclass(partition_name) IS NOT NULL THEN
+        RETURN partition_name;
+    END IF;
+
+    EXECUTE format('CREATE TEMP TABLE partition_stray_rows ON COMMIT DROP AS ' ||
+                   'SELECT * FROM %I WHERE created_at >= %L AND created_at < %L',
+                   parent || '_default', start_day, end_day);
+    GET DIAGNOSTICS stray_rows = ROW_COUNT;
+    IF stray_rows > 0 THEN
+        EXECUTE format('DELETE FROM %I WHERE created_at >= %L AND created_at < %L',
+                       parent || '_default', start_day, end_day);
+    END IF;
+
+    EXECUTE format('CREATE TABLE %I PARTITION OF %I FOR VALUES FROM (%L) TO (%L)',
+                   partition_name, parent, start_day, end_day);
+
+    IF stray_rows > 0 THEN
+        EXECUTE format('INSERT INTO %I SELECT * FROM partition_stray_rows', parent);
+    END IF;
+    DROP TABLE partition_stray_rows;
+
+    RETURN partition_name;
+END;
+$$ LANGUAGE plpgsql;
+
+-- ============================================================================
+-- audit_log
+-- ============================================================================
+
+ALTER TABLE audit_log RENAME TO audit_log_unpartitioned;
+ALTER SEQUENCE audit_log_id_seq OWNED BY NONE;
+
+CREATE TABLE audit_log (
+    id BIGINT NOT NULL DEFAULT nextval('audit_log_id_seq'),
+    user_id BIGINT REFERENCES users(id),
+    username VARCHAR(100),
+    action VARCHAR(100) NOT NULL,
+    resource_type VARCHAR(100),
+    resource_id VARCHAR(100),
+    ip_address VARCHAR(50),
+    user_agent VARCHAR(500),
+    details JSONB,
+    created_at TIMESTAMP NOT NULL DEFAULT CURRENT_TIMESTAMP
+) PARTITION BY RANGE (created_at);
+
+ALTER SEQUENCE audit_log_id_seq OWNED BY audit_log.id;
+
+CREATE TABLE audit_log_default PARTITION OF audit_log DEFAULT;
+
+SELECT ensure_monthly_partition('audit_log', CAST(month AS date))
+FROM generate_series(
+        date_trunc('month', COALESCE((SELECT min(created_at) FROM audit_log_unpartitioned), CURRENT_TIMESTAMP)),
+        date_trunc('month', CURRENT_TIMESTAMP) + INTERVAL '3 months',
+        INTERVAL '1 month') AS month;
+
+-- Copied before the rollup trigger exists: audit_daily_stats already counts these rows
+INSERT INTO audit_log (id, user_id, username, action, resource_type, resource_id,
+                       ip_address, user_agent, details, created_at)
+SELECT id, user_id, username, action, resource_type, resource_id,
+       ip_address, user_agent, details, COALESCE(created_at, CURRENT_TIMESTAMP)
+FROM audit_log_unpartitioned;
+
+DROP TABLE audit_log_unpartitioned;
+
+-- The primary key of a partitioned table must include the partition key
+ALTER TABLE audit_log ADD PRIMARY KEY (id, created_at);
+
+-- BRIN for range scans (rows arrive in created_at order); the btrees stay for
+-- ordered keyset paging and index-only activity aggregates, which BRIN cannot serve
+CREATE INDEX idx_audit_log_created_brin ON audit_log USING brin (created_at);
+CREATE INDEX idx_audit_log_created_id ON audit_log(created_at, id);
+CREATE INDEX idx_audit_log_created_user ON audit_log(created_at, user_id, username);
+CREATE INDEX idx_audit_log_user_id ON audit_log(user_id);
+CREATE INDEX idx_audit_log_action ON audit_log(action);
+CREATE INDEX idx_audit_log_resource ON audit_log(resource_type, resource_id);
+
+CREATE TRIGGER trigger_rollup_audit_daily_stats
+    AFTER INSERT OR DELETE ON audit_log
+    FOR EACH ROW
+EXECUTE FUNCTION rollup_audit_daily_stats();
+
+-- ============================================================================
+-- system_activity_log
+-- ============================================================================
+
+ALTER TABLE system_activity_log RENAME TO system_activity_log_unpartitioned;
+ALTER SEQUENCE system_activity_log_id_seq OWNED BY NONE;
+
+CREATE TABLE system_activity_log (
+    id BIGINT NOT NULL DEFAULT nextval('system_activity_log_id_seq'),
+    activity_type VARCHAR(100) NOT NULL,
+    description TEXT NOT NULL,
+    performed_by BIGINT REFERENCES users(id),
+    ip_address VARCHAR(50),
+    status VARCHAR(50) NOT NULL,
+    metadata JSONB,
+    created_at TIMESTAMP NOT NULL DEFAULT CURRENT_TIMESTAMP
+) PARTITION BY RANGE (created_at);
+
+ALTER SEQUENCE system_activity_log_id_seq OWNED BY system_activity_log.id;
+
+CREATE TABLE system_activity_log_default PARTITION OF system_activity_log DEFAULT;
+
+SELECT ensure_monthly_partition('system_activity_log', CAST(month AS date))
+FROM generate_series(
+        date_trunc('month', COALESCE((SELECT min(created_at) FROM system_activity_log_unpartitioned), CURRENT_TIMESTAMP)),
+        date_trunc('month', CURRENT_TIMESTAMP) + INTERVAL '3 months',
+        INTERVAL '1 month') AS month;
+
+INSERT INTO system_activity_log (id, activity_type, description, performed_by, ip_address,
+                                 status, metadata, created_at)
+SELECT id, activity_type, description, performed_by, ip_address, status, metadata, created_at
+FROM system_activity_log_unpartitioned;
+
+DROP TABLE system_activity_log_unpartitioned;
+
+ALTER TABLE system_activity_log ADD PRIMARY KEY (id, created_at);
+
+CREATE INDEX idx_activity_time_brin ON system_activity_log USING brin (created_at);
+CREATE INDEX idx_activity_time ON system_activity_log(created_at);
+CREATE INDEX idx_activity_type ON system_activity_log(activity_type);
+CREATE INDEX idx_activity_user ON system_activity_log(performed_by);
+
+COMMENT ON TABLE audit_log IS 'Audit events, monthly partitions on created_at; old months archived by LogPartitionService';
+COMMENT ON TABLE system_activity_log IS 'System activity, monthly partitions on created_at; old months archived by LogPartitionService';
@@ -0,0 +1,20 @@
+-- ============================================================================
+-- Migration V36: Saved Search Change Index
+-- Description: Delta scans for materialized saved searches walk
+--              (COALESCE(updated_at, created_at), id), so rows that were never
+--              updated (NULL updated_at) are still picked up. The expression
+--              indexes replace the plain (updated_at, id) ones from V31.
+-- ============================================================================
+
+CREATE INDEX IF NOT EXISTS idx_patients_changed_id ON patients((COALESCE(updated_at, created_at)), id);
+CREATE INDEX IF NOT EXISTS idx_studies_changed_id ON studies((COALESCE(updated_at, created_at)), id);
+CREATE INDEX IF NOT EXISTS idx_reports_changed_id ON reports((COALESCE(updated_at, created_at)), id);
+CREATE INDEX IF NOT EXISTS idx_treatments_changed_id ON treatment_plans((COALESCE(updated_at, created_at)), id);
+
+DROP INDEX IF EXISTS idx_patients_updated_id;
+DROP INDEX IF EXISTS idx_studies_updated_id;
+DROP INDEX IF EXISTS idx_reports_updated_id;
+DROP INDEX IF EXISTS idx_treatments_updated_id;
+
+COMMENT ON COLUMN saved_search_materializations.through_updated_at IS
+    '(COALESCE(updated_at, created_at), id) position the next refresh resumes from; never past the start of the oldest open transaction';
@@ -0,0 +1,60 @@
+package com.team.medaibackend.analytics;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class ColumnarTableTest {
+
+    private final ColumnarTable table = ColumnarTable.builder("studies", List.of("modality", "weekday"), List.of("minutes"))
+            .addRow(100, new String[]{"CT", "Monday"}, new int[]{30})
+            .addRow(100, new String[]{"CT", "Tuesday"}, new int[]{90})
+            .addRow(101, new String[]{"MR", "Monday"}, new int[]{ColumnarTable.MISSING})
+            .addRow(102, new String[]{"CT", "Monday"}, new int[]{60})
+            .addRow(200, new String[]{null, "Monday"}, new int[]{10})
+            .build();
+
+    @Test
+    void groupsByDimensionsWithinDateRange() {
+        List<Map<String, Object>> rows = table.aggregate(100, 102, List.of("modality", "weekday"), Map.of(), "minutes", 10);
+
+        assertEquals(3, rows.size());
+        Map<String, Object> first = rows.get(0);
+        assertEquals("CT", first.get("modality"));
+        assertEquals("Monday", first.get("weekday"));
+        assertEquals(2L, first.get("count"));
+        assertEquals(90L, first.get("sum"));
+        assertEquals(45.0, first.get("average"));
+    }
+
+    @Test
+    void filtersAndMissingValues() {
+        List<Map<String, Object>> rows = table.aggregate(Long.MIN_VALUE, Long.MAX_VALUE, List.of("modality"),
+                Map.of("weekday", Set.of("Monday")), "minutes", 10);
+
+        assertEquals(3, rows.size());
+        Map<String, Object> mr = rows.stream().filter(r -> "MR".equals(r.get("modality"))).findFirst().orElseThrow();
+        assertEquals(1L, mr.get("count"));
+        assertNull(mr.get("average"));
+        assertTrue(rows.stream().anyMatch(r -> ColumnarTable.UNKNOWN.equals(r.get("modality"))));
+    }
+
+    @Test
+    void totalWithoutDimensions() {
+        List<Map<String, Object>> rows = table.aggregate(Long.MIN_VALUE, Long.MAX_VALUE, List.of(), Map.of(), null, 10);
+
+        assertEquals(1, rows.size());
+        assertEquals(5L, rows.get(0).get("count"));
+        assertTrue(table.getMemoryBytes() > 0);
+    }
+
+    @Test
+    void rejectsUnknownDimension() {
+        assertThrows(IllegalArgumentException.class,
+                () -> table.aggregate(0, 1, List.of("referrer"), Map.of(), null, 10));
+    }
+}
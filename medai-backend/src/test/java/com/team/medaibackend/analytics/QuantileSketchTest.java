@@ -0,0 +1,68 @@
+package com.team.medaibackend.analytics;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.Arrays;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class QuantileSketchTest {
+
+    @Test
+    void quantilesAreWithinRelativeAccuracy() {
+        Random random = new Random(42);
+        double[] values = new double[100_000];
+        QuantileSketch sketch = new QuantileSketch();
+        for (int i = 0; i < values.length; i++) {
+            // Long-tailed, like turnaround minutes
+            values[i] = 1 + Math.exp(random.nextGaussian() * 1.5 + 5);
+            sketch.add(values[i]);
+        }
+        Arrays.sort(values);
+
+        for (double q : new double[]{0.5, 0.9, 0.99}) {
+            double exact = values[(int) Math.floor(q * (values.length - 1))];
+            assertEquals(exact, sketch.quantile(q), exact * QuantileSketch.RELATIVE_ACCURACY);
+        }
+    }
+
+    @Test
+    void mergedSketchMatchesSketchOfAllValues() {
+        QuantileSketch all = new QuantileSketch();
+        QuantileSketch first = new QuantileSketch();
+        QuantileSketch second = new QuantileSketch();
+        for (int i = 0; i < 5000; i++) {
+            all.add(i * 3.7);
+            (i % 2 == 0 ? first : second).add(i * 3.7);
+        }
+        first.merge(second);
+
+        assertEquals(all.getCount(), first.getCount());
+        assertArrayEquals(all.encode(), first.encode());
+    }
+
+    @Test
+    void encodeDecodeRoundTrip() {
+        QuantileSketch sketch = new QuantileSketch();
+        sketch.add(0);
+        sketch.add(0.5);
+        sketch.add(30);
+        sketch.add(1440);
+        sketch.add(525_600);
+
+        QuantileSketch decoded = QuantileSketch.decode(sketch.encode());
+
+        assertEquals(5, decoded.getCount());
+        for (double q : new double[]{0, 0.25, 0.5, 0.75, 1}) {
+            assertEquals(sketch.quantile(q), decoded.quantile(q));
+        }
+    }
+
+    @Test
+    void emptySketchReportsZero() {
+        QuantileSketch sketch = QuantileSketch.decode(new QuantileSketch().encode());
+        assertTrue(sketch.isEmpty());
+        assertEquals(0, sketch.quantile(0.99));
+    }
+}
@@ -0,0 +1,106 @@
+package com.team.medaibackend.cache;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class LocalBoundedCacheTest {
+
+    @Test
+    void earlierInvalidationOvertakesPendingLaterOne() throws InterruptedException {
+        LocalBoundedCache cache = new LocalBoundedCache("test", 60_000, 10);
+        BoundedCacheManager manager = new BoundedCacheManager(List.of(cache), 0.8);
+        try {
+            cache.put("a", 1);
+            manager.invalidateLater("test", 30_000);
+            manager.invalidateLater("test", 20);
+
+            Thread.sleep(200);
+            assertNull(cache.get("a"));
+        } finally {
+            manager.destroy();
+        }
+    }
+
+    @Test
+    void evictsLeastRecentlyUsedBeyondBound() {
+        LocalBoundedCache cache = new LocalBoundedCache("test", 60_000, 2);
+        cache.put("a", 1);
+        cache.put("b", 2);
+        cache.get("a");
+        cache.put("c", 3);
+
+        assertNotNull(cache.get("a"));
+        assertNull(cache.get("b"));
+        assertNotNull(cache.get("c"));
+        assertEquals(1L, cache.getStatistics().get("evictions"));
+    }
+
+    @Test
+    void expiredEntriesAreMisses() throws InterruptedException {
+        LocalBoundedCache cache = new LocalBoundedCache("test", 20, 10);
+        cache.put("a", 1);
+        assertEquals(1, cache.get("a").get());
+
+        Thread.sleep(40);
+
+        assertNull(cache.get("a"));
+        assertEquals(1L, cache.getStatistics().get("hits"));
+        assertEquals(1L, cache.getStatistics().get("misses"));
+    }
+
+    @Test
+    void loaderRunsOnlyOnMiss() {
+        LocalBoundedCache cache = new LocalBoundedCache("test", 60_000, 10);
+        AtomicInteger calls = new AtomicInteger();
+
+        assertEquals("v", cache.get("k", () -> { calls.incrementAndGet(); return "v"; }));
+        assertEquals("v", cache.get("k", () -> { calls.incrementAndGet(); return "other"; }));
+        assertEquals(1, calls.get());
+    }
+
+    @Test
+    void refreshAheadServesCurrentValueWhileReloading() {
+        LocalBoundedCache cache = new LocalBoundedCache("test", 60_000, 10);
+        AtomicInteger version = new AtomicInteger();
+        cache.setRefresher(key -> version.incrementAndGet(), 0.0, Runnable::run);
+
+        cache.put("k", 0);
+        assertEquals(0, cache.get("k").get());
+        assertEquals(1, cache.get("k").get());
+    }
+
+    @Test
+    void loadOverlappingAnInvalidationIsNotCached() {
+        LocalBoundedCache cache = new LocalBoundedCache("test", 60_000, 10);
+
+        // The write lands while the loader runs, so what it read may predate the write
+        assertEquals("stale", cache.get("k", () -> {
+            cache.refreshOrClear();
+            return "stale";
+        }));
+        assertNull(cache.get("k"));
+    }
+
+    @Test
+    void invalidationDuringRefreshReloadsAgain() {
+        LocalBoundedCache cache = new LocalBoundedCache("test", 60_000, 10);
+        AtomicInteger calls = new AtomicInteger();
+        cache.setRefresher(key -> {
+            if (calls.incrementAndGet() == 1) {
+                cache.refreshOrClear();
+                return "stale";
+            }
+            return "fresh";
+        }, 1.0, Runnable::run);
+
+        cache.put("k", "old");
+        cache.refreshOrClear();
+
+        assertEquals(2, calls.get());
+        assertEquals("fresh", cache.get("k").get());
+    }
+}
@@ -0,0 +1,38 @@
+package com.team.medaibackend.metrics;
+
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class LatencyHistogramTest {
+
+    @Test
+    void bucketsRoundTripWithinThreePercent() {
+        for (long micros = 1; micros < LatencyHistogram.MAX_MICROS; micros = micros * 3 / 2 + 1) {
+            long value = LatencyHistogram.valueOf(LatencyHistogram.bucketOf(micros));
+            assertEquals(micros, value, micros * 0.032, "value " + micros);
+        }
+    }
+
+    @Test
+    void percentilesOfUniformLatencies() {
+        LatencyHistogram histogram = new LatencyHistogram();
+        for (long ms = 1; ms <= 1000; ms++) {
+            histogram.record(ms * 1000);
+        }
+
+        long[] buckets = new long[LatencyHistogram.BUCKETS];
+        long[] countSumMax = histogram.addTo(buckets);
+
+        assertEquals(1000, countSumMax[0]);
+        assertEquals(1_000_000, countSumMax[2]);
+        assertEquals(500_000, LatencyHistogram.quantile(buckets, 1000, 0.50), 500_000 * 0.032);
+        assertEquals(990_000, LatencyHistogram.quantile(buckets, 1000, 0.99), 990_000 * 0.032);
+    }
+
+    @Test
+    void outOfRangeValuesAreClamped() {
+        assertEquals(0, LatencyHistogram.bucketOf(0));
+        assertEquals(LatencyHistogram.BUCKETS - 1, LatencyHistogram.bucketOf(Long.MAX_VALUE));
+    }
+}
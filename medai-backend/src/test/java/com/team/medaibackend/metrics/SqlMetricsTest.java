@@ -0,0 +1,57 @@
+package com.team.medaibackend.metrics;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.scheduling.concurrent.ThreadPoolTaskExecutor;
+
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class SqlMetricsTest {
+
+    private SqlMetrics metrics;
+    private ThreadPoolTaskExecutor executor;
+
+    @BeforeEach
+    void setUp() {
+        metrics = new SqlMetrics(10);
+        executor = new ThreadPoolTaskExecutor();
+        executor.setCorePoolSize(1);
+        executor.setMaxPoolSize(1);
+        executor.setTaskDecorator(metrics::propagateRequest);
+        executor.initialize();
+    }
+
+    @AfterEach
+    void tearDown() {
+        executor.shutdown();
+    }
+
+    @Test
+    void statementsOnWorkerThreadsCountTowardsTheRequest() {
+        metrics.beginRequest();
+        SqlMetrics.RequestStats stats = metrics.currentRequest();
+
+        metrics.onStatement("SELECT 1", List.of(), 2_000_000);
+        CompletableFuture.allOf(
+                CompletableFuture.runAsync(() -> metrics.onStatement("SELECT 2", List.of(), 3_000_000), executor),
+                CompletableFuture.runAsync(() -> metrics.onStatement("SELECT 3", List.of(), 5_000_000), executor)
+        ).join();
+
+        assertEquals(3, stats.getStatements());
+        assertEquals(10.0, stats.getDatabaseMillis(), 0.001);
+        metrics.endRequest("GET /api/search");
+    }
+
+    @Test
+    void workerThreadForgetsTheRequestAfterTheTask() {
+        metrics.beginRequest();
+        CompletableFuture.runAsync(() -> metrics.onStatement("SELECT 1", List.of(), 1_000_000), executor).join();
+        metrics.endRequest("GET /api/search");
+
+        assertNull(CompletableFuture.supplyAsync(metrics::currentRequest, executor).join());
+    }
+}
@@ -0,0 +1,237 @@
+package com.team.medaibackend.repository;
+
+import com.team.medaibackend.entity.Appointment;
+import com.team.medaibackend.entity.Study;
+import jakarta.persistence.EntityManagerFactory;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.TestInstance;
+import org.junit.jupiter.api.condition.EnabledIfSystemProperty;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Sort;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.context.DynamicPropertyRegistry;
+import org.springframework.test.context.DynamicPropertySource;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import javax.sql.DataSource;
+import java.lang.management.ManagementFactory;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+/**
+ * Statements and allocation per list request: the previous read path (page of entities, lazy
+ * patient/doctor loads per row, fields copied into a HashMap) against the projection queries the
+ * list endpoints use now. Both run in a read-only transaction with a fresh persistence context, as
+ * a request does. Only the statement count of the projections is asserted; the averages of both
+ * paths are logged for comparison, and no results have been recorded yet.
+ * <p>
+ * Needs a scratch PostgreSQL database and is skipped otherwise. The application starts against it,
+ * so Flyway migrates the schema first; the generated patients, studies, appointments and doctors are
+ * removed again afterwards.
+ * <pre>
+ * mvn test -Dtest=ListReadModelBenchmark \
+ *     -Dbenchmark.jdbc-url=jdbc:postgresql://localhost:5432/bench \
+ *     -Dbenchmark.user=postgres -Dbenchmark.password=postgres [-Dbenchmark.iterations=200]
+ * </pre>
+ */
+@SpringBootTest
+@TestInstance(TestInstance.Lifecycle.PER_CLASS)
+@EnabledIfSystemProperty(named = "benchmark.jdbc-url", matches = ".+")
+class ListReadModelBenchmark {
+
+    private static final Logger logger = LoggerFactory.getLogger(ListReadModelBenchmark.class);
+
+    private static final String PREFIX = "list_benchmark_";
+    private static final int PATIENTS = 5000;
+    private static final int ROWS = 20_000;
+    private static final int PAGE_SIZE = 50;
+
+    @DynamicPropertySource
+    static void benchmarkDatabase(DynamicPropertyRegistry registry) {
+        registry.add("spring.datasource.url", () -> System.getProperty("benchmark.jdbc-url"));
+        registry.add("spring.datasource.username", () -> System.getProperty("benchmark.user", "postgres"));
+        registry.add("spring.datasource.password", () -> System.getProperty("benchmark.password", ""));
+        registry.add("spring.jpa.properties.hibernate.generate_statistics", () -> "true");
+    }
+
+    @Autowired
+    private StudyRepository studyRepository;
+
+    @Autowired
+    private AppointmentRepository appointmentRepository;
+
+    @Autowired
+    private EntityManagerFactory entityManagerFactory;
+
+    @Autowired
+    private DataSource dataSource;
+
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+    private JdbcTemplate jdbc;
+    private Statistics statistics;
+    private TransactionTemplate readOnly;
+
+    @BeforeAll
+    void generate() {
+        jdbc = new JdbcTemplate(dataSource);
+        statistics = entityManagerFactory.unwrap(SessionFactory.class).getStatistics();
+        readOnly = new TransactionTemplate(transactionManager);
+        readOnly.setReadOnly(true);
+
+        long start = System.currentTimeMillis();
+        jdbc.update("INSERT INTO users (username, password_hash, email, full_name, department) " +
+                "SELECT ? || 'doctor_' || d, 'x', ? || 'doctor_' || d || '@example.invalid', 'Doctor ' || d, 'Radiology' " +
+                "FROM generate_series(1, 20) d", PREFIX, PREFIX);
+        jdbc.update("INSERT INTO patients (patient_id, name, sex, birth_date) " +
+                "SELECT ? || p, 'Patient ' || p, CASE WHEN p % 2 = 0 THEN 'F' ELSE 'M' END, " +
+                "DATE '1950-01-01' + (p % 20000) FROM generate_series(1, ?) p", PREFIX, PATIENTS);
+        // Rows are spread over all patients, so a page touches about as many patients as it has rows
+        jdbc.update("INSERT INTO studies (study_uid, patient_id, study_date, description, modality, status) " +
+                "SELECT ? || g, p.id, now() - g * interval '1 minute', 'Study ' || g, " +
+                "(ARRAY['CT', 'MR', 'US', 'XR'])[1 + g % 4], 'uploaded' " +
+                "FROM generate_series(1, ?) g JOIN patients p ON p.patient_id = ? || (1 + (g * 7919) % ?)",
+                PREFIX, ROWS, PREFIX, PATIENTS);
+        jdbc.update("INSERT INTO appointments (patient_id, doctor_id, appointment_date, appointment_time, " +
+                "duration_minutes, appointment_type, status) " +
+                "SELECT p.id, u.id, DATE '1990-01-01' + g / 40, TIME '08:00' + (g % 40) * interval '15 minutes', " +
+                "15, 'consultation', 'scheduled' " +
+                "FROM generate_series(1, ?) g " +
+                "JOIN patients p ON p.patient_id = ? || (1 + (g * 7919) % ?) " +
+                "JOIN users u ON u.username = ? || 'doctor_' || (1 + g % 20)",
+                ROWS, PREFIX, PATIENTS, PREFIX);
+        jdbc.execute("ANALYZE patients");
+        jdbc.execute("ANALYZE studies");
+        jdbc.execute("ANALYZE appointments");
+        logger.info("Generated {} patients, {} studies and {} appointments in {} ms",
+                PATIENTS, ROWS, ROWS, System.currentTimeMillis() - start);
+    }
+
+    @AfterAll
+    void cleanUp() {
+        jdbc.update("DELETE FROM appointments WHERE doctor_id IN (SELECT id FROM users WHERE username LIKE ?)", PREFIX + "%");
+        jdbc.update("DELETE FROM studies WHERE study_uid LIKE ?", PREFIX + "%");
+        jdbc.update("DELETE FROM patients WHERE patient_id LIKE ?", PREFIX + "%");
+        jdbc.update("DELETE FROM users WHERE username LIKE ?", PREFIX + "%");
+    }
+
+    @Test
+    void studyList() {
+        Pageable pageable = PageRequest.of(0, PAGE_SIZE, Sort.by("studyDate").descending());
+
+        measure("studies, entities + HashMap", () -> {
+            List<Map<String, Object>> rows = studyRepository.findAll(pageable).getContent().stream()
+                    .map(ListReadModelBenchmark::studyRow)
+                    .toList();
+            assertEquals(PAGE_SIZE, rows.size());
+        });
+        Measurement projection = measure("studies, projection", () ->
+                assertEquals(PAGE_SIZE, studyRepository.findListItems(null, null, null, null, pageable).getContent().size()));
+
+        // One select and one count, however many patients the page touches
+        assertEquals(2, projection.statements());
+    }
+
+    @Test
+    void appointmentList() {
+        Pageable pageable = PageRequest.of(0, PAGE_SIZE, Sort.by("appointmentDate", "appointmentTime").ascending());
+
+        measure("appointments, entities + HashMap", () -> {
+            List<Map<String, Object>> rows = appointmentRepository.findAll(pageable).getContent().stream()
+                    .map(ListReadModelBenchmark::appointmentRow)
+                    .toList();
+            assertEquals(PAGE_SIZE, rows.size());
+        });
+        Measurement projection = measure("appointments, projection", () ->
+                assertEquals(PAGE_SIZE, appointmentRepository.findListItems(pageable).getContent().size()));
+
+        assertEquals(2, projection.statements());
+    }
+
+    private record Measurement(long statements, long bytes, double millis) {
+    }
+
+    /**
+     * Average statements, allocated bytes and time per request, each request in its own transaction
+     */
+    private Measurement measure(String name, Runnable request) {
+        int iterations = Integer.getInteger("benchmark.iterations", 200);
+        // Warm up so the JIT and Hibernate's query plan cache are settled
+        for (int i = 0; i < iterations / 4; i++) {
+            readOnly.executeWithoutResult(status -> request.run());
+        }
+
+        com.sun.management.ThreadMXBean threads = (com.sun.management.ThreadMXBean) ManagementFactory.getThreadMXBean();
+        long statementsBefore = statistics.getPrepareStatementCount();
+        long bytesBefore = threads.getCurrentThreadAllocatedBytes();
+        long start = System.nanoTime();
+        for (int i = 0; i < iterations; i++) {
+            readOnly.executeWithoutResult(status -> request.run());
+        }
+        Measurement measurement = new Measurement(
+                (statistics.getPrepareStatementCount() - statementsBefore) / iterations,
+                (threads.getCurrentThreadAllocatedBytes() - bytesBefore) / iterations,
+                (System.nanoTime() - start) / 1_000_000.0 / iterations);
+
+        logger.info("{}: {} statements, {} KB allocated, {} ms per request", name, measurement.statements(),
+                measurement.bytes() / 1024, String.format("%.2f", measurement.millis()));
+        return measurement;
+    }
+
+    // The list rows as the controllers built them before the projections
+
+    private static Map<String, Object> studyRow(Study study) {
+        Map<String, Object> dto = new HashMap<>();
+        dto.put("id", study.getId());
+        dto.put("studyUid", study.getStudyUid());
+        dto.put("description", study.getDescription());
+        dto.put("modality", study.getModality());
+        dto.put("status", study.getStatus());
+        dto.put("studyDate", study.getStudyDate() != null ? study.getStudyDate().toString() : null);
+        dto.put("createdAt", study.getCreatedAt() != null ? study.getCreatedAt().toString() : null);
+        if (study.getPatient() != null) {
+            dto.put("patientId", study.getPatient().getId());
+            dto.put("patientName", study.getPatient().getName());
+        }
+        return dto;
+    }
+
+    private static Map<String, Object> appointmentRow(Appointment apt) {
+        Map<String, Object> dto = new HashMap<>();
+        dto.put("id", apt.getId());
+        dto.put("date", apt.getAppointmentDate() != null ? apt.getAppointmentDate().toString() : null);
+        dto.put("time", apt.getAppointmentTime() != null ? apt.getAppointmentTime().toString() : null);
+        dto.put("endTime", apt.getEndTime() != null ? apt.getEndTime().toString() : null);
+        dto.put("type", apt.getAppointmentType());
+        dto.put("status", apt.getStatus());
+        dto.put("location", apt.getLocation());
+        dto.put("notes", apt.getNotes());
+        dto.put("reason", apt.getReason());
+        dto.put("durationMinutes", apt.getDurationMinutes());
+        if (apt.getPatient() != null) {
+            dto.put("patientId", apt.getPatient().getId());
+            dto.put("patientName", apt.getPatient().getName());
+        }
+        if (apt.getDoctor() != null) {
+            dto.put("doctorId", apt.getDoctor().getId());
+            dto.put("doctorName", apt.getDoctor().getFullName());
+            dto.put("doctorDepartment", apt.getDoctor().getDepartment());
+        }
+        dto.put("createdAt", apt.getCreatedAt() != null ? apt.getCreatedAt().toString() : null);
+        return dto;
+    }
+}
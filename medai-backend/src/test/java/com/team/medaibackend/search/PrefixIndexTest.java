@@ -0,0 +1,63 @@
+package com.team.medaibackend.search;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class PrefixIndexTest {
+
+    @Test
+    void matchesAnyTermPrefixOncePerDocument() {
+        PrefixIndex<String> index = new PrefixIndex<>(100);
+        index.put("patient:1", List.of("John Smith", "John", "Smith", "P-001"), "john");
+        index.put("patient:2", List.of("Jane Doe", "Jane", "Doe"), "jane");
+
+        assertEquals(List.of("jane", "john"), scan(index, "J"));
+        assertEquals(List.of("john"), scan(index, "smi"));
+        assertEquals(List.of("john"), scan(index, "p-0"));
+    }
+
+    @Test
+    void reindexReplacesOldTerms() {
+        PrefixIndex<String> index = new PrefixIndex<>(100);
+        index.put("patient:1", List.of("Smith"), "old");
+        index.put("patient:1", List.of("Jones"), "new");
+
+        assertTrue(scan(index, "smi").isEmpty());
+        assertEquals(List.of("new"), scan(index, "jo"));
+        assertEquals(1, index.entryCount());
+
+        index.remove("patient:1");
+        assertEquals(0, index.entryCount());
+        assertEquals(0, index.estimatedBytes());
+    }
+
+    @Test
+    void rejectsDocumentsBeyondCapacity() {
+        PrefixIndex<String> index = new PrefixIndex<>(2);
+        assertTrue(index.put("a", List.of("alpha", "beta"), "a"));
+        assertFalse(index.put("b", List.of("gamma"), "b"));
+        assertTrue(index.isSaturated());
+    }
+
+    @Test
+    void stopsAfterThePostingBudget() {
+        PrefixIndex<String> index = new PrefixIndex<>(1000);
+        for (int i = 0; i < 500; i++) {
+            index.put("patient:" + i, List.of("a" + i), "p" + i);
+        }
+
+        List<String> values = new ArrayList<>();
+        index.scan("a", 10, (key, value) -> values.add(value));
+        assertEquals(10, values.size());
+    }
+
+    private List<String> scan(PrefixIndex<String> index, String prefix) {
+        List<String> values = new ArrayList<>();
+        index.scan(prefix, Integer.MAX_VALUE, (key, value) -> values.add(value));
+        return values;
+    }
+}
@@ -0,0 +1,64 @@
+package com.team.medaibackend.security;
+
+import io.jsonwebtoken.Claims;
+import io.jsonwebtoken.Jwts;
+import io.jsonwebtoken.security.Keys;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.condition.EnabledIfSystemProperty;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import javax.crypto.SecretKey;
+import java.nio.charset.StandardCharsets;
+import java.util.function.Consumer;
+
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+
+/**
+ * Per-request JWT authentication cost: the old path (validate, then read username and role,
+ * each a full parse with the key rebuilt every time) against one parse and a verified-token hit.
+ * <pre>
+ * mvn test -Dtest=JwtAuthBenchmark -Dbenchmark.jwt=true [-Dbenchmark.iterations=200000]
+ * </pre>
+ */
+@EnabledIfSystemProperty(named = "benchmark.jwt", matches = "true")
+class JwtAuthBenchmark {
+
+    private static final Logger logger = LoggerFactory.getLogger(JwtAuthBenchmark.class);
+
+    private static final String SECRET = "benchmarkSecretKeyThatIsAtLeast384BitsLongForTheHS384Algorithm0123";
+
+    @Test
+    void compareAuthenticationPaths() {
+        int iterations = Integer.getInteger("benchmark.iterations", 200_000);
+        JwtService cached = new JwtService(SECRET, 3_600_000, 86_400_000, 10_000);
+        JwtService uncached = new JwtService(SECRET, 3_600_000, 86_400_000, 0);
+        String token = cached.generateAccessToken("dr.house", "DOCTOR", 42L);
+
+        run("three parses, key per call", iterations, t -> {
+            parse(t);
+            assertNotNull(parse(t).getSubject());
+            assertNotNull(parse(t).get("role", String.class));
+        }, token);
+        run("single parse", iterations, t -> assertNotNull(uncached.verify(t)), token);
+        run("verified-token cache hit", iterations, t -> assertNotNull(cached.verify(t)), token);
+    }
+
+    private static Claims parse(String token) {
+        SecretKey key = Keys.hmacShaKeyFor(SECRET.getBytes(StandardCharsets.UTF_8));
+        return Jwts.parser().verifyWith(key).build().parseSignedClaims(token).getPayload();
+    }
+
+    private static void run(String name, int iterations, Consumer<String> authenticate, String token) {
+        // Warm up so the JIT has compiled the path before it is timed
+        for (int i = 0; i < iterations / 4; i++) {
+            authenticate.accept(token);
+        }
+        long start = System.nanoTime();
+        for (int i = 0; i < iterations; i++) {
+            authenticate.accept(token);
+        }
+        double micros = (System.nanoTime() - start) / 1000.0 / iterations;
+        logger.info("{}: {} microseconds/request", name, String.format("%.2f", micros));
+    }
+}
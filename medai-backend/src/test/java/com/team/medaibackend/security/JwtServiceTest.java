@@ -0,0 +1,55 @@
+package com.team.medaibackend.security;
+
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class JwtServiceTest {
+
+    private static final String SECRET = "testSecretKeyThatIsAtLeast384BitsLongForTheHS384Algorithm0123456789";
+
+    @Test
+    void verifyReadsAllClaimsOnce() {
+        JwtService jwtService = new JwtService(SECRET, 60_000, 120_000, 100);
+        String token = jwtService.generateAccessToken("dr.house", "DOCTOR", 42L);
+
+        VerifiedToken verified = jwtService.verify(token);
+
+        assertNotNull(verified);
+        assertEquals("dr.house", verified.username());
+        assertEquals("DOCTOR", verified.role());
+        assertEquals(42L, verified.userId());
+        assertSame(verified, jwtService.verify(token));
+    }
+
+    @Test
+    void rejectsTamperedAndForeignTokens() {
+        JwtService jwtService = new JwtService(SECRET, 60_000, 120_000, 100);
+        JwtService other = new JwtService(SECRET.replace('0', 'x'), 60_000, 120_000, 100);
+        String token = jwtService.generateAccessToken("dr.house", "DOCTOR", 42L);
+
+        assertNull(jwtService.verify(token.substring(0, token.length() - 2) + "AA"));
+        assertNull(jwtService.verify(other.generateAccessToken("dr.house", "ADMIN", 42L)));
+        assertNull(jwtService.verify("not-a-token"));
+        assertNull(jwtService.verify(null));
+    }
+
+    @Test
+    void expiredTokensAreNotServedFromCache() {
+        VerifiedTokenCache cache = new VerifiedTokenCache(10);
+        cache.put("k", new VerifiedToken("t", "u", "ADMIN", 1L, 0, 1_000), 500);
+
+        assertNotNull(cache.get("k", 999));
+        assertNull(cache.get("k", 1_000));
+        assertEquals(0, cache.size());
+    }
+
+    @Test
+    void cacheStaysBounded() {
+        VerifiedTokenCache cache = new VerifiedTokenCache(100);
+        for (int i = 0; i < 1_000; i++) {
+            cache.put("k" + i, new VerifiedToken("t", "u", "ADMIN", 1L, 0, Long.MAX_VALUE), 0);
+        }
+        assertTrue(cache.size() <= 100);
+    }
+}
@@ -0,0 +1,72 @@
+package com.team.medaibackend.security;
+
+import com.team.medaibackend.exception.TooManyRequestsException;
+import org.junit.jupiter.api.Test;
+
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class LoginThrottleTest {
+
+    private static final long SECOND = TimeUnit.SECONDS.toNanos(1);
+
+    @Test
+    void bucketRefillsAtItsRate() {
+        LoginThrottle.TokenBucket bucket = new LoginThrottle.TokenBucket(2, 1, 0);
+
+        assertTrue(bucket.tryConsume(0));
+        assertTrue(bucket.tryConsume(0));
+        assertFalse(bucket.tryConsume(0));
+        assertEquals(1, bucket.secondsUntilToken(0));
+
+        assertFalse(bucket.tryConsume(SECOND / 2));
+        assertTrue(bucket.tryConsume(SECOND));
+        assertTrue(bucket.isFull(10 * SECOND));
+    }
+
+    @Test
+    void ipBucketLimitsEveryAttempt() {
+        LoginThrottle throttle = new LoginThrottle(3, 0.001, 5, 0.001, 100);
+
+        for (int i = 0; i < 3; i++) {
+            throttle.acquire("user" + i, "10.0.0.1");
+        }
+        TooManyRequestsException rejected = assertThrows(TooManyRequestsException.class,
+                () -> throttle.acquire("someone", "10.0.0.1"));
+        assertTrue(rejected.getRetryAfterSeconds() > 0);
+
+        throttle.acquire("someone", "10.0.0.2");
+    }
+
+    @Test
+    void onlyFailuresCountAgainstTheUsername() {
+        LoginThrottle throttle = new LoginThrottle(1000, 60, 2, 0.001, 100);
+
+        for (int i = 0; i < 10; i++) {
+            throttle.acquire("Dr.House", "10.0.0.1");
+            throttle.recordSuccess("Dr.House");
+        }
+        // Two wrong passwords keep their reserved tokens
+        throttle.acquire("dr.house", "10.0.0.1");
+        throttle.acquire("DR.HOUSE ", "10.0.0.1");
+
+        assertThrows(TooManyRequestsException.class, () -> throttle.acquire("dr.house", "10.0.0.9"));
+        throttle.acquire("dr.wilson", "10.0.0.9");
+    }
+
+    @Test
+    void concurrentAttemptsReserveUsernameTokensUpFront() {
+        LoginThrottle throttle = new LoginThrottle(1000, 60, 3, 0.001, 100);
+
+        // Three guesses in flight, none of them checked yet: a fourth is refused from any IP
+        for (int i = 0; i < 3; i++) {
+            throttle.acquire("dr.house", "10.0.0." + i);
+        }
+        assertThrows(TooManyRequestsException.class, () -> throttle.acquire("dr.house", "10.0.0.9"));
+
+        // One of them was the owner with the right password
+        throttle.recordSuccess("dr.house");
+        throttle.acquire("dr.house", "10.0.0.9");
+    }
+}
@@ -0,0 +1,107 @@
+package com.team.medaibackend.security;
+
+import com.team.medaibackend.entity.Role;
+import com.team.medaibackend.entity.User;
+import com.team.medaibackend.repository.UserRepository;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.data.redis.listener.RedisMessageListenerContainer;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
+import org.springframework.security.core.authority.SimpleGrantedAuthority;
+import org.springframework.security.core.context.SecurityContextHolder;
+import org.springframework.web.context.request.RequestContextHolder;
+import org.springframework.web.context.request.ServletRequestAttributes;
+
+import java.util.List;
+import java.util.Optional;
+import java.util.Set;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.*;
+
+class PrincipalCacheTest {
+
+    private PrincipalCache cache;
+    private UserRepository userRepository;
+    private SecurityUtils securityUtils;
+
+    @BeforeEach
+    void setUp() {
+        cache = new PrincipalCache(mock(StringRedisTemplate.class), mock(RedisMessageListenerContainer.class),
+                60_000, 100);
+        userRepository = mock(UserRepository.class);
+        securityUtils = new SecurityUtils(userRepository, cache);
+    }
+
+    @AfterEach
+    void tearDown() {
+        SecurityContextHolder.clearContext();
+        RequestContextHolder.resetRequestAttributes();
+    }
+
+    @Test
+    void loadOverlappingAnInvalidationIsNotCached() {
+        long generation = cache.generation();
+        cache.invalidate(1L);
+
+        cache.put(user(1L, "alice", "DOCTOR"), generation);
+
+        assertNull(cache.get("alice"));
+        cache.put(user(1L, "alice", "DOCTOR"), cache.generation());
+        assertTrue(cache.get("alice").hasRole("DOCTOR"));
+    }
+
+    @Test
+    void invalidateDropsTheUser() {
+        cache.put(user(1L, "alice", "DOCTOR"), cache.generation());
+        cache.put(user(2L, "bob", "NURSE"), cache.generation());
+
+        cache.invalidate(1L);
+
+        assertNull(cache.get("alice"));
+        assertNotNull(cache.get("bob"));
+    }
+
+    @Test
+    void userKeptByTheRequestIsNotCachedAfterAnInvalidation() {
+        authenticate("alice");
+        when(userRepository.findByUsername("alice")).thenReturn(Optional.of(user(1L, "alice", "ADMIN")));
+
+        // Loaded once and kept for the request
+        assertTrue(securityUtils.isAdmin());
+        verify(userRepository, times(1)).findByUsername("alice");
+
+        // Alice loses ADMIN while the request is still running
+        when(userRepository.findByUsername("alice")).thenReturn(Optional.of(user(1L, "alice", "DOCTOR")));
+        cache.invalidate(1L);
+
+        // The request keeps answering from the user it loaded, but that must not refill the cache
+        assertTrue(securityUtils.isAdmin());
+        assertNull(cache.get("alice"));
+
+        // The next request loads the user again and sees the new role
+        RequestContextHolder.setRequestAttributes(new ServletRequestAttributes(new MockHttpServletRequest()));
+        assertFalse(securityUtils.isAdmin());
+        assertTrue(cache.get("alice").hasRole("DOCTOR"));
+    }
+
+    private void authenticate(String username) {
+        SecurityContextHolder.getContext().setAuthentication(new UsernamePasswordAuthenticationToken(
+                username, null, List.of(new SimpleGrantedAuthority("ROLE_USER"))));
+        RequestContextHolder.setRequestAttributes(new ServletRequestAttributes(new MockHttpServletRequest()));
+    }
+
+    private static User user(Long id, String username, String roleName) {
+        Role role = new Role();
+        role.setName(roleName);
+        User user = new User();
+        user.setId(id);
+        user.setUsername(username);
+        user.setEnabled(true);
+        user.setRoles(Set.of(role));
+        return user;
+    }
+}
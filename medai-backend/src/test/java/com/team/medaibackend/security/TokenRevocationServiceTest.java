@@ -0,0 +1,104 @@
+package com.team.medaibackend.security;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.data.redis.RedisConnectionFailureException;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.data.redis.core.ValueOperations;
+import org.springframework.data.redis.core.ZSetOperations;
+import org.springframework.data.redis.listener.RedisMessageListenerContainer;
+
+import java.util.Arrays;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Set;
+
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+
+class TokenRevocationServiceTest {
+
+    private StringRedisTemplate redis;
+    private ValueOperations<String, String> values;
+    private ZSetOperations<String, String> index;
+    private TokenRevocationService revocations;
+
+    @BeforeEach
+    @SuppressWarnings("unchecked")
+    void setUp() {
+        redis = mock(StringRedisTemplate.class);
+        values = mock(ValueOperations.class);
+        index = mock(ZSetOperations.class);
+        when(redis.opsForValue()).thenReturn(values);
+        when(redis.opsForZSet()).thenReturn(index);
+        revocations = new TokenRevocationService(redis, mock(RedisMessageListenerContainer.class),
+                1000, 0.001, 600_000, 5000, 86_400_000);
+    }
+
+    @AfterEach
+    void tearDown() {
+        revocations.shutdown();
+    }
+
+    @Test
+    void redisDownAtStartupFailsClosed() {
+        when(index.rangeByScore(anyString(), anyDouble(), anyDouble()))
+                .thenThrow(new RedisConnectionFailureException("down"));
+        when(values.multiGet(anyList())).thenThrow(new RedisConnectionFailureException("down"));
+
+        revocations.afterSingletonsInstantiated();
+
+        assertTrue(revocations.isRevoked(token("t1", "alice")));
+    }
+
+    @Test
+    void unbuiltFilterAsksRedisForEveryToken() {
+        when(index.rangeByScore(anyString(), anyDouble(), anyDouble()))
+                .thenThrow(new RedisConnectionFailureException("down"));
+        revocations.afterSingletonsInstantiated();
+
+        // Redis is back before the next build: a token revoked earlier must still be caught
+        reset(values);
+        when(values.multiGet(List.of("medai:revoked:token:t1", "medai:revoked:user:alice")))
+                .thenReturn(Arrays.asList("1", null));
+        when(values.multiGet(List.of("medai:revoked:token:t2", "medai:revoked:user:bob")))
+                .thenReturn(Arrays.asList(null, null));
+
+        assertTrue(revocations.isRevoked(token("t1", "alice")));
+        assertFalse(revocations.isRevoked(token("t2", "bob")));
+    }
+
+    @Test
+    void builtFilterAnswersMissesLocally() {
+        when(index.rangeByScore(anyString(), anyDouble(), anyDouble()))
+                .thenReturn(new LinkedHashSet<>(Set.of("t:t1")));
+        when(values.multiGet(anyList())).thenReturn(Arrays.asList("1", null));
+
+        revocations.afterSingletonsInstantiated();
+
+        assertTrue(revocations.isRevoked(token("t1", "alice")));
+        verify(values, times(1)).multiGet(anyList());
+
+        clearInvocations(values);
+        assertFalse(revocations.isRevoked(token("t2", "bob")));
+        verify(values, never()).multiGet(anyList());
+    }
+
+    @Test
+    void filterHitWithRedisDownFailsClosed() {
+        when(index.rangeByScore(anyString(), anyDouble(), anyDouble()))
+                .thenReturn(new LinkedHashSet<>(Set.of("u:alice")));
+        revocations.afterSingletonsInstantiated();
+        when(values.multiGet(anyList())).thenThrow(new RedisConnectionFailureException("down"));
+
+        assertTrue(revocations.isRevoked(token("t1", "alice")));
+    }
+
+    private static VerifiedToken token(String tokenId, String username) {
+        long now = System.currentTimeMillis();
+        return new VerifiedToken(tokenId, username, "DOCTOR", 1L, now / 1000, now + 60_000);
+    }
+}
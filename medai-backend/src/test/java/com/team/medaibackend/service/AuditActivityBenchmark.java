@@ -0,0 +1,175 @@
+package com.team.medaibackend.service;
+
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.TestInstance;
+import org.junit.jupiter.api.condition.EnabledIfSystemProperty;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.ResultSetExtractor;
+import org.springframework.test.context.DynamicPropertyRegistry;
+import org.springframework.test.context.DynamicPropertySource;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import javax.sql.DataSource;
+import java.sql.Timestamp;
+import java.time.LocalDate;
+import java.util.*;
+import java.util.function.Supplier;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+/**
+ * Times the user activity aggregates of {@link UserAnalyticsService} (database-side GROUP BY on the
+ * real, partitioned audit_log) against a Java-side aggregation of the same rows over a forward-only
+ * cursor, and checks that both give the same answer.
+ * <p>
+ * Needs a scratch PostgreSQL database and is skipped otherwise. The application starts against it,
+ * so Flyway migrates the schema first; the generated users and audit rows (a window in 2000, well
+ * before any real data) are removed again afterwards.
+ * <pre>
+ * mvn test -Dtest=AuditActivityBenchmark \
+ *     -Dbenchmark.jdbc-url=jdbc:postgresql://localhost:5432/bench \
+ *     -Dbenchmark.user=postgres -Dbenchmark.password=postgres [-Dbenchmark.rows=10000000]
+ * </pre>
+ */
+@SpringBootTest
+@TestInstance(TestInstance.Lifecycle.PER_CLASS)
+@EnabledIfSystemProperty(named = "benchmark.jdbc-url", matches = ".+")
+class AuditActivityBenchmark {
+
+    private static final Logger logger = LoggerFactory.getLogger(AuditActivityBenchmark.class);
+
+    private static final String USER_PREFIX = "audit_benchmark_";
+    private static final int USERS = 2000;
+    // Rows are spread over the 180 days before the anchor; the queries cover the last 90 of them
+    private static final LocalDate ANCHOR = LocalDate.of(2001, 1, 1);
+    private static final LocalDate END = ANCHOR.minusDays(1);
+    private static final LocalDate START = ANCHOR.minusDays(90);
+
+    @DynamicPropertySource
+    static void benchmarkDatabase(DynamicPropertyRegistry registry) {
+        registry.add("spring.datasource.url", () -> System.getProperty("benchmark.jdbc-url"));
+        registry.add("spring.datasource.username", () -> System.getProperty("benchmark.user", "postgres"));
+        registry.add("spring.datasource.password", () -> System.getProperty("benchmark.password", ""));
+    }
+
+    @Autowired
+    private UserAnalyticsService userAnalytics;
+
+    @Autowired
+    private DataSource dataSource;
+
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+    private JdbcTemplate jdbc;
+    private List<String> partitions = List.of();
+
+    @BeforeAll
+    void generate() {
+        jdbc = new JdbcTemplate(dataSource);
+        // Forward-only cursor inside a transaction: the driver fetches 10k rows at a time
+        jdbc.setFetchSize(10_000);
+        long rows = Long.getLong("benchmark.rows", 10_000_000L);
+        Timestamp anchor = Timestamp.valueOf(ANCHOR.atStartOfDay());
+
+        long start = System.currentTimeMillis();
+        partitions = jdbc.queryForList(
+                "SELECT ensure_monthly_partition('audit_log', CAST(month AS date)) FROM generate_series(" +
+                        "date_trunc('month', CAST(? AS timestamp) - interval '180 days'), " +
+                        "CAST(? AS timestamp), interval '1 month') AS month",
+                String.class, anchor, anchor);
+        jdbc.update("INSERT INTO users (username, password_hash, email, full_name) " +
+                "SELECT ? || u, 'x', ? || u || '@example.invalid', 'Benchmark user ' || u " +
+                "FROM generate_series(1, ?) u", USER_PREFIX, USER_PREFIX, USERS);
+        // 12 actions, 7 resource types, users spread evenly, one in fifty rows anonymous
+        jdbc.update("INSERT INTO audit_log (user_id, username, action, resource_type, created_at) " +
+                "SELECT CASE WHEN g % 50 = 0 THEN NULL ELSE u.id END, " +
+                "CASE WHEN g % 50 = 0 THEN NULL ELSE u.username END, " +
+                "'ACTION_' || (g % 12), 'RESOURCE_' || (g % 7), " +
+                "CAST(? AS timestamp) - (random() * interval '180 days') " +
+                "FROM generate_series(1, ?) g " +
+                "JOIN users u ON u.username = ? || (1 + (g * 7919) % ?)",
+                anchor, rows, USER_PREFIX, USERS);
+        jdbc.execute("ANALYZE audit_log");
+        logger.info("Generated {} audit rows in {} ms", rows, System.currentTimeMillis() - start);
+    }
+
+    @AfterAll
+    void cleanUp() {
+        // Drop the generated months whole; the rollup rows the trigger added for them go too
+        for (String partition : partitions) {
+            jdbc.execute("DROP TABLE IF EXISTS " + partition);
+        }
+        jdbc.update("DELETE FROM audit_daily_stats WHERE day >= ? AND day < ?", ANCHOR.minusDays(181), ANCHOR);
+        jdbc.update("DELETE FROM users WHERE username LIKE ?", USER_PREFIX + "%");
+    }
+
+    @Test
+    void activityMetrics() {
+        Map<String, Object> database = timed("activity metrics, GROUP BY",
+                () -> userAnalytics.getActivityMetrics(START, END));
+
+        long[] streamed = timed("activity metrics, cursor + Java", () -> streamed(
+                "SELECT user_id FROM audit_log WHERE created_at BETWEEN ? AND ?", rs -> {
+                    Set<Long> users = new HashSet<>();
+                    long actions = 0;
+                    while (rs.next()) {
+                        actions++;
+                        long userId = rs.getLong(1);
+                        if (!rs.wasNull()) {
+                            users.add(userId);
+                        }
+                    }
+                    return new long[]{actions, users.size()};
+                }));
+
+        assertEquals(streamed[0], database.get("totalActions"));
+        assertEquals(streamed[1], database.get("activeUsers"));
+    }
+
+    @Test
+    void mostActiveUsers() {
+        List<Map<String, Object>> database = timed("most active users, GROUP BY",
+                () -> userAnalytics.getMostActiveUsers(START, END, 10));
+
+        Map<String, Long> counts = timed("most active users, cursor + Java", () -> streamed(
+                "SELECT username FROM audit_log WHERE created_at BETWEEN ? AND ? AND username IS NOT NULL", rs -> {
+                    Map<String, Long> perUser = new HashMap<>();
+                    while (rs.next()) {
+                        perUser.merge(rs.getString(1), 1L, Long::sum);
+                    }
+                    return perUser;
+                }));
+
+        // Ties may order differently, so compare the counts of the top ten rather than the names
+        List<Long> topCounts = counts.values().stream().sorted(Comparator.reverseOrder()).limit(10).toList();
+        assertEquals(topCounts, database.stream().map(user -> (Long) user.get("actionCount")).toList());
+        for (Map<String, Object> user : database) {
+            assertEquals(counts.get((String) user.get("username")), user.get("actionCount"));
+        }
+    }
+
+    /**
+     * Run the query over [START, END] (same bounds as the service) through a cursor
+     */
+    private <T> T streamed(String sql, ResultSetExtractor<T> extractor) {
+        TransactionTemplate transaction = new TransactionTemplate(transactionManager);
+        transaction.setReadOnly(true);
+        return transaction.execute(status -> jdbc.query(sql, extractor,
+                Timestamp.valueOf(START.atStartOfDay()), Timestamp.valueOf(END.atTime(23, 59, 59))));
+    }
+
+    private static <T> T timed(String name, Supplier<T> work) {
+        long start = System.nanoTime();
+        T result = work.get();
+        logger.info("{}: {} ms", name, (System.nanoTime() - start) / 1_000_000);
+        return result;
+    }
+}
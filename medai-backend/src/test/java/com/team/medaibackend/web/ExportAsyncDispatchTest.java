@@ -0,0 +1,207 @@
+package com.team.medaibackend.web;
+
+import com.team.medaibackend.cache.BoundedCacheManager;
+import com.team.medaibackend.config.AsyncConfig;
+import com.team.medaibackend.config.SecurityConfig;
+import com.team.medaibackend.entity.User;
+import com.team.medaibackend.metrics.HttpMetricsRegistry;
+import com.team.medaibackend.metrics.SqlMetrics;
+import com.team.medaibackend.repository.AuditLogRepository;
+import com.team.medaibackend.repository.RoleRepository;
+import com.team.medaibackend.repository.UserRepository;
+import com.team.medaibackend.security.PrincipalCache;
+import com.team.medaibackend.security.SecurityUtils;
+import com.team.medaibackend.security.JwtService;
+import com.team.medaibackend.security.TokenRevocationService;
+import com.team.medaibackend.security.VerifiedToken;
+import com.team.medaibackend.service.*;
+import jakarta.persistence.EntityManagerFactory;
+import jakarta.servlet.DispatcherType;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.WebMvcTest;
+import org.springframework.context.annotation.Import;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.test.context.TestPropertySource;
+import org.springframework.test.context.bean.override.mockito.MockitoBean;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.MvcResult;
+import org.springframework.test.web.servlet.request.MockHttpServletRequestBuilder;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
+
+import java.nio.charset.StandardCharsets;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyBoolean;
+import static org.mockito.ArgumentMatchers.isNull;
+import static org.mockito.Mockito.when;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.asyncDispatch;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.*;
+
+/**
+ * The exports finish on an ASYNC dispatch, which goes through the security filter chain again
+ * without the JWT filter; the authentication of the original dispatch must still apply there.
+ */
+@WebMvcTest(controllers = {AnalyticsController.class, AdminController.class})
+@Import({SecurityConfig.class, AsyncConfig.class, StreamingExportService.class})
+@TestPropertySource(properties = {"analytics.export.pool-size=1", "analytics.export.queue-capacity=0"})
+class ExportAsyncDispatchTest {
+
+    private static final String TOKEN = "Bearer test-token";
+
+    @Autowired
+    private MockMvc mockMvc;
+
+    @MockitoBean
+    private JwtService jwtService;
+    @MockitoBean
+    private TokenRevocationService revocations;
+    @MockitoBean
+    private HttpMetricsRegistry httpMetrics;
+    @MockitoBean
+    private SqlMetrics sqlMetrics;
+    @MockitoBean
+    private PlatformTransactionManager transactionManager;
+    @MockitoBean
+    private EntityManagerFactory entityManagerFactory;
+
+    @MockitoBean
+    private PatientAnalyticsService patientAnalytics;
+    @MockitoBean
+    private StudyAnalyticsService studyAnalytics;
+    @MockitoBean
+    private ReportAnalyticsService reportAnalytics;
+    @MockitoBean
+    private TreatmentAnalyticsService treatmentAnalytics;
+    @MockitoBean
+    private UserAnalyticsService userAnalytics;
+    @MockitoBean
+    private SystemAnalyticsService systemAnalytics;
+    @MockitoBean
+    private AnalyticsRollupService rollups;
+    @MockitoBean
+    private BoundedCacheManager cacheManager;
+    @MockitoBean
+    private CubeService cube;
+    @MockitoBean
+    private AnalyticsExportService analyticsExport;
+
+    @MockitoBean
+    private UserRepository userRepository;
+    @MockitoBean
+    private RoleRepository roleRepository;
+    @MockitoBean
+    private AuditLogRepository auditLogRepository;
+    @MockitoBean
+    private AuditService auditService;
+    @MockitoBean
+    private SecurityUtils securityUtils;
+    @MockitoBean
+    private PrincipalCache principalCache;
+
+    @BeforeEach
+    void authenticate() {
+        when(jwtService.verify("test-token")).thenReturn(new VerifiedToken("id", "admin", "ADMIN", 1L,
+                System.currentTimeMillis() / 1000, System.currentTimeMillis() + 60_000));
+        when(analyticsExport.fileName(any(), any(), any(), any(), anyBoolean())).thenReturn("trends.csv");
+    }
+
+    @Test
+    void exportCompletesOnAsyncDispatch() throws Exception {
+        exporting(output -> output.write("date,studies\r\n".getBytes(StandardCharsets.UTF_8)));
+
+        MvcResult started = mockMvc.perform(export().header("Authorization", TOKEN))
+                .andExpect(request().asyncStarted())
+                .andReturn();
+
+        mockMvc.perform(asyncDispatch(started))
+                .andExpect(status().isOk())
+                .andExpect(header().string("Content-Disposition", "form-data; name=\"attachment\"; filename=\"trends.csv\""))
+                .andExpect(content().string("date,studies\r\n"));
+    }
+
+    @Test
+    void auditExportCompletesOnAsyncDispatch() throws Exception {
+        User admin = new User();
+        admin.setId(1L);
+        admin.setUsername("admin");
+        when(securityUtils.getCurrentUserOrThrow()).thenReturn(admin);
+        when(securityUtils.isAdmin()).thenReturn(true);
+        when(auditService.exportAuditLogs(isNull(), isNull(), isNull(), isNull(), any(), isNull(), anyBoolean()))
+                .thenReturn(output -> output.write("id,action\r\n".getBytes(StandardCharsets.UTF_8)));
+
+        MvcResult started = mockMvc.perform(get("/api/admin/audit/export")
+                        .param("dateFrom", "2026-01-01")
+                        .param("gzip", "false")
+                        .header("Authorization", TOKEN))
+                .andExpect(request().asyncStarted())
+                .andReturn();
+
+        mockMvc.perform(asyncDispatch(started))
+                .andExpect(status().isOk())
+                .andExpect(content().contentType("text/csv;charset=UTF-8"))
+                .andExpect(content().string("id,action\r\n"));
+    }
+
+    @Test
+    void exportRequiresAuthentication() throws Exception {
+        mockMvc.perform(export())
+                .andExpect(request().asyncNotStarted())
+                .andExpect(status().isForbidden());
+    }
+
+    @Test
+    void fullExportPoolIsServiceUnavailable() throws Exception {
+        CountDownLatch release = new CountDownLatch(1);
+        CountDownLatch writing = new CountDownLatch(1);
+        exporting(output -> {
+            writing.countDown();
+            try {
+                release.await(10, TimeUnit.SECONDS);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        });
+
+        // The only export thread is busy and there is no queue
+        MvcResult running = mockMvc.perform(export().header("Authorization", TOKEN))
+                .andExpect(request().asyncStarted())
+                .andReturn();
+        assertTrue(writing.await(10, TimeUnit.SECONDS));
+        try {
+            MvcResult rejected = mockMvc.perform(export().header("Authorization", TOKEN))
+                    .andExpect(request().asyncStarted())
+                    .andReturn();
+            // The rejection is the concurrent result, but MockMvc only records results of tasks that
+            // ran, so asyncDispatch(rejected) would wait for nothing; dispatch the request directly
+            mockMvc.perform(servletContext -> {
+                        MockHttpServletRequest request = rejected.getRequest();
+                        request.setDispatcherType(DispatcherType.ASYNC);
+                        request.setAsyncStarted(false);
+                        return request;
+                    })
+                    .andExpect(status().isServiceUnavailable())
+                    .andExpect(header().exists("Retry-After"));
+        } finally {
+            release.countDown();
+        }
+        mockMvc.perform(asyncDispatch(running)).andExpect(status().isOk());
+    }
+
+    private void exporting(StreamingResponseBody body) {
+        when(analyticsExport.export(any(), any(), any(), any(), anyBoolean())).thenReturn(body);
+    }
+
+    private static MockHttpServletRequestBuilder export() {
+        return get("/api/analytics/export/trends")
+                .param("startDate", "2026-01-01")
+                .param("endDate", "2026-01-31")
+                .param("gzip", "false");
+    }
+}
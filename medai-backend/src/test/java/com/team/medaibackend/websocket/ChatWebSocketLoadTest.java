@@ -0,0 +1,248 @@
+package com.team.medaibackend.websocket;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.condition.EnabledIfSystemProperty;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.http.HttpHeaders;
+import org.springframework.web.socket.CloseStatus;
+import org.springframework.web.socket.WebSocketExtension;
+import org.springframework.web.socket.WebSocketMessage;
+import org.springframework.web.socket.WebSocketSession;
+
+import java.net.InetSocketAddress;
+import java.net.URI;
+import java.security.Principal;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicIntegerArray;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Fan-out under load: thousands of connected clients (two devices per user, a few of them slow
+ * readers) while many threads send to random users at once. Checks that no session is ever
+ * written by two threads at the same time, that every healthy device gets every message for its
+ * user, and that slow clients are disconnected rather than stalling the senders. Timings are logged.
+ * <pre>
+ * mvn test -Dtest=ChatWebSocketLoadTest -Dbenchmark.websocket=true [-Dbenchmark.clients=10000]
+ * </pre>
+ */
+@EnabledIfSystemProperty(named = "benchmark.websocket", matches = "true")
+class ChatWebSocketLoadTest {
+
+    private static final Logger logger = LoggerFactory.getLogger(ChatWebSocketLoadTest.class);
+
+    @Test
+    void fanOutToThousandsOfClients() throws Exception {
+        int clients = Integer.getInteger("benchmark.clients", 10_000);
+        int messages = Integer.getInteger("benchmark.messages", 200_000);
+        int senders = 16;
+        int users = clients / 2;
+        ChatWebSocketHandler handler = new ChatWebSocketHandler(100, 64 * 1024);
+
+        List<StubSession> sessions = new ArrayList<>(clients);
+        for (int i = 0; i < clients; i++) {
+            // One in a hundred clients reads far slower than messages arrive
+            sessions.add(new StubSession("s" + i, i % users, i % 100 == 0 ? 300 : 0));
+        }
+
+        ExecutorService pool = Executors.newFixedThreadPool(senders);
+        long start = System.nanoTime();
+        for (StubSession session : sessions) {
+            pool.execute(() -> {
+                try {
+                    handler.afterConnectionEstablished(session);
+                } catch (Exception e) {
+                    throw new IllegalStateException(e);
+                }
+            });
+        }
+        await(pool);
+        logger.info("Connected {} clients in {} ms", clients, elapsedMillis(start));
+        assertEquals(clients, handler.getStatistics().get("sessions"));
+
+        AtomicIntegerArray sentPerUser = new AtomicIntegerArray(users);
+        AtomicInteger remaining = new AtomicInteger(messages);
+        pool = Executors.newFixedThreadPool(senders);
+        start = System.nanoTime();
+        for (int t = 0; t < senders; t++) {
+            pool.execute(() -> {
+                while (remaining.getAndDecrement() > 0) {
+                    int user = ThreadLocalRandom.current().nextInt(users);
+                    sentPerUser.incrementAndGet(user);
+                    try {
+                        handler.sendToUser((long) user, Map.of("type", "message", "content", "hello"));
+                    } catch (Exception e) {
+                        throw new IllegalStateException(e);
+                    }
+                }
+            });
+        }
+        await(pool);
+        long sendMillis = elapsedMillis(start);
+        logger.info("Sent {} messages in {} ms ({} per second), stats {}",
+                messages, sendMillis, messages * 1000L / Math.max(1, sendMillis), handler.getStatistics());
+
+        long slowClosed = 0;
+        for (StubSession session : sessions) {
+            assertFalse(session.overlapped, "concurrent sends on " + session.getId());
+            if (session.delayMillis == 0) {
+                assertTrue(session.open, "healthy client disconnected: " + session.getId());
+                assertEquals(sentPerUser.get(session.userId), session.received.get(),
+                        "messages lost for " + session.getId());
+            } else if (!session.open) {
+                assertEquals(CloseStatus.SESSION_NOT_RELIABLE, session.closeStatus);
+                slowClosed++;
+            }
+        }
+        // Every dropped slow client was actually disconnected, not just forgotten
+        long dropped = (Long) handler.getStatistics().get("slowConsumersDropped");
+        assertTrue(dropped > 0);
+        assertEquals(dropped, slowClosed);
+
+        start = System.nanoTime();
+        for (StubSession session : sessions) {
+            handler.afterConnectionClosed(session, CloseStatus.NORMAL);
+        }
+        logger.info("Closed {} clients in {} ms", clients, elapsedMillis(start));
+        assertEquals(0, handler.getStatistics().get("sessions"));
+        assertEquals(0, handler.getStatistics().get("connectedUsers"));
+    }
+
+    private static void await(ExecutorService pool) throws InterruptedException {
+        pool.shutdown();
+        assertTrue(pool.awaitTermination(5, TimeUnit.MINUTES), "load did not finish");
+    }
+
+    private static long elapsedMillis(long start) {
+        return TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start);
+    }
+
+    /**
+     * In-memory client: counts what it receives and notes any overlapping sends
+     */
+    private static final class StubSession implements WebSocketSession {
+
+        private final String id;
+        private final int userId;
+        private final long delayMillis;
+        private final URI uri;
+        private final Map<String, Object> attributes = new ConcurrentHashMap<>();
+        private final AtomicInteger received = new AtomicInteger();
+        private final AtomicInteger inFlight = new AtomicInteger();
+        private volatile boolean overlapped;
+        private volatile boolean open = true;
+        private volatile CloseStatus closeStatus;
+
+        StubSession(String id, int userId, long delayMillis) {
+            this.id = id;
+            this.userId = userId;
+            this.delayMillis = delayMillis;
+            this.uri = URI.create("ws://localhost/ws/direct?userId=" + userId);
+        }
+
+        @Override
+        public void sendMessage(WebSocketMessage<?> message) {
+            if (inFlight.incrementAndGet() > 1) {
+                overlapped = true;
+            }
+            try {
+                if (delayMillis > 0) {
+                    Thread.sleep(delayMillis);
+                }
+                received.incrementAndGet();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            } finally {
+                inFlight.decrementAndGet();
+            }
+        }
+
+        @Override
+        public String getId() {
+            return id;
+        }
+
+        @Override
+        public URI getUri() {
+            return uri;
+        }
+
+        @Override
+        public HttpHeaders getHandshakeHeaders() {
+            return new HttpHeaders();
+        }
+
+        @Override
+        public Map<String, Object> getAttributes() {
+            return attributes;
+        }
+
+        @Override
+        public Principal getPrincipal() {
+            return null;
+        }
+
+        @Override
+        public InetSocketAddress getLocalAddress() {
+            return null;
+        }
+
+        @Override
+        public InetSocketAddress getRemoteAddress() {
+            return null;
+        }
+
+        @Override
+        public String getAcceptedProtocol() {
+            return null;
+        }
+
+        @Override
+        public void setTextMessageSizeLimit(int messageSizeLimit) {
+        }
+
+        @Override
+        public int getTextMessageSizeLimit() {
+            return 0;
+        }
+
+        @Override
+        public void setBinaryMessageSizeLimit(int messageSizeLimit) {
+        }
+
+        @Override
+        public int getBinaryMessageSizeLimit() {
+            return 0;
+        }
+
+        @Override
+        public List<WebSocketExtension> getExtensions() {
+            return List.of();
+        }
+
+        @Override
+        public boolean isOpen() {
+            return open;
+        }
+
+        @Override
+        public void close() {
+            close(CloseStatus.NORMAL);
+        }
+
+        @Override
+        public void close(CloseStatus status) {
+            closeStatus = status;
+            open = false;
+        }
+    }
+}